@@ -1,9 +1,12 @@
 package ma.fstt.bookingservice.client;
 
+import ma.fstt.bookingservice.response.UserSyncPageDTO;
 import ma.fstt.bookingservice.response.WalletStatusDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * ✅ CORRECTION : userId doit être String (UUID) pas Long
@@ -23,4 +26,15 @@ public interface AuthServiceClient {
      */
     @GetMapping("/users/{userId}/wallet/status")
     WalletStatusDTO getWalletStatus(@PathVariable("userId") String userId);
-}
\ No newline at end of file
+
+    /**
+     * ✅ NOUVEAU: Export paginé des utilisateurs (amorçage de la table tenants)
+     *
+     * @param afterId curseur (0 pour la première page, puis nextCursor)
+     * @param token   secret partagé service-to-service (X-Internal-Token)
+     */
+    @GetMapping("/users/internal/tenants")
+    UserSyncPageDTO exportUsers(@RequestParam("afterId") long afterId,
+                                @RequestParam("size") int size,
+                                @RequestHeader("X-Internal-Token") String token);
+}
@@ -1,9 +1,12 @@
 package ma.fstt.bookingservice.client;
 
+import ma.fstt.bookingservice.propertysync.PropertySnapshotPage;
 import ma.fstt.bookingservice.response.PropertyDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import java.util.List;
 
 @FeignClient(
@@ -18,4 +21,15 @@ public interface ListingServiceClient {
 
     @GetMapping("/properties/owner/{ownerId}/property-ids")
     List<String> getPropertyIdsByOwner(@PathVariable("ownerId") String ownerId);
+
+    /**
+     * ✅ NOUVEAU: Export paginé de toutes les properties (amorçage du read model property_snapshots)
+     *
+     * @param afterId curseur (0 pour la première page, puis nextCursor)
+     * @param token   secret partagé service-to-service (X-Internal-Token)
+     */
+    @GetMapping("/properties/internal/snapshots")
+    PropertySnapshotPage exportSnapshots(@RequestParam("afterId") long afterId,
+                                         @RequestParam("size") int size,
+                                         @RequestHeader("X-Internal-Token") String token);
 }
\ No newline at end of file
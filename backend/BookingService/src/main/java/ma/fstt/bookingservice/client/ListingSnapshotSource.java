@@ -0,0 +1,30 @@
+package ma.fstt.bookingservice.client;
+
+import lombok.RequiredArgsConstructor;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotPage;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ✅ Export des properties de ListingService pour l'amorçage du package propertysync
+ */
+@Component
+@RequiredArgsConstructor
+public class ListingSnapshotSource implements PropertySnapshotSource {
+
+    private final ListingServiceClient listingServiceClient;
+
+    @Value("${external.services.listing.internal-token:}")
+    private String internalToken;
+
+    @Override
+    public boolean isConfigured() {
+        return !internalToken.isBlank();
+    }
+
+    @Override
+    public PropertySnapshotPage exportSnapshots(long afterId, int size) {
+        return listingServiceClient.exportSnapshots(afterId, size, internalToken);
+    }
+}
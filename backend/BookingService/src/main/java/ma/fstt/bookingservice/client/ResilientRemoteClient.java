@@ -0,0 +1,87 @@
+package ma.fstt.bookingservice.client;
+
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.exception.BookingException;
+import ma.fstt.bookingservice.exception.PropertyNotFoundException;
+import ma.fstt.bookingservice.exception.ServiceUnavailableException;
+import ma.fstt.bookingservice.response.PropertyDTO;
+import ma.fstt.bookingservice.response.WalletStatusDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * ✅ NOUVEAU: Appels AuthService / ListingService protégés par Circuit Breaker
+ *
+ * Bean séparé : les annotations Resilience4j passent par le proxy Spring,
+ * elles étaient sans effet sur les méthodes privées de BookingService.
+ *
+ * 404 → exception métier (ignorée par le breaker, cf. ignore-exceptions) ;
+ * breaker ouvert ou service en erreur → fallback.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResilientRemoteClient {
+
+    private final AuthServiceClient authServiceClient;
+    private final ListingServiceClient listingServiceClient;
+
+    @CircuitBreaker(name = "authService", fallbackMethod = "walletStatusFallback")
+    public WalletStatusDTO getWalletStatus(String userId) {
+        try {
+            return authServiceClient.getWalletStatus(userId);
+        } catch (FeignException.NotFound e) {
+            log.error("❌ User {} not found in AuthService", userId);
+            throw new BookingException("User not found. Please contact support.");
+        }
+    }
+
+    @CircuitBreaker(name = "listingService", fallbackMethod = "propertyFallback")
+    public PropertyDTO getProperty(String propertyId) {
+        try {
+            return listingServiceClient.getProperty(propertyId);
+        } catch (FeignException.NotFound e) {
+            throw new PropertyNotFoundException("Property not found with ID: " + propertyId);
+        }
+    }
+
+    // ========== FALLBACKS ==========
+
+    private WalletStatusDTO walletStatusFallback(String userId, CallNotPermittedException e) {
+        log.error("❌ AuthService circuit breaker open for user {}", userId);
+        throw new ServiceUnavailableException(
+                "Authentication service is temporarily unavailable. Please try again later.");
+    }
+
+    private WalletStatusDTO walletStatusFallback(String userId, FeignException e) {
+        log.error("❌ Error communicating with AuthService: {}", e.getMessage());
+        if (isUnavailable(e)) {
+            throw new ServiceUnavailableException(
+                    "Authentication service is temporarily unavailable. Please try again later.");
+        }
+        throw new BookingException("Unable to verify wallet connection. Please try again later.", e);
+    }
+
+    private PropertyDTO propertyFallback(String propertyId, CallNotPermittedException e) {
+        log.error("❌ ListingService circuit breaker open for property {}", propertyId);
+        throw new ServiceUnavailableException(
+                "Property service is temporarily unavailable. Please try again later.");
+    }
+
+    private PropertyDTO propertyFallback(String propertyId, FeignException e) {
+        log.error("Error fetching property {}: {}", propertyId, e.getMessage());
+        if (isUnavailable(e)) {
+            throw new ServiceUnavailableException(
+                    "Property service is temporarily unavailable. Please try again later.");
+        }
+        throw new BookingException("Unable to fetch property details", e);
+    }
+
+    // Timeout / connexion refusée (status -1) ou 5xx
+    private static boolean isUnavailable(FeignException e) {
+        return e.status() < 0 || e.status() >= 500;
+    }
+}
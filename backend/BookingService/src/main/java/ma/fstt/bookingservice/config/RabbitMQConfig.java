@@ -1,16 +1,20 @@
 package ma.fstt.bookingservice.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -42,14 +46,21 @@ public class RabbitMQConfig {
         return new TopicExchange(USER_EXCHANGE);
     }
 
+    // Lot de tenants rejeté (TenantBatchException) → rental.dlq
     @Bean
     public Queue userCreatedQueue() {
-        return new Queue(USER_CREATED_QUEUE, true);
+        return QueueBuilder.durable(USER_CREATED_QUEUE)
+                .withArgument("x-dead-letter-exchange", "rental.dlx")
+                .withArgument("x-dead-letter-routing-key", "user.created.dead")
+                .build();
     }
 
     @Bean
     public Queue userUpdatedQueue() {
-        return new Queue(USER_UPDATED_QUEUE, true);
+        return QueueBuilder.durable(USER_UPDATED_QUEUE)
+                .withArgument("x-dead-letter-exchange", "rental.dlx")
+                .withArgument("x-dead-letter-routing-key", "user.updated.dead")
+                .build();
     }
 
     @Bean
@@ -87,12 +98,31 @@ public class RabbitMQConfig {
         return new Queue("rental.dlq", true);
     }
 
+    // Routing keys de dead-letter déclarées par les queues de ce service (et par PaymentService)
+    public static final List<String> DEAD_LETTER_ROUTING_KEYS = List.of(
+            "booking.cancelled.dead",
+            "booking.confirmed.dead",
+            "booking.expired.dead",
+            "payment.confirmed.dead",
+            "payment.failed.dead",
+            "payment.reorged.dead",
+            "property.events.dead",
+            "user.created.dead",
+            "user.updated.dead"
+    );
+
+    /**
+     * ⚠️ rental.dlx est un exchange direct : les wildcards ("*.dead") n'y sont pas interprétés,
+     * chaque routing key de dead-letter doit être liée explicitement à rental.dlq.
+     */
     @Bean
-    public Binding deadLetterBinding() {
-        return BindingBuilder
-                .bind(deadLetterQueue())
-                .to(deadLetterExchange())
-                .with("*.dead");
+    public Declarables deadLetterBindings() {
+        return new Declarables(DEAD_LETTER_ROUTING_KEYS.stream()
+                .map(key -> (Declarable) BindingBuilder
+                        .bind(deadLetterQueue())
+                        .to(deadLetterExchange())
+                        .with(key))
+                .toList());
     }
 
     // ========== Queues avec DLX ==========
@@ -155,6 +185,8 @@ public class RabbitMQConfig {
     public static final String PAYMENT_FAILED_QUEUE = "payment.failed.queue";
     public static final String PAYMENT_CONFIRMED_ROUTING_KEY = "payment.confirmed";
     public static final String PAYMENT_FAILED_ROUTING_KEY = "payment.failed";
+    public static final String PAYMENT_REORGED_QUEUE = "payment.reorged.queue";
+    public static final String PAYMENT_REORGED_ROUTING_KEY = "payment.reorged";
 
     @Bean
     public TopicExchange paymentExchange() {
@@ -179,6 +211,15 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    @Bean
+    public Queue paymentReorgedQueue() {
+        return QueueBuilder.durable(PAYMENT_REORGED_QUEUE)
+                .withArgument("x-dead-letter-exchange", "rental.dlx")
+                .withArgument("x-dead-letter-routing-key", "payment.reorged.dead")
+                .withArgument("x-message-ttl", 86400000)
+                .build();
+    }
+
     @Bean
     public Binding paymentConfirmedBinding() {
         return BindingBuilder
@@ -195,6 +236,59 @@ public class RabbitMQConfig {
                 .with(PAYMENT_FAILED_ROUTING_KEY);
     }
 
+    @Bean
+    public Binding paymentReorgedBinding() {
+        return BindingBuilder
+                .bind(paymentReorgedQueue())
+                .to(paymentExchange())
+                .with(PAYMENT_REORGED_ROUTING_KEY);
+    }
+
+    /**
+     * ✅ NOUVEAU: Container des événements de paiement
+     * Consumers par queue réglables (défaut 1 : l'ordre de livraison est conservé jusqu'aux files par booking ;
+     * au-delà, deux événements d'un même booking peuvent arriver dans le désordre, l'inbox garantit
+     * toujours un seul effet par transaction et les files par booking l'absence de traitement simultané),
+     * prefetch = nombre de messages en cours de traitement par consumer,
+     * ack manuel à la fin du traitement asynchrone, rejet sans requeue → DLX.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory paymentListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${booking.payment-events.prefetch:250}") int prefetch,
+            @Value("${booking.payment-events.concurrency:1}") int concurrency,
+            @Value("${booking.payment-events.max-concurrency:1}") int maxConcurrency) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(prefetch);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    /**
+     * ✅ NOUVEAU: Container des événements user.* (projection tenants)
+     * Lot livré dès "batch-size" messages, ou après "max-wait-ms" sans nouveau message avec ce qui est arrivé.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory tenantBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${tenants.sync.batch-size:200}") int batchSize,
+            @Value("${tenants.sync.max-wait-ms:500}") long maxWaitMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(maxWaitMs);
+        factory.setPrefetchCount(batchSize);
+        return factory;
+    }
+
     // ========== CONVERTERS (LA PARTIE CORRIGÉE) ==========
 
     // ✅ UNE SEULE DÉFINITION DE CE BEAN (CELLE AVEC JAVATIMEMODULE)
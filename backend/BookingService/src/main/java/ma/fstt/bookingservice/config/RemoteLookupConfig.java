@@ -0,0 +1,57 @@
+package ma.fstt.bookingservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * ✅ Pool des appels distants lancés en parallèle (wallet AuthService + prix ListingService)
+ */
+@Configuration
+public class RemoteLookupConfig {
+
+    @Value("${booking.lookups.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Value("${booking.lookups.queue-capacity:200}")
+    private int queueCapacity;
+
+    /**
+     * Quand la file est pleine, le thread HTTP fait l'appel lui-même (retour au séquentiel)
+     * Le contexte de requête est recopié : FeignClientInterceptor y lit Authorization / X-User-Id.
+     */
+    @Bean(name = "remoteLookupExecutor")
+    public ThreadPoolTaskExecutor remoteLookupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("remote-lookup-");
+        executor.setTaskDecorator(requestContextPropagation());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    private static TaskDecorator requestContextPropagation() {
+        return task -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+                RequestContextHolder.setRequestAttributes(attributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previous);
+                }
+            };
+        };
+    }
+}
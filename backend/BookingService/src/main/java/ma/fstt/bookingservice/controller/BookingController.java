@@ -1,17 +1,26 @@
 package ma.fstt.bookingservice.controller;
 
+import ma.fstt.bookingservice.dto.AvailabilityDTO;
+import ma.fstt.bookingservice.dto.BookingReconciliationPage;
 import ma.fstt.bookingservice.dto.BookingRequestDTO;
 import ma.fstt.bookingservice.dto.BookingResponseDTO;
 import ma.fstt.bookingservice.dto.HostBookingDTO;
 import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.service.AvailabilityService;
 import ma.fstt.bookingservice.service.BookingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +32,10 @@ import java.util.Map;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final AvailabilityService availabilityService;
+
+    @Value("${internal.api.token:}")
+    private String internalApiToken;
 
     /**
      * Create a new booking
@@ -72,16 +85,50 @@ public class BookingController {
     }
 
     /**
-     * Get all bookings for the authenticated tenant
+     * ✅ NOUVEAU: Host Dashboard paginé et filtré
+     * Filtres optionnels : status (répétable), séjours chevauchant [from, to)
+     *
+     * IMPORTANT: CET ENDPOINT DOIT VENIR AVANT /{bookingId}
+     */
+    @GetMapping("/host/search")
+    public ResponseEntity<Page<HostBookingDTO>> searchHostBookings(
+            @RequestHeader(value = "X-User-Id", required = true) String hostId,
+            @RequestParam(required = false) List<BookingStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(bookingService.searchBookingsForHost(hostId, status, from, to, page, size));
+    }
+
+    /**
+     * ✅ NOUVEAU: Calendrier de disponibilité d'une property (public, pour le frontend)
+     * Par défaut : à partir d'aujourd'hui, sur un mois. Intervalle [from, to).
+     */
+    @GetMapping("/properties/{propertyId}/availability")
+    public ResponseEntity<AvailabilityDTO> getPropertyAvailability(
+            @PathVariable String propertyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusMonths(1);
+        return ResponseEntity.ok(availabilityService.getAvailability(propertyId, start, end));
+    }
+
+    /**
+     * Get bookings for the authenticated tenant (paginé, plus récentes d'abord)
      * ✅ CORRECTION : tenantId reçu comme String
      */
     @GetMapping("/my-bookings")
-    public ResponseEntity<List<BookingResponseDTO>> getMyBookings(
-            @RequestHeader(value = "X-User-Id", required = true) String tenantId
+    public ResponseEntity<Page<BookingResponseDTO>> getMyBookings(
+            @RequestHeader(value = "X-User-Id", required = true) String tenantId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
     ) {
-        log.info("Fetching bookings for tenant {}", tenantId);
-        List<BookingResponseDTO> bookings = bookingService.getBookingsByTenant(tenantId);
-        return ResponseEntity.ok(bookings);
+        log.info("Fetching bookings for tenant {} (page {}, size {})", tenantId, page, size);
+        return ResponseEntity.ok(bookingService.getBookingsByTenant(tenantId, page, size));
     }
 
     /**
@@ -92,12 +139,17 @@ public class BookingController {
         log.info("🔍 Counting future bookings for host: {}", userId);
 
         try {
+            // ✅ Servi par le read model host_bookings
+            long futureCount = bookingService.countFutureBookingsByHost(userId);
+
             Map<String, Object> response = new HashMap<>();
-            response.put("count", 0);
+            response.put("count", futureCount);
             response.put("userId", userId);
-            response.put("message", "No future host bookings found");
+            response.put("message", futureCount > 0
+                    ? "User has future bookings as host"
+                    : "No future host bookings found");
 
-            log.info("✅ Host booking count for {}: 0", userId);
+            log.info("✅ Host booking count for {}: {}", userId, futureCount);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -120,15 +172,8 @@ public class BookingController {
         log.info("🔍 Counting active bookings for client: {}", userId);
 
         try {
-            List<BookingResponseDTO> allBookings = bookingService.getBookingsByTenant(userId);
-
-            long activeCount = allBookings.stream()
-                    .filter(booking ->
-                            booking.getStatus() == BookingStatus.CONFIRMED ||
-                                    booking.getStatus() == BookingStatus.AWAITING_PAYMENT ||
-                                    booking.getStatus() == BookingStatus.PENDING
-                    )
-                    .count();
+            // ✅ COUNT en base (index idx_bookings_tenant_created) au lieu de charger toutes les réservations
+            long activeCount = bookingService.countOpenBookingsByClient(userId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("count", activeCount);
@@ -178,6 +223,34 @@ public class BookingController {
 
     // ========== ENDPOINT GÉNÉRIQUE (DOIT VENIR EN DERNIER) ==========
 
+    /**
+     * ✅ NOUVEAU: Lot de bookings pour la réconciliation (appel interne PaymentService, non routé par le Gateway)
+     * Parcours par clé : afterId = dernier id du lot précédent, résultat trié par id croissant,
+     * hasMore = false en fin de parcours
+     * Protégé par le secret partagé service-to-service (X-Internal-Token)
+     */
+    @GetMapping("/internal/reconciliation")
+    public ResponseEntity<BookingReconciliationPage> getReconciliationBatch(
+            @RequestHeader(value = "X-Internal-Token", required = false) String token,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        if (!isInternalCaller(token)) {
+            log.warn("Rejected reconciliation batch request without a valid internal token");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(bookingService.getReconciliationBatch(afterId, limit));
+    }
+
+    /**
+     * Comparaison en temps constant : la durée ne révèle pas la longueur du préfixe correct
+     */
+    private boolean isInternalCaller(String token) {
+        return !internalApiToken.isBlank() && token != null
+                && MessageDigest.isEqual(internalApiToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Get a specific booking by ID
      * ✅ SÉCURISÉ : Vérification de propriété implémentée
@@ -0,0 +1,69 @@
+package ma.fstt.bookingservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.dto.FailedEventDTO;
+import ma.fstt.bookingservice.dto.FailedEventReplayRequest;
+import ma.fstt.bookingservice.failedevents.FailedEventService;
+import ma.fstt.bookingservice.failedevents.FailedEventStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ✅ NOUVEAU: Administration des événements en échec (rental.dlq)
+ * Rôle ADMIN vérifié par le Gateway.
+ */
+@RestController
+@RequestMapping("/bookings/admin/failed-events")
+@RequiredArgsConstructor
+@Slf4j
+public class FailedEventAdminController {
+
+    private final FailedEventService failedEventService;
+
+    @GetMapping
+    public ResponseEntity<Page<FailedEventDTO>> listFailedEvents(
+            @RequestParam(required = false) List<FailedEventStatus> status,
+            @RequestParam(required = false) String routingKey,
+            @RequestParam(required = false) String queue,
+            @RequestParam(required = false) String reason,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(failedEventService.search(status, routingKey, queue, reason, from, to, page, size));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<FailedEventDTO> getFailedEvent(@PathVariable Long id) {
+        return ResponseEntity.ok(failedEventService.get(id));
+    }
+
+    /**
+     * Rejeu groupé vers l'exchange / la routing key d'origine (débit limité)
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Integer>> replayFailedEvents(
+            @RequestHeader(value = "X-User-Id", required = false) String adminId,
+            @RequestBody FailedEventReplayRequest request
+    ) {
+        log.info("🔁 Replay of failed events requested by {}: {}", adminId, request);
+        return ResponseEntity.ok(failedEventService.replay(request));
+    }
+
+    @PostMapping("/{id}/discard")
+    public ResponseEntity<FailedEventDTO> discardFailedEvent(
+            @RequestHeader(value = "X-User-Id", required = false) String adminId,
+            @PathVariable Long id
+    ) {
+        log.info("🗑️ Failed event {} discarded by {}", id, adminId);
+        return ResponseEntity.ok(failedEventService.discard(id));
+    }
+}
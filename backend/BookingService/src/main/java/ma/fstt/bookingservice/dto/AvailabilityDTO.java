@@ -0,0 +1,41 @@
+package ma.fstt.bookingservice.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Calendrier de disponibilité d'une property sur [from, to)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityDTO {
+
+    private String propertyId;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    /**
+     * true si toutes les nuits de [from, to) sont libres
+     */
+    private boolean available;
+
+    private List<DayAvailability> days;
+
+    /**
+     * AVAILABLE, PENDING (réservé, en attente de paiement), BOOKED (confirmé), PAST
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayAvailability {
+        private LocalDate date;
+        private String status;
+    }
+}
@@ -0,0 +1,22 @@
+package ma.fstt.bookingservice.dto;
+
+import lombok.*;
+import ma.fstt.bookingservice.repository.BookingReconciliationView;
+
+import java.util.List;
+
+/**
+ * Lot du parcours de réconciliation (GET /bookings/internal/reconciliation)
+ * hasMore est explicite : le lot peut être plus petit que la limite demandée (plafond serveur)
+ * sans que le parcours soit terminé.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingReconciliationPage {
+
+    private List<BookingReconciliationView> items;
+
+    private boolean hasMore;
+}
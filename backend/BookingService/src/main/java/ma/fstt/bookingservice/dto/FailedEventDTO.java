@@ -0,0 +1,39 @@
+package ma.fstt.bookingservice.dto;
+
+import lombok.*;
+import ma.fstt.bookingservice.failedevents.FailedEventStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO admin d'un événement en échec (rental.dlq)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedEventDTO {
+
+    private Long id;
+
+    // Destination d'origine (depuis x-death)
+    private String originalExchange;
+    private String originalRoutingKey;
+    private String originalQueue;
+
+    private String reason;
+    private long deathCount;
+    private int retryAttempts;
+    private int replayCount;
+    private FailedEventStatus status;
+
+    // Message brut
+    private String contentType;
+    private String headers;
+    private String body;
+
+    private LocalDateTime firstFailedAt;
+    private LocalDateTime lastFailedAt;
+    private LocalDateTime nextRetryAt;
+    private LocalDateTime replayedAt;
+}
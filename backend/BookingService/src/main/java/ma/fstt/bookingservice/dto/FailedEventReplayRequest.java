@@ -0,0 +1,29 @@
+package ma.fstt.bookingservice.dto;
+
+import lombok.*;
+import ma.fstt.bookingservice.failedevents.FailedEventStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rejeu groupé : soit une liste d'ids, soit un filtre (status NEW + PARKED par défaut)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedEventReplayRequest {
+
+    private List<Long> ids;
+
+    private List<FailedEventStatus> status;
+    private String routingKey;
+    private String queue;
+    private String reason;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    // Plafonné par failed-events.replay.max-batch
+    private Integer limit;
+}
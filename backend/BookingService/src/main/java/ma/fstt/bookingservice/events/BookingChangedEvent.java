@@ -0,0 +1,40 @@
+package ma.fstt.bookingservice.events;
+
+import lombok.Getter;
+import ma.fstt.bookingservice.model.Booking;
+
+import java.util.List;
+
+/**
+ * ✅ Événement applicatif (Spring) : un ou plusieurs bookings créés ou changés de statut
+ *
+ * Publié dans la transaction qui modifie les bookings ; les read models locaux
+ * (tableau de bord hôte) se mettent à jour après son commit, dans leur propre transaction.
+ */
+@Getter
+public class BookingChangedEvent {
+
+    private final List<Booking> bookings;
+
+    /**
+     * Propriétaire connu au moment de la création (réponse ListingService), peut être null
+     */
+    private final String hostId;
+
+    private BookingChangedEvent(List<Booking> bookings, String hostId) {
+        this.bookings = bookings;
+        this.hostId = hostId;
+    }
+
+    public static BookingChangedEvent created(Booking booking, String hostId) {
+        return new BookingChangedEvent(List.of(booking), hostId);
+    }
+
+    public static BookingChangedEvent of(Booking booking) {
+        return new BookingChangedEvent(List.of(booking), null);
+    }
+
+    public static BookingChangedEvent of(List<Booking> bookings) {
+        return new BookingChangedEvent(List.copyOf(bookings), null);
+    }
+}
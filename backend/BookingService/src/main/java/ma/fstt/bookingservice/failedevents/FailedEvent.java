@@ -0,0 +1,79 @@
+package ma.fstt.bookingservice.failedevents;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Message arrivé dans rental.dlq, conservé pour diagnostic et rejeu
+ *
+ * Corps et headers AMQP sont stockés tels quels (JSON) ; l'exchange et la routing key
+ * d'origine viennent du header x-death. Un message rejoué qui meurt à nouveau
+ * met à jour la même ligne (header x-failed-event-id).
+ */
+@Entity
+@Table(
+        name = "failed_events",
+        indexes = {
+                @Index(name = "idx_failed_events_status_failed", columnList = "status, last_failed_at"),
+                @Index(name = "idx_failed_events_routing_key", columnList = "original_routing_key")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FailedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "original_exchange", length = 255)
+    private String originalExchange;
+
+    @Column(name = "original_routing_key", length = 255)
+    private String originalRoutingKey;
+
+    @Column(name = "original_queue", length = 255)
+    private String originalQueue;
+
+    @Column(length = 50)
+    private String reason;
+
+    @Column(name = "death_count", nullable = false)
+    private long deathCount;
+
+    @Column(name = "retry_attempts", nullable = false)
+    private int retryAttempts;
+
+    @Column(name = "replay_count", nullable = false)
+    private int replayCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private FailedEventStatus status;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(columnDefinition = "text")
+    private String headers;
+
+    @Column(columnDefinition = "text")
+    private String body;
+
+    @Column(name = "first_failed_at", nullable = false)
+    private LocalDateTime firstFailedAt;
+
+    @Column(name = "last_failed_at", nullable = false)
+    private LocalDateTime lastFailedAt;
+
+    @Column(name = "next_retry_at")
+    private LocalDateTime nextRetryAt;
+
+    @Column(name = "replayed_at")
+    private LocalDateTime replayedAt;
+}
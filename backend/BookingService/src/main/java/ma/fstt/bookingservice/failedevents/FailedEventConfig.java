@@ -0,0 +1,109 @@
+package ma.fstt.bookingservice.failedevents;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.retry.ImmediateRequeueMessageRecoverer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Topologie des retries différés
+ *
+ * rental.retry (direct)
+ *   ├─ "delay.5000"  → rental.retry.5000  (TTL 5s,  DLX rental.retry / "due")
+ *   ├─ "delay.30000" → rental.retry.30000 (TTL 30s, DLX rental.retry / "due")
+ *   ├─ ...
+ *   └─ "due"         → rental.retry.due   → FailedEventService.onRetryDue → exchange d'origine
+ *
+ * Une queue par délai : le TTL est celui de la queue, les messages expirent donc dans l'ordre
+ * (un TTL par message bloquerait les messages courts derrière les longs).
+ */
+@Configuration
+public class FailedEventConfig {
+
+    public static final String RETRY_EXCHANGE = "rental.retry";
+    public static final String RETRY_DUE_QUEUE = "rental.retry.due";
+    public static final String RETRY_DUE_ROUTING_KEY = "due";
+
+    @Value("${failed-events.retry.delays-ms:5000,30000,120000,600000}")
+    private List<Long> retryDelaysMs;
+
+    @Bean
+    public DirectExchange retryExchange() {
+        return new DirectExchange(RETRY_EXCHANGE);
+    }
+
+    @Bean
+    public Queue retryDueQueue() {
+        return new Queue(RETRY_DUE_QUEUE, true);
+    }
+
+    @Bean
+    public Binding retryDueBinding() {
+        return BindingBuilder
+                .bind(retryDueQueue())
+                .to(retryExchange())
+                .with(RETRY_DUE_ROUTING_KEY);
+    }
+
+    /**
+     * Une queue d'attente (sans consumer) par palier de backoff
+     */
+    @Bean
+    public Declarables retryDelayQueues() {
+        List<Declarable> declarables = new ArrayList<>();
+        for (Long delayMs : retryDelaysMs) {
+            Queue queue = QueueBuilder.durable(delayQueueName(delayMs))
+                    .withArgument("x-message-ttl", delayMs)
+                    .withArgument("x-dead-letter-exchange", RETRY_EXCHANGE)
+                    .withArgument("x-dead-letter-routing-key", RETRY_DUE_ROUTING_KEY)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(retryExchange()).with(delayRoutingKey(delayMs)));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Consumers de rental.dlq et rental.retry.due
+     * Base indisponible → quelques essais avec backoff dans le consumer, puis requeue :
+     * le message mort n'est jamais perdu (rental.dlq n'a pas de DLX).
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory failedEventListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(true);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(5)
+                .backOffOptions(1000, 2.0, 30000)
+                .recoverer(new ImmediateRequeueMessageRecoverer())
+                .build());
+        return factory;
+    }
+
+    static String delayQueueName(long delayMs) {
+        return RETRY_EXCHANGE + "." + delayMs;
+    }
+
+    static String delayRoutingKey(long delayMs) {
+        return "delay." + delayMs;
+    }
+}
@@ -0,0 +1,9 @@
+package ma.fstt.bookingservice.failedevents;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FailedEventRepository extends JpaRepository<FailedEvent, Long>, JpaSpecificationExecutor<FailedEvent> {
+}
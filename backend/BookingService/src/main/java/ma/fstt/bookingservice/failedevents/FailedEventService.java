@@ -0,0 +1,421 @@
+package ma.fstt.bookingservice.failedevents;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.dto.FailedEventDTO;
+import ma.fstt.bookingservice.dto.FailedEventReplayRequest;
+import ma.fstt.bookingservice.exception.BookingException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ✅ NOUVEAU: Sous-système des événements en échec (rental.dlq)
+ *
+ * 1. Chaque message mort est enregistré dans failed_events (corps, headers, compteurs x-death).
+ * 2. Rejet par un consumer ("rejected") → retry automatique différé, backoff exponentiel
+ *    via les queues TTL de {@link FailedEventConfig} ; paliers épuisés → PARKED.
+ * 3. Rejeu manuel (admin) vers l'exchange / la routing key d'origine, débit limité.
+ *
+ * Un message republié porte x-failed-event-id : s'il meurt encore, la même ligne est mise à jour.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FailedEventService {
+
+    public static final String HEADER_FAILED_EVENT_ID = "x-failed-event-id";
+    public static final String HEADER_RETRY_ATTEMPT = "x-retry-attempt";
+    public static final String HEADER_ORIGINAL_EXCHANGE = "x-original-exchange";
+    public static final String HEADER_ORIGINAL_ROUTING_KEY = "x-original-routing-key";
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "lastFailedAt");
+    private static final List<FailedEventStatus> DEFAULT_REPLAY_STATUSES =
+            List.of(FailedEventStatus.NEW, FailedEventStatus.PARKED);
+    private static final TypeReference<Map<String, Object>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private final FailedEventRepository failedEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${failed-events.retry.delays-ms:5000,30000,120000,600000}")
+    private List<Long> retryDelaysMs;
+
+    @Value("${failed-events.retry.reasons:rejected}")
+    private List<String> retryableReasons;
+
+    @Value("${failed-events.replay.rate-per-second:50}")
+    private int replayRatePerSecond;
+
+    @Value("${failed-events.replay.max-batch:1000}")
+    private int replayMaxBatch;
+
+    @Value("${failed-events.page.max-size:100}")
+    private int maxPageSize;
+
+    // ========== RÉCEPTION (rental.dlq) ==========
+
+    /**
+     * Enregistrer un message mort puis, si la cause s'y prête, programmer son retry
+     */
+    public FailedEvent onDeadLetter(Message message) {
+        FailedEvent event = record(message);
+
+        if (event.getStatus() == FailedEventStatus.RETRY_SCHEDULED) {
+            try {
+                publishRetry(event);
+            } catch (AmqpException e) {
+                // Le message est en base : il reste rejouable depuis l'API admin
+                log.error("❌ Could not schedule retry for failed event {}: {}", event.getId(), e.getMessage());
+                event.setStatus(FailedEventStatus.NEW);
+                event.setNextRetryAt(null);
+                event = failedEventRepository.save(event);
+            }
+        }
+        return event;
+    }
+
+    public FailedEvent record(Message message) {
+        MessageProperties props = message.getMessageProperties();
+        List<Map<String, ?>> xDeath = props.getXDeathHeader();
+        Map<String, ?> latestDeath = xDeath != null && !xDeath.isEmpty() ? xDeath.get(0) : Map.of();
+        // x-death : entrée la plus récente en tête, la plus ancienne (= origine) en fin de liste
+        Map<String, ?> originDeath = xDeath != null && !xDeath.isEmpty() ? xDeath.get(xDeath.size() - 1) : Map.of();
+
+        LocalDateTime now = LocalDateTime.now();
+        Long existingId = headerAsLong(props.getHeader(HEADER_FAILED_EVENT_ID));
+        FailedEvent event = existingId != null
+                ? failedEventRepository.findById(existingId).orElse(null)
+                : null;
+
+        if (event == null) {
+            event = FailedEvent.builder()
+                    .status(FailedEventStatus.NEW)
+                    .firstFailedAt(now)
+                    .build();
+        }
+
+        String originalExchange = props.getHeader(HEADER_ORIGINAL_EXCHANGE);
+        String originalRoutingKey = props.getHeader(HEADER_ORIGINAL_ROUTING_KEY);
+        event.setOriginalExchange(originalExchange != null ? originalExchange : asString(originDeath.get("exchange")));
+        event.setOriginalRoutingKey(originalRoutingKey != null ? originalRoutingKey : firstRoutingKey(originDeath));
+        if (event.getOriginalQueue() == null) {
+            event.setOriginalQueue(asString(originDeath.get("queue")));
+        }
+        event.setReason(asString(latestDeath.get("reason")));
+        event.setDeathCount(event.getDeathCount() + totalDeaths(xDeath));
+        event.setContentType(props.getContentType());
+        event.setHeaders(writeHeaders(props.getHeaders()));
+        event.setBody(new String(message.getBody(), StandardCharsets.UTF_8));
+        event.setLastFailedAt(now);
+
+        if (event.getStatus() != FailedEventStatus.DISCARDED) {
+            if (isRetryable(event)) {
+                long delayMs = retryDelaysMs.get(event.getRetryAttempts());
+                event.setRetryAttempts(event.getRetryAttempts() + 1);
+                event.setNextRetryAt(now.plus(delayMs, ChronoUnit.MILLIS));
+                event.setStatus(FailedEventStatus.RETRY_SCHEDULED);
+            } else {
+                event.setNextRetryAt(null);
+                event.setStatus(retryableReasons.contains(event.getReason())
+                        ? FailedEventStatus.PARKED
+                        : FailedEventStatus.NEW);
+            }
+        }
+
+        FailedEvent saved = failedEventRepository.save(event);
+        log.error("💀 Dead letter stored: id={}, routingKey={}, queue={}, reason={}, deaths={}, status={}",
+                saved.getId(), saved.getOriginalRoutingKey(), saved.getOriginalQueue(),
+                saved.getReason(), saved.getDeathCount(), saved.getStatus());
+        return saved;
+    }
+
+    /**
+     * Message sorti d'une queue d'attente (TTL écoulé) → retour vers l'exchange d'origine
+     */
+    public void onRetryDue(Message message) {
+        MessageProperties props = message.getMessageProperties();
+        String exchange = props.getHeader(HEADER_ORIGINAL_EXCHANGE);
+        String routingKey = props.getHeader(HEADER_ORIGINAL_ROUTING_KEY);
+        Long eventId = headerAsLong(props.getHeader(HEADER_FAILED_EVENT_ID));
+
+        if (exchange == null || routingKey == null) {
+            log.warn("⚠️ Retry message without original destination dropped (failed event {})", eventId);
+            return;
+        }
+
+        stripDeathHeaders(props.getHeaders());
+        rabbitTemplate.send(exchange, routingKey, message);
+
+        if (eventId != null) {
+            failedEventRepository.findById(eventId).ifPresent(event -> {
+                if (event.getStatus() == FailedEventStatus.RETRY_SCHEDULED) {
+                    event.setStatus(FailedEventStatus.REPLAYED);
+                    event.setNextRetryAt(null);
+                    event.setReplayedAt(LocalDateTime.now());
+                    failedEventRepository.save(event);
+                }
+            });
+        }
+        log.info("🔁 Failed event {} retried to {}/{}", eventId, exchange, routingKey);
+    }
+
+    // ========== ADMIN ==========
+
+    @Transactional(readOnly = true)
+    public Page<FailedEventDTO> search(List<FailedEventStatus> statuses, String routingKey, String queue,
+                                       String reason, LocalDateTime from, LocalDateTime to,
+                                       int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize), DEFAULT_SORT);
+        return failedEventRepository.findAll(filter(statuses, routingKey, queue, reason, from, to), pageRequest)
+                .map(FailedEventService::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public FailedEventDTO get(Long id) {
+        return failedEventRepository.findById(id)
+                .map(FailedEventService::toDto)
+                .orElseThrow(() -> new BookingException("Failed event not found: " + id));
+    }
+
+    public FailedEventDTO discard(Long id) {
+        FailedEvent event = failedEventRepository.findById(id)
+                .orElseThrow(() -> new BookingException("Failed event not found: " + id));
+        event.setStatus(FailedEventStatus.DISCARDED);
+        event.setNextRetryAt(null);
+        return toDto(failedEventRepository.save(event));
+    }
+
+    /**
+     * Rejeu groupé : par ids, sinon par filtre (NEW + PARKED par défaut), au plus max-batch messages
+     *
+     * synchronized : les rejeux concurrents partagent le même débit (rate-per-second par instance).
+     */
+    public synchronized Map<String, Integer> replay(FailedEventReplayRequest request) {
+        int limit = request.getLimit() != null
+                ? Math.min(Math.max(request.getLimit(), 1), replayMaxBatch)
+                : replayMaxBatch;
+
+        List<FailedEvent> events;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            events = failedEventRepository.findAllById(request.getIds().stream().limit(limit).toList());
+        } else {
+            List<FailedEventStatus> statuses = request.getStatus() != null && !request.getStatus().isEmpty()
+                    ? request.getStatus()
+                    : DEFAULT_REPLAY_STATUSES;
+            Specification<FailedEvent> spec = filter(statuses, request.getRoutingKey(), request.getQueue(),
+                    request.getReason(), request.getFrom(), request.getTo());
+            events = failedEventRepository.findAll(spec, PageRequest.of(0, limit, Sort.by("id"))).getContent();
+        }
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(replayRatePerSecond, 1);
+        long nextSlot = System.nanoTime();
+        int replayed = 0;
+        int skipped = 0;
+
+        for (FailedEvent event : events) {
+            if (event.getStatus() == FailedEventStatus.DISCARDED
+                    || event.getOriginalExchange() == null || event.getOriginalRoutingKey() == null) {
+                skipped++;
+                continue;
+            }
+
+            long waitNanos = nextSlot - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            nextSlot = Math.max(nextSlot, System.nanoTime()) + intervalNanos;
+
+            try {
+                rabbitTemplate.send(event.getOriginalExchange(), event.getOriginalRoutingKey(), toMessage(event));
+            } catch (AmqpException e) {
+                log.error("❌ Replay of failed event {} stopped: {}", event.getId(), e.getMessage());
+                break;
+            }
+
+            event.setStatus(FailedEventStatus.REPLAYED);
+            event.setReplayCount(event.getReplayCount() + 1);
+            event.setRetryAttempts(0);
+            event.setNextRetryAt(null);
+            event.setReplayedAt(LocalDateTime.now());
+            failedEventRepository.save(event);
+            replayed++;
+        }
+
+        log.info("🔁 Replayed {} failed events ({} skipped, {} selected)", replayed, skipped, events.size());
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("selected", events.size());
+        result.put("replayed", replayed);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    // ========== UTILITAIRES ==========
+
+    private boolean isRetryable(FailedEvent event) {
+        return retryableReasons.contains(event.getReason())
+                && event.getRetryAttempts() < retryDelaysMs.size()
+                && event.getOriginalExchange() != null
+                && event.getOriginalRoutingKey() != null;
+    }
+
+    private void publishRetry(FailedEvent event) {
+        long delayMs = retryDelaysMs.get(event.getRetryAttempts() - 1);
+        rabbitTemplate.send(FailedEventConfig.RETRY_EXCHANGE, FailedEventConfig.delayRoutingKey(delayMs), toMessage(event));
+        log.info("⏳ Failed event {} retry #{} in {} ms", event.getId(), event.getRetryAttempts(), delayMs);
+    }
+
+    /**
+     * Reconstruire le message d'origine depuis la base (headers de mort retirés)
+     */
+    private Message toMessage(FailedEvent event) {
+        Map<String, Object> headers = readHeaders(event.getHeaders());
+        stripDeathHeaders(headers);
+
+        MessageBuilder builder = MessageBuilder.withBody(event.getBody().getBytes(StandardCharsets.UTF_8));
+        builder.setContentType(event.getContentType() != null ? event.getContentType() : MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name());
+        headers.forEach(builder::setHeader);
+        return builder
+                .setHeader(HEADER_FAILED_EVENT_ID, event.getId())
+                .setHeader(HEADER_RETRY_ATTEMPT, event.getRetryAttempts())
+                .setHeader(HEADER_ORIGINAL_EXCHANGE, event.getOriginalExchange())
+                .setHeader(HEADER_ORIGINAL_ROUTING_KEY, event.getOriginalRoutingKey())
+                .build();
+    }
+
+    private static Specification<FailedEvent> filter(Collection<FailedEventStatus> statuses, String routingKey,
+                                                     String queue, String reason,
+                                                     LocalDateTime from, LocalDateTime to) {
+        Specification<FailedEvent> spec = (root, query, cb) -> cb.conjunction();
+        if (statuses != null && !statuses.isEmpty()) {
+            spec = spec.and((root, query, cb) -> root.get("status").in(statuses));
+        }
+        if (routingKey != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("originalRoutingKey"), routingKey));
+        }
+        if (queue != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("originalQueue"), queue));
+        }
+        if (reason != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("reason"), reason));
+        }
+        if (from != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("lastFailedAt"), from));
+        }
+        if (to != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("lastFailedAt"), to));
+        }
+        return spec;
+    }
+
+    private static void stripDeathHeaders(Map<String, Object> headers) {
+        headers.keySet().removeIf(name -> name.equals("x-death")
+                || name.startsWith("x-first-death-")
+                || name.startsWith("x-last-death-"));
+    }
+
+    private static long totalDeaths(List<Map<String, ?>> xDeath) {
+        if (xDeath == null) {
+            return 1;
+        }
+        long total = 0;
+        for (Map<String, ?> death : xDeath) {
+            Object count = death.get("count");
+            total += count instanceof Number n ? n.longValue() : 1;
+        }
+        return Math.max(total, 1);
+    }
+
+    private static String firstRoutingKey(Map<String, ?> death) {
+        Object keys = death.get("routing-keys");
+        if (keys instanceof List<?> list && !list.isEmpty()) {
+            return String.valueOf(list.get(0));
+        }
+        return null;
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Long headerAsLong(Object value) {
+        if (value instanceof Number n) {
+            return n.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.valueOf(value.toString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private String writeHeaders(Map<String, Object> headers) {
+        try {
+            return objectMapper.writeValueAsString(headers);
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Could not serialize dead letter headers: {}", e.getMessage());
+            return "{}";
+        }
+    }
+
+    private Map<String, Object> readHeaders(String json) {
+        if (json == null || json.isBlank()) {
+            return new HashMap<>();
+        }
+        try {
+            return new HashMap<>(objectMapper.readValue(json, HEADERS_TYPE));
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Could not read stored headers: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    static FailedEventDTO toDto(FailedEvent event) {
+        return FailedEventDTO.builder()
+                .id(event.getId())
+                .originalExchange(event.getOriginalExchange())
+                .originalRoutingKey(event.getOriginalRoutingKey())
+                .originalQueue(event.getOriginalQueue())
+                .reason(event.getReason())
+                .deathCount(event.getDeathCount())
+                .retryAttempts(event.getRetryAttempts())
+                .replayCount(event.getReplayCount())
+                .status(event.getStatus())
+                .contentType(event.getContentType())
+                .headers(event.getHeaders())
+                .body(event.getBody())
+                .firstFailedAt(event.getFirstFailedAt())
+                .lastFailedAt(event.getLastFailedAt())
+                .nextRetryAt(event.getNextRetryAt())
+                .replayedAt(event.getReplayedAt())
+                .build();
+    }
+}
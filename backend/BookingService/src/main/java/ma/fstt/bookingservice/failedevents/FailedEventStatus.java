@@ -0,0 +1,13 @@
+package ma.fstt.bookingservice.failedevents;
+
+/**
+ * Cycle de vie d'un message mort
+ * NEW → RETRY_SCHEDULED → (REPLAYED | re-mort) ... → PARKED si les retries automatiques sont épuisés
+ */
+public enum FailedEventStatus {
+    NEW,
+    RETRY_SCHEDULED,
+    REPLAYED,
+    PARKED,
+    DISCARDED
+}
@@ -0,0 +1,76 @@
+package ma.fstt.bookingservice.hostdashboard;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ma.fstt.bookingservice.model.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Read model dénormalisé du tableau de bord hôte (une ligne par booking)
+ *
+ * Le propriétaire (hostId) et le nom / email du locataire sont recopiés sur chaque ligne :
+ * le tableau de bord se lit en une requête indexée, sans appel à ListingService ni jointure.
+ * hostId peut être null tant que la property n'a pas été synchronisée (événements property.*).
+ */
+@Entity
+@Table(
+        name = "host_bookings",
+        indexes = {
+                @Index(name = "idx_host_bookings_host_start", columnList = "host_id, start_date"),
+                @Index(name = "idx_host_bookings_host_status_start", columnList = "host_id, status, start_date"),
+                @Index(name = "idx_host_bookings_property", columnList = "property_id"),
+                @Index(name = "idx_host_bookings_tenant", columnList = "tenant_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HostBooking {
+
+    @Id
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "host_id", length = 255)
+    private String hostId;
+
+    @Column(name = "property_id", nullable = false)
+    private String propertyId;
+
+    @Column(name = "tenant_id", nullable = false, length = 255)
+    private String tenantId;
+
+    @Column(name = "tenant_name", length = 201)
+    private String tenantName;
+
+    @Column(name = "tenant_email", length = 255)
+    private String tenantEmail;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BookingStatus status;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal pricePerNight;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Column(length = 10)
+    private String currency;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
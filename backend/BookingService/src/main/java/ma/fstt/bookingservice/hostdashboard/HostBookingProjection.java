@@ -0,0 +1,328 @@
+package ma.fstt.bookingservice.hostdashboard;
+
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.client.ListingServiceClient;
+import ma.fstt.bookingservice.dto.HostBookingDTO;
+import ma.fstt.bookingservice.events.BookingChangedEvent;
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.propertysync.PropertyChangedEvent;
+import ma.fstt.bookingservice.propertysync.PropertySnapshot;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotStore;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.response.PropertyDTO;
+import ma.fstt.bookingservice.service.AvailabilityService;
+import ma.fstt.bookingservice.service.TenantDirectory;
+import ma.fstt.bookingservice.service.TenantDirectory.TenantInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ✅ Tableau de bord hôte : maintien et lecture du read model host_bookings
+ *
+ * Alimenté par :
+ * - {@link BookingChangedEvent} (création, confirmation, annulation, expiration), après commit,
+ *   dans sa propre transaction : un échec de projection n'annule plus la réservation
+ * - {@link PropertyChangedEvent} (propriétaire d'une property), après mise à jour du snapshot local
+ * - les mises à jour de tenants (nom / email)
+ *
+ * Reconstruction (au démarrage puis périodiquement) : projette les bookings absents, resynchronise
+ * les lignes périmées (projection après commit manquée) et rattache leur hôte aux lignes sans hostId.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HostBookingProjection {
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "startDate");
+
+    private final HostBookingRepository hostBookingRepository;
+    private final BookingRepository bookingRepository;
+    private final TenantDirectory tenantDirectory;
+    private final PropertySnapshotStore propertySnapshotStore;
+    private final ListingServiceClient listingServiceClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${host-dashboard.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${host-dashboard.backfill.batch-size:500}")
+    private int backfillBatchSize;
+
+    // ========== MISE À JOUR ==========
+
+    /**
+     * Projection après commit de la transaction métier, dans une nouvelle transaction
+     * (un échec est journalisé par Spring et rattrapé par {@link #rebuild()})
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onBookingChanged(BookingChangedEvent event) {
+        project(event.getBookings(), event.getHostId());
+    }
+
+    void project(List<Booking> bookings, String hostIdHint) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        Map<Long, HostBooking> existing = hostBookingRepository
+                .findAllById(bookings.stream().map(Booking::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(HostBooking::getBookingId, Function.identity()));
+
+        List<Booking> missing = bookings.stream().filter(b -> !existing.containsKey(b.getId())).toList();
+        Map<String, TenantInfo> tenants = loadTenants(missing);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<HostBooking> rows = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            HostBooking row = existing.get(booking.getId());
+            if (row == null) {
+                row = newRow(booking, hostIdHint, tenants.get(booking.getTenantId()));
+            } else {
+                row.setStatus(booking.getStatus());
+                row.setStartDate(booking.getStartDate());
+                row.setEndDate(booking.getEndDate());
+                row.setUpdatedAt(now);
+            }
+            rows.add(row);
+        }
+        hostBookingRepository.saveAll(rows);
+    }
+
+    /**
+     * Snapshot de property créé / mis à jour : (ré)attribuer ses bookings au propriétaire
+     */
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (event.getOwnerId() == null) {
+            return;
+        }
+        int updated = hostBookingRepository.assignHost(event.getPropertyId(), event.getOwnerId());
+        if (updated > 0) {
+            log.info("🏠 {} host bookings of property {} assigned to host {}",
+                    updated, event.getPropertyId(), event.getOwnerId());
+        }
+    }
+
+    /**
+     * Lot de tenants mis à jour (nom / email) : une requête UPDATE par tenant, une transaction
+     */
+    @Transactional
+    public void onTenantsUpdated(Collection<TenantInfo> tenants) {
+        for (TenantInfo tenant : tenants) {
+            hostBookingRepository.updateTenant(tenant.userId(), tenant.name(), tenant.email());
+        }
+    }
+
+    // ========== LECTURE ==========
+
+    /**
+     * Bookings d'un hôte, filtrés et paginés (une requête indexée + un COUNT)
+     *
+     * @param statuses statuts acceptés (tous si vide)
+     * @param from     séjours se terminant après cette date (optionnel)
+     * @param to       séjours commençant avant cette date (optionnel)
+     */
+    public Page<HostBookingDTO> search(String hostId, Collection<BookingStatus> statuses,
+                                       LocalDate from, LocalDate to, int page, int size) {
+        Specification<HostBooking> spec = (root, query, cb) -> cb.equal(root.get("hostId"), hostId);
+        if (statuses != null && !statuses.isEmpty()) {
+            spec = spec.and((root, query, cb) -> root.get("status").in(statuses));
+        }
+        if (from != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("endDate"), from));
+        }
+        if (to != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("startDate"), to));
+        }
+
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize), DEFAULT_SORT);
+        return hostBookingRepository.findAll(spec, pageRequest).map(HostBookingProjection::toDto);
+    }
+
+    /**
+     * Tous les bookings d'un hôte (endpoint historique non paginé)
+     */
+    public List<HostBookingDTO> findAllForHost(String hostId) {
+        Specification<HostBooking> spec = (root, query, cb) -> cb.equal(root.get("hostId"), hostId);
+        return hostBookingRepository.findAll(spec, DEFAULT_SORT).stream()
+                .map(HostBookingProjection::toDto)
+                .toList();
+    }
+
+    /**
+     * Réservations à venir (AWAITING_PAYMENT / CONFIRMED) sur les properties d'un hôte
+     */
+    public long countFutureBookings(String hostId) {
+        return hostBookingRepository.countByHostIdAndStatusInAndStartDateAfter(
+                hostId, AvailabilityService.BLOCKING_STATUSES, LocalDate.now());
+    }
+
+    // ========== RECONSTRUCTION ==========
+
+    /**
+     * Au démarrage puis périodiquement (par défaut toutes les 10 minutes) :
+     * 1. bookings absents du read model (antérieurs au read model ou projection manquée)
+     * 2. lignes périmées (statut / dates différents du booking)
+     * 3. hôte des lignes sans hostId (snapshot local, sinon ListingService)
+     * Une transaction par lot ; relançable sans effet de bord.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${host-dashboard.rebuild-interval-ms:600000}",
+            initialDelayString = "${host-dashboard.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        try {
+            int created = projectBatches(bookingRepository::findWithoutHostBooking);
+            int resynced = projectBatches(bookingRepository::findOutOfSyncWithHostBooking);
+            int assigned = assignMissingHosts();
+            if (created + resynced + assigned > 0) {
+                log.info("🏠 Host dashboard rebuilt: {} bookings projected, {} resynced, {} rows assigned to their host",
+                        created, resynced, assigned);
+            }
+        } catch (Exception e) {
+            log.error("❌ Host dashboard rebuild failed", e);
+        }
+    }
+
+    private int projectBatches(BiFunction<Long, Pageable, List<Booking>> loader) {
+        int projected = 0;
+        long afterId = 0L;
+        while (true) {
+            long from = afterId;
+            List<Booking> batch = transactionTemplate.execute(status -> {
+                List<Booking> loaded = loader.apply(from, PageRequest.of(0, backfillBatchSize));
+                project(loaded, null);
+                return loaded;
+            });
+            if (batch == null || batch.isEmpty()) {
+                return projected;
+            }
+            projected += batch.size();
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Lignes sans hôte (property jamais synchronisée) : propriétaire résolu une fois par property,
+     * hors transaction, puis UPDATE par lot
+     */
+    private int assignMissingHosts() {
+        int assigned = 0;
+        String afterPropertyId = "";
+        while (true) {
+            List<String> propertyIds = hostBookingRepository.findPropertyIdsWithoutHost(
+                    afterPropertyId, PageRequest.of(0, backfillBatchSize));
+            if (propertyIds.isEmpty()) {
+                return assigned;
+            }
+
+            Map<String, String> owners = new LinkedHashMap<>();
+            for (String propertyId : propertyIds) {
+                String ownerId = resolveOwner(propertyId);
+                if (ownerId != null) {
+                    owners.put(propertyId, ownerId);
+                }
+            }
+            Integer updated = transactionTemplate.execute(status -> owners.entrySet().stream()
+                    .mapToInt(e -> hostBookingRepository.assignHost(e.getKey(), e.getValue()))
+                    .sum());
+            assigned += updated != null ? updated : 0;
+            afterPropertyId = propertyIds.get(propertyIds.size() - 1);
+        }
+    }
+
+    private String resolveOwner(String propertyId) {
+        String ownerId = propertySnapshotStore.find(propertyId).map(PropertySnapshot::getOwnerId).orElse(null);
+        if (ownerId != null) {
+            return ownerId;
+        }
+        try {
+            PropertyDTO property = listingServiceClient.getProperty(propertyId);
+            return property != null ? property.getOwnerId() : null;
+        } catch (FeignException e) {
+            // ⚠️ Réessayé à la prochaine reconstruction
+            log.warn("⚠️ Could not resolve owner of property {} from ListingService: {}", propertyId, e.getMessage());
+            return null;
+        }
+    }
+
+    // ========== INTERNE ==========
+
+    private HostBooking newRow(Booking booking, String hostIdHint, TenantInfo tenant) {
+        String hostId = propertySnapshotStore.find(booking.getPropertyId())
+                .map(PropertySnapshot::getOwnerId)
+                .orElse(hostIdHint);
+
+        return HostBooking.builder()
+                .bookingId(booking.getId())
+                .hostId(hostId)
+                .propertyId(booking.getPropertyId())
+                .tenantId(booking.getTenantId())
+                .tenantName(tenant != null ? tenant.name() : null)
+                .tenantEmail(tenant != null ? tenant.email() : null)
+                .startDate(booking.getStartDate())
+                .endDate(booking.getEndDate())
+                .status(booking.getStatus())
+                .pricePerNight(booking.getPricePerNight())
+                .totalPrice(booking.getTotalPrice())
+                .currency(booking.getCurrency())
+                .createdAt(booking.getCreatedAt())
+                .updatedAt(booking.getUpdatedAt())
+                .build();
+    }
+
+    private Map<String, TenantInfo> loadTenants(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return Map.of();
+        }
+        Set<String> tenantIds = bookings.stream().map(Booking::getTenantId).collect(Collectors.toSet());
+        return tenantDirectory.findAll(tenantIds);
+    }
+
+    private static HostBookingDTO toDto(HostBooking row) {
+        return HostBookingDTO.builder()
+                .bookingId(row.getBookingId())
+                .propertyId(row.getPropertyId())
+                .tenantId(row.getTenantId())
+                .tenantName(row.getTenantName() != null ? row.getTenantName() : "Unknown")
+                .tenantEmail(row.getTenantEmail() != null ? row.getTenantEmail() : "N/A")
+                .startDate(row.getStartDate())
+                .endDate(row.getEndDate())
+                .status(row.getStatus())
+                .pricePerNight(row.getPricePerNight())
+                .totalPrice(row.getTotalPrice())
+                .currency(row.getCurrency())
+                .createdAt(row.getCreatedAt())
+                .updatedAt(row.getUpdatedAt())
+                .build();
+    }
+}
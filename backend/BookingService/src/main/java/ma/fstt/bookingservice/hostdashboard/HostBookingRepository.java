@@ -0,0 +1,48 @@
+package ma.fstt.bookingservice.hostdashboard;
+
+import ma.fstt.bookingservice.model.BookingStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HostBookingRepository extends JpaRepository<HostBooking, Long>, JpaSpecificationExecutor<HostBooking> {
+
+    /**
+     * Réservations futures d'un hôte (index idx_host_bookings_host_status_start)
+     */
+    long countByHostIdAndStatusInAndStartDateAfter(String hostId, Collection<BookingStatus> statuses, LocalDate date);
+
+    /**
+     * Changement de propriétaire (ou première synchronisation) d'une property
+     */
+    @Modifying
+    @Query("UPDATE HostBooking h SET h.hostId = :hostId " +
+            "WHERE h.propertyId = :propertyId AND (h.hostId IS NULL OR h.hostId <> :hostId)")
+    int assignHost(@Param("propertyId") String propertyId, @Param("hostId") String hostId);
+
+    /**
+     * Properties dont les lignes n'ont pas encore d'hôte, par keyset sur propertyId
+     */
+    @Query("SELECT DISTINCT h.propertyId FROM HostBooking h " +
+            "WHERE h.hostId IS NULL AND h.propertyId > :afterPropertyId ORDER BY h.propertyId")
+    List<String> findPropertyIdsWithoutHost(@Param("afterPropertyId") String afterPropertyId, Pageable pageable);
+
+    /**
+     * Nom / email du locataire modifiés dans AuthService
+     */
+    @Modifying
+    @Query("UPDATE HostBooking h SET h.tenantName = :tenantName, h.tenantEmail = :tenantEmail " +
+            "WHERE h.tenantId = :tenantId")
+    int updateTenant(@Param("tenantId") String tenantId,
+                     @Param("tenantName") String tenantName,
+                     @Param("tenantEmail") String tenantEmail);
+}
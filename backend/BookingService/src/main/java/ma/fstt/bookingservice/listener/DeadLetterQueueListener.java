@@ -1,22 +1,34 @@
 package ma.fstt.bookingservice.listener;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.failedevents.FailedEventConfig;
+import ma.fstt.bookingservice.failedevents.FailedEventService;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class DeadLetterQueueListener {
 
+    private final FailedEventService failedEventService;
+
     /**
-     * ✅ Écoute la Dead Letter Queue pour logger les échecs
+     * ✅ Écoute la Dead Letter Queue : persistance dans failed_events + retry différé
+     * Message brut (pas de conversion JSON) : corps et headers x-death sont conservés tels quels.
      */
-    @RabbitListener(queues = "rental.dlq")
-    public void handleDeadLetter(JsonNode message) {
-        log.error("💀 Dead letter received: {}", message.toString());
+    @RabbitListener(queues = "rental.dlq", containerFactory = "failedEventListenerContainerFactory")
+    public void handleDeadLetter(Message message) {
+        failedEventService.onDeadLetter(message);
+    }
 
-        // TODO: Envoyer alerte email/Slack
-        // TODO: Sauvegarder dans une table 'failed_events' pour retry manuel
+    /**
+     * ✅ Délai de retry écoulé → republication vers la destination d'origine
+     */
+    @RabbitListener(queues = FailedEventConfig.RETRY_DUE_QUEUE, containerFactory = "failedEventListenerContainerFactory")
+    public void handleRetryDue(Message message) {
+        failedEventService.onRetryDue(message);
     }
-}
\ No newline at end of file
+}
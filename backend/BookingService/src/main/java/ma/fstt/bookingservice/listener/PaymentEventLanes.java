@@ -0,0 +1,66 @@
+package ma.fstt.bookingservice.listener;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ✅ Files de traitement ordonnées par booking
+ *
+ * Chaque événement est routé vers une file (un thread) par hachage stable du bookingId :
+ * les événements d'un même booking sont traités un par un, dans leur ordre de réception,
+ * et des bookings différents sont traités en parallèle sur "lanes" threads.
+ * La profondeur des files est bornée en amont par le prefetch du consumer RabbitMQ.
+ */
+@Component
+@Slf4j
+public class PaymentEventLanes {
+
+    private final ExecutorService[] lanes;
+
+    public PaymentEventLanes(@Value("${booking.payment-events.lanes:8}") int laneCount) {
+        this.lanes = new ExecutorService[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            int lane = i;
+            lanes[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "payment-lane-" + lane);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Long bookingId, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, lanes[laneOf(bookingId)]);
+    }
+
+    int laneOf(Long bookingId) {
+        // Mélange des bits (ids séquentiels) puis modulo : même booking → même file
+        long h = bookingId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) lanes.length);
+    }
+
+    public int size() {
+        return lanes.length;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("⚠️ Payment lane did not drain in time, pending events will be redelivered");
+                lane.shutdownNow();
+            }
+        }
+    }
+}
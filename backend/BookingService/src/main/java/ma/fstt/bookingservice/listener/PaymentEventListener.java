@@ -3,10 +3,12 @@ package ma.fstt.bookingservice.listener;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import ma.fstt.bookingservice.service.BookingService;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 🔒 LA VRAIE SOLUTION SÉCURISÉE
  *
@@ -17,13 +19,21 @@ import org.springframework.stereotype.Component;
  * - Queue: payment.confirmed.queue
  * - Exchange: payment.exchange
  * - Routing Key: payment.confirmed
+ *
+ * ✅ NOUVEAU: Traitement concurrent, ordonné par booking et idempotent
+ * - Consumers et prefetch réglables (paymentListenerContainerFactory), un consumer par queue par défaut
+ * - Chaque message est confié à la file de son booking ({@link PaymentEventLanes}) ;
+ *   l'ack est envoyé quand le traitement est terminé (valeur de retour asynchrone)
+ * - Effet exactly-once via l'inbox ({@link PaymentEventProcessor})
+ * - Échec → nack sans requeue → rental.dlx (plus aucune erreur avalée)
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentEventListener {
 
-    private final BookingService bookingService;
+    private final PaymentEventProcessor paymentEventProcessor;
+    private final PaymentEventLanes paymentEventLanes;
 
     /**
      * Listener pour les paiements confirmés
@@ -36,44 +46,48 @@ public class PaymentEventListener {
      *   "status": "CONFIRMED"
      * }
      */
-    @RabbitListener(queues = "${rabbitmq.queue.payment-confirmed}")
-    public void handlePaymentConfirmed(JsonNode paymentEvent) {
-        try {
-            Long bookingId = paymentEvent.get("bookingId").asLong();
-            String transactionId = paymentEvent.get("transactionId").asText();
-
-            log.info("🔔 Payment confirmed for booking {} - Transaction: {}",
-                    bookingId, transactionId);
-
-            // ✅ Appel sécurisé interne (pas via HTTP)
-            bookingService.confirmBooking(bookingId);
-
-            log.info("✅ Booking {} successfully confirmed after payment validation", bookingId);
-
-        } catch (Exception e) {
-            log.error("❌ Error processing payment confirmation: {}", e.getMessage(), e);
-            // TODO: Implémenter retry logic ou DLQ (Dead Letter Queue)
-        }
+    @RabbitListener(queues = "${rabbitmq.queue.payment-confirmed}", containerFactory = "paymentListenerContainerFactory")
+    public CompletableFuture<Void> handlePaymentConfirmed(JsonNode paymentEvent) {
+        return dispatch(PaymentEventType.CONFIRMED, paymentEvent);
     }
 
     /**
      * Listener pour les paiements échoués
      */
-    @RabbitListener(queues = "${rabbitmq.queue.payment-failed}")
-    public void handlePaymentFailed(JsonNode paymentEvent) {
-        try {
-            Long bookingId = paymentEvent.get("bookingId").asLong();
-            String reason = paymentEvent.get("reason").asText();
+    @RabbitListener(queues = "${rabbitmq.queue.payment-failed}", containerFactory = "paymentListenerContainerFactory")
+    public CompletableFuture<Void> handlePaymentFailed(JsonNode paymentEvent) {
+        return dispatch(PaymentEventType.FAILED, paymentEvent);
+    }
 
-            log.warn("⚠️ Payment failed for booking {} - Reason: {}", bookingId, reason);
+    /**
+     * ✅ NOUVEAU: Listener pour les paiements sortis de la chaîne par une réorganisation
+     */
+    @RabbitListener(queues = "${rabbitmq.queue.payment-reorged}", containerFactory = "paymentListenerContainerFactory")
+    public CompletableFuture<Void> handlePaymentReorged(JsonNode paymentEvent) {
+        return dispatch(PaymentEventType.REORGED, paymentEvent);
+    }
 
-            // Auto-annulation de la réservation
-            bookingService.cancelBooking(bookingId);
+    private CompletableFuture<Void> dispatch(PaymentEventType type, JsonNode paymentEvent) {
+        JsonNode bookingIdNode = paymentEvent.path("bookingId");
+        String transactionId = paymentEvent.path("transactionId").asText(null);
+        if (!bookingIdNode.canConvertToLong() || transactionId == null || transactionId.isBlank()) {
+            // Message inexploitable : inutile de le rejouer
+            throw new AmqpRejectAndDontRequeueException("Malformed " + type.getKey() + " event: " + paymentEvent);
+        }
 
-            log.info("Booking {} auto-cancelled due to payment failure", bookingId);
+        Long bookingId = bookingIdNode.asLong();
+        String reason = paymentEvent.path("reason").asText(null);
 
-        } catch (Exception e) {
-            log.error("❌ Error processing payment failure: {}", e.getMessage(), e);
-        }
+        log.info("🔔 {} for booking {} - Transaction: {}", type.getKey(), bookingId, transactionId);
+
+        return paymentEventLanes.submit(bookingId, () ->
+                        paymentEventProcessor.process(type, bookingId, transactionId, reason))
+                .whenComplete((outcome, error) -> {
+                    if (error != null) {
+                        log.error("❌ Error processing {} for booking {}: {}",
+                                type.getKey(), bookingId, error.getMessage(), error);
+                    }
+                })
+                .thenApply(outcome -> null);
     }
-}
\ No newline at end of file
+}
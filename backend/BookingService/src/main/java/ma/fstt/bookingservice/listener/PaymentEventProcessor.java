@@ -0,0 +1,91 @@
+package ma.fstt.bookingservice.listener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.model.ProcessedPaymentEvent;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.repository.ProcessedPaymentEventRepository;
+import ma.fstt.bookingservice.service.BookingService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Traitement transactionnel d'un événement de paiement
+ *
+ * Dans une seule transaction :
+ * 1. réservation dans l'inbox (transactionId, type) — doublon → aucun effet
+ * 2. verrou du booking (FOR UPDATE) — confirmation et annulation ne se croisent jamais
+ * 3. effet (confirm / cancel / revert) si la transition est permise, sinon REJECTED (tracé, sans effet)
+ * Une réorganisation et une reconfirmation portent le même transactionId : chacune efface l'entrée
+ * d'inbox de l'autre, pour que la suivante soit à nouveau traitée.
+ * Une exception inattendue annule tout, y compris l'inbox : le message pourra être rejoué.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentEventProcessor {
+
+    public enum Outcome { PROCESSED, DUPLICATE, REJECTED }
+
+    private final ProcessedPaymentEventRepository inboxRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+
+    @Transactional
+    public Outcome process(PaymentEventType type, Long bookingId, String transactionId, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        if (inboxRepository.insertIfAbsent(transactionId, type.getKey(), bookingId, now) == 0) {
+            log.info("🔁 Duplicate {} for booking {} (tx {}), ignored", type.getKey(), bookingId, transactionId);
+            return Outcome.DUPLICATE;
+        }
+
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElse(null);
+        String rejection = rejectionReason(type, booking);
+        if (rejection != null) {
+            log.error("❌ {} for booking {} (tx {}) rejected: {}", type.getKey(), bookingId, transactionId, rejection);
+            inboxRepository.markOutcome(transactionId, type.getKey(), ProcessedPaymentEvent.OUTCOME_REJECTED, rejection, now);
+            return Outcome.REJECTED;
+        }
+
+        switch (type) {
+            case CONFIRMED -> {
+                bookingService.confirmBooking(bookingId);
+                inboxRepository.deleteByTransactionIdAndEventType(transactionId, PaymentEventType.REORGED.getKey());
+                log.info("✅ Booking {} successfully confirmed after payment validation", bookingId);
+            }
+            case FAILED -> {
+                bookingService.cancelBooking(bookingId);
+                log.info("Booking {} auto-cancelled due to payment failure: {}", bookingId, reason);
+            }
+            case REORGED -> {
+                bookingService.revertConfirmation(bookingId);
+                inboxRepository.deleteByTransactionIdAndEventType(transactionId, PaymentEventType.CONFIRMED.getKey());
+                log.warn("⚠️ Booking {} awaiting payment again, payment reorganized: {}", bookingId, reason);
+            }
+        }
+
+        inboxRepository.markOutcome(transactionId, type.getKey(), ProcessedPaymentEvent.OUTCOME_PROCESSED, reason, now);
+        return Outcome.PROCESSED;
+    }
+
+    /**
+     * Transitions permises :
+     * - payment.confirmed : AWAITING_PAYMENT → CONFIRMED
+     * - payment.failed : AWAITING_PAYMENT → CANCELLED (un échec ne défait pas un paiement déjà confirmé)
+     * - payment.reorged : CONFIRMED → AWAITING_PAYMENT (transaction sortie de la chaîne)
+     */
+    private static String rejectionReason(PaymentEventType type, Booking booking) {
+        if (booking == null) {
+            return "Booking not found";
+        }
+        BookingStatus expected = type == PaymentEventType.REORGED ? BookingStatus.CONFIRMED : BookingStatus.AWAITING_PAYMENT;
+        if (booking.getStatus() != expected) {
+            return "Booking is " + booking.getStatus() + ", expected " + expected;
+        }
+        return null;
+    }
+}
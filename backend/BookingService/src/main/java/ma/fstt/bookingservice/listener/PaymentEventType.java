@@ -0,0 +1,21 @@
+package ma.fstt.bookingservice.listener;
+
+/**
+ * Types d'événements publiés par PaymentService (clé de l'inbox avec le transactionId)
+ */
+public enum PaymentEventType {
+
+    CONFIRMED("payment.confirmed"),
+    FAILED("payment.failed"),
+    REORGED("payment.reorged");
+
+    private final String key;
+
+    PaymentEventType(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -1,95 +1,103 @@
 package ma.fstt.bookingservice.messaging;
 
 import ma.fstt.bookingservice.entities.Tenant;
-import ma.fstt.bookingservice.repository.TenantRepository;
+import ma.fstt.bookingservice.hostdashboard.HostBookingProjection;
+import ma.fstt.bookingservice.service.BookingLookupService;
+import ma.fstt.bookingservice.service.TenantDirectory;
+import ma.fstt.bookingservice.service.TenantDirectory.TenantBatchException;
+import ma.fstt.bookingservice.service.TenantDirectory.TenantInfo;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import lombok.extern.slf4j.Slf4j;
 
 
-import java.util.Optional;
+import java.util.List;
 
+/**
+ * ✅ Synchronisation des tenants depuis AuthService
+ * Consommation par lots (tenantBatchContainerFactory) : jusqu'à N messages ou T ms,
+ * appliqués en un seul batch JDBC.
+ * Un lot dont des lignes restent en échec est rejeté sans requeue → rental.dlq (rejoué par FailedEventService).
+ */
 @Component
 @Slf4j
 public class UserEventListener {
 
     @Autowired
-    private TenantRepository tenantRepository;
+    private TenantDirectory tenantDirectory;
+
+    @Autowired
+    private HostBookingProjection hostBookingProjection;
+
+    @Autowired
+    private BookingLookupService bookingLookupService;
 
     /**
      * ✅ Écouter les événements de création d'utilisateur
+     * Un tenant déjà existant n'est pas écrasé
      */
-    @RabbitListener(queues = "user.created.queue")
-    public void handleUserCreated(UserCreatedEvent event) {
+    @RabbitListener(queues = "user.created.queue", containerFactory = "tenantBatchContainerFactory")
+    public void handleUserCreated(List<UserCreatedEvent> events) {
         try {
-            log.info("📩 Événement reçu: Création d'utilisateur → " + event);
-
-            // Vérifier si le tenant existe déjà (éviter les doublons)
-            Optional<Tenant> existingTenant = tenantRepository.findByUserId(event.getUserId());
-
-            if (existingTenant.isPresent()) {
-                System.out.println("⚠️ Tenant déjà existant: " + event.getUserId());
-                return;
-            }
+            log.info("📩 {} événements reçus: Création d'utilisateur", events.size());
 
-            // Créer le tenant
-            Tenant tenant = new Tenant();
-            tenant.setUserId(event.getUserId());
-            tenant.setEmail(event.getEmail());
-            tenant.setFirstname(event.getFirstname());
-            tenant.setLastname(event.getLastname());
-            tenant.setWalletAddress(event.getWalletAddress());
+            List<Tenant> tenants = events.stream()
+                    .map(event -> toTenant(event.getUserId(), event.getEmail(), event.getFirstname(),
+                            event.getLastname(), event.getWalletAddress()))
+                    .toList();
+            tenants.forEach(tenant -> bookingLookupService.invalidateWallet(tenant.getUserId()));
 
-            tenantRepository.save(tenant);
-            System.out.println("✅ Tenant créé avec succès: " + tenant.getUserId());
+            tenantDirectory.upsertAll(tenants, false);
 
+        } catch (TenantBatchException e) {
+            log.error("❌ Lot user.created rejeté, tenants en échec: {}", e.getFailedUserIds());
+            throw new AmqpRejectAndDontRequeueException(e.getMessage(), e);
         } catch (Exception e) {
-            log.error("❌ Erreur lors de la création du tenant: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ Erreur lors de la création des tenants: {}", e.getMessage(), e);
             throw e; // Re-throw pour que RabbitMQ puisse retry si configuré
         }
     }
 
     /**
      * ✅ Écouter les événements de mise à jour d'utilisateur
+     * Tenant créé s'il n'existe pas, sinon mis à jour (champs absents conservés)
      */
-    @RabbitListener(queues = "user.updated.queue")
-    public void handleUserUpdated(UserUpdatedEvent event) {
+    @RabbitListener(queues = "user.updated.queue", containerFactory = "tenantBatchContainerFactory")
+    public void handleUserUpdated(List<UserUpdatedEvent> events) {
         try {
-            System.out.println("📩 Événement reçu: Mise à jour d'utilisateur → " + event);
-
-            // Trouver le tenant
-            Optional<Tenant> tenantOpt = tenantRepository.findByUserId(event.getUserId());
-
-            if (!tenantOpt.isPresent()) {
-                System.err.println("⚠️ Tenant non trouvé pour mise à jour: " + event.getUserId());
-                // Créer le tenant si il n'existe pas
-                Tenant newTenant = new Tenant();
-                newTenant.setUserId(event.getUserId());
-                newTenant.setEmail(event.getEmail());
-                newTenant.setFirstname(event.getFirstname());
-                newTenant.setLastname(event.getLastname());
-                newTenant.setWalletAddress(event.getWalletAddress());
-                tenantRepository.save(newTenant);
-                System.out.println("✅ Tenant créé (via update event): " + newTenant.getUserId());
-                return;
-            }
-
-            // Mettre à jour le tenant
-            Tenant tenant = tenantOpt.get();
-            tenant.setEmail(event.getEmail());
-            tenant.setFirstname(event.getFirstname());
-            tenant.setLastname(event.getLastname());
-            tenant.setWalletAddress(event.getWalletAddress());
-
-            tenantRepository.save(tenant);
-            System.out.println("✅ Tenant mis à jour avec succès: " + tenant.getUserId());
+            log.info("📩 {} événements reçus: Mise à jour d'utilisateur", events.size());
 
+            List<Tenant> tenants = events.stream()
+                    .map(event -> toTenant(event.getUserId(), event.getEmail(), event.getFirstname(),
+                            event.getLastname(), event.getWalletAddress()))
+                    .toList();
+            // ✅ Wallet potentiellement changé → cache de création de booking invalidé
+            tenants.forEach(tenant -> bookingLookupService.invalidateWallet(tenant.getUserId()));
+
+            List<TenantInfo> updated = tenantDirectory.upsertAll(tenants, true);
+
+            // ✅ Nom / email recopiés dans le tableau de bord hôte
+            hostBookingProjection.onTenantsUpdated(updated);
+            log.info("✅ {} tenants mis à jour", updated.size());
+
+        } catch (TenantBatchException e) {
+            log.error("❌ Lot user.updated rejeté, tenants en échec: {}", e.getFailedUserIds());
+            throw new AmqpRejectAndDontRequeueException(e.getMessage(), e);
         } catch (Exception e) {
-            System.err.println("❌ Erreur lors de la mise à jour du tenant: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ Erreur lors de la mise à jour des tenants: {}", e.getMessage(), e);
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    private static Tenant toTenant(String userId, String email, String firstname, String lastname, String walletAddress) {
+        return Tenant.builder()
+                .userId(userId)
+                .email(email)
+                .firstname(firstname)
+                .lastname(lastname)
+                .walletAddress(walletAddress)
+                .build();
+    }
+}
@@ -13,9 +13,14 @@ import java.time.LocalDateTime;
 @Table(
         name = "bookings",
         indexes = {
-                @Index(name = "idx_status_created", columnList = "status, createdAt")  // ✅ AJOUTER
+                @Index(name = "idx_status_created", columnList = "status, createdAt"),  // ✅ AJOUTER
+                // ✅ NOUVEAU: "mes réservations" paginées, triées par date de création
+                @Index(name = "idx_bookings_tenant_created", columnList = "tenantId, createdAt"),
+                // ✅ NOUVEAU: compteurs par client et statut (index-only)
+                @Index(name = "idx_bookings_tenant_status", columnList = "tenantId, status")
         }
-)@Getter
+)
+@Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
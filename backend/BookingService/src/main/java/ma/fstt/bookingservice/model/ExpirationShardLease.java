@@ -0,0 +1,32 @@
+package ma.fstt.bookingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Bail d'un shard d'expiration (booking.id % nombre de shards)
+ *
+ * Une ligne par shard. Une instance possède un shard tant que leaseUntil est dans le futur ;
+ * elle le renouvelle périodiquement. Un bail expiré (instance arrêtée) est repris par une autre.
+ */
+@Entity
+@Table(name = "expiration_shard_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpirationShardLease {
+
+    @Id
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "owner", length = 100)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
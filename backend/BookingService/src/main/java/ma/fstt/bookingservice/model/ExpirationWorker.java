@@ -0,0 +1,27 @@
+package ma.fstt.bookingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Instance participant à l'expiration (heartbeat)
+ * Sert à calculer la part de shards de chaque instance, y compris celles qui n'en ont encore aucun.
+ */
+@Entity
+@Table(name = "expiration_workers")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpirationWorker {
+
+    @Id
+    @Column(name = "worker_id", length = 100)
+    private String workerId;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,59 @@
+package ma.fstt.bookingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Inbox des événements de paiement (effet exactly-once)
+ *
+ * Une ligne par (transactionId, type d'événement), insérée dans la même transaction que
+ * l'effet (confirmation / annulation). Une redélivrance RabbitMQ trouve la ligne et n'a aucun effet.
+ */
+@Entity
+@Table(
+        name = "payment_event_inbox",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_payment_event_inbox", columnNames = {"transaction_id", "event_type"})
+        },
+        indexes = {
+                @Index(name = "idx_payment_event_inbox_booking", columnList = "booking_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedPaymentEvent {
+
+    public static final String OUTCOME_PENDING = "PENDING";
+    public static final String OUTCOME_PROCESSED = "PROCESSED";
+    public static final String OUTCOME_REJECTED = "REJECTED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false, length = 100)
+    private String transactionId;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(nullable = false, length = 20)
+    private String outcome;
+
+    @Column(length = 500)
+    private String detail;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
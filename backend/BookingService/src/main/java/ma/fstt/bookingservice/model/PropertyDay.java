@@ -0,0 +1,53 @@
+package ma.fstt.bookingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * ✅ Occupation d'une property pour une nuit donnée
+ *
+ * Une ligne par nuit réservée (startDate inclus, endDate exclu) pour les bookings
+ * AWAITING_PAYMENT et CONFIRMED. Les lignes sont supprimées à l'annulation / expiration.
+ * Contrainte unique (property_id, day) : deux bookings ne peuvent jamais occuper la même nuit.
+ */
+@Entity
+@Table(
+        name = "property_day",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_property_day", columnNames = {"property_id", "day"})
+        },
+        indexes = {
+                @Index(name = "idx_property_day_booking", columnList = "booking_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PropertyDay {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Séquence "pooled" (un nextval pour ALLOCATION_SIZE lignes) : les nuits d'un booking partent en batch JDBC,
+    // ce que IDENTITY empêche (un aller-retour par INSERT pour lire l'id généré)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "property_day_seq")
+    @SequenceGenerator(name = "property_day_seq", sequenceName = "property_day_seq", allocationSize = ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "property_id", nullable = false)
+    private String propertyId;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BookingStatus status;
+}
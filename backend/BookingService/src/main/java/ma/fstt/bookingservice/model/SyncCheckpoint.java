@@ -0,0 +1,37 @@
+package ma.fstt.bookingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Point de reprise d'un import depuis un autre service (ex: amorçage des tenants)
+ *
+ * Une ligne par import. Le curseur est enregistré après chaque page importée :
+ * un import interrompu reprend là où il s'est arrêté ; completed = true une fois terminé.
+ */
+@Entity
+@Table(name = "sync_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    /**
+     * Dernier id importé (pagination par curseur de la source)
+     */
+    @Column(name = "cursor_value", nullable = false)
+    private Long cursor;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,53 @@
+package ma.fstt.bookingservice.propertysync;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Événement property.* publié par ListingService (snapshot complet + version)
+ * changeType gardé en String : un nouveau type côté producteur ne casse pas la désérialisation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PropertyChangedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * CREATED, UPDATED, PRICE_CHANGED, STATUS_CHANGED, DELETED
+     */
+    private String changeType;
+
+    private String propertyId;
+
+    private String ownerId;
+
+    /**
+     * Revision de la property dans ListingService, strictement croissante
+     */
+    private Long version;
+
+    private String title;
+
+    private String type;
+
+    private String city;
+
+    private String country;
+
+    private BigDecimal pricePerNight;
+
+    private Integer nbOfGuests;
+
+    private String status;
+
+    private String previousStatus;
+
+    private Long timestamp;
+}
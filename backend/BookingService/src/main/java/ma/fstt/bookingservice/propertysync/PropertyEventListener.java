@@ -0,0 +1,28 @@
+package ma.fstt.bookingservice.propertysync;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * ✅ Écoute les événements property.* de ListingService et met à jour le read model local
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PropertyEventListener {
+
+    private final PropertySnapshotStore propertySnapshotStore;
+
+    @RabbitListener(queues = "${property-sync.queue:booking.property.events.queue}")
+    public void handlePropertyChanged(PropertyChangedEvent event) {
+        log.info("📩 Property event received: {} {} v{}",
+                event.getChangeType(), event.getPropertyId(), event.getVersion());
+
+        if (propertySnapshotStore.apply(event)) {
+            log.info("✅ Property snapshot {} updated to v{} (status={}, price={})",
+                    event.getPropertyId(), event.getVersion(), event.getStatus(), event.getPricePerNight());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ma.fstt.bookingservice.propertysync;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Copie locale d'une property (read model alimenté par les événements property.*)
+ * Une ligne par property, remplacée seulement par une version supérieure.
+ */
+@Entity
+@Table(
+        name = "property_snapshots",
+        indexes = {
+                @Index(name = "idx_property_snapshot_owner", columnList = "owner_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PropertySnapshot {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_DELETED = "DELETED";
+
+    @Id
+    @Column(name = "property_id", length = 50)
+    private String propertyId;
+
+    @Column(name = "owner_id", nullable = false, length = 50)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(length = 100)
+    private String title;
+
+    @Column(length = 50)
+    private String type;
+
+    @Column(length = 100)
+    private String city;
+
+    @Column(length = 100)
+    private String country;
+
+    @Column(name = "price_per_night", precision = 10, scale = 2)
+    private BigDecimal pricePerNight;
+
+    private Integer nbOfGuests;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public boolean isDeleted() {
+        return STATUS_DELETED.equals(status);
+    }
+
+    public static PropertySnapshot from(PropertyChangedEvent event) {
+        return PropertySnapshot.builder()
+                .propertyId(event.getPropertyId())
+                .ownerId(event.getOwnerId())
+                .version(event.getVersion())
+                .title(event.getTitle())
+                .type(event.getType())
+                .city(event.getCity())
+                .country(event.getCountry())
+                .pricePerNight(event.getPricePerNight())
+                .nbOfGuests(event.getNbOfGuests())
+                .status(event.getStatus())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
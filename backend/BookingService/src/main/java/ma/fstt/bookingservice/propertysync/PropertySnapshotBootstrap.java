@@ -0,0 +1,122 @@
+package ma.fstt.bookingservice.propertysync;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ✅ Amorçage du read model property_snapshots depuis ListingService (via PropertySnapshotSource)
+ *
+ * Sans amorçage, seules les properties modifiées depuis le déploiement ont un snapshot :
+ * toutes les autres repassent par ListingService. L'import tourne donc au démarrage,
+ * avant le serveur web (phase SmartLifecycle inférieure) : le service n'accepte du trafic
+ * qu'une fois les snapshots chargés, ou ListingService injoignable (repli habituel).
+ *
+ * Chaque page est appliquée comme des événements property.* (upsert si version supérieure) :
+ * un événement reçu pendant l'import n'est jamais écrasé par un export plus ancien.
+ * Curseur enregistré après chaque page (property_sync_checkpoints) ; un import interrompu est repris
+ * au curseur, périodiquement, jusqu'à completed = true.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PropertySnapshotBootstrap implements SmartLifecycle {
+
+    static final String CHECKPOINT = "property-snapshots.bootstrap";
+
+    private final PropertySnapshotStore propertySnapshotStore;
+    private final PropertySnapshotSource propertySnapshotSource;
+    private final PropertySyncCheckpointRepository checkpointRepository;
+
+    @Value("${property-sync.bootstrap.enabled:true}")
+    private boolean enabled;
+
+    @Value("${property-sync.bootstrap.page-size:500}")
+    private int pageSize;
+
+    private volatile boolean running;
+
+    // ========== CYCLE DE VIE ==========
+
+    @Override
+    public void start() {
+        bootstrap();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Avant le serveur web (WebServerStartStopLifecycle) et les listeners RabbitMQ
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    // ========== IMPORT ==========
+
+    /**
+     * Importer les properties à partir du dernier curseur (sans effet une fois l'import terminé)
+     */
+    @Scheduled(fixedDelayString = "${property-sync.bootstrap.retry-ms:300000}",
+            initialDelayString = "${property-sync.bootstrap.retry-ms:300000}")
+    public void bootstrap() {
+        if (!enabled) {
+            return;
+        }
+        PropertySyncCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT)
+                .orElseGet(() -> PropertySyncCheckpoint.builder().name(CHECKPOINT).cursor(0L).build());
+        if (checkpoint.isCompleted()) {
+            return;
+        }
+        if (!propertySnapshotSource.isConfigured()) {
+            log.warn("⚠️ Property snapshot bootstrap skipped: snapshot source is not configured");
+            return;
+        }
+
+        long startCursor = checkpoint.getCursor();
+        int imported = 0;
+        int applied = 0;
+        try {
+            while (!checkpoint.isCompleted()) {
+                PropertySnapshotPage page = propertySnapshotSource.exportSnapshots(checkpoint.getCursor(), pageSize);
+                List<PropertyChangedEvent> snapshots = page.getSnapshots() != null ? page.getSnapshots() : List.of();
+                for (PropertyChangedEvent snapshot : snapshots) {
+                    if (propertySnapshotStore.apply(snapshot)) {
+                        applied++;
+                    }
+                }
+                imported += snapshots.size();
+
+                // Page appliquée avant d'avancer le curseur : une reprise peut relire une page, jamais en sauter une
+                if (page.getNextCursor() == null || snapshots.isEmpty()) {
+                    checkpoint.setCompleted(true);
+                } else {
+                    checkpoint.setCursor(page.getNextCursor());
+                }
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+            }
+            log.info("🏠 Property snapshots bootstrapped from ListingService: {} properties, {} applied (resumed from cursor {})",
+                    imported, applied, startCursor);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Property snapshot bootstrap interrupted after {} properties (cursor={}), will resume: {}",
+                    imported, checkpoint.getCursor(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ma.fstt.bookingservice.propertysync;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Page d'export du service source (même format que les événements property.*) ; nextCursor = null → dernière page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PropertySnapshotPage {
+    private List<PropertyChangedEvent> snapshots;
+    private Long nextCursor;
+}
@@ -0,0 +1,51 @@
+package ma.fstt.bookingservice.propertysync;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PropertySnapshotRepository extends JpaRepository<PropertySnapshot, String> {
+
+    /**
+     * Upsert conditionnel (PostgreSQL) : une seule requête, atomique.
+     * La ligne n'est remplacée que si la version reçue est strictement supérieure :
+     * doublons et messages en retard sont ignorés, même avec plusieurs consommateurs.
+     *
+     * @return 1 si le snapshot a été inséré ou mis à jour, 0 si l'événement était périmé
+     */
+    @Modifying
+    @Query(value = "INSERT INTO property_snapshots " +
+            "(property_id, owner_id, version, title, type, city, country, price_per_night, nb_of_guests, status, updated_at) " +
+            "VALUES (:propertyId, :ownerId, :version, :title, :type, :city, :country, :pricePerNight, :nbOfGuests, :status, :updatedAt) " +
+            "ON CONFLICT (property_id) DO UPDATE SET " +
+            "owner_id = EXCLUDED.owner_id, version = EXCLUDED.version, title = EXCLUDED.title, " +
+            "type = EXCLUDED.type, city = EXCLUDED.city, country = EXCLUDED.country, " +
+            "price_per_night = EXCLUDED.price_per_night, nb_of_guests = EXCLUDED.nb_of_guests, " +
+            "status = EXCLUDED.status, updated_at = EXCLUDED.updated_at " +
+            "WHERE property_snapshots.version < EXCLUDED.version",
+            nativeQuery = true)
+    int upsertIfNewer(@Param("propertyId") String propertyId,
+                      @Param("ownerId") String ownerId,
+                      @Param("version") Long version,
+                      @Param("title") String title,
+                      @Param("type") String type,
+                      @Param("city") String city,
+                      @Param("country") String country,
+                      @Param("pricePerNight") BigDecimal pricePerNight,
+                      @Param("nbOfGuests") Integer nbOfGuests,
+                      @Param("status") String status,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Properties d'un owner (hors DELETED), sans appel à ListingService
+     */
+    @Query("SELECT s.propertyId FROM PropertySnapshot s WHERE s.ownerId = :ownerId AND s.status <> 'DELETED'")
+    List<String> findPropertyIdsByOwner(@Param("ownerId") String ownerId);
+}
@@ -0,0 +1,22 @@
+package ma.fstt.bookingservice.propertysync;
+
+/**
+ * Source de l'export complet des properties (côté ListingService : GET /properties/internal/snapshots)
+ *
+ * Implémentée par le service hôte avec son propre client HTTP : le package propertysync
+ * ne dépend d'aucun client ni d'aucune configuration du service qui l'embarque.
+ */
+public interface PropertySnapshotSource {
+
+    /**
+     * false tant que la source n'est pas configurée (ex: secret service-to-service absent) : import sauté
+     */
+    boolean isConfigured();
+
+    /**
+     * Page suivante, properties d'id strictement supérieur à afterId, triées par id
+     *
+     * @throws RuntimeException si la source est injoignable (l'import sera repris au curseur)
+     */
+    PropertySnapshotPage exportSnapshots(long afterId, int size);
+}
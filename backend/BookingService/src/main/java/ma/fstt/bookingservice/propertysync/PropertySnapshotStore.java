@@ -0,0 +1,111 @@
+package ma.fstt.bookingservice.propertysync;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ✅ Read model local des properties (table property_snapshots + cache mémoire)
+ *
+ * Point d'entrée unique pour le reste du service :
+ * - apply() : appliquer un événement property.* (ignoré si la version n'est pas plus récente)
+ * - find() / findPropertyIdsByOwner() : lectures sans appel à ListingService
+ * Un événement appliqué est republié localement (Spring) pour les autres read models.
+ *
+ * Le cache mémoire a un TTL court : avec plusieurs instances, chaque événement n'est consommé
+ * que par une seule d'entre elles, les autres relisent la table à expiration.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PropertySnapshotStore {
+
+    private final PropertySnapshotRepository propertySnapshotRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, CachedSnapshot> cache = new ConcurrentHashMap<>();
+
+    @Value("${property-sync.cache.ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${property-sync.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    /**
+     * Appliquer un événement de changement
+     *
+     * @return true si le snapshot local a été créé ou remplacé
+     */
+    @Transactional
+    public boolean apply(PropertyChangedEvent event) {
+        if (event.getPropertyId() == null || event.getVersion() == null || event.getOwnerId() == null) {
+            log.warn("⚠️ Ignoring incomplete property event: {}", event);
+            return false;
+        }
+
+        PropertySnapshot snapshot = PropertySnapshot.from(event);
+        int updated = propertySnapshotRepository.upsertIfNewer(
+                snapshot.getPropertyId(), snapshot.getOwnerId(), snapshot.getVersion(),
+                snapshot.getTitle(), snapshot.getType(), snapshot.getCity(), snapshot.getCountry(),
+                snapshot.getPricePerNight(), snapshot.getNbOfGuests(), snapshot.getStatus(),
+                snapshot.getUpdatedAt());
+
+        if (updated == 0) {
+            log.debug("Stale property event ignored: {} v{}", event.getPropertyId(), event.getVersion());
+            return false;
+        }
+
+        // Le cache ne recule jamais : on garde la plus haute version connue
+        cache.compute(snapshot.getPropertyId(), (id, current) ->
+                current != null && current.snapshot().getVersion() >= snapshot.getVersion()
+                        ? current
+                        : new CachedSnapshot(snapshot, System.currentTimeMillis()));
+
+        // Read models dépendants (tableau de bord hôte), dans la même transaction
+        eventPublisher.publishEvent(event);
+        return true;
+    }
+
+    /**
+     * Snapshot d'une property : cache → table locale
+     * Vide si la property n'a jamais été vue (appelant : repli sur ListingService)
+     */
+    public Optional<PropertySnapshot> find(String propertyId) {
+        CachedSnapshot cached = cache.get(propertyId);
+        if (cached != null && !cached.isExpired(cacheTtlSeconds)) {
+            return Optional.of(cached.snapshot());
+        }
+
+        Optional<PropertySnapshot> snapshot = propertySnapshotRepository.findById(propertyId);
+        snapshot.ifPresentOrElse(
+                s -> {
+                    if (cache.size() >= cacheMaxEntries) {
+                        cache.clear();
+                    }
+                    cache.put(propertyId, new CachedSnapshot(s, System.currentTimeMillis()));
+                },
+                () -> cache.remove(propertyId));
+        return snapshot;
+    }
+
+    /**
+     * Ids des properties non supprimées d'un owner
+     */
+    public List<String> findPropertyIdsByOwner(String ownerId) {
+        return propertySnapshotRepository.findPropertyIdsByOwner(ownerId);
+    }
+
+    private record CachedSnapshot(PropertySnapshot snapshot, long loadedAt) {
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
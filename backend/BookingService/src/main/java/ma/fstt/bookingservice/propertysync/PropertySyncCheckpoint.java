@@ -0,0 +1,36 @@
+package ma.fstt.bookingservice.propertysync;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Point de reprise de l'amorçage des snapshots (une ligne par import)
+ *
+ * Le curseur est enregistré après chaque page appliquée ; completed = true une fois l'import terminé.
+ */
+@Entity
+@Table(name = "property_sync_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PropertySyncCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    /**
+     * Dernier id de property importé (pagination par curseur de la source)
+     */
+    @Column(name = "cursor_value", nullable = false)
+    private Long cursor;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
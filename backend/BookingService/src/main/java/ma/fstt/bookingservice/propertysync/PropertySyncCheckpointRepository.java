@@ -0,0 +1,8 @@
+package ma.fstt.bookingservice.propertysync;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PropertySyncCheckpointRepository extends JpaRepository<PropertySyncCheckpoint, String> {
+}
@@ -0,0 +1,48 @@
+package ma.fstt.bookingservice.propertysync;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Déclaration de la queue property.* du service consommateur
+ *
+ * Le package propertysync est autonome (config + listener + tables + cache + amorçage) :
+ * il peut être copié tel quel dans un autre service qui a besoin des properties.
+ * Le service hôte fournit "property-sync.queue" et un bean PropertySnapshotSource (export de ListingService).
+ */
+@Configuration
+public class PropertySyncConfig {
+
+    public static final String PROPERTY_EXCHANGE = "property.exchange";
+    public static final String PROPERTY_ROUTING_PATTERN = "property.#";
+
+    @Value("${property-sync.queue:booking.property.events.queue}")
+    private String queueName;
+
+    @Bean
+    public TopicExchange propertyExchange() {
+        return new TopicExchange(PROPERTY_EXCHANGE);
+    }
+
+    @Bean
+    public Queue propertyEventsQueue() {
+        return QueueBuilder.durable(queueName)
+                .withArgument("x-dead-letter-exchange", "rental.dlx")
+                .withArgument("x-dead-letter-routing-key", "property.events.dead")
+                .build();
+    }
+
+    @Bean
+    public Binding propertyEventsBinding() {
+        return BindingBuilder
+                .bind(propertyEventsQueue())
+                .to(propertyExchange())
+                .with(PROPERTY_ROUTING_PATTERN);
+    }
+}
@@ -0,0 +1,13 @@
+package ma.fstt.bookingservice.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection légère (id, createdAt) pour reconstruire la roue d'expiration au démarrage
+ */
+public interface BookingDeadlineView {
+
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,25 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection minimale pour la réconciliation bookings ↔ paiements ↔ escrow (PaymentService)
+ * Parcours par clé (id croissant), quelques colonnes seulement par ligne.
+ */
+public interface BookingReconciliationView {
+
+    Long getId();
+
+    BookingStatus getStatus();
+
+    String getTenantWalletAddress();
+
+    BigDecimal getTotalPrice();
+
+    String getCurrency();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -2,60 +2,122 @@ package ma.fstt.bookingservice.repository;
 
 import ma.fstt.bookingservice.model.Booking;
 import ma.fstt.bookingservice.model.BookingStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     /**
-     * Trouve les reservations dans un statut donne creees avant une certaine date.
-     * Utilise par le scheduler pour trouver les reservations AWAITING_PAYMENT expirees.
+     * ✅ NOUVEAU: (id, createdAt) des bookings d'un shard (id % shardCount), pour recharger la roue d'expiration
      */
-    List<Booking> findByStatusAndCreatedAtBefore(BookingStatus status, LocalDateTime createdAt);
+    @Query("SELECT b.id AS id, b.createdAt AS createdAt FROM Booking b " +
+            "WHERE b.status = :status AND MOD(b.id, :shardCount) = :shard")
+    List<BookingDeadlineView> findDeadlinesByStatusAndShard(
+            @Param("status") BookingStatus status,
+            @Param("shardCount") int shardCount,
+            @Param("shard") int shard
+    );
+
+    /**
+     * ✅ NOUVEAU: Verrouiller les bookings encore AWAITING_PAYMENT parmi des ids
+     * SKIP LOCKED : les lignes en cours d'expiration par une autre instance sont ignorées, sans attente.
+     */
+    @Query(value = "SELECT * FROM bookings WHERE status = 'AWAITING_PAYMENT' AND id IN (:ids) " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Booking> lockAwaitingPaymentByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
-     * Check if there are any overlapping bookings for a property
-     * Overlapping logic: New booking conflicts if:
-     * - New start is before existing end AND new end is after existing start
+     * ✅ NOUVEAU: Réclamer un lot de bookings AWAITING_PAYMENT échus dans des shards donnés
+     * Les instances se partagent l'arriéré sans doublon (SKIP LOCKED), index idx_status_created.
      */
-    @Query("SELECT b FROM Booking b WHERE b.propertyId = :propertyId " +
-            "AND b.status IN :statuses " +
-            "AND b.startDate < :endDate " +
-            "AND b.endDate > :startDate")
-    List<Booking> findOverlappingBookings(
-            @Param("propertyId") String propertyId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate,
-            @Param("statuses") List<BookingStatus> statuses
+    @Query(value = "SELECT * FROM bookings WHERE status = 'AWAITING_PAYMENT' AND created_at < :threshold " +
+            "AND MOD(id, :shardCount) IN (:shards) ORDER BY created_at LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Booking> claimOverdueAwaitingPayment(
+            @Param("threshold") LocalDateTime threshold,
+            @Param("shardCount") int shardCount,
+            @Param("shards") Collection<Integer> shards,
+            @Param("limit") int limit
     );
 
-    List<Booking> findByTenantId(String tenantId);
+    /**
+     * ✅ NOUVEAU: Transition groupée, gardée par le statut courant (une seule requête UPDATE)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :newStatus, b.updatedAt = :now " +
+            "WHERE b.status = :status AND b.id IN :ids")
+    int updateStatusByStatusAndIdIn(
+            @Param("status") BookingStatus status,
+            @Param("newStatus") BookingStatus newStatus,
+            @Param("now") LocalDateTime now,
+            @Param("ids") Collection<Long> ids
+    );
 
-    // ✅ FIX: Changed from Long to String to match PropertyEntity.propertyId type
-    List<Booking> findByPropertyId(String propertyId);
+    /**
+     * Bookings actifs sans nuits indexées dans property_day (amorçage de l'index de disponibilité)
+     */
+    @Query("SELECT b FROM Booking b WHERE b.status IN :statuses AND b.endDate > :today " +
+            "AND NOT EXISTS (SELECT 1 FROM PropertyDay d WHERE d.bookingId = b.id)")
+    List<Booking> findActiveBookingsWithoutDays(
+            @Param("statuses") List<BookingStatus> statuses,
+            @Param("today") LocalDate today
+    );
 
     /**
-     * ✅ NEW: Find all bookings for multiple properties (for Host Dashboard)
-     * Returns all bookings where propertyId is in the provided list
+     * ✅ NOUVEAU: Bookings pas encore présents dans le read model du tableau de bord hôte
+     * Parcours par keyset (id > afterId) : un lot en échec n'est pas relu en boucle
      */
-    List<Booking> findByPropertyIdIn(List<String> propertyIds);
+    @Query("SELECT b FROM Booking b WHERE b.id > :afterId AND NOT EXISTS " +
+            "(SELECT 1 FROM HostBooking h WHERE h.bookingId = b.id) ORDER BY b.id")
+    List<Booking> findWithoutHostBooking(@Param("afterId") Long afterId, Pageable pageable);
 
     /**
-     * ✅ CRITICAL FIX: Changed @Param("propertyId") from Long to String
-     * This matches the PropertyEntity.propertyId type in listing-service
+     * ✅ NOUVEAU: Bookings dont la ligne host_bookings est périmée (statut ou dates)
+     * Projection manquée après commit : rattrapée par la reconstruction périodique
+     */
+    @Query("SELECT b FROM Booking b JOIN HostBooking h ON h.bookingId = b.id " +
+            "WHERE b.id > :afterId AND (h.status <> b.status OR h.startDate <> b.startDate OR h.endDate <> b.endDate) " +
+            "ORDER BY b.id")
+    List<Booking> findOutOfSyncWithHostBooking(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU: Charger un booking verrouillé (FOR UPDATE) le temps de la transaction
+     * Sérialise confirmation / annulation d'un même booking entre instances.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * ✅ NOUVEAU: "Mes réservations" paginées en projection (index idx_bookings_tenant_created)
+     */
+    Page<BookingSummaryView> findSummariesByTenantId(String tenantId, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU: Parcours par clé pour la réconciliation (clé primaire, pas d'OFFSET)
      *
-     * WORKAROUND: Compter les reservations futures par propertyId
-     * Le service fera d'abord un appel a ListingService pour recuperer les propertyIds du host
+     * @param afterId Dernier id déjà lu (0 pour commencer)
+     * @param pageable Taille du lot, tri par id croissant
+     * @return Bookings suivants en projection
      */
-    @Query("SELECT COUNT(b) FROM Booking b WHERE b.propertyId = :propertyId AND b.startDate > :today")
-    Long countFutureBookingsByPropertyId(@Param("propertyId") String propertyId, @Param("today") LocalDate today);
+    List<BookingReconciliationView> findReconciliationByIdGreaterThan(Long afterId, Pageable pageable);
+
+    // ✅ FIX: Changed from Long to String to match PropertyEntity.propertyId type
+    List<Booking> findByPropertyId(String propertyId);
 
     /**
      * ✅ Compter les reservations actives d'un client
@@ -0,0 +1,37 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projection en lecture seule des listes de bookings (pas d'entité managée, pas de dirty checking)
+ */
+public interface BookingSummaryView {
+
+    Long getId();
+
+    String getPropertyId();
+
+    String getTenantId();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+
+    BookingStatus getStatus();
+
+    String getTenantWalletAddress();
+
+    BigDecimal getPricePerNight();
+
+    BigDecimal getTotalPrice();
+
+    String getCurrency();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
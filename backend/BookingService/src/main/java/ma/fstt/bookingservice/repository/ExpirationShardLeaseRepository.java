@@ -0,0 +1,44 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.ExpirationShardLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ExpirationShardLeaseRepository extends JpaRepository<ExpirationShardLease, Integer> {
+
+    /**
+     * Créer la ligne d'un shard si elle n'existe pas (plusieurs instances au démarrage)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO expiration_shard_leases (shard, owner, lease_until) VALUES (:shard, NULL, NULL) " +
+            "ON CONFLICT (shard) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("shard") int shard);
+
+    /**
+     * Prendre ou renouveler un bail : atomique, réussit si le shard est libre, expiré ou déjà à nous
+     *
+     * @return 1 si le bail est acquis, 0 sinon
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExpirationShardLease l SET l.owner = :owner, l.leaseUntil = :until " +
+            "WHERE l.shard = :shard AND (l.owner = :owner OR l.owner IS NULL OR l.leaseUntil < :now)")
+    int claim(@Param("shard") int shard,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExpirationShardLease l SET l.owner = NULL, l.leaseUntil = NULL " +
+            "WHERE l.shard = :shard AND l.owner = :owner")
+    int release(@Param("shard") int shard, @Param("owner") String owner);
+}
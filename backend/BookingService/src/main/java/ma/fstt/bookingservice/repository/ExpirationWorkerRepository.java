@@ -0,0 +1,28 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.ExpirationWorker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ExpirationWorkerRepository extends JpaRepository<ExpirationWorker, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO expiration_workers (worker_id, heartbeat_at) VALUES (:workerId, :now) " +
+            "ON CONFLICT (worker_id) DO UPDATE SET heartbeat_at = EXCLUDED.heartbeat_at", nativeQuery = true)
+    int heartbeat(@Param("workerId") String workerId, @Param("now") LocalDateTime now);
+
+    long countByHeartbeatAtAfter(LocalDateTime threshold);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ExpirationWorker w WHERE w.heartbeatAt < :threshold")
+    int deleteStale(@Param("threshold") LocalDateTime threshold);
+}
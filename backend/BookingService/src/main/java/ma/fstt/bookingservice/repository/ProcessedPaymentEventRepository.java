@@ -0,0 +1,47 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.ProcessedPaymentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProcessedPaymentEventRepository extends JpaRepository<ProcessedPaymentEvent, Long> {
+
+    /**
+     * Réserver le traitement d'un événement
+     * Un doublon concurrent attend le commit de la première insertion (index unique) puis obtient 0.
+     *
+     * @return 1 si l'événement est nouveau, 0 s'il a déjà été reçu
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_event_inbox (transaction_id, event_type, booking_id, outcome, received_at) " +
+            "VALUES (:transactionId, :eventType, :bookingId, 'PENDING', :now) " +
+            "ON CONFLICT (transaction_id, event_type) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("transactionId") String transactionId,
+                       @Param("eventType") String eventType,
+                       @Param("bookingId") Long bookingId,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProcessedPaymentEvent e SET e.outcome = :outcome, e.detail = :detail, e.processedAt = :now " +
+            "WHERE e.transactionId = :transactionId AND e.eventType = :eventType")
+    int markOutcome(@Param("transactionId") String transactionId,
+                    @Param("eventType") String eventType,
+                    @Param("outcome") String outcome,
+                    @Param("detail") String detail,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * ✅ NOUVEAU: Oublier un événement traité pour une transaction
+     * Une confirmation défaite par une réorganisation doit pouvoir être rejouée avec le même transactionId.
+     */
+    @Modifying
+    @Query("DELETE FROM ProcessedPaymentEvent e WHERE e.transactionId = :transactionId AND e.eventType = :eventType")
+    int deleteByTransactionIdAndEventType(@Param("transactionId") String transactionId,
+                                          @Param("eventType") String eventType);
+}
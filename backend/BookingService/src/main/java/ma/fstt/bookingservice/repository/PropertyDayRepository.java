@@ -0,0 +1,35 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.model.PropertyDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PropertyDayRepository extends JpaRepository<PropertyDay, Long> {
+
+    /**
+     * Nuits occupées d'une property à partir d'une date (chargement du calendrier en mémoire)
+     */
+    List<PropertyDay> findByPropertyIdAndDayGreaterThanEqual(String propertyId, LocalDate from);
+
+    /**
+     * Au moins une nuit occupée dans [from, to) ? (index uk_property_day, pas d'entité chargée)
+     */
+    boolean existsByPropertyIdAndDayGreaterThanEqualAndDayLessThan(String propertyId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("UPDATE PropertyDay d SET d.status = :status WHERE d.bookingId = :bookingId")
+    int updateStatusByBookingId(@Param("bookingId") Long bookingId, @Param("status") BookingStatus status);
+
+    @Modifying
+    @Query("DELETE FROM PropertyDay d WHERE d.bookingId IN :bookingIds")
+    int deleteByBookingIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+}
@@ -0,0 +1,9 @@
+package ma.fstt.bookingservice.repository;
+
+import ma.fstt.bookingservice.model.SyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, String> {
+}
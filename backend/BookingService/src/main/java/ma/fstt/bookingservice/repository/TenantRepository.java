@@ -4,6 +4,8 @@ import ma.fstt.bookingservice.entities.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,4 +30,9 @@ public interface TenantRepository extends JpaRepository<Tenant, Long> {
      */
     Optional<Tenant> findByEmail(String email);
 
+    /**
+     * ✅ NOUVEAU: Charger plusieurs tenants en une requête (projections par lots)
+     */
+    List<Tenant> findByUserIdIn(Collection<String> userIds);
+
 }
\ No newline at end of file
@@ -21,4 +21,7 @@ public class PropertyDTO {
     private BigDecimal price;
 
     private String currency; // Restera null si non envoyé, mais ne fera pas planter le calcul
+
+    // ✅ NOUVEAU: Propriétaire (tableau de bord hôte)
+    private String ownerId;
 }
\ No newline at end of file
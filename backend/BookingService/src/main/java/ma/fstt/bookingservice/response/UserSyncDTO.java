@@ -0,0 +1,20 @@
+package ma.fstt.bookingservice.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+/**
+ * Utilisateur exporté par AuthService (GET /users/internal/tenants)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserSyncDTO {
+    private String userId;
+    private String email;
+    private String firstname;
+    private String lastname;
+    private String walletAddress;
+}
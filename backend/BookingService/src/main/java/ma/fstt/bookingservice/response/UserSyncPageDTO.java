@@ -0,0 +1,19 @@
+package ma.fstt.bookingservice.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Page d'export d'AuthService ; nextCursor = null → dernière page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserSyncPageDTO {
+    private List<UserSyncDTO> users;
+    private Long nextCursor;
+}
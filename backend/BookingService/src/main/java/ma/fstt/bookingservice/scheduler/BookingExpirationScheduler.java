@@ -1,28 +1,72 @@
 package ma.fstt.bookingservice.scheduler;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.events.BookingChangedEvent;
 import ma.fstt.bookingservice.model.Booking;
 import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.repository.BookingDeadlineView;
 import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.service.AvailabilityService;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
+/**
+ * Expiration des bookings AWAITING_PAYMENT non payés
+ *
+ * ✅ NOUVEAU: Moteur à échéance précise
+ * - Chaque booking créé est planifié dans une roue temporelle (createdAt + booking.expiration.delay.minutes),
+ *   retiré à la confirmation / annulation. Le tick (1s par défaut) n'expire que les bookings échus.
+ * - Expiration par lots bornés : SELECT ... FOR UPDATE SKIP LOCKED puis un seul UPDATE
+ *   "WHERE status = AWAITING_PAYMENT AND id IN (...)", une transaction par lot.
+ * - Événements booking.expired publiés après commit, un canal AMQP par lot.
+ *
+ * ✅ NOUVEAU: Plusieurs instances
+ * - Les bookings sont répartis en shards (id % shards) attribués par bail ({@link ExpirationShardManager}).
+ *   Une instance ne recharge dans sa roue et ne balaie que ses shards ; à la reprise d'un shard
+ *   (démarrage, instance arrêtée), ses bookings en attente sont rechargés depuis la base.
+ * - Les bookings créés localement restent suivis par l'instance qui les a créés, sauf si leur
+ *   shard lui a appartenu puis a été perdu ou rendu : ses timers sont alors retirés de la roue.
+ * - SKIP LOCKED + UPDATE gardé par le statut : un booking n'est jamais expiré deux fois.
+ *
+ * Métriques : booking.expiration.lag (échéance → expiration effective), booking.expiration.expired,
+ * booking.expiration.tracked, booking.expiration.shards.owned.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class BookingExpirationScheduler {
 
+    private static final String SOURCE_WHEEL = "wheel";
+    private static final String SOURCE_SWEEP = "sweep";
+
     private final BookingRepository bookingRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final AvailabilityService availabilityService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpirationShardManager shardManager;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HierarchicalTimingWheel<Long> wheel;
 
     @Value("${rabbitmq.exchange:booking.exchange}")
     private String exchange;
@@ -30,54 +74,269 @@ public class BookingExpirationScheduler {
     @Value("${rabbitmq.routing-key.expired:booking.expired}")
     private String expiredRoutingKey;
 
+    @Value("${booking.expiration.delay.minutes:15}")
+    private long delayMinutes;
+
+    @Value("${booking.expiration.batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.expiration.max-batches-per-sweep:20}")
+    private int maxBatchesPerSweep;
+
+    public BookingExpirationScheduler(BookingRepository bookingRepository,
+                                      RabbitTemplate rabbitTemplate,
+                                      AvailabilityService availabilityService,
+                                      TransactionTemplate transactionTemplate,
+                                      ExpirationShardManager shardManager,
+                                      MeterRegistry meterRegistry,
+                                      ApplicationEventPublisher eventPublisher,
+                                      @Value("${booking.expiration.tick-ms:1000}") long tickMs,
+                                      @Value("${booking.expiration.wheel-size:64}") int wheelSize) {
+        this.bookingRepository = bookingRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.availabilityService = availabilityService;
+        this.transactionTemplate = transactionTemplate;
+        this.shardManager = shardManager;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+
+        Gauge.builder("booking.expiration.tracked", wheel, HierarchicalTimingWheel::size)
+                .description("Bookings AWAITING_PAYMENT suivis par la roue de cette instance")
+                .register(meterRegistry);
+        Gauge.builder("booking.expiration.shards.owned", shardManager, manager -> manager.getOwnedShards().size())
+                .description("Shards d'expiration détenus par cette instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Planifier l'expiration d'un booking qui vient d'être créé (après commit)
+     */
+    public void track(Booking booking) {
+        if (booking.getStatus() != BookingStatus.AWAITING_PAYMENT || booking.getCreatedAt() == null) {
+            return;
+        }
+        if (!wheel.schedule(booking.getId(), deadlineOf(booking.getCreatedAt()))) {
+            expire(List.of(booking.getId()));
+        }
+    }
+
+    /**
+     * Booking confirmé ou annulé : plus rien à expirer
+     */
+    public void untrack(Long bookingId) {
+        wheel.cancel(bookingId);
+    }
+
+    /**
+     * Démarrage : rejoindre la répartition et charger les bookings des shards obtenus
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        shardManager.initialize();
+        rebalance();
+    }
+
+    /**
+     * Renouvellement des baux ; les shards repris sont rechargés dans la roue
+     */
+    @Scheduled(fixedDelayString = "${booking.expiration.lease-renew-ms:10000}",
+            initialDelayString = "${booking.expiration.lease-renew-ms:10000}")
+    public void rebalanceShards() {
+        try {
+            rebalance();
+        } catch (Exception e) {
+            log.error("❌ Expiration shard rebalance failed", e);
+        }
+    }
+
+    /**
+     * Recharger les shards acquis et retirer de la roue ceux qu'on ne possède plus
+     * (bail perdu ou rendu) : leur nouveau propriétaire les recharge depuis la base.
+     */
+    void rebalance() {
+        Set<Integer> before = shardManager.getOwnedShards();
+        Set<Integer> acquired = shardManager.rebalance();
+
+        Set<Integer> lost = new HashSet<>(before);
+        lost.removeAll(shardManager.getOwnedShards());
+        if (!lost.isEmpty()) {
+            int shardCount = shardManager.getShardCount();
+            int dropped = wheel.cancelIf(id -> lost.contains((int) (id % shardCount)));
+            log.info("⏰ Expiration shards {} no longer owned: {} bookings removed from the wheel", lost, dropped);
+        }
+        loadShards(acquired);
+    }
+
     /**
-     * Vérifie toutes les 2 minutes les réservations en attente de paiement
-     * qui ont été créées il y a plus de 15 minutes.
+     * Tick de la roue : n'expire que les bookings arrivés à échéance
      */
-    @Scheduled(fixedDelay = 120000) // 120000ms = 2 minutes
-    @Transactional
+    @Scheduled(fixedDelayString = "${booking.expiration.tick-ms:1000}")
+    public void tick() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        if (!due.isEmpty()) {
+            expire(due);
+        }
+    }
+
+    /**
+     * Filet de sécurité : réclamer par lots les bookings échus de nos shards (par défaut toutes les 5 minutes)
+     * Rattrape ce que la roue aurait manqué (rollback après untrack, instance arrêtée...).
+     */
+    @Scheduled(fixedDelayString = "${booking.expiration.sweep-interval-ms:300000}",
+            initialDelayString = "${booking.expiration.sweep-interval-ms:300000}")
     public void expireUnpaidBookings() {
-        log.debug("⏰ Checking for expired bookings...");
+        Set<Integer> shards = shardManager.getOwnedShards();
+        if (shards.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime expirationThreshold = LocalDateTime.now().minusMinutes(delayMinutes);
+        int missed = 0;
+
+        for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+            int expired = expireBatch(SOURCE_SWEEP, () -> bookingRepository.claimOverdueAwaitingPayment(
+                    expirationThreshold, shardManager.getShardCount(), shards, batchSize));
+            missed += expired;
+            if (expired < batchSize) {
+                break;
+            }
+        }
 
-        // 1. Définir le seuil d'expiration (Maintenant - 15 minutes)
-        LocalDateTime expirationThreshold = LocalDateTime.now().minusMinutes(15);
+        if (missed > 0) {
+            log.warn("⚠️ Sweep expired {} unpaid bookings missed by the wheel (created before {}, shards {})",
+                    missed, expirationThreshold, shards);
+        }
+    }
 
-        // 2. Récupérer les réservations à expirer
-        List<Booking> expiredBookings = bookingRepository.findByStatusAndCreatedAtBefore(
-                BookingStatus.AWAITING_PAYMENT,
-                expirationThreshold
-        );
+    /**
+     * Expirer des bookings par lots de booking.expiration.batch-size
+     *
+     * @return nombre de bookings réellement expirés
+     */
+    int expire(List<Long> bookingIds) {
+        int expired = 0;
+        for (int from = 0; from < bookingIds.size(); from += batchSize) {
+            List<Long> chunk = bookingIds.subList(from, Math.min(from + batchSize, bookingIds.size()));
+            expired += expireBatch(SOURCE_WHEEL, () -> bookingRepository.lockAwaitingPaymentByIdIn(chunk));
+        }
+        return expired;
+    }
 
-        if (expiredBookings.isEmpty()) {
+    private void loadShards(Set<Integer> shards) {
+        if (shards.isEmpty()) {
             return;
         }
 
-        log.info("Found {} bookings to expire (created before {})", expiredBookings.size(), expirationThreshold);
+        List<Long> overdue = new ArrayList<>();
+        int loaded = 0;
+        for (Integer shard : shards) {
+            for (BookingDeadlineView view : bookingRepository.findDeadlinesByStatusAndShard(
+                    BookingStatus.AWAITING_PAYMENT, shardManager.getShardCount(), shard)) {
+                if (wheel.schedule(view.getId(), deadlineOf(view.getCreatedAt()))) {
+                    loaded++;
+                } else {
+                    overdue.add(view.getId());
+                }
+            }
+        }
 
-        // 3. Mettre à jour les statuts en mémoire
-        expiredBookings.forEach(booking -> {
-            booking.setStatus(BookingStatus.EXPIRED);
-            log.info("⏰ Booking {} expired (no payment in 15 min)", booking.getId());
-        });
+        log.info("⏰ Expiration wheel loaded shards {}: {} bookings tracked, {} already overdue",
+                shards, loaded, overdue.size());
+        expire(overdue);
+    }
 
-        // 4. Batch Update en base de données (Performance)
-        bookingRepository.saveAll(expiredBookings);
+    /**
+     * Un lot = une transaction : verrouiller (SKIP LOCKED), UPDATE groupé, libérer les nuits
+     * Les événements sont publiés après commit.
+     */
+    private int expireBatch(String source, Supplier<List<Booking>> lockedBookings) {
+        try {
+            List<Booking> expiredBookings = transactionTemplate.execute(status -> {
+                // Les bookings payés / annulés / pris par une autre instance ne sont pas retournés
+                List<Booking> locked = lockedBookings.get();
+                if (locked.isEmpty()) {
+                    return List.<Booking>of();
+                }
+
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> lockedIds = locked.stream().map(Booking::getId).toList();
+                bookingRepository.updateStatusByStatusAndIdIn(
+                        BookingStatus.AWAITING_PAYMENT, BookingStatus.EXPIRED, now, lockedIds);
+
+                // Entités détachées par l'UPDATE groupé : mise à jour en mémoire pour les événements
+                locked.forEach(booking -> booking.setStatus(BookingStatus.EXPIRED));
+                availabilityService.releaseAll(locked);
+                eventPublisher.publishEvent(BookingChangedEvent.of(locked));
+                return locked;
+            });
 
-        // 5. Publier les événements (Pour que SearchService libère les dates immédiatement)
-        expiredBookings.forEach(this::publishExpiredEvent);
+            if (expiredBookings == null || expiredBookings.isEmpty()) {
+                return 0;
+            }
+
+            recordExpired(source, expiredBookings);
+            log.info("⏰ {} bookings expired (no payment in {} min, source={})",
+                    expiredBookings.size(), delayMinutes, source);
+            publishExpiredEvents(expiredBookings);
+            return expiredBookings.size();
+
+        } catch (Exception e) {
+            // Le balayage de secours reprendra ces bookings
+            log.error("❌ Failed to expire a batch of bookings (source={})", source, e);
+            return 0;
+        }
     }
 
-    private void publishExpiredEvent(Booking booking) {
+    private void recordExpired(String source, List<Booking> bookings) {
+        Timer lag = Timer.builder("booking.expiration.lag")
+                .description("Délai entre l'échéance de paiement et l'expiration effective")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        long nowMs = System.currentTimeMillis();
+        for (Booking booking : bookings) {
+            if (booking.getCreatedAt() != null) {
+                lag.record(Duration.ofMillis(Math.max(0, nowMs - deadlineOf(booking.getCreatedAt()))));
+            }
+        }
+
+        Counter.builder("booking.expiration.expired")
+                .description("Bookings passés en EXPIRED")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(bookings.size());
+    }
+
+    /**
+     * Publier les événements booking.expired d'un lot sur un seul canal
+     * Pour que SearchService libère les dates immédiatement
+     */
+    private void publishExpiredEvents(List<Booking> bookings) {
+        String timestamp = LocalDateTime.now().toString();
+        String reason = "Payment timeout (" + delayMinutes + " min)";
         try {
-            Map<String, Object> event = new HashMap<>();
-            event.put("bookingId", booking.getId());
-            event.put("propertyId", booking.getPropertyId());
-            event.put("reason", "Payment timeout (15 min)");
-            event.put("timestamp", LocalDateTime.now().toString());
+            rabbitTemplate.invoke(operations -> {
+                for (Booking booking : bookings) {
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("bookingId", booking.getId());
+                    event.put("propertyId", booking.getPropertyId());
+                    event.put("reason", reason);
+                    event.put("timestamp", timestamp);
 
-            rabbitTemplate.convertAndSend(exchange, expiredRoutingKey, event);
+                    operations.convertAndSend(exchange, expiredRoutingKey, event);
+                }
+                return null;
+            });
         } catch (Exception e) {
-            log.error("Failed to publish expiration event for booking {}", booking.getId(), e);
+            log.error("Failed to publish expiration events for {} bookings", bookings.size(), e);
         }
     }
-}
\ No newline at end of file
+
+    private long deadlineOf(LocalDateTime createdAt) {
+        return createdAt.plusMinutes(delayMinutes)
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+    }
+}
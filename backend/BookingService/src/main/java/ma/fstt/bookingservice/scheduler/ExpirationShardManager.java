@@ -0,0 +1,135 @@
+package ma.fstt.bookingservice.scheduler;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.repository.ExpirationShardLeaseRepository;
+import ma.fstt.bookingservice.repository.ExpirationWorkerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * ✅ Répartition des shards d'expiration entre les instances (baux en base)
+ *
+ * Un booking appartient au shard booking.id % shards. Chaque instance publie un heartbeat,
+ * calcule sa part (shards / instances vivantes, arrondi au supérieur), renouvelle ses baux,
+ * rend le surplus et prend des shards libres ou dont le bail a expiré.
+ * Toutes les transitions sont des UPDATE conditionnels : deux instances ne possèdent jamais
+ * le même shard en même temps (à la dérive d'horloge près, couverte par la durée du bail).
+ */
+@Component
+@Slf4j
+public class ExpirationShardManager {
+
+    private final ExpirationShardLeaseRepository leaseRepository;
+    private final ExpirationWorkerRepository workerRepository;
+    private final String workerId;
+    private final int shardCount;
+    private final long leaseSeconds;
+
+    private volatile Set<Integer> ownedShards = Collections.emptySet();
+
+    public ExpirationShardManager(ExpirationShardLeaseRepository leaseRepository,
+                                  ExpirationWorkerRepository workerRepository,
+                                  @Value("${booking.expiration.worker-id:${HOSTNAME:}}") String workerId,
+                                  @Value("${booking.expiration.shards:16}") int shardCount,
+                                  @Value("${booking.expiration.lease-seconds:30}") long leaseSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.workerRepository = workerRepository;
+        this.workerId = StringUtils.hasText(workerId) ? workerId : "booking-" + UUID.randomUUID();
+        this.shardCount = shardCount;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Créer les lignes de baux manquantes (idempotent)
+     */
+    public void initialize() {
+        for (int shard = 0; shard < shardCount; shard++) {
+            leaseRepository.insertIfAbsent(shard);
+        }
+        log.info("⚙️ Expiration worker {} joining ({} shards, lease {}s)", workerId, shardCount, leaseSeconds);
+    }
+
+    /**
+     * Heartbeat + renouvellement + rééquilibrage
+     *
+     * @return les shards nouvellement acquis (à recharger dans la roue)
+     */
+    public synchronized Set<Integer> rebalance() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusSeconds(leaseSeconds);
+
+        workerRepository.heartbeat(workerId, now);
+        workerRepository.deleteStale(now.minusSeconds(leaseSeconds * 10));
+        long liveWorkers = Math.max(1, workerRepository.countByHeartbeatAtAfter(now.minusSeconds(leaseSeconds)));
+        int target = (int) ((shardCount + liveWorkers - 1) / liveWorkers);
+
+        // 1. Renouveler (un bail perdu = repris par une autre instance après expiration)
+        Set<Integer> owned = new TreeSet<>();
+        for (Integer shard : ownedShards) {
+            if (leaseRepository.claim(shard, workerId, now, until) == 1) {
+                owned.add(shard);
+            } else {
+                log.warn("⚠️ Lost lease on expiration shard {}", shard);
+            }
+        }
+
+        // 2. Rendre le surplus pour laisser de la place aux nouvelles instances
+        List<Integer> surplus = new ArrayList<>(owned);
+        while (owned.size() > target) {
+            Integer shard = surplus.remove(surplus.size() - 1);
+            leaseRepository.release(shard, workerId);
+            owned.remove(shard);
+        }
+
+        // 3. Prendre des shards libres / expirés jusqu'à notre part
+        Set<Integer> acquired = new TreeSet<>();
+        for (int shard = 0; shard < shardCount && owned.size() < target; shard++) {
+            if (!owned.contains(shard) && leaseRepository.claim(shard, workerId, now, until) == 1) {
+                owned.add(shard);
+                acquired.add(shard);
+            }
+        }
+
+        if (!acquired.isEmpty() || owned.size() != ownedShards.size()) {
+            log.info("⚙️ Expiration shards for {}: {} (target {}, {} live workers)", workerId, owned, target, liveWorkers);
+        }
+        ownedShards = Collections.unmodifiableSet(owned);
+        return acquired;
+    }
+
+    /**
+     * Arrêt propre : rendre les baux tout de suite plutôt qu'attendre leur expiration
+     */
+    @PreDestroy
+    public synchronized void releaseAll() {
+        try {
+            ownedShards.forEach(shard -> leaseRepository.release(shard, workerId));
+            workerRepository.deleteById(workerId);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release expiration leases on shutdown: {}", e.getMessage());
+        }
+        ownedShards = Collections.emptySet();
+    }
+
+    public Set<Integer> getOwnedShards() {
+        return ownedShards;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+}
@@ -0,0 +1,199 @@
+package ma.fstt.bookingservice.scheduler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Roue temporelle hiérarchique (même principe que les timers de Kafka)
+ *
+ * Niveau 0 : wheelSize cases de tickMs. Une échéance au-delà de l'horizon d'un niveau
+ * est placée dans le niveau supérieur (cases wheelSize fois plus larges), créé à la demande,
+ * puis redescendue quand sa case arrive à échéance.
+ * Ajout / annulation en O(1) ; advance() ne visite que les cases échues (file de priorité
+ * de cases, pas d'entrées), donc le coût ne dépend pas du nombre d'éléments en attente.
+ *
+ * Précision : tickMs, par excès. Les échéances sont arrondies au tick supérieur : un élément
+ * n'est jamais rendu avant son échéance, au plus un tick après.
+ * Non thread-safe par conception, les méthodes publiques sont synchronisées.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final PriorityQueue<Bucket<T>> dueBuckets =
+            new PriorityQueue<>(Comparator.comparingLong(bucket -> bucket.expiration));
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private final Wheel root;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.root = new Wheel(tickMs, wheelSize, startMs);
+    }
+
+    /**
+     * Planifier (ou replanifier) un élément
+     *
+     * @return false si l'échéance est déjà passée : l'élément n'est pas planifié, à traiter tout de suite
+     */
+    public synchronized boolean schedule(T item, long deadlineMs) {
+        cancel(item);
+        Entry<T> entry = new Entry<>(item, root.roundUp(deadlineMs));
+        if (!root.add(entry)) {
+            return false;
+        }
+        entries.put(item, entry);
+        return true;
+    }
+
+    /**
+     * Retirer un élément (confirmé / annulé avant échéance)
+     */
+    public synchronized boolean cancel(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Retirer tous les éléments qui vérifient le prédicat (ex. shard dont le bail est perdu)
+     *
+     * @return nombre d'éléments retirés
+     */
+    public synchronized int cancelIf(Predicate<T> predicate) {
+        int cancelled = 0;
+        Iterator<Entry<T>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<T> entry = it.next();
+            if (predicate.test(entry.item)) {
+                entry.cancelled = true;
+                it.remove();
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Avancer l'horloge jusqu'à nowMs et renvoyer les éléments échus
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> due = new ArrayList<>();
+        Bucket<T> bucket;
+        while ((bucket = dueBuckets.peek()) != null && bucket.expiration <= nowMs) {
+            dueBuckets.poll();
+            root.advanceClock(bucket.expiration);
+            for (Entry<T> entry : bucket.flush()) {
+                // Réinsertion : l'entrée redescend d'un niveau, ou est échue
+                if (!entry.cancelled && !root.add(entry)) {
+                    entries.remove(entry.item);
+                    due.add(entry.item);
+                }
+            }
+        }
+        root.advanceClock(nowMs);
+        return due;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    // --- Structure interne ---
+
+    private static final class Entry<T> {
+        private final T item;
+        // Échéance arrondie au tick supérieur du niveau 0 : la case du niveau 0 expire exactement à cette date
+        private final long deadlineMs;
+        private boolean cancelled;
+
+        private Entry(T item, long deadlineMs) {
+            this.item = item;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private List<Entry<T>> entries = new ArrayList<>();
+        private long expiration = -1;
+
+        /**
+         * @return true si la case vient d'être (ré)armée et doit entrer dans la file
+         */
+        private boolean setExpiration(long expirationMs) {
+            if (expiration == expirationMs) {
+                return false;
+            }
+            expiration = expirationMs;
+            return true;
+        }
+
+        private List<Entry<T>> flush() {
+            List<Entry<T>> flushed = entries;
+            entries = new ArrayList<>();
+            expiration = -1;
+            return flushed;
+        }
+    }
+
+    private final class Wheel {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long intervalMs;
+        private final List<Bucket<T>> buckets;
+        private long currentTime;
+        private Wheel overflow;
+
+        private Wheel(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.intervalMs = tickMs * wheelSize;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new Bucket<>());
+            }
+        }
+
+        private boolean add(Entry<T> entry) {
+            if (entry.deadlineMs < currentTime + tickMs) {
+                return false;
+            }
+            if (entry.deadlineMs < currentTime + intervalMs) {
+                long virtualId = entry.deadlineMs / tickMs;
+                Bucket<T> bucket = buckets.get((int) (virtualId % wheelSize));
+                bucket.entries.add(entry);
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    dueBuckets.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Wheel(intervalMs, wheelSize, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        private long roundUp(long timeMs) {
+            return -Math.floorDiv(-timeMs, tickMs) * tickMs;
+        }
+
+        private void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+}
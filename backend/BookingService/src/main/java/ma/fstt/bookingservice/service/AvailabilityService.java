@@ -0,0 +1,259 @@
+package ma.fstt.bookingservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.dto.AvailabilityDTO;
+import ma.fstt.bookingservice.exception.BookingException;
+import ma.fstt.bookingservice.exception.PropertyNotAvailableException;
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.model.PropertyDay;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.repository.PropertyDayRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ✅ Index de disponibilité des properties
+ *
+ * Deux niveaux :
+ * - table property_day (une ligne par nuit occupée, unique par property) = source de vérité
+ * - un {@link PropertyCalendar} par property en mémoire, chargé à la demande, TTL court
+ *
+ * Mis à jour à chaque transition : création (AWAITING_PAYMENT), confirmation, annulation, expiration.
+ * Le cache mémoire n'est modifié qu'après commit ; avec plusieurs instances il peut être en retard,
+ * c'est pourquoi une réponse "occupé" est revérifiée en base et l'insertion des nuits reste
+ * protégée par la contrainte unique.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityService {
+
+    public static final List<BookingStatus> BLOCKING_STATUSES = List.of(
+            BookingStatus.AWAITING_PAYMENT,
+            BookingStatus.CONFIRMED
+    );
+
+    private final PropertyDayRepository propertyDayRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, PropertyCalendar> calendars = new ConcurrentHashMap<>();
+
+    @Value("${booking.availability.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    @Value("${booking.availability.max-cached-properties:5000}")
+    private int maxCachedProperties;
+
+    @Value("${booking.availability.max-range-days:366}")
+    private int maxRangeDays;
+
+    // ========== LECTURE ==========
+
+    /**
+     * Toutes les nuits de [from, to) sont-elles libres ?
+     */
+    public boolean isRangeFree(String propertyId, LocalDate from, LocalDate to) {
+        if (calendar(propertyId).isFree(from, to)) {
+            return true;
+        }
+
+        // Calendrier peut-être périmé (libération faite par une autre instance) : la base tranche
+        if (!propertyDayRepository.existsByPropertyIdAndDayGreaterThanEqualAndDayLessThan(propertyId, from, to)) {
+            calendars.remove(propertyId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calendrier jour par jour sur [from, to)
+     */
+    public AvailabilityDTO getAvailability(String propertyId, LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new BookingException("'to' must be after 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxRangeDays) {
+            throw new BookingException("Date range cannot exceed " + maxRangeDays + " days");
+        }
+
+        LocalDate today = LocalDate.now();
+        PropertyCalendar calendar = calendar(propertyId);
+
+        List<AvailabilityDTO.DayAvailability> days = new ArrayList<>();
+        boolean available = !from.isBefore(today);
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            String status;
+            if (day.isBefore(today)) {
+                status = "PAST";
+            } else {
+                PropertyCalendar.DayState state = calendar.stateOf(day);
+                status = state.name();
+                available &= state == PropertyCalendar.DayState.AVAILABLE;
+            }
+            days.add(AvailabilityDTO.DayAvailability.builder().date(day).status(status).build());
+        }
+
+        return AvailabilityDTO.builder()
+                .propertyId(propertyId)
+                .from(from)
+                .to(to)
+                .available(available)
+                .days(days)
+                .build();
+    }
+
+    // ========== ÉCRITURE (dans la transaction du booking) ==========
+
+    /**
+     * Occuper les nuits d'un booking AWAITING_PAYMENT
+     *
+     * @throws PropertyNotAvailableException si une nuit est déjà prise (contrainte uk_property_day)
+     */
+    @Transactional
+    public void reserve(Booking booking) {
+        try {
+            propertyDayRepository.saveAllAndFlush(toDays(booking));
+        } catch (DataIntegrityViolationException e) {
+            calendars.remove(booking.getPropertyId());
+            log.warn("Night already taken for property {} ({} → {})",
+                    booking.getPropertyId(), booking.getStartDate(), booking.getEndDate());
+            throw new PropertyNotAvailableException("Property is already booked for the selected dates");
+        }
+
+        afterCommit(() -> calendars.computeIfPresent(booking.getPropertyId(), (id, calendar) -> {
+            calendar.reserve(booking.getStartDate(), booking.getEndDate(), BookingStatus.AWAITING_PAYMENT);
+            return calendar;
+        }));
+    }
+
+    @Transactional
+    public void confirm(Booking booking) {
+        propertyDayRepository.updateStatusByBookingId(booking.getId(), BookingStatus.CONFIRMED);
+
+        afterCommit(() -> calendars.computeIfPresent(booking.getPropertyId(), (id, calendar) -> {
+            calendar.reserve(booking.getStartDate(), booking.getEndDate(), BookingStatus.CONFIRMED);
+            return calendar;
+        }));
+    }
+
+    /**
+     * ✅ NOUVEAU: Confirmation défaite (paiement réorganisé) : les nuits restent occupées, en AWAITING_PAYMENT
+     * Le calendrier en cache ne sait pas rétrograder une nuit confirmée : il est rechargé à la prochaine lecture.
+     */
+    @Transactional
+    public void unconfirm(Booking booking) {
+        propertyDayRepository.updateStatusByBookingId(booking.getId(), BookingStatus.AWAITING_PAYMENT);
+
+        afterCommit(() -> calendars.remove(booking.getPropertyId()));
+    }
+
+    /**
+     * Libérer les nuits de bookings annulés / expirés (une seule requête DELETE)
+     */
+    @Transactional
+    public void releaseAll(Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        propertyDayRepository.deleteByBookingIdIn(bookings.stream().map(Booking::getId).toList());
+
+        afterCommit(() -> bookings.forEach(booking ->
+                calendars.computeIfPresent(booking.getPropertyId(), (id, calendar) -> {
+                    calendar.release(booking.getStartDate(), booking.getEndDate());
+                    return calendar;
+                })));
+    }
+
+    public void release(Booking booking) {
+        releaseAll(List.of(booking));
+    }
+
+    // ========== AMORÇAGE ==========
+
+    /**
+     * Bookings actifs antérieurs à la table property_day : on crée leurs nuits au démarrage
+     * Un booking par transaction ; un conflit (données historiques) est loggé et ignoré.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingDays() {
+        List<Booking> missing = bookingRepository.findActiveBookingsWithoutDays(BLOCKING_STATUSES, LocalDate.now());
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        log.info("📅 Backfilling property_day for {} active bookings", missing.size());
+        for (Booking booking : missing) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        propertyDayRepository.saveAllAndFlush(toDays(booking)));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("⚠️ Booking {} overlaps an existing booking on property {}, days not indexed",
+                        booking.getId(), booking.getPropertyId());
+            }
+        }
+    }
+
+    // ========== INTERNE ==========
+
+    private PropertyCalendar calendar(String propertyId) {
+        PropertyCalendar calendar = calendars.get(propertyId);
+        if (calendar != null && !calendar.isOlderThan(cacheTtlSeconds * 1000)) {
+            return calendar;
+        }
+
+        PropertyCalendar loaded = new PropertyCalendar();
+        for (PropertyDay day : propertyDayRepository.findByPropertyIdAndDayGreaterThanEqual(propertyId, LocalDate.now())) {
+            loaded.reserve(day.getDay(), day.getDay().plusDays(1), day.getStatus());
+        }
+
+        if (calendars.size() >= maxCachedProperties) {
+            calendars.clear();
+        }
+        calendars.put(propertyId, loaded);
+        return loaded;
+    }
+
+    private static List<PropertyDay> toDays(Booking booking) {
+        List<PropertyDay> days = new ArrayList<>();
+        for (LocalDate day = booking.getStartDate(); day.isBefore(booking.getEndDate()); day = day.plusDays(1)) {
+            days.add(PropertyDay.builder()
+                    .propertyId(booking.getPropertyId())
+                    .day(day)
+                    .bookingId(booking.getId())
+                    .status(booking.getStatus())
+                    .build());
+        }
+        return days;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package ma.fstt.bookingservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.client.ResilientRemoteClient;
+import ma.fstt.bookingservice.exception.BookingException;
+import ma.fstt.bookingservice.exception.PropertyNotFoundException;
+import ma.fstt.bookingservice.exception.WalletNotConnectedException;
+import ma.fstt.bookingservice.propertysync.PropertyChangedEvent;
+import ma.fstt.bookingservice.propertysync.PropertySnapshot;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotStore;
+import ma.fstt.bookingservice.response.PropertyDTO;
+import ma.fstt.bookingservice.response.WalletStatusDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * ✅ NOUVEAU: Lectures distantes de la création de booking (wallet + prix), en cache
+ *
+ * - Wallet : AuthService, cache TTL court, invalidé par user.created / user.updated.
+ * - Prix : read model property_snapshots, sinon ListingService, cache TTL court,
+ *   invalidé par les événements property.* appliqués.
+ * Les deux lectures sont lancées en parallèle sur "remoteLookupExecutor".
+ *
+ * Avec plusieurs instances, un événement n'est consommé que par l'une d'elles :
+ * les autres voient le changement à expiration du TTL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingLookupService {
+
+    private final ResilientRemoteClient remoteClient;
+    private final PropertySnapshotStore propertySnapshotStore;
+    private final Executor remoteLookupExecutor;
+
+    @Value("${booking.lookups.wallet-ttl-seconds:30}")
+    private long walletTtlSeconds;
+
+    @Value("${booking.lookups.pricing-ttl-seconds:30}")
+    private long pricingTtlSeconds;
+
+    @Value("${booking.lookups.max-entries:10000}")
+    private int maxEntries;
+
+    private ExpiringCache<String, String> wallets;
+    private ExpiringCache<String, PropertyDTO> pricing;
+
+    @PostConstruct
+    void initCaches() {
+        wallets = new ExpiringCache<>(walletTtlSeconds * 1000, maxEntries);
+        pricing = new ExpiringCache<>(pricingTtlSeconds * 1000, maxEntries);
+    }
+
+    public CompletableFuture<String> connectedWalletAsync(String userId) {
+        return CompletableFuture.supplyAsync(() -> getConnectedWallet(userId), remoteLookupExecutor);
+    }
+
+    public CompletableFuture<PropertyDTO> propertyPricingAsync(String propertyId) {
+        return CompletableFuture.supplyAsync(() -> resolvePropertyPricing(propertyId), remoteLookupExecutor);
+    }
+
+    /**
+     * Wallet connecté de l'utilisateur
+     * Seules les réponses positives sont gardées : un utilisateur qui vient de connecter
+     * son wallet n'attend pas l'expiration du cache.
+     *
+     * @throws WalletNotConnectedException Si l'utilisateur n'a pas de wallet connecté
+     */
+    public String getConnectedWallet(String userId) {
+        String wallet = wallets.get(userId, this::fetchConnectedWallet);
+        if (wallet == null) {
+            log.warn("❌ User {} does not have a connected wallet", userId);
+            throw new WalletNotConnectedException(
+                    "You must connect your wallet before creating a booking. " +
+                            "Please go to your profile settings and connect your Web3 wallet (MetaMask, etc.)."
+            );
+        }
+        return wallet;
+    }
+
+    /**
+     * Prix courant : read model local, sinon ListingService (en cache)
+     */
+    public PropertyDTO resolvePropertyPricing(String propertyId) {
+        PropertySnapshot snapshot = propertySnapshotStore.find(propertyId).orElse(null);
+        if (snapshot == null) {
+            return pricing.get(propertyId, this::fetchPropertyPricing);
+        }
+
+        if (snapshot.isDeleted()) {
+            throw new PropertyNotFoundException("Property not found with ID: " + propertyId);
+        }
+        if (snapshot.getPricePerNight() == null || snapshot.getPricePerNight().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BookingException("Property does not have a valid price");
+        }
+
+        log.info("Using local property snapshot v{}: {} ETH/night", snapshot.getVersion(), snapshot.getPricePerNight());
+        return PropertyDTO.builder()
+                .id(snapshot.getPropertyId())
+                .price(snapshot.getPricePerNight())
+                .ownerId(snapshot.getOwnerId())
+                .build();
+    }
+
+    // ========== INVALIDATION ==========
+
+    public void invalidateWallet(String userId) {
+        if (userId != null) {
+            wallets.invalidate(userId);
+        }
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (event.getPropertyId() != null) {
+            pricing.invalidate(event.getPropertyId());
+        }
+    }
+
+    // ========== APPELS DISTANTS ==========
+
+    private String fetchConnectedWallet(String userId) {
+        log.debug("🔍 Fetching connected wallet for user {}", userId);
+        WalletStatusDTO walletStatus = remoteClient.getWalletStatus(userId);
+        if (!Boolean.TRUE.equals(walletStatus.getExists())) {
+            return null;
+        }
+        log.info("✅ Wallet found for user {}: {}", userId, walletStatus.getWalletAddress());
+        return walletStatus.getWalletAddress();
+    }
+
+    private PropertyDTO fetchPropertyPricing(String propertyId) {
+        PropertyDTO property = remoteClient.getProperty(propertyId);
+        if (property.getPrice() == null || property.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BookingException("Property does not have a valid price");
+        }
+        log.info("Fetched property pricing: {} ETH/night", property.getPrice());
+        return property;
+    }
+}
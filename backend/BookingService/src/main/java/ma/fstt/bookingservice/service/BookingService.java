@@ -1,33 +1,42 @@
 package ma.fstt.bookingservice.service;
 
-import ma.fstt.bookingservice.client.AuthServiceClient;
+import ma.fstt.bookingservice.dto.BookingReconciliationPage;
 import ma.fstt.bookingservice.dto.BookingRequestDTO;
 import ma.fstt.bookingservice.dto.BookingResponseDTO;
-import ma.fstt.bookingservice.entities.Tenant;
 import ma.fstt.bookingservice.dto.HostBookingDTO;
+import ma.fstt.bookingservice.events.BookingChangedEvent;
+import ma.fstt.bookingservice.hostdashboard.HostBookingProjection;
+import ma.fstt.bookingservice.repository.BookingReconciliationView;
 import ma.fstt.bookingservice.repository.BookingRepository;
-import ma.fstt.bookingservice.repository.TenantRepository;
+import ma.fstt.bookingservice.repository.BookingSummaryView;
 import ma.fstt.bookingservice.response.PropertyDTO;
-import ma.fstt.bookingservice.response.WalletStatusDTO;
 import ma.fstt.bookingservice.exception.*;
 import ma.fstt.bookingservice.model.Booking;
 import ma.fstt.bookingservice.model.BookingStatus;
-import ma.fstt.bookingservice.client.ListingServiceClient;
+import ma.fstt.bookingservice.scheduler.BookingExpirationScheduler;
 
-import feign.FeignException;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @RequiredArgsConstructor
@@ -35,9 +44,14 @@ import java.util.List;
 public class BookingService {
 
     private final BookingRepository bookingRepository;
-    private final AuthServiceClient authServiceClient;
-    private final ListingServiceClient listingServiceClient;
+    private final BookingLookupService bookingLookupService;
     private final RabbitTemplate rabbitTemplate;
+    private final AvailabilityService availabilityService;
+    private final TransactionTemplate transactionTemplate;
+    private final PropertyLockStripes propertyLockStripes;
+    private final BookingExpirationScheduler bookingExpirationScheduler;
+    private final HostBookingProjection hostBookingProjection;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${rabbitmq.exchange}")
     private String exchange;
@@ -51,29 +65,39 @@ public class BookingService {
     @Value("${rabbitmq.routing-key.created}")
     private String createdRoutingKey;
 
-    private final TenantRepository tenantRepository;
+    @Value("${booking.locks.wait-ms:2000}")
+    private long lockWaitMs;
+
+    @Value("${booking.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${booking.reconciliation.max-batch:5000}")
+    private int maxReconciliationBatch;
+
     /**
      * ✅ MODIFIÉ : Récupération automatique du wallet + String tenantId + String propertyId
      * Trust-But-Verify Pattern: Create Booking with strict validation
      * État final : AWAITING_PAYMENT
+     *
+     * Concurrence : les appels distants (wallet, prix) se font en parallèle, hors verrou et hors transaction.
+     * Seuls "vérifier + insérer les nuits + commit" sont faits sous le verrou de la property ;
+     * la contrainte unique de property_day protège entre instances.
      */
-    @Transactional
     public BookingResponseDTO createBooking(String tenantId, BookingRequestDTO request) {
         log.info("Creating booking for tenant {} - Property {}", tenantId, request.getPropertyId());
 
-        // ✅ Récupérer automatiquement le wallet de l'utilisateur (avec Circuit Breaker)
-        String tenantWallet = getConnectedWallet(tenantId);
-        log.info("✅ Using connected wallet: {} for tenant {}", tenantWallet, tenantId);
-
         // Step 1: Validate Dates
         validateDates(request.getStartDate(), request.getEndDate());
 
-        // Step 2: Check Property Availability
+        // Step 2: Check Property Availability (rapide, avant les appels distants)
         checkAvailability(request.getPropertyId(), request.getStartDate(), request.getEndDate());
 
-        // Step 3: Fetch Current Price from ListingService (Snapshot Pattern + Circuit Breaker)
-        // ✅ CORRECTION: Passer directement le String propertyId (pas de conversion en Long)
-        PropertyDTO property = fetchPropertyPricing(request.getPropertyId());
+        // Step 3: Wallet (AuthService) + prix courant (read model / ListingService), en parallèle et en cache
+        CompletableFuture<String> walletLookup = bookingLookupService.connectedWalletAsync(tenantId);
+        CompletableFuture<PropertyDTO> pricingLookup = bookingLookupService.propertyPricingAsync(request.getPropertyId());
+        String tenantWallet = await(walletLookup);
+        PropertyDTO property = await(pricingLookup);
+        log.info("✅ Using connected wallet: {} for tenant {}", tenantWallet, tenantId);
 
         // Step 4: Calculate Total Price
         long numberOfNights = ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate());
@@ -96,10 +120,14 @@ public class BookingService {
                 .currency("ETH")  // ✅ CORRECTION: Force "ETH" au lieu de property.getCurrency()
                 .build();
 
-        Booking savedBooking = bookingRepository.save(booking);
+        // Step 6: Réserver sous verrou (revérification + insertion des nuits + commit)
+        Booking savedBooking = reserveUnderLock(booking, property.getOwnerId());
         log.info("Booking created with ID: {} - Status: AWAITING_PAYMENT", savedBooking.getId());
 
-        // Publier l'événement "booking.created" pour le PaymentService
+        // Planifier l'expiration précise (createdAt + délai de paiement)
+        bookingExpirationScheduler.track(savedBooking);
+
+        // Publier l'événement "booking.created" pour le PaymentService (après commit)
         rabbitTemplate.convertAndSend(exchange, createdRoutingKey, savedBooking);
         log.info("Published booking.created event for booking {}", savedBooking.getId());
 
@@ -107,53 +135,48 @@ public class BookingService {
     }
 
     /**
-     * ✅ Récupère automatiquement le wallet connecté de l'utilisateur
-     * 🔄 PROTECTION : Circuit Breaker pour gérer l'indisponibilité d'AuthService
-     *
-     * @param userId ID de l'utilisateur (String UUID)
-     * @return Adresse du wallet connecté
-     * @throws WalletNotConnectedException Si l'utilisateur n'a pas de wallet connecté
-     * @throws ServiceUnavailableException Si AuthService est indisponible (fallback)
+     * ✅ NOUVEAU: Section critique de la création
+     * Le verrou couvre le commit : le booking suivant sur la même property voit les nuits occupées.
      */
-    @CircuitBreaker(name = "authService", fallbackMethod = "getWalletFallback")
-    private String getConnectedWallet(String userId) {
-        log.debug("🔍 Fetching connected wallet for user {}", userId);
-
+    private Booking reserveUnderLock(Booking booking, String hostId) {
+        ReentrantLock lock = propertyLockStripes.lockFor(booking.getPropertyId());
         try {
-            WalletStatusDTO walletStatus = authServiceClient.getWalletStatus(userId);
-
-            if (!walletStatus.getExists()) {
-                log.warn("❌ User {} does not have a connected wallet", userId);
-                throw new WalletNotConnectedException(
-                        "You must connect your wallet before creating a booking. " +
-                                "Please go to your profile settings and connect your Web3 wallet (MetaMask, etc.)."
-                );
+            if (!lock.tryLock(lockWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new PropertyNotAvailableException(
+                        "Property is being booked by another request. Please try again.");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingException("Booking interrupted", e);
+        }
 
-            log.info("✅ Wallet found for user {}: {}", userId, walletStatus.getWalletAddress());
-            return walletStatus.getWalletAddress();
-
-        } catch (FeignException.NotFound e) {
-            log.error("❌ User {} not found in AuthService", userId);
-            throw new BookingException("User not found. Please contact support.");
-
-        } catch (FeignException e) {
-            log.error("❌ Error communicating with AuthService: {}", e.getMessage());
-            throw new BookingException(
-                    "Unable to verify wallet connection. Please try again later.", e
-            );
+        try {
+            checkAvailability(booking.getPropertyId(), booking.getStartDate(), booking.getEndDate());
+
+            return transactionTemplate.execute(status -> {
+                Booking saved = bookingRepository.save(booking);
+                // Échoue (uk_property_day) si une autre instance a pris une nuit entre-temps
+                availabilityService.reserve(saved);
+                eventPublisher.publishEvent(BookingChangedEvent.created(saved, hostId));
+                return saved;
+            });
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * ✅ FALLBACK : Méthode de secours si AuthService est indisponible
-     * Appelée automatiquement par le Circuit Breaker
+     * Attendre un appel distant lancé en parallèle, en relançant l'exception d'origine
      */
-    private String getWalletFallback(String userId, Exception e) {
-        log.error("❌ AuthService circuit breaker activated for user {}: {}", userId, e.getMessage());
-        throw new ServiceUnavailableException(
-                "Authentication service is temporarily unavailable. Please try again later."
-        );
+    private static <T> T await(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BookingException("Unable to prepare booking", e.getCause());
+        }
     }
 
     /**
@@ -178,6 +201,9 @@ public class BookingService {
 
         booking.setStatus(BookingStatus.CONFIRMED);
         Booking confirmedBooking = bookingRepository.save(booking);
+        availabilityService.confirm(confirmedBooking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(confirmedBooking));
+        bookingExpirationScheduler.untrack(bookingId);
 
         // Publier l'événement de confirmation
         rabbitTemplate.convertAndSend(exchange, confirmedRoutingKey, confirmedBooking);
@@ -186,6 +212,32 @@ public class BookingService {
         return mapToResponseDTO(confirmedBooking);
     }
 
+    /**
+     * ✅ NOUVEAU: Paiement sorti de la chaîne par une réorganisation (payment.reorged)
+     * Transition : CONFIRMED → AWAITING_PAYMENT, les nuits restent occupées.
+     * - transaction re-minée et revalidée : un nouveau payment.confirmed reconfirme le booking
+     * - sinon : expiré par le balayage périodique (échéance createdAt + délai déjà dépassée)
+     */
+    @Transactional
+    public BookingResponseDTO revertConfirmation(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new BookingException("Booking not found"));
+
+        if (booking.getStatus() != BookingStatus.CONFIRMED) {
+            throw new BookingException(
+                    String.format("Cannot revert confirmation of booking in status %s", booking.getStatus())
+            );
+        }
+
+        booking.setStatus(BookingStatus.AWAITING_PAYMENT);
+        Booking revertedBooking = bookingRepository.save(booking);
+        availabilityService.unconfirm(revertedBooking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(revertedBooking));
+        log.warn("⚠️ Booking {} back to AWAITING_PAYMENT after payment reorganization", bookingId);
+
+        return mapToResponseDTO(revertedBooking);
+    }
+
     /**
      * ✅ SÉCURISÉ : Cancel a booking avec validation stricte des statuts
      *
@@ -220,6 +272,9 @@ public class BookingService {
 
         booking.setStatus(BookingStatus.CANCELLED);
         Booking cancelledBooking = bookingRepository.save(booking);
+        availabilityService.release(cancelledBooking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(cancelledBooking));
+        bookingExpirationScheduler.untrack(bookingId);
 
         // Publier l'événement d'annulation
         rabbitTemplate.convertAndSend(exchange, cancelledRoutingKey, cancelledBooking);
@@ -229,16 +284,6 @@ public class BookingService {
         return mapToResponseDTO(cancelledBooking);
     }
 
-    /**
-     * 🕐 MÉTHODE POUR LE SCHEDULER : Expirer les paiements non payés
-     * Transition : AWAITING_PAYMENT → EXPIRED (après 15 min)
-     */
-    @Transactional
-    public void expireUnpaidBookings() {
-        log.info("Running expiration job for unpaid bookings...");
-        // TODO: Implémenté dans BookingExpirationScheduler
-    }
-
     // ========== MÉTHODES DE VALIDATION ==========
 
     private void validateDates(LocalDate startDate, LocalDate endDate) {
@@ -259,20 +304,11 @@ public class BookingService {
     }
 
     /**
-     * ✅ CORRECTION: propertyId est maintenant un String
+     * ✅ Vérification via l'index de disponibilité (AWAITING_PAYMENT et CONFIRMED sont bloquants)
+     * Vérification rapide uniquement : la garantie finale est l'insertion des nuits (reserve)
      */
     private void checkAvailability(String propertyId, LocalDate startDate, LocalDate endDate) {
-        // On considère aussi AWAITING_PAYMENT comme "bloquant"
-        List<BookingStatus> activeStatuses = List.of(
-                BookingStatus.AWAITING_PAYMENT,
-                BookingStatus.CONFIRMED
-        );
-
-        List<Booking> overlappingBookings = bookingRepository.findOverlappingBookings(
-                propertyId, startDate, endDate, activeStatuses
-        );
-
-        if (!overlappingBookings.isEmpty()) {
+        if (!availabilityService.isRangeFree(propertyId, startDate, endDate)) {
             log.warn("Property {} is not available for dates {} to {}", propertyId, startDate, endDate);
             throw new PropertyNotAvailableException(
                     "Property is already booked for the selected dates"
@@ -281,51 +317,31 @@ public class BookingService {
     }
 
     /**
-     * ✅ CORRECTION: Fetch property pricing avec String propertyId
-     * 🔄 PROTECTION : Circuit Breaker pour gérer l'indisponibilité de ListingService
+     * ✅ Get bookings by tenant (paginé, plus récentes d'abord, projection sans entité)
      */
-    @CircuitBreaker(name = "listingService", fallbackMethod = "getPropertyFallback")
-    private PropertyDTO fetchPropertyPricing(String propertyId) {
-        try {
-            PropertyDTO property = listingServiceClient.getProperty(propertyId);
-
-            if (property.getPrice() == null || property.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new BookingException("Property does not have a valid price");
-            }
-
-            // ✅ CORRECTION: Log sans property.getCurrency() car il peut être null
-            log.info("Fetched property pricing: {} ETH/night", property.getPrice());
-            return property;
-
-        } catch (FeignException.NotFound e) {
-            throw new PropertyNotFoundException("Property not found with ID: " + propertyId);
-        } catch (FeignException e) {
-            log.error("Error fetching property pricing: {}", e.getMessage());
-            throw new BookingException("Unable to fetch property details", e);
-        }
-    }
-
-    /**
-     * ✅ CORRECTION: FALLBACK avec String propertyId
-     * Méthode de secours si ListingService est indisponible
-     * Appelée automatiquement par le Circuit Breaker
-     */
-    private PropertyDTO getPropertyFallback(String propertyId, Exception e) {
-        log.error("❌ ListingService circuit breaker activated for property {}: {}",
-                propertyId, e.getMessage());
-        throw new ServiceUnavailableException(
-                "Property service is temporarily unavailable. Please try again later."
-        );
+    public Page<BookingResponseDTO> getBookingsByTenant(String tenantId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(Sort.Direction.DESC, "createdAt"));
+        return bookingRepository.findSummariesByTenantId(tenantId, pageRequest)
+                .map(this::mapToResponseDTO);
     }
 
     /**
-     * ✅ Get bookings by tenant
+     * ✅ NOUVEAU: Lot de bookings après un id, pour la réconciliation côté PaymentService
+     * Parcours par clé primaire : coût constant quelle que soit la position dans la table
      */
-    public List<BookingResponseDTO> getBookingsByTenant(String tenantId) {
-        return bookingRepository.findByTenantId(tenantId)
-                .stream()
-                .map(this::mapToResponseDTO)
-                .toList();
+    @Transactional(readOnly = true)
+    public BookingReconciliationPage getReconciliationBatch(long afterId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), maxReconciliationBatch);
+        // Une ligne de plus que le lot : sa présence indique la suite, sans requête de comptage
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1, Sort.by(Sort.Direction.ASC, "id"));
+        List<BookingReconciliationView> rows =
+                bookingRepository.findReconciliationByIdGreaterThan(Math.max(afterId, 0L), pageRequest);
+        boolean hasMore = rows.size() > pageSize;
+        return BookingReconciliationPage.builder()
+                .items(hasMore ? rows.subList(0, pageSize) : rows)
+                .hasMore(hasMore)
+                .build();
     }
 
     /**
@@ -354,53 +370,29 @@ public class BookingService {
                 .build();
     }
 
+    private BookingResponseDTO mapToResponseDTO(BookingSummaryView booking) {
+        return BookingResponseDTO.builder()
+                .id(booking.getId())
+                .propertyId(booking.getPropertyId())
+                .tenantId(booking.getTenantId())
+                .startDate(booking.getStartDate())
+                .endDate(booking.getEndDate())
+                .status(booking.getStatus())
+                .tenantWalletAddress(booking.getTenantWalletAddress())
+                .pricePerNight(booking.getPricePerNight())
+                .totalPrice(booking.getTotalPrice())
+                .currency(booking.getCurrency())
+                .createdAt(booking.getCreatedAt())
+                .updatedAt(booking.getUpdatedAt())
+                .build();
+    }
+
     /**
-     * ✅ NOUVEAU: Compter les réservations futures en tant qu'hôte
-     *
-     * ⚠️ LIMITATION: Booking n'a pas de relation directe avec Property
-     * On ne peut donc pas faire de query JPA pour récupérer les bookings par hostId
-     *
-     * SOLUTIONS POSSIBLES:
-     * 1. Appeler ListingService pour récupérer toutes les propertyIds du host, puis compter
-     * 2. Retourner toujours 0 (désactiver la vérification pour les hosts)
-     * 3. Ajouter une table de mapping host_id <-> property_id dans BookingService
-     *
-     * Pour l'instant: Solution 2 (retourner 0)
-     * Cela signifie que les hosts pourront toujours déconnecter leur wallet
+     * ✅ Compter les réservations futures (AWAITING_PAYMENT / CONFIRMED) en tant qu'hôte
+     * Servi par le read model host_bookings (hostId recopié sur chaque booking)
      */
     public Long countFutureBookingsByHost(String hostId) {
-        log.warn("⚠️ countFutureBookingsByHost: Feature not fully implemented - returning 0");
-        log.warn("⚠️ Reason: Booking entity does not have @ManyToOne relationship with Property");
-        log.warn("⚠️ To fix: Either add Property relationship or call ListingService to get propertyIds");
-
-        // Option: Retourner 0 pour désactiver cette vérification
-        return 0L;
-
-        /* ALTERNATIVE: Appeler ListingService pour récupérer les propertyIds
-        try {
-            // 1. Récupérer toutes les properties du host via ListingService
-            List<String> propertyIds = listingServiceClient.getPropertiesByOwner(hostId)
-                    .stream()
-                    .map(PropertyDTO::getPropertyId)
-                    .toList();
-
-            if (propertyIds.isEmpty()) {
-                return 0L;
-            }
-
-            // 2. Compter les bookings futurs pour ces properties
-            LocalDate today = LocalDate.now();
-            long count = 0L;
-            for (String propertyId : propertyIds) {
-                count += bookingRepository.countFutureBookingsByPropertyId(propertyId, today);
-            }
-            return count;
-
-        } catch (Exception e) {
-            log.error("❌ Error counting future bookings for host {}: {}", hostId, e.getMessage());
-            return 0L; // En cas d'erreur, retourner 0 pour ne pas bloquer
-        }
-        */
+        return hostBookingProjection.countFutureBookings(hostId);
     }
 
     /**
@@ -419,132 +411,29 @@ public class BookingService {
     }
 
     /**
-     * ✅ ADD THESE METHODS TO BookingService CLASS
-     * Location: ma.fstt.bookingservice.service.BookingService
-     *
-     * Add these imports at the top:
-     * import ma.fstt.bookingservice.dto.HostBookingDTO;
-     * import ma.fstt.bookingservice.repository.TenantRepository;
-     * import ma.fstt.bookingservice.entities.Tenant;
-     * import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-     * import feign.FeignException;
+     * ✅ NOUVEAU: Réservations en cours côté client (confirmées ou en attente de paiement), COUNT en base
      */
-
-// Add this field to the class (with @Autowired or in constructor with @RequiredArgsConstructor)
-
+    public Long countOpenBookingsByClient(String clientId) {
+        return bookingRepository.countByTenantIdAndStatusIn(
+                clientId,
+                List.of(BookingStatus.CONFIRMED, BookingStatus.AWAITING_PAYMENT, BookingStatus.PENDING)
+        );
+    }
 
     /**
-     * ✅ NEW: Get all bookings for properties owned by a specific host
-     * This is for the Host Dashboard feature
-     *
-     * Flow:
-     * 1. Call ListingService to get all property IDs owned by the host
-     * 2. Query BookingRepository to get all bookings for these properties
-     * 3. For each booking, retrieve tenant details from local TenantRepository
-     * 4. Map to HostBookingDTO with tenant name and email
-     *
-     * @param hostId The host's user ID (owner ID)
-     * @return List of bookings with tenant details
+     * ✅ Host Dashboard : tous les bookings des properties d'un hôte
+     * Une requête indexée sur le read model host_bookings (plus d'appel ListingService ni de N+1 tenants)
      */
-    @CircuitBreaker(name = "listingService", fallbackMethod = "getHostBookingsFallback")
     public List<HostBookingDTO> getBookingsForHost(String hostId) {
         log.info("🏠 Fetching bookings for host: {}", hostId);
-
-        try {
-            // Step 1: Get all property IDs owned by this host
-            List<String> propertyIds = listingServiceClient.getPropertyIdsByOwner(hostId);
-
-            if (propertyIds.isEmpty()) {
-                log.info("📭 Host {} has no properties", hostId);
-                return List.of();
-            }
-
-            log.info("📋 Host {} has {} properties", hostId, propertyIds.size());
-
-            // Step 2: Get all bookings for these properties
-            List<Booking> bookings = bookingRepository.findByPropertyIdIn(propertyIds);
-
-            if (bookings.isEmpty()) {
-                log.info("📭 No bookings found for host {}'s properties", hostId);
-                return List.of();
-            }
-
-            log.info("📊 Found {} bookings for host {}'s properties", bookings.size(), hostId);
-
-            // Step 3: Map each booking to HostBookingDTO with tenant details
-            return bookings.stream()
-                    .map(this::mapToHostBookingDTO)
-                    .toList();
-
-        } catch (FeignException.NotFound e) {
-            log.warn("⚠️ Host {} not found in ListingService", hostId);
-            return List.of();
-        } catch (FeignException e) {
-            log.error("❌ Error communicating with ListingService: {}", e.getMessage());
-            throw new BookingException("Unable to fetch host properties. Please try again later.", e);
-        }
-    }
-
-    /**
-     * ✅ Fallback method for getBookingsForHost when ListingService is unavailable
-     */
-    private List<HostBookingDTO> getHostBookingsFallback(String hostId, Exception e) {
-        log.error("❌ ListingService circuit breaker activated while fetching host bookings: {}",
-                e.getMessage());
-        throw new ServiceUnavailableException(
-                "Property service is temporarily unavailable. Please try again later."
-        );
+        return hostBookingProjection.findAllForHost(hostId);
     }
 
     /**
-     * ✅ NEW: Map Booking to HostBookingDTO with tenant details
-     * Retrieves tenant information from local TenantRepository
-     *
-     * @param booking The booking entity
-     * @return HostBookingDTO with tenant details
+     * ✅ NOUVEAU: Host Dashboard paginé, filtré par statut et par période
      */
-    private HostBookingDTO mapToHostBookingDTO(Booking booking) {
-        // Retrieve tenant details from local repository
-        Tenant tenant = tenantRepository.findByUserId(booking.getTenantId())
-                .orElse(null);
-
-        // Build tenant name (firstname + lastname)
-        String tenantName = "Unknown";
-        String tenantEmail = "N/A";
-
-        if (tenant != null) {
-            // Build full name
-            if (tenant.getFirstname() != null && tenant.getLastname() != null) {
-                tenantName = tenant.getFirstname() + " " + tenant.getLastname();
-            } else if (tenant.getFirstname() != null) {
-                tenantName = tenant.getFirstname();
-            } else if (tenant.getLastname() != null) {
-                tenantName = tenant.getLastname();
-            }
-
-            // Get email
-            if (tenant.getEmail() != null) {
-                tenantEmail = tenant.getEmail();
-            }
-        } else {
-            log.warn("⚠️ Tenant {} not found in local repository for booking {}",
-                    booking.getTenantId(), booking.getId());
-        }
-
-        return HostBookingDTO.builder()
-                .bookingId(booking.getId())
-                .propertyId(booking.getPropertyId())
-                .tenantId(booking.getTenantId())
-                .tenantName(tenantName)
-                .tenantEmail(tenantEmail)
-                .startDate(booking.getStartDate())
-                .endDate(booking.getEndDate())
-                .status(booking.getStatus())
-                .pricePerNight(booking.getPricePerNight())
-                .totalPrice(booking.getTotalPrice())
-                .currency(booking.getCurrency())
-                .createdAt(booking.getCreatedAt())
-                .updatedAt(booking.getUpdatedAt())
-                .build();
+    public Page<HostBookingDTO> searchBookingsForHost(String hostId, Collection<BookingStatus> statuses,
+                                                      LocalDate from, LocalDate to, int page, int size) {
+        return hostBookingProjection.search(hostId, statuses, from, to, page, size);
     }
-}
\ No newline at end of file
+}
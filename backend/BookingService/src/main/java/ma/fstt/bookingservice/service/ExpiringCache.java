@@ -0,0 +1,68 @@
+package ma.fstt.bookingservice.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Petit cache mémoire à TTL pour les réponses des services distants
+ *
+ * Une invalidation laisse une marque datée : une lecture distante commencée avant
+ * l'invalidation ne peut pas réinsérer une valeur périmée en se terminant après.
+ */
+final class ExpiringCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntries;
+
+    ExpiringCache(long ttlMs, int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    V get(K key, Function<K, V> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.value() != null && now - entry.loadedAt() <= ttlMs) {
+            return entry.value();
+        }
+
+        V value = loader.apply(key);
+        if (value != null) {
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            // Invalidé pendant le chargement → on rend la valeur sans la garder
+            entries.compute(key, (k, current) ->
+                    current != null && current.loadedAt() >= now ? current : new Entry<>(value, now));
+        }
+        return value;
+    }
+
+    V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.value() != null && System.currentTimeMillis() - entry.loadedAt() <= ttlMs) {
+            return entry.value();
+        }
+        return null;
+    }
+
+    void put(K key, V value) {
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    void invalidate(K key) {
+        entries.put(key, new Entry<>(null, System.currentTimeMillis()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
@@ -0,0 +1,109 @@
+package ma.fstt.bookingservice.service;
+
+import ma.fstt.bookingservice.model.BookingStatus;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calendrier d'occupation en mémoire d'une property : un bitmap par mois
+ * (bit i = nuit du (i+1) du mois), séparé en "pending" (AWAITING_PAYMENT) et "confirmed".
+ *
+ * Tester une plage = un AND de masque par mois traversé, quel que soit le nombre de bookings.
+ * Les intervalles sont [from, to) comme les bookings (la nuit de endDate n'est pas occupée).
+ */
+public final class PropertyCalendar {
+
+    public enum DayState { AVAILABLE, PENDING, BOOKED }
+
+    private static final int PENDING = 0;
+    private static final int CONFIRMED = 1;
+
+    // clé = année * 12 + (mois - 1) → [bits pending, bits confirmed]
+    private final Map<Integer, int[]> months = new HashMap<>();
+    private final long loadedAt = System.currentTimeMillis();
+
+    public synchronized void reserve(LocalDate from, LocalDate to, BookingStatus status) {
+        boolean confirmed = status == BookingStatus.CONFIRMED;
+        forEachMonth(from, to, (key, mask) -> {
+            int[] bits = months.computeIfAbsent(key, k -> new int[2]);
+            if (confirmed) {
+                bits[CONFIRMED] |= mask;
+                bits[PENDING] &= ~mask;
+            } else {
+                bits[PENDING] |= mask;
+            }
+        });
+    }
+
+    public synchronized void release(LocalDate from, LocalDate to) {
+        forEachMonth(from, to, (key, mask) -> {
+            int[] bits = months.get(key);
+            if (bits != null) {
+                bits[PENDING] &= ~mask;
+                bits[CONFIRMED] &= ~mask;
+                if (bits[PENDING] == 0 && bits[CONFIRMED] == 0) {
+                    months.remove(key);
+                }
+            }
+        });
+    }
+
+    public synchronized boolean isFree(LocalDate from, LocalDate to) {
+        boolean[] free = {true};
+        forEachMonth(from, to, (key, mask) -> {
+            int[] bits = months.get(key);
+            if (bits != null && ((bits[PENDING] | bits[CONFIRMED]) & mask) != 0) {
+                free[0] = false;
+            }
+        });
+        return free[0];
+    }
+
+    public synchronized DayState stateOf(LocalDate day) {
+        int[] bits = months.get(key(day));
+        if (bits == null) {
+            return DayState.AVAILABLE;
+        }
+        int bit = 1 << (day.getDayOfMonth() - 1);
+        if ((bits[CONFIRMED] & bit) != 0) {
+            return DayState.BOOKED;
+        }
+        return (bits[PENDING] & bit) != 0 ? DayState.PENDING : DayState.AVAILABLE;
+    }
+
+    public boolean isOlderThan(long ttlMillis) {
+        return System.currentTimeMillis() - loadedAt > ttlMillis;
+    }
+
+    // --- Utilitaires ---
+
+    private interface MonthMaskConsumer {
+        void accept(int monthKey, int mask);
+    }
+
+    /**
+     * Découpe [from, to) en segments mensuels et fournit le masque de bits de chaque segment
+     */
+    private static void forEachMonth(LocalDate from, LocalDate to, MonthMaskConsumer consumer) {
+        LocalDate cursor = from;
+        while (cursor.isBefore(to)) {
+            LocalDate nextMonth = YearMonth.from(cursor).atEndOfMonth().plusDays(1);
+            LocalDate segmentEnd = to.isBefore(nextMonth) ? to : nextMonth;
+
+            int startBit = cursor.getDayOfMonth() - 1;
+            int endBit = startBit + (int) ChronoUnit.DAYS.between(cursor, segmentEnd);
+            int mask = (int) (((1L << endBit) - 1) & ~((1L << startBit) - 1));
+
+            consumer.accept(key(cursor), mask);
+            cursor = segmentEnd;
+        }
+    }
+
+    private static int key(LocalDate day) {
+        return day.getYear() * 12 + day.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,40 @@
+package ma.fstt.bookingservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ✅ Verrous par property, répartis sur un nombre fixe de "stripes"
+ *
+ * Deux réservations sur la même property sont sérialisées dans l'instance ;
+ * deux properties différentes ne se bloquent (presque) jamais.
+ * Mémoire constante quel que soit le nombre de properties.
+ * Ce verrou est local à l'instance : entre instances, c'est la contrainte
+ * unique de property_day qui garantit l'absence de double réservation.
+ */
+@Component
+public class PropertyLockStripes {
+
+    private final ReentrantLock[] stripes;
+
+    public PropertyLockStripes(@Value("${booking.locks.stripes:256}") int stripeCount) {
+        // Puissance de 2 pour un modulo par masque
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(String propertyId) {
+        int hash = propertyId.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,281 @@
+package ma.fstt.bookingservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.client.AuthServiceClient;
+import ma.fstt.bookingservice.entities.Tenant;
+import ma.fstt.bookingservice.model.SyncCheckpoint;
+import ma.fstt.bookingservice.repository.SyncCheckpointRepository;
+import ma.fstt.bookingservice.repository.TenantRepository;
+import ma.fstt.bookingservice.response.UserSyncDTO;
+import ma.fstt.bookingservice.response.UserSyncPageDTO;
+import feign.FeignException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ✅ NOUVEAU: Projection des utilisateurs d'AuthService (table tenants + cache nom / email)
+ *
+ * - Écriture par lots : un lot d'événements user.* = un batch JDBC d'upserts (ON CONFLICT user_id)
+ *   puis une seule relecture pour rafraîchir le cache.
+ * - Lecture : cache mémoire (TTL) puis une requête IN pour les manquants.
+ * - Amorçage : import paginé depuis AuthService (/users/internal/tenants), curseur enregistré
+ *   après chaque page (sync_checkpoints) : un import interrompu reprend au curseur.
+ *
+ * Avec plusieurs instances, un lot n'est consommé que par l'une d'elles :
+ * les autres voient le changement à expiration du TTL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TenantDirectory {
+
+    // Événement partiel (ex: user.updated ne porte que userId + wallet) : on garde les valeurs connues
+    private static final String UPSERT_SQL = """
+            INSERT INTO tenants (user_id, email, firstname, lastname, wallet_address)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (user_id) DO UPDATE SET
+                email = COALESCE(NULLIF(EXCLUDED.email, ''), tenants.email),
+                firstname = COALESCE(EXCLUDED.firstname, tenants.firstname),
+                lastname = COALESCE(EXCLUDED.lastname, tenants.lastname),
+                wallet_address = EXCLUDED.wallet_address
+            """;
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO tenants (user_id, email, firstname, lastname, wallet_address)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (user_id) DO NOTHING
+            """;
+
+    static final String BOOTSTRAP_CHECKPOINT = "tenants.bootstrap";
+
+    private final TenantRepository tenantRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthServiceClient authServiceClient;
+    private final SyncCheckpointRepository syncCheckpointRepository;
+
+    @Value("${tenants.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${tenants.cache.max-entries:50000}")
+    private int cacheMaxEntries;
+
+    @Value("${tenants.bootstrap.enabled:true}")
+    private boolean bootstrapEnabled;
+
+    @Value("${tenants.bootstrap.page-size:500}")
+    private int bootstrapPageSize;
+
+    @Value("${external.services.auth.internal-token:}")
+    private String internalToken;
+
+    private ExpiringCache<String, TenantInfo> cache;
+
+    @PostConstruct
+    void initCache() {
+        cache = new ExpiringCache<>(cacheTtlSeconds * 1000, cacheMaxEntries);
+    }
+
+    /**
+     * Nom / email affichables d'un tenant
+     */
+    public record TenantInfo(String userId, String name, String email) {
+    }
+
+    /**
+     * Lot appliqué partiellement : les lignes valides sont écrites, les userIds en échec sont listés
+     * (l'appelant rejette le lot : dead-letter pour les événements, reprise au curseur pour l'amorçage)
+     */
+    public static class TenantBatchException extends RuntimeException {
+
+        private final List<String> failedUserIds;
+
+        public TenantBatchException(List<String> failedUserIds, Throwable cause) {
+            super("Tenants could not be stored: " + failedUserIds, cause);
+            this.failedUserIds = List.copyOf(failedUserIds);
+        }
+
+        public List<String> getFailedUserIds() {
+            return failedUserIds;
+        }
+    }
+
+    // ========== LECTURE ==========
+
+    /**
+     * Tenants connus parmi userIds (absents de la map si jamais synchronisés)
+     */
+    public Map<String, TenantInfo> findAll(Collection<String> userIds) {
+        Map<String, TenantInfo> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String userId : userIds) {
+            TenantInfo info = cache.getIfPresent(userId);
+            if (info != null) {
+                result.put(userId, info);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Tenant tenant : tenantRepository.findByUserIdIn(missing)) {
+                TenantInfo info = toInfo(tenant);
+                cache.put(tenant.getUserId(), info);
+                result.put(tenant.getUserId(), info);
+            }
+        }
+        return result;
+    }
+
+    // ========== ÉCRITURE PAR LOTS ==========
+
+    /**
+     * Appliquer un lot d'utilisateurs
+     *
+     * @param overwrite false = création seulement (user.created, amorçage), true = mise à jour (user.updated)
+     * @return l'état résultant des tenants du lot (pour les read models dépendants)
+     * @throws TenantBatchException si des lignes restent en échec après le repli ligne par ligne
+     */
+    public List<TenantInfo> upsertAll(Collection<Tenant> tenants, boolean overwrite) {
+        // Dernier événement gagnant pour un même userId dans le lot
+        Map<String, Tenant> latest = new LinkedHashMap<>();
+        for (Tenant tenant : tenants) {
+            if (tenant.getUserId() != null) {
+                latest.remove(tenant.getUserId());
+                latest.put(tenant.getUserId(), tenant);
+            }
+        }
+        if (latest.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = overwrite ? UPSERT_SQL : INSERT_IF_ABSENT_SQL;
+        List<Object[]> rows = latest.values().stream().map(TenantDirectory::toRow).toList();
+        List<String> failedUserIds = new ArrayList<>();
+        DataAccessException lastError = null;
+        try {
+            jdbcTemplate.batchUpdate(sql, rows);
+        } catch (DataAccessException e) {
+            // Un lot en échec ne doit pas bloquer les autres utilisateurs : repli ligne par ligne
+            log.warn("⚠️ Tenant batch of {} failed ({}), retrying row by row", rows.size(), e.getMessage());
+            for (Object[] row : rows) {
+                try {
+                    jdbcTemplate.update(sql, row);
+                } catch (DataAccessException rowError) {
+                    log.error("❌ Tenant {} could not be stored: {}", row[0], rowError.getMessage());
+                    failedUserIds.add((String) row[0]);
+                    lastError = rowError;
+                }
+            }
+        }
+
+        List<TenantInfo> stored = tenantRepository.findByUserIdIn(latest.keySet()).stream()
+                .map(TenantDirectory::toInfo)
+                .toList();
+        stored.forEach(info -> cache.put(info.userId(), info));
+
+        // Lignes valides écrites et en cache ; le lot est tout de même rejeté pour ne perdre aucun événement
+        if (!failedUserIds.isEmpty()) {
+            throw new TenantBatchException(failedUserIds, lastError);
+        }
+        return stored;
+    }
+
+    // ========== AMORÇAGE ==========
+
+    /**
+     * Import de tous les utilisateurs d'AuthService, repris au dernier curseur enregistré
+     * Au démarrage, puis périodiquement tant que l'import n'est pas terminé (AuthService indisponible...).
+     * Insertion seulement : un événement reçu entre-temps n'est jamais écrasé.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${tenants.bootstrap.retry-ms:300000}",
+            initialDelayString = "${tenants.bootstrap.retry-ms:300000}")
+    public void bootstrap() {
+        if (!bootstrapEnabled) {
+            return;
+        }
+        SyncCheckpoint checkpoint = syncCheckpointRepository.findById(BOOTSTRAP_CHECKPOINT)
+                .orElseGet(() -> SyncCheckpoint.builder().name(BOOTSTRAP_CHECKPOINT).cursor(0L).build());
+        if (checkpoint.isCompleted()) {
+            return;
+        }
+        if (internalToken.isBlank()) {
+            log.warn("⚠️ Tenant bootstrap skipped: external.services.auth.internal-token is not set");
+            return;
+        }
+
+        long startCursor = checkpoint.getCursor();
+        int imported = 0;
+        try {
+            while (!checkpoint.isCompleted()) {
+                UserSyncPageDTO page = authServiceClient.exportUsers(checkpoint.getCursor(), bootstrapPageSize, internalToken);
+                List<UserSyncDTO> users = page.getUsers() != null ? page.getUsers() : List.of();
+                upsertAll(users.stream().map(TenantDirectory::fromSync).toList(), false);
+                imported += users.size();
+
+                // Page écrite avant d'avancer le curseur : une reprise peut relire une page, jamais en sauter une
+                if (page.getNextCursor() == null || users.isEmpty()) {
+                    checkpoint.setCompleted(true);
+                } else {
+                    checkpoint.setCursor(page.getNextCursor());
+                }
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                syncCheckpointRepository.save(checkpoint);
+            }
+            log.info("👥 Tenants bootstrapped from AuthService: {} users (resumed from cursor {})", imported, startCursor);
+        } catch (FeignException | TenantBatchException e) {
+            log.warn("⚠️ Tenant bootstrap interrupted after {} users (cursor={}), will resume: {}",
+                    imported, checkpoint.getCursor(), e.getMessage());
+        }
+    }
+
+    // ========== UTILITAIRES ==========
+
+    private static Object[] toRow(Tenant tenant) {
+        return new Object[]{
+                tenant.getUserId(),
+                tenant.getEmail() != null ? tenant.getEmail() : "",
+                tenant.getFirstname(),
+                tenant.getLastname(),
+                tenant.getWalletAddress()
+        };
+    }
+
+    private static Tenant fromSync(UserSyncDTO user) {
+        return Tenant.builder()
+                .userId(user.getUserId())
+                .email(user.getEmail())
+                .firstname(user.getFirstname())
+                .lastname(user.getLastname())
+                .walletAddress(user.getWalletAddress())
+                .build();
+    }
+
+    static TenantInfo toInfo(Tenant tenant) {
+        String name;
+        if (tenant.getFirstname() != null && tenant.getLastname() != null) {
+            name = tenant.getFirstname() + " " + tenant.getLastname();
+        } else if (tenant.getFirstname() != null) {
+            name = tenant.getFirstname();
+        } else {
+            name = tenant.getLastname();
+        }
+        String email = tenant.getEmail() != null && !tenant.getEmail().isBlank() ? tenant.getEmail() : null;
+        return new TenantInfo(tenant.getUserId(), name, email);
+    }
+}
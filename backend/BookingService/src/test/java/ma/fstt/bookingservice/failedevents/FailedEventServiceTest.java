@@ -0,0 +1,222 @@
+package ma.fstt.bookingservice.failedevents;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.fstt.bookingservice.dto.FailedEventReplayRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FailedEventServiceTest {
+
+    private static final String BODY = "{\"bookingId\":42,\"status\":\"COMPLETED\"}";
+
+    // Table failed_events en mémoire
+    private final Map<Long, FailedEvent> rows = new TreeMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private RabbitTemplate rabbitTemplate;
+    private FailedEventService service;
+
+    @BeforeEach
+    void setUp() {
+        FailedEventRepository repository = mock(FailedEventRepository.class);
+        when(repository.findById(any())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+        when(repository.findAllById(any())).thenAnswer(inv -> {
+            List<FailedEvent> found = new ArrayList<>();
+            inv.<Collection<Long>>getArgument(0).stream().map(rows::get).filter(Objects::nonNull).forEach(found::add);
+            return found;
+        });
+        when(repository.save(any())).thenAnswer(inv -> {
+            FailedEvent event = inv.getArgument(0);
+            if (event.getId() == null) {
+                event.setId(ids.incrementAndGet());
+            }
+            rows.put(event.getId(), event);
+            return event;
+        });
+
+        rabbitTemplate = mock(RabbitTemplate.class);
+
+        service = new FailedEventService(repository, rabbitTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "retryDelaysMs", List.of(5_000L, 30_000L));
+        ReflectionTestUtils.setField(service, "retryableReasons", List.of("rejected"));
+        ReflectionTestUtils.setField(service, "replayRatePerSecond", 1_000);
+        ReflectionTestUtils.setField(service, "replayMaxBatch", 100);
+    }
+
+    @Test
+    void deathHistoryGivesTheOriginalDestinationAndTheDeathCount() {
+        // x-death : la mort la plus récente en tête, la queue d'origine en fin de liste
+        Message message = deadLetter(BODY, List.of(
+                death("rejected", "rental.retry", "booking.payment.retry", "delay.5000", 1L),
+                death("expired", "rental.exchange", "booking.payment.queue", "payment.completed", 2L)));
+
+        FailedEvent event = service.record(message);
+
+        assertEquals("rental.exchange", event.getOriginalExchange());
+        assertEquals("payment.completed", event.getOriginalRoutingKey());
+        assertEquals("booking.payment.queue", event.getOriginalQueue());
+        assertEquals("rejected", event.getReason());
+        assertEquals(3, event.getDeathCount());
+        assertEquals(BODY, event.getBody());
+    }
+
+    @Test
+    void retriesFollowTheBackoffStagesThenPark() {
+        FailedEvent event = service.onDeadLetter(rejected(BODY));
+
+        assertEquals(FailedEventStatus.RETRY_SCHEDULED, event.getStatus());
+        assertEquals(1, event.getRetryAttempts());
+        Message firstRetry = sentRetry("delay.5000");
+
+        event = service.onDeadLetter(diedAgain(firstRetry));
+        assertEquals(FailedEventStatus.RETRY_SCHEDULED, event.getStatus());
+        assertEquals(2, event.getRetryAttempts());
+        Message secondRetry = sentRetry("delay.30000");
+
+        // Paliers épuisés : plus de retry automatique
+        event = service.onDeadLetter(diedAgain(secondRetry));
+        assertEquals(FailedEventStatus.PARKED, event.getStatus());
+        assertNull(event.getNextRetryAt());
+        verify(rabbitTemplate, times(2)).send(eq(FailedEventConfig.RETRY_EXCHANGE), anyString(), any(Message.class));
+    }
+
+    @Test
+    void nonRetryableReasonIsKeptForManualReplay() {
+        FailedEvent event = service.onDeadLetter(deadLetter(BODY, List.of(
+                death("expired", "rental.exchange", "booking.payment.queue", "payment.completed", 1L))));
+
+        assertEquals(FailedEventStatus.NEW, event.getStatus());
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    @Test
+    void redeathUpdatesTheSameRow() {
+        FailedEvent first = service.onDeadLetter(rejected(BODY));
+        LocalDateTime firstFailedAt = first.getFirstFailedAt();
+        Message retry = sentRetry("delay.5000");
+
+        FailedEvent second = service.onDeadLetter(diedAgain(retry));
+
+        assertEquals(1, rows.size());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(2, second.getDeathCount());
+        assertEquals(firstFailedAt, second.getFirstFailedAt());
+        // Destination d'origine conservée d'une mort à l'autre
+        assertEquals("rental.exchange", second.getOriginalExchange());
+        assertEquals("payment.completed", second.getOriginalRoutingKey());
+        assertEquals("booking.payment.queue", second.getOriginalQueue());
+    }
+
+    @Test
+    void replaySkipsDiscardedEventsAndStopsWhenTheBrokerFails() {
+        FailedEvent first = stored(FailedEventStatus.NEW);
+        FailedEvent discarded = stored(FailedEventStatus.DISCARDED);
+        FailedEvent third = stored(FailedEventStatus.PARKED);
+        FailedEvent fourth = stored(FailedEventStatus.NEW);
+        doNothing()
+                .doThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        Map<String, Integer> result = service.replay(FailedEventReplayRequest.builder()
+                .ids(List.of(first.getId(), discarded.getId(), third.getId(), fourth.getId()))
+                .build());
+
+        assertEquals(Map.of("selected", 4, "replayed", 1, "skipped", 1), result);
+        assertEquals(FailedEventStatus.REPLAYED, first.getStatus());
+        assertEquals(1, first.getReplayCount());
+        assertEquals(FailedEventStatus.DISCARDED, discarded.getStatus());
+        // Échec du broker : le reste n'est pas tenté
+        assertEquals(FailedEventStatus.PARKED, third.getStatus());
+        assertEquals(FailedEventStatus.NEW, fourth.getStatus());
+        verify(rabbitTemplate, times(2)).send(anyString(), anyString(), any(Message.class));
+    }
+
+    // --- Utilitaires ---
+
+    private FailedEvent stored(FailedEventStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        FailedEvent event = FailedEvent.builder()
+                .id(ids.incrementAndGet())
+                .originalExchange("rental.exchange")
+                .originalRoutingKey("payment.completed")
+                .reason("rejected")
+                .status(status)
+                .body(BODY)
+                .headers("{}")
+                .firstFailedAt(now)
+                .lastFailedAt(now)
+                .build();
+        rows.put(event.getId(), event);
+        return event;
+    }
+
+    /**
+     * Dernier message publié vers l'exchange de retry, sur la queue d'attente attendue
+     */
+    private Message sentRetry(String delayRoutingKey) {
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(FailedEventConfig.RETRY_EXCHANGE), eq(delayRoutingKey), sent.capture());
+        return sent.getValue();
+    }
+
+    /**
+     * Message republié, rejeté une nouvelle fois par le consumer d'origine
+     */
+    private static Message diedAgain(Message republished) {
+        Message message = new Message(republished.getBody(), republished.getMessageProperties());
+        message.getMessageProperties().setHeader("x-death", List.of(
+                death("rejected", "rental.exchange", "booking.payment.queue", "payment.completed", 1L)));
+        return message;
+    }
+
+    private static Message rejected(String body) {
+        return deadLetter(body, List.of(
+                death("rejected", "rental.exchange", "booking.payment.queue", "payment.completed", 1L)));
+    }
+
+    private static Message deadLetter(String body, List<Map<String, ?>> xDeath) {
+        return MessageBuilder.withBody(body.getBytes(StandardCharsets.UTF_8))
+                .setContentType("application/json")
+                .setHeader("x-death", xDeath)
+                .build();
+    }
+
+    private static Map<String, ?> death(String reason, String exchange, String queue, String routingKey, long count) {
+        return Map.of(
+                "reason", reason,
+                "exchange", exchange,
+                "queue", queue,
+                "routing-keys", List.of(routingKey),
+                "count", count);
+    }
+}
@@ -0,0 +1,157 @@
+package ma.fstt.bookingservice.hostdashboard;
+
+import feign.FeignException;
+import ma.fstt.bookingservice.client.ListingServiceClient;
+import ma.fstt.bookingservice.events.BookingChangedEvent;
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotStore;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.response.PropertyDTO;
+import ma.fstt.bookingservice.service.TenantDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HostBookingProjectionTest {
+
+    // Tables en mémoire : bookings (source) et host_bookings (read model)
+    private final List<Booking> bookings = new ArrayList<>();
+    private final Map<Long, HostBooking> rows = new HashMap<>();
+
+    private HostBookingRepository hostBookingRepository;
+    private ListingServiceClient listingServiceClient;
+    private HostBookingProjection projection;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        hostBookingRepository = mock(HostBookingRepository.class);
+        when(hostBookingRepository.findAllById(any())).thenAnswer(inv -> {
+            List<HostBooking> found = new ArrayList<>();
+            inv.<Iterable<Long>>getArgument(0).forEach(id -> Optional.ofNullable(rows.get(id)).ifPresent(found::add));
+            return found;
+        });
+        when(hostBookingRepository.saveAll(any())).thenAnswer(inv -> {
+            inv.<Iterable<HostBooking>>getArgument(0).forEach(row -> rows.put(row.getBookingId(), row));
+            return null;
+        });
+        when(hostBookingRepository.findPropertyIdsWithoutHost(anyString(), any(Pageable.class))).thenAnswer(inv ->
+                rows.values().stream()
+                        .filter(r -> r.getHostId() == null && r.getPropertyId().compareTo(inv.getArgument(0)) > 0)
+                        .map(HostBooking::getPropertyId)
+                        .distinct()
+                        .sorted()
+                        .toList());
+        when(hostBookingRepository.assignHost(anyString(), anyString())).thenAnswer(inv -> {
+            List<HostBooking> matching = rows.values().stream()
+                    .filter(r -> r.getPropertyId().equals(inv.getArgument(0)))
+                    .toList();
+            matching.forEach(r -> r.setHostId(inv.getArgument(1)));
+            return matching.size();
+        });
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findWithoutHostBooking(anyLong(), any(Pageable.class))).thenAnswer(inv ->
+                bookings.stream()
+                        .filter(b -> b.getId() > inv.<Long>getArgument(0) && !rows.containsKey(b.getId()))
+                        .toList());
+        when(bookingRepository.findOutOfSyncWithHostBooking(anyLong(), any(Pageable.class))).thenAnswer(inv ->
+                bookings.stream()
+                        .filter(b -> b.getId() > inv.<Long>getArgument(0) && rows.containsKey(b.getId())
+                                && rows.get(b.getId()).getStatus() != b.getStatus())
+                        .toList());
+
+        TenantDirectory tenantDirectory = mock(TenantDirectory.class);
+        when(tenantDirectory.findAll(anyCollection())).thenReturn(Map.of());
+
+        PropertySnapshotStore propertySnapshotStore = mock(PropertySnapshotStore.class);
+        when(propertySnapshotStore.find(anyString())).thenReturn(Optional.empty());
+
+        listingServiceClient = mock(ListingServiceClient.class);
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        projection = new HostBookingProjection(hostBookingRepository, bookingRepository, tenantDirectory,
+                propertySnapshotStore, listingServiceClient, transactionTemplate);
+        ReflectionTestUtils.setField(projection, "backfillBatchSize", 500);
+    }
+
+    @Test
+    void bookingChangeCreatesTheRowWithTheHostKnownAtCreation() {
+        Booking booking = booking(1L, "prop-1", BookingStatus.AWAITING_PAYMENT);
+
+        projection.onBookingChanged(BookingChangedEvent.created(booking, "host-1"));
+
+        assertEquals("host-1", rows.get(1L).getHostId());
+        assertEquals(BookingStatus.AWAITING_PAYMENT, rows.get(1L).getStatus());
+    }
+
+    @Test
+    void rebuildProjectsMissingBookingsResyncsStaleRowsAndAssignsHosts() {
+        Booking stale = booking(1L, "prop-1", BookingStatus.AWAITING_PAYMENT);
+        projection.onBookingChanged(BookingChangedEvent.created(stale, "host-1"));
+        // Confirmation commitée mais projection après commit manquée
+        stale.setStatus(BookingStatus.CONFIRMED);
+        booking(2L, "prop-2", BookingStatus.CONFIRMED);
+        when(listingServiceClient.getProperty("prop-2")).thenReturn(PropertyDTO.builder().id("prop-2").ownerId("host-2").build());
+
+        projection.rebuild();
+
+        assertEquals(BookingStatus.CONFIRMED, rows.get(1L).getStatus());
+        assertEquals(BookingStatus.CONFIRMED, rows.get(2L).getStatus());
+        assertEquals("host-2", rows.get(2L).getHostId());
+        verify(listingServiceClient, never()).getProperty("prop-1");
+    }
+
+    @Test
+    void unresolvedHostsStayUnassignedAndDoNotStopTheRebuild() {
+        booking(1L, "prop-1", BookingStatus.CONFIRMED);
+        booking(2L, "prop-2", BookingStatus.CONFIRMED);
+        when(listingServiceClient.getProperty("prop-1")).thenThrow(FeignException.ServiceUnavailable.class);
+        when(listingServiceClient.getProperty("prop-2")).thenReturn(PropertyDTO.builder().id("prop-2").ownerId("host-2").build());
+
+        projection.rebuild();
+
+        assertNull(rows.get(1L).getHostId());
+        assertEquals("host-2", rows.get(2L).getHostId());
+        verify(hostBookingRepository, never()).assignHost(eq("prop-1"), anyString());
+    }
+
+    private Booking booking(Long id, String propertyId, BookingStatus status) {
+        Booking booking = Booking.builder()
+                .id(id)
+                .propertyId(propertyId)
+                .tenantId("tenant-" + id)
+                .startDate(LocalDate.of(2026, 11, 1))
+                .endDate(LocalDate.of(2026, 11, 4))
+                .status(status)
+                .build();
+        bookings.add(booking);
+        return booking;
+    }
+}
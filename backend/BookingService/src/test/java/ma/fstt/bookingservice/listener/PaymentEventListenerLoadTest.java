@@ -0,0 +1,168 @@
+package ma.fstt.bookingservice.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.repository.ProcessedPaymentEventRepository;
+import ma.fstt.bookingservice.service.BookingService;
+import ma.fstt.bookingservice.support.InMemoryRabbitBroker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Charge : 10 000 événements de paiement (2 500 bookings × 4) via le stand-in broker
+ *
+ * Par booking : payment.confirmed (tx1), sa redélivrance, un second payment.confirmed (tx2),
+ * et un payment.failed sur l'autre queue. Quel que soit l'entrelacement des deux queues,
+ * chaque booking doit subir exactement un effet, jamais deux traitements simultanés,
+ * et les événements d'une même queue doivent être traités dans l'ordre de publication.
+ */
+@Slf4j
+class PaymentEventListenerLoadTest {
+
+    private static final int BOOKINGS = 2_500;
+    private static final String CONFIRMED_QUEUE = "payment.confirmed.queue";
+    private static final String FAILED_QUEUE = "payment.failed.queue";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryRabbitBroker broker = new InMemoryRabbitBroker();
+    private final PaymentEventLanes lanes = new PaymentEventLanes(8);
+
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+    private final Set<String> inbox = ConcurrentHashMap.newKeySet();
+    private final Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> effects = new ConcurrentHashMap<>();
+    private final Map<Long, List<String>> confirmedOrder = new ConcurrentHashMap<>();
+    private final Map<PaymentEventProcessor.Outcome, AtomicInteger> outcomes =
+            Collections.synchronizedMap(new EnumMap<>(PaymentEventProcessor.Outcome.class));
+    private final AtomicInteger overlaps = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        broker.stop();
+        lanes.shutdown();
+    }
+
+    @Test
+    void tenThousandEventsAreProcessedOncePerTransactionAndInOrderPerBooking() throws Exception {
+        PaymentEventListener listener = new PaymentEventListener(processor(), lanes);
+        broker.declare(CONFIRMED_QUEUE, 250, listener::handlePaymentConfirmed);
+        broker.declare(FAILED_QUEUE, 250, listener::handlePaymentFailed);
+
+        for (long id = 1; id <= BOOKINGS; id++) {
+            bookings.put(id, Booking.builder().id(id).status(BookingStatus.AWAITING_PAYMENT).build());
+            broker.publish(CONFIRMED_QUEUE, event(id, "c-" + id + "-1", null));
+            broker.publish(FAILED_QUEUE, event(id, "f-" + id + "-1", "Insufficient funds"));
+        }
+        for (long id = 1; id <= BOOKINGS; id++) {
+            broker.publish(CONFIRMED_QUEUE, event(id, "c-" + id + "-1", null)); // redélivrance
+        }
+        for (long id = 1; id <= BOOKINGS; id++) {
+            broker.publish(CONFIRMED_QUEUE, event(id, "c-" + id + "-2", null));
+        }
+
+        long start = System.nanoTime();
+        broker.start();
+        assertTrue(broker.awaitSettled(BOOKINGS * 4, 60, TimeUnit.SECONDS), "events not settled in time");
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        log.info("📊 Payment events: {} in {} ms ({} events/s, {} lanes)",
+                BOOKINGS * 4, elapsedMs, Math.round(BOOKINGS * 4 * 1000.0 / elapsedMs), lanes.size());
+
+        assertEquals(BOOKINGS * 4, broker.acked());
+        assertEquals(0, broker.deadLettered());
+        assertEquals(0, overlaps.get(), "two events of the same booking were processed concurrently");
+
+        assertEquals(BOOKINGS, count(PaymentEventProcessor.Outcome.PROCESSED));
+        assertEquals(BOOKINGS, count(PaymentEventProcessor.Outcome.DUPLICATE));
+        assertEquals(BOOKINGS * 2, count(PaymentEventProcessor.Outcome.REJECTED));
+
+        for (long id = 1; id <= BOOKINGS; id++) {
+            assertEquals(1, effects.get(id).get(), "booking " + id + " must have exactly one effect");
+            assertTrue(bookings.get(id).getStatus() == BookingStatus.CONFIRMED
+                    || bookings.get(id).getStatus() == BookingStatus.CANCELLED);
+            assertEquals(List.of("c-" + id + "-1", "c-" + id + "-1", "c-" + id + "-2"), confirmedOrder.get(id));
+        }
+    }
+
+    private PaymentEventProcessor processor() {
+        ProcessedPaymentEventRepository inboxRepository = mock(ProcessedPaymentEventRepository.class);
+        when(inboxRepository.insertIfAbsent(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(inv -> inbox.add(inv.getArgument(0) + "|" + inv.getArgument(1)) ? 1 : 0);
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findByIdForUpdate(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(bookings.get(inv.<Long>getArgument(0))));
+
+        BookingService bookingService = mock(BookingService.class);
+        doAnswer(inv -> applyEffect(inv.getArgument(0), BookingStatus.CONFIRMED))
+                .when(bookingService).confirmBooking(anyLong());
+        doAnswer(inv -> applyEffect(inv.getArgument(0), BookingStatus.CANCELLED))
+                .when(bookingService).cancelBooking(anyLong());
+
+        return new PaymentEventProcessor(inboxRepository, bookingRepository, bookingService) {
+            @Override
+            public Outcome process(PaymentEventType type, Long bookingId, String transactionId, String reason) {
+                AtomicInteger running = inFlight.computeIfAbsent(bookingId, id -> new AtomicInteger());
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                try {
+                    if (type == PaymentEventType.CONFIRMED) {
+                        confirmedOrder.computeIfAbsent(bookingId, id -> Collections.synchronizedList(new ArrayList<>()))
+                                .add(transactionId);
+                    }
+                    Outcome outcome = super.process(type, bookingId, transactionId, reason);
+                    outcomes.computeIfAbsent(outcome, o -> new AtomicInteger()).incrementAndGet();
+                    return outcome;
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    private Object applyEffect(Long bookingId, BookingStatus status) {
+        bookings.get(bookingId).setStatus(status);
+        effects.computeIfAbsent(bookingId, id -> new AtomicInteger()).incrementAndGet();
+        return null;
+    }
+
+    private ObjectNode event(long bookingId, String transactionId, String reason) {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("bookingId", bookingId)
+                .put("transactionId", transactionId);
+        if (reason != null) {
+            node.put("reason", reason);
+        }
+        return node;
+    }
+
+    private int count(PaymentEventProcessor.Outcome outcome) {
+        AtomicInteger counter = outcomes.get(outcome);
+        return counter == null ? 0 : counter.get();
+    }
+}
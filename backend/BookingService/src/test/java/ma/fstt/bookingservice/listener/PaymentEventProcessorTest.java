@@ -0,0 +1,88 @@
+package ma.fstt.bookingservice.listener;
+
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.repository.ProcessedPaymentEventRepository;
+import ma.fstt.bookingservice.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentEventProcessorTest {
+
+    private static final String TX = "0x" + "ab".repeat(32);
+
+    // Inbox en mémoire : clé (transactionId, type)
+    private final Set<String> inbox = new HashSet<>();
+    private final Booking booking = Booking.builder().id(42L).status(BookingStatus.AWAITING_PAYMENT).build();
+
+    private BookingService bookingService;
+    private PaymentEventProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        ProcessedPaymentEventRepository inboxRepository = mock(ProcessedPaymentEventRepository.class);
+        when(inboxRepository.insertIfAbsent(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(inv -> inbox.add(inv.getArgument(0) + "|" + inv.getArgument(1)) ? 1 : 0);
+        when(inboxRepository.deleteByTransactionIdAndEventType(anyString(), anyString()))
+                .thenAnswer(inv -> inbox.remove(inv.getArgument(0) + "|" + inv.getArgument(1)) ? 1 : 0);
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findByIdForUpdate(42L)).thenReturn(Optional.of(booking));
+
+        bookingService = mock(BookingService.class);
+        when(bookingService.confirmBooking(42L)).thenAnswer(inv -> {
+            booking.setStatus(BookingStatus.CONFIRMED);
+            return null;
+        });
+        when(bookingService.revertConfirmation(42L)).thenAnswer(inv -> {
+            booking.setStatus(BookingStatus.AWAITING_PAYMENT);
+            return null;
+        });
+
+        processor = new PaymentEventProcessor(inboxRepository, bookingRepository, bookingService);
+    }
+
+    @Test
+    void reorgRevertsTheConfirmationAndTheSameTransactionCanConfirmAgain() {
+        assertEquals(PaymentEventProcessor.Outcome.PROCESSED, process(PaymentEventType.CONFIRMED));
+        assertEquals(BookingStatus.CONFIRMED, booking.getStatus());
+
+        // Transaction sortie de la chaîne : retour en attente de paiement
+        assertEquals(PaymentEventProcessor.Outcome.PROCESSED, process(PaymentEventType.REORGED));
+        assertEquals(BookingStatus.AWAITING_PAYMENT, booking.getStatus());
+        assertEquals(PaymentEventProcessor.Outcome.DUPLICATE, process(PaymentEventType.REORGED));
+
+        // Re-minée puis revalidée : même transactionId, de nouveau traité
+        assertEquals(PaymentEventProcessor.Outcome.PROCESSED, process(PaymentEventType.CONFIRMED));
+        assertEquals(BookingStatus.CONFIRMED, booking.getStatus());
+
+        // Deuxième réorganisation de la même transaction
+        assertEquals(PaymentEventProcessor.Outcome.PROCESSED, process(PaymentEventType.REORGED));
+        assertEquals(BookingStatus.AWAITING_PAYMENT, booking.getStatus());
+    }
+
+    @Test
+    void reorgOfABookingThatIsNotConfirmedIsRejected() {
+        assertEquals(PaymentEventProcessor.Outcome.REJECTED, process(PaymentEventType.REORGED));
+        verify(bookingService, never()).revertConfirmation(anyLong());
+        assertEquals(BookingStatus.AWAITING_PAYMENT, booking.getStatus());
+    }
+
+    private PaymentEventProcessor.Outcome process(PaymentEventType type) {
+        return processor.process(type, 42L, TX, "test");
+    }
+}
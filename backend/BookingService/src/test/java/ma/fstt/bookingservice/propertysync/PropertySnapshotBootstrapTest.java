@@ -0,0 +1,116 @@
+package ma.fstt.bookingservice.propertysync;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PropertySnapshotBootstrapTest {
+
+    // Table property_sync_checkpoints en mémoire + snapshots appliqués
+    private final Map<String, PropertySyncCheckpoint> checkpoints = new HashMap<>();
+    private final List<String> applied = new ArrayList<>();
+
+    private PropertySnapshotSource snapshotSource;
+    private PropertySnapshotBootstrap bootstrap;
+
+    @BeforeEach
+    void setUp() {
+        PropertySyncCheckpointRepository checkpointRepository = mock(PropertySyncCheckpointRepository.class);
+        when(checkpointRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(checkpoints.get(inv.<String>getArgument(0))));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            PropertySyncCheckpoint checkpoint = inv.getArgument(0);
+            checkpoints.put(checkpoint.getName(), checkpoint);
+            return checkpoint;
+        });
+
+        PropertySnapshotStore store = mock(PropertySnapshotStore.class);
+        when(store.apply(any())).thenAnswer(inv -> applied.add(inv.<PropertyChangedEvent>getArgument(0).getPropertyId()));
+
+        snapshotSource = mock(PropertySnapshotSource.class);
+        when(snapshotSource.isConfigured()).thenReturn(true);
+
+        bootstrap = new PropertySnapshotBootstrap(store, snapshotSource, checkpointRepository);
+        ReflectionTestUtils.setField(bootstrap, "enabled", true);
+        ReflectionTestUtils.setField(bootstrap, "pageSize", 2);
+    }
+
+    @Test
+    void startImportsEverySnapshotBeforeReportingRunning() {
+        when(snapshotSource.exportSnapshots(0L, 2)).thenReturn(page(2L, "p1", "p2"));
+        when(snapshotSource.exportSnapshots(2L, 2)).thenReturn(page(null, "p3"));
+
+        bootstrap.start();
+
+        assertTrue(bootstrap.isRunning());
+        assertEquals(List.of("p1", "p2", "p3"), applied);
+        assertTrue(checkpoints.get(PropertySnapshotBootstrap.CHECKPOINT).isCompleted());
+    }
+
+    @Test
+    void listingServiceDownDoesNotBlockStartupAndTheImportResumesAtTheCursor() {
+        when(snapshotSource.exportSnapshots(0L, 2)).thenReturn(page(2L, "p1", "p2"));
+        when(snapshotSource.exportSnapshots(2L, 2))
+                .thenThrow(new IllegalStateException("ListingService unavailable"))
+                .thenReturn(page(null, "p3"));
+
+        bootstrap.start();
+        assertTrue(bootstrap.isRunning());
+        assertEquals(2L, checkpoints.get(PropertySnapshotBootstrap.CHECKPOINT).getCursor());
+        assertFalse(checkpoints.get(PropertySnapshotBootstrap.CHECKPOINT).isCompleted());
+
+        // Nouvelle tentative planifiée : reprise à la deuxième page
+        bootstrap.bootstrap();
+        assertEquals(List.of("p1", "p2", "p3"), applied);
+        assertTrue(checkpoints.get(PropertySnapshotBootstrap.CHECKPOINT).isCompleted());
+
+        // Import terminé : plus aucun appel
+        bootstrap.bootstrap();
+        verify(snapshotSource, times(3)).exportSnapshots(anyLong(), anyInt());
+    }
+
+    @Test
+    void unconfiguredSourceIsNeverCalled() {
+        when(snapshotSource.isConfigured()).thenReturn(false);
+
+        bootstrap.start();
+
+        assertTrue(bootstrap.isRunning());
+        verify(snapshotSource, never()).exportSnapshots(anyLong(), anyInt());
+    }
+
+    private static PropertySnapshotPage page(Long nextCursor, String... propertyIds) {
+        List<PropertyChangedEvent> snapshots = Arrays.stream(propertyIds)
+                .map(id -> PropertyChangedEvent.builder()
+                        .changeType("SNAPSHOT")
+                        .propertyId(id)
+                        .ownerId("host-1")
+                        .version(1L)
+                        .pricePerNight(new BigDecimal("0.05"))
+                        .status(PropertySnapshot.STATUS_ACTIVE)
+                        .build())
+                .toList();
+        return new PropertySnapshotPage(snapshots, nextCursor);
+    }
+}
@@ -0,0 +1,155 @@
+package ma.fstt.bookingservice.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.fstt.bookingservice.model.BookingStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans d'exécution des requêtes chaudes sur bookings (PostgreSQL réel, 200k lignes)
+ * EXPLAIN porte sur le SQL généré par Hibernate pour les méthodes du repository (pas sur une copie à la main) :
+ * échoue si l'une d'elles repasse en Seq Scan (index manquant ou plus utilisable).
+ * Ignoré sans Docker.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ma.fstt.bookingservice.repository.BookingQueryPlanTest$CapturedSql")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingQueryPlanTest {
+
+    private static final int ROWS = 200_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        // 2000 properties, 5000 tenants, séjours de 3 nuits répartis sur un an, statuts mélangés
+        jdbcTemplate.update("""
+                INSERT INTO bookings (property_id, tenant_id, start_date, end_date, status,
+                                      tenant_wallet_address, price_per_night, total_price, currency,
+                                      created_at, updated_at)
+                SELECT 'prop-' || (g % 2000),
+                       'tenant-' || (g % 5000),
+                       DATE '2026-01-01' + (g % 365),
+                       DATE '2026-01-01' + (g % 365) + 3,
+                       (ARRAY['AWAITING_PAYMENT', 'CONFIRMED', 'CANCELLED', 'EXPIRED'])[1 + g % 4],
+                       '0x70997970C51812dc3A010C7d01b50e0d17dc79C8',
+                       0.05, 0.15, 'ETH',
+                       now() - make_interval(mins => g),
+                       now()
+                FROM generate_series(1, ?) g
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE bookings");
+        seeded = true;
+    }
+
+    @Test
+    void myBookingsPageUsesTenantIndex() {
+        // Deuxième page pleine : Spring Data exécute aussi la requête de comptage
+        List<String> statements = captureSql(() -> bookingRepository.findSummariesByTenantId("tenant-7",
+                PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt"))));
+
+        assertEquals(2, statements.size(), "page + count queries expected, got " + statements);
+        for (String sql : statements) {
+            assertNoSeqScan(sql, "tenant-7", 20, 20);
+        }
+    }
+
+    @Test
+    void countByTenantAndStatusUsesTenantIndex() {
+        List<String> statements = captureSql(() -> bookingRepository.countByTenantIdAndStatusIn("tenant-7",
+                List.of(BookingStatus.AWAITING_PAYMENT, BookingStatus.CONFIRMED)));
+
+        assertEquals(1, statements.size(), "one count query expected, got " + statements);
+        assertNoSeqScan(statements.get(0), "tenant-7", "AWAITING_PAYMENT", "CONFIRMED");
+    }
+
+    /**
+     * SQL réellement généré par Hibernate pendant l'appel (requêtes sur bookings uniquement)
+     */
+    private static List<String> captureSql(Runnable call) {
+        CapturedSql.STATEMENTS.clear();
+        call.run();
+        return CapturedSql.STATEMENTS.stream()
+                .filter(sql -> sql.contains("bookings"))
+                .toList();
+    }
+
+    /**
+     * EXPLAIN du SQL généré, paramètres liés dans l'ordre des "?" (seuls les premiers si la requête en a moins)
+     */
+    private void assertNoSeqScan(String sql, Object... params) {
+        int placeholders = (int) sql.chars().filter(c -> c == '?').count();
+        Object[] bound = Arrays.copyOf(params, placeholders);
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, bound);
+        try {
+            JsonNode plan = objectMapper.readTree(json).get(0).get("Plan");
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(plan, seqScans);
+            assertTrue(seqScans.isEmpty(), "Seq Scan on " + seqScans + " for:\n" + sql + "\nPlan:\n" + json);
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+
+    /**
+     * Hibernate StatementInspector : enregistre chaque requête SQL préparée
+     */
+    public static class CapturedSql implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
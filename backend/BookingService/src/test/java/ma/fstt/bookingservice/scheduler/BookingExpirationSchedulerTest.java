@@ -0,0 +1,69 @@
+package ma.fstt.bookingservice.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ma.fstt.bookingservice.model.Booking;
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.service.AvailabilityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingExpirationSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExpirationShardManager shardManager;
+    private BookingExpirationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        shardManager = mock(ExpirationShardManager.class);
+        when(shardManager.getShardCount()).thenReturn(4);
+
+        scheduler = new BookingExpirationScheduler(mock(BookingRepository.class), mock(RabbitTemplate.class),
+                mock(AvailabilityService.class), mock(TransactionTemplate.class), shardManager,
+                meterRegistry, mock(ApplicationEventPublisher.class), 1000, 64);
+        ReflectionTestUtils.setField(scheduler, "delayMinutes", 15L);
+    }
+
+    @Test
+    void timersOfALostShardAreRemovedFromTheWheel() {
+        when(shardManager.getOwnedShards()).thenReturn(Set.of(1, 2));
+        for (long id = 1; id <= 8; id++) {
+            scheduler.track(awaitingPayment(id));
+        }
+        assertEquals(8.0, tracked());
+
+        // Bail du shard 2 perdu pendant le renouvellement (repris par une autre instance)
+        when(shardManager.rebalance()).thenAnswer(inv -> {
+            when(shardManager.getOwnedShards()).thenReturn(Set.of(1));
+            return Set.of();
+        });
+        scheduler.rebalance();
+
+        // Bookings 2 et 6 (shard 2) retirés, les autres restent suivis
+        assertEquals(6.0, tracked());
+    }
+
+    private double tracked() {
+        return meterRegistry.get("booking.expiration.tracked").gauge().value();
+    }
+
+    private static Booking awaitingPayment(long id) {
+        return Booking.builder()
+                .id(id)
+                .status(BookingStatus.AWAITING_PAYMENT)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package ma.fstt.bookingservice.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void itemsExpireAtTheFirstTickAfterTheirDeadlineAcrossLevels() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        // 3s (niveau 0), 20s (niveau 1), 15 min (niveau 3)
+        wheel.schedule(1L, 3_000);
+        wheel.schedule(2L, 20_500);
+        wheel.schedule(3L, 900_000);
+
+        List<Long> expiredAt = new ArrayList<>();
+        List<Long> order = new ArrayList<>();
+        for (long now = 0; now <= 901_000; now += 1000) {
+            for (Long id : wheel.advance(now)) {
+                order.add(id);
+                expiredAt.add(now);
+            }
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), order);
+        // 20,5s est arrondi au tick supérieur (21s), jamais avant l'échéance
+        assertEquals(List.of(3_000L, 21_000L, 900_000L), expiredAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void nothingFiresBeforeItsDeadline() {
+        long start = 1_700_000_000_123L;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, start);
+        Random random = new Random(42);
+        long[] deadlines = new long[2_000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = start + 1 + random.nextInt(1_200_000);
+            assertTrue(wheel.schedule((long) i, deadlines[i]));
+        }
+
+        int fired = 0;
+        // Horloge irrégulière, comme un @Scheduled en retard
+        for (long now = start; fired < deadlines.length; now += 1 + random.nextInt(1_500)) {
+            for (Long id : wheel.advance(now)) {
+                long deadline = deadlines[id.intValue()];
+                assertTrue(now >= deadline, "item " + id + " fired at " + now + " before its deadline " + deadline);
+                assertTrue(now - deadline < 1000 + 1_500, "item " + id + " fired too late");
+                fired++;
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledItemsNeverExpireAndPastDeadlinesAreRejected() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 10_000);
+
+        assertTrue(wheel.schedule(1L, 60_000));
+        assertTrue(wheel.schedule(2L, 60_000));
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.schedule(3L, 5_000));
+
+        assertEquals(List.of(2L), wheel.advance(61_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelIfRemovesMatchingItemsOnly() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        for (long id = 1; id <= 6; id++) {
+            wheel.schedule(id, 10_000 * id);
+        }
+
+        // Shard 1 sur 3 perdu : 1 et 4 ne doivent plus expirer ici
+        assertEquals(2, wheel.cancelIf(id -> id % 3 == 1));
+        assertEquals(4, wheel.size());
+        assertEquals(List.of(2L, 3L, 5L, 6L), wheel.advance(60_000));
+    }
+
+    @Test
+    void reschedulingReplacesThePreviousDeadline() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        wheel.schedule(1L, 5_000);
+        wheel.schedule(1L, 50_000);
+
+        assertEquals(List.of(), wheel.advance(10_000));
+        assertEquals(List.of(1L), wheel.advance(50_000));
+    }
+}
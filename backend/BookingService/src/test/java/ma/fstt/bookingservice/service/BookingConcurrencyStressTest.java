@@ -0,0 +1,209 @@
+package ma.fstt.bookingservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.bookingservice.client.ResilientRemoteClient;
+import ma.fstt.bookingservice.dto.BookingRequestDTO;
+import ma.fstt.bookingservice.dto.BookingResponseDTO;
+import ma.fstt.bookingservice.exception.PropertyNotAvailableException;
+import ma.fstt.bookingservice.hostdashboard.HostBookingProjection;
+import ma.fstt.bookingservice.propertysync.PropertySnapshot;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotStore;
+import ma.fstt.bookingservice.repository.BookingRepository;
+import ma.fstt.bookingservice.repository.PropertyDayRepository;
+import ma.fstt.bookingservice.response.WalletStatusDTO;
+import ma.fstt.bookingservice.scheduler.BookingExpirationScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test (PostgreSQL réel) : de nombreux threads réservent la même property sur deux "instances"
+ * (verrous et calendriers distincts) partageant la même base.
+ * Seule la contrainte unique (property_id, day) de la base peut départager les deux instances.
+ * Ignoré sans Docker.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Slf4j
+class BookingConcurrencyStressTest {
+
+    private static final String PROPERTY_ID = "prop-stress";
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PropertyDayRepository propertyDayRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentBookingsOnOnePropertyNeverOverlap() throws Exception {
+        List<BookingService> instances = List.of(newInstance(), newInstance());
+        List<BookingResponseDTO> accepted = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        LocalDate today = LocalDate.now();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            BookingService service = instances.get(t % instances.size());
+            int seed = t;
+            workers.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalDate from = today.plusDays(1 + random.nextInt(90));
+                    LocalDate to = from.plusDays(1 + random.nextInt(5));
+                    try {
+                        accepted.add(service.createBooking("tenant-" + seed, request(from, to)));
+                    } catch (PropertyNotAvailableException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(120, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        pool.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        assertEquals(attempts, accepted.size() + rejected.get());
+        assertTrue(accepted.size() > 0);
+
+        // Aucun double booking en base : pas deux bookings actifs qui se chevauchent
+        Integer overlaps = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM bookings a
+                JOIN bookings b ON a.property_id = b.property_id AND a.id < b.id
+                WHERE a.property_id = ?
+                  AND a.status IN ('AWAITING_PAYMENT', 'CONFIRMED')
+                  AND b.status IN ('AWAITING_PAYMENT', 'CONFIRMED')
+                  AND a.start_date < b.end_date AND b.start_date < a.end_date
+                """, Integer.class, PROPERTY_ID);
+        assertEquals(0, overlaps);
+
+        // Chaque nuit occupée appartient à un booking accepté, et réciproquement
+        long acceptedNights = accepted.stream()
+                .mapToLong(b -> ChronoUnit.DAYS.between(b.getStartDate(), b.getEndDate()))
+                .sum();
+        Long storedNights = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM property_day WHERE property_id = ?", Long.class, PROPERTY_ID);
+        assertEquals(acceptedNights, storedNights);
+        assertEquals(accepted.size(), bookingRepository.findByPropertyId(PROPERTY_ID).size());
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("📊 {} attempts in {}s ({} req/s): {} accepted, {} rejected",
+                attempts, String.format("%.2f", seconds), Math.round(attempts / seconds),
+                accepted.size(), rejected.get());
+    }
+
+    // --- Stand-ins (tout sauf la base) ---
+
+    private BookingService newInstance() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AvailabilityService availabilityService =
+                new AvailabilityService(propertyDayRepository, bookingRepository, transactionTemplate);
+        ReflectionTestUtils.setField(availabilityService, "cacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(availabilityService, "maxCachedProperties", 100);
+        ReflectionTestUtils.setField(availabilityService, "maxRangeDays", 366);
+
+        ResilientRemoteClient remoteClient = mock(ResilientRemoteClient.class);
+        when(remoteClient.getWalletStatus(anyString()))
+                .thenReturn(new WalletStatusDTO("tenant", "0x70997970C51812dc3A010C7d01b50e0d17dc79C8", true));
+
+        PropertySnapshotStore propertySnapshotStore = mock(PropertySnapshotStore.class);
+        when(propertySnapshotStore.find(eq(PROPERTY_ID))).thenReturn(Optional.of(PropertySnapshot.builder()
+                .propertyId(PROPERTY_ID)
+                .ownerId("host")
+                .version(1L)
+                .pricePerNight(new BigDecimal("0.05"))
+                .status(PropertySnapshot.STATUS_ACTIVE)
+                .build()));
+
+        BookingLookupService bookingLookupService =
+                new BookingLookupService(remoteClient, propertySnapshotStore, Runnable::run);
+        ReflectionTestUtils.setField(bookingLookupService, "walletTtlSeconds", 30L);
+        ReflectionTestUtils.setField(bookingLookupService, "pricingTtlSeconds", 30L);
+        ReflectionTestUtils.setField(bookingLookupService, "maxEntries", 100);
+        bookingLookupService.initCaches();
+
+        BookingService service = new BookingService(
+                bookingRepository,
+                bookingLookupService,
+                mock(RabbitTemplate.class),
+                availabilityService,
+                transactionTemplate,
+                new PropertyLockStripes(64),
+                mock(BookingExpirationScheduler.class),
+                mock(HostBookingProjection.class),
+                mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "exchange", "rental.exchange");
+        ReflectionTestUtils.setField(service, "createdRoutingKey", "booking.created");
+        ReflectionTestUtils.setField(service, "lockWaitMs", 5000L);
+        return service;
+    }
+
+    private static BookingRequestDTO request(LocalDate from, LocalDate to) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setPropertyId(PROPERTY_ID);
+        request.setStartDate(from);
+        request.setEndDate(to);
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package ma.fstt.bookingservice.service;
+
+import ma.fstt.bookingservice.client.ResilientRemoteClient;
+import ma.fstt.bookingservice.exception.BookingException;
+import ma.fstt.bookingservice.exception.PropertyNotFoundException;
+import ma.fstt.bookingservice.exception.WalletNotConnectedException;
+import ma.fstt.bookingservice.propertysync.PropertyChangedEvent;
+import ma.fstt.bookingservice.propertysync.PropertySnapshot;
+import ma.fstt.bookingservice.propertysync.PropertySnapshotStore;
+import ma.fstt.bookingservice.response.PropertyDTO;
+import ma.fstt.bookingservice.response.WalletStatusDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingLookupServiceTest {
+
+    private static final String WALLET = "0xabcdef0000000000000000000000000000000001";
+
+    private ResilientRemoteClient remoteClient;
+    private PropertySnapshotStore snapshotStore;
+    private BookingLookupService service;
+
+    @BeforeEach
+    void setUp() {
+        remoteClient = mock(ResilientRemoteClient.class);
+        snapshotStore = mock(PropertySnapshotStore.class);
+        when(snapshotStore.find(anyString())).thenReturn(Optional.empty());
+
+        service = new BookingLookupService(remoteClient, snapshotStore, Runnable::run);
+        ReflectionTestUtils.setField(service, "walletTtlSeconds", 60L);
+        ReflectionTestUtils.setField(service, "pricingTtlSeconds", 60L);
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+        service.initCaches();
+    }
+
+    @Test
+    void userWithoutAConnectedWalletIsNotCached() {
+        when(remoteClient.getWalletStatus("u1"))
+                .thenReturn(WalletStatusDTO.builder().userId("u1").exists(false).build())
+                .thenReturn(WalletStatusDTO.builder().userId("u1").exists(true).walletAddress(WALLET).build());
+
+        assertThrows(WalletNotConnectedException.class, () -> service.getConnectedWallet("u1"));
+
+        // Wallet connecté juste après : visible sans attendre le TTL, puis gardé
+        assertEquals(WALLET, service.getConnectedWallet("u1"));
+        assertEquals(WALLET, service.getConnectedWallet("u1"));
+        verify(remoteClient, times(2)).getWalletStatus("u1");
+    }
+
+    @Test
+    void walletInvalidationForcesARemoteRead() {
+        when(remoteClient.getWalletStatus("u1"))
+                .thenReturn(WalletStatusDTO.builder().userId("u1").exists(true).walletAddress(WALLET).build());
+        service.getConnectedWallet("u1");
+
+        service.invalidateWallet("u1");
+        service.getConnectedWallet("u1");
+
+        verify(remoteClient, times(2)).getWalletStatus("u1");
+    }
+
+    @Test
+    void deletedSnapshotIsRejectedWithoutCallingListingService() {
+        when(snapshotStore.find("p1")).thenReturn(Optional.of(snapshot("p1", PropertySnapshot.STATUS_DELETED, "0.5")));
+
+        assertThrows(PropertyNotFoundException.class, () -> service.resolvePropertyPricing("p1"));
+        verify(remoteClient, never()).getProperty(anyString());
+    }
+
+    @Test
+    void snapshotWithoutAValidPriceIsRejected() {
+        when(snapshotStore.find("p1")).thenReturn(Optional.of(snapshot("p1", "ACTIVE", null)));
+        when(snapshotStore.find("p2")).thenReturn(Optional.of(snapshot("p2", "ACTIVE", "0")));
+
+        assertThrows(BookingException.class, () -> service.resolvePropertyPricing("p1"));
+        assertThrows(BookingException.class, () -> service.resolvePropertyPricing("p2"));
+        verify(remoteClient, never()).getProperty(anyString());
+    }
+
+    @Test
+    void snapshotPriceIsUsedWhenPresent() {
+        when(snapshotStore.find("p1")).thenReturn(Optional.of(snapshot("p1", "ACTIVE", "0.5")));
+
+        PropertyDTO pricing = service.resolvePropertyPricing("p1");
+
+        assertEquals(new BigDecimal("0.5"), pricing.getPrice());
+        assertEquals("owner-1", pricing.getOwnerId());
+        verify(remoteClient, never()).getProperty(anyString());
+    }
+
+    @Test
+    void remotePricingIsCachedUntilThePropertyChanges() {
+        when(remoteClient.getProperty("p1")).thenReturn(PropertyDTO.builder()
+                .id("p1").price(new BigDecimal("0.5")).ownerId("owner-1").build());
+
+        service.resolvePropertyPricing("p1");
+        service.resolvePropertyPricing("p1");
+        verify(remoteClient, times(1)).getProperty("p1");
+
+        service.onPropertyChanged(PropertyChangedEvent.builder().propertyId("p1").changeType("PRICE_CHANGED").build());
+        service.resolvePropertyPricing("p1");
+        verify(remoteClient, times(2)).getProperty("p1");
+    }
+
+    private static PropertySnapshot snapshot(String propertyId, String status, String price) {
+        return PropertySnapshot.builder()
+                .propertyId(propertyId)
+                .ownerId("owner-1")
+                .version(3L)
+                .status(status)
+                .pricePerNight(price != null ? new BigDecimal(price) : null)
+                .build();
+    }
+}
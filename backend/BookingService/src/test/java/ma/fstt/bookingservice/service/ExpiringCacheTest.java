@@ -0,0 +1,81 @@
+package ma.fstt.bookingservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExpiringCacheTest {
+
+    private final ExpiringCache<String, String> cache = new ExpiringCache<>(60_000, 100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadedValueIsServedUntilInvalidated() {
+        assertEquals("v1", cache.get("k", key -> load("v1")));
+        assertEquals("v1", cache.get("k", key -> load("v2")));
+        assertEquals(1, loads.get());
+
+        cache.invalidate("k");
+
+        assertNull(cache.getIfPresent("k"));
+        assertEquals("v2", cache.get("k", key -> load("v2")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDuringALoadIsNotOverwrittenByTheStaleValue() {
+        // L'événement arrive pendant la lecture distante
+        String loaded = cache.get("k", key -> {
+            cache.invalidate(key);
+            return load("stale");
+        });
+
+        // L'appelant reçoit sa valeur, le cache ne la garde pas
+        assertEquals("stale", loaded);
+        assertNull(cache.getIfPresent("k"));
+        assertEquals("fresh", cache.get("k", key -> load("fresh")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void nullResultsAreNotCached() {
+        assertNull(cache.get("k", key -> load(null)));
+        assertNull(cache.get("k", key -> load(null)));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredValueIsReloaded() throws InterruptedException {
+        ExpiringCache<String, String> shortLived = new ExpiringCache<>(20, 100);
+        shortLived.get("k", key -> load("v1"));
+
+        Thread.sleep(50);
+
+        assertNull(shortLived.getIfPresent("k"));
+        assertEquals("v2", shortLived.get("k", key -> load("v2")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void cacheIsClearedWhenFull() {
+        ExpiringCache<String, String> small = new ExpiringCache<>(60_000, 2);
+        small.put("a", "1");
+        small.put("b", "2");
+
+        small.put("c", "3");
+
+        assertEquals(1, small.size());
+        assertNull(small.getIfPresent("a"));
+        assertEquals("3", small.getIfPresent("c"));
+    }
+
+    private String load(String value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
@@ -0,0 +1,82 @@
+package ma.fstt.bookingservice.service;
+
+import ma.fstt.bookingservice.model.BookingStatus;
+import ma.fstt.bookingservice.service.PropertyCalendar.DayState;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropertyCalendarTest {
+
+    private final PropertyCalendar calendar = new PropertyCalendar();
+
+    @Test
+    void rangesAreHalfOpen() {
+        calendar.reserve(date(2026, 3, 10), date(2026, 3, 13), BookingStatus.AWAITING_PAYMENT);
+
+        assertFalse(calendar.isFree(date(2026, 3, 12), date(2026, 3, 14)));
+        // Départ le 13 = arrivée possible le 13
+        assertTrue(calendar.isFree(date(2026, 3, 13), date(2026, 3, 15)));
+        assertTrue(calendar.isFree(date(2026, 3, 7), date(2026, 3, 10)));
+        assertEquals(DayState.AVAILABLE, calendar.stateOf(date(2026, 3, 13)));
+    }
+
+    @Test
+    void rangeAcrossMonthAndYearBoundaries() {
+        calendar.reserve(date(2026, 12, 30), date(2027, 1, 2), BookingStatus.CONFIRMED);
+
+        assertEquals(DayState.BOOKED, calendar.stateOf(date(2026, 12, 31)));
+        assertEquals(DayState.BOOKED, calendar.stateOf(date(2027, 1, 1)));
+        assertEquals(DayState.AVAILABLE, calendar.stateOf(date(2027, 1, 2)));
+        assertFalse(calendar.isFree(date(2027, 1, 1), date(2027, 1, 5)));
+        assertTrue(calendar.isFree(date(2026, 11, 1), date(2026, 12, 30)));
+    }
+
+    @Test
+    void firstAndLastNightOfALongMonth() {
+        calendar.reserve(date(2026, 1, 1), date(2026, 1, 2), BookingStatus.AWAITING_PAYMENT);
+        calendar.reserve(date(2026, 1, 31), date(2026, 2, 1), BookingStatus.AWAITING_PAYMENT);
+
+        assertEquals(DayState.PENDING, calendar.stateOf(date(2026, 1, 1)));
+        assertEquals(DayState.PENDING, calendar.stateOf(date(2026, 1, 31)));
+        assertTrue(calendar.isFree(date(2026, 1, 2), date(2026, 1, 31)));
+        assertTrue(calendar.isFree(date(2026, 2, 1), date(2026, 2, 28)));
+    }
+
+    @Test
+    void confirmationTurnsPendingNightsIntoBookedNights() {
+        calendar.reserve(date(2026, 5, 1), date(2026, 5, 4), BookingStatus.AWAITING_PAYMENT);
+        assertEquals(DayState.PENDING, calendar.stateOf(date(2026, 5, 2)));
+
+        calendar.reserve(date(2026, 5, 1), date(2026, 5, 4), BookingStatus.CONFIRMED);
+
+        assertEquals(DayState.BOOKED, calendar.stateOf(date(2026, 5, 2)));
+    }
+
+    @Test
+    void releaseFreesOnlyTheGivenNights() {
+        calendar.reserve(date(2026, 6, 1), date(2026, 6, 5), BookingStatus.CONFIRMED);
+        calendar.reserve(date(2026, 6, 5), date(2026, 6, 8), BookingStatus.AWAITING_PAYMENT);
+
+        calendar.release(date(2026, 6, 1), date(2026, 6, 5));
+
+        assertTrue(calendar.isFree(date(2026, 6, 1), date(2026, 6, 5)));
+        assertFalse(calendar.isFree(date(2026, 6, 4), date(2026, 6, 6)));
+        assertEquals(DayState.PENDING, calendar.stateOf(date(2026, 6, 7)));
+    }
+
+    @Test
+    void emptyRangeIsAlwaysFree() {
+        calendar.reserve(date(2026, 7, 1), date(2026, 7, 31), BookingStatus.CONFIRMED);
+
+        assertTrue(calendar.isFree(date(2026, 7, 10), date(2026, 7, 10)));
+    }
+
+    private static LocalDate date(int year, int month, int day) {
+        return LocalDate.of(year, month, day);
+    }
+}
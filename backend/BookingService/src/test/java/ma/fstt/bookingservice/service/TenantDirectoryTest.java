@@ -0,0 +1,186 @@
+package ma.fstt.bookingservice.service;
+
+import feign.FeignException;
+import ma.fstt.bookingservice.client.AuthServiceClient;
+import ma.fstt.bookingservice.entities.Tenant;
+import ma.fstt.bookingservice.model.SyncCheckpoint;
+import ma.fstt.bookingservice.repository.SyncCheckpointRepository;
+import ma.fstt.bookingservice.repository.TenantRepository;
+import ma.fstt.bookingservice.response.UserSyncDTO;
+import ma.fstt.bookingservice.response.UserSyncPageDTO;
+import ma.fstt.bookingservice.service.TenantDirectory.TenantBatchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantDirectoryTest {
+
+    // Table sync_checkpoints en mémoire
+    private final Map<String, SyncCheckpoint> checkpoints = new HashMap<>();
+
+    // Table tenants en mémoire (userIds écrits)
+    private final Map<String, Tenant> tenants = new HashMap<>();
+
+    private AuthServiceClient authServiceClient;
+    private JdbcTemplate jdbcTemplate;
+    private TenantDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        SyncCheckpointRepository checkpointRepository = mock(SyncCheckpointRepository.class);
+        when(checkpointRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(checkpoints.get(inv.<String>getArgument(0))));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            SyncCheckpoint checkpoint = inv.getArgument(0);
+            checkpoints.put(checkpoint.getName(), checkpoint);
+            return checkpoint;
+        });
+
+        TenantRepository tenantRepository = mock(TenantRepository.class);
+        when(tenantRepository.findByUserIdIn(any())).thenAnswer(inv -> inv.<Collection<String>>getArgument(0).stream()
+                .map(tenants::get)
+                .filter(Objects::nonNull)
+                .toList());
+
+        authServiceClient = mock(AuthServiceClient.class);
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            rows.forEach(this::store);
+            return new int[rows.size()];
+        });
+
+        directory = new TenantDirectory(tenantRepository, jdbcTemplate, authServiceClient, checkpointRepository);
+        ReflectionTestUtils.setField(directory, "cacheTtlSeconds", 300L);
+        ReflectionTestUtils.setField(directory, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(directory, "bootstrapEnabled", true);
+        ReflectionTestUtils.setField(directory, "bootstrapPageSize", 2);
+        ReflectionTestUtils.setField(directory, "internalToken", "s3cret");
+        directory.initCache();
+    }
+
+    @Test
+    void interruptedImportResumesAtTheLastCursorAndStopsOnceCompleted() {
+        when(authServiceClient.exportUsers(0L, 2, "s3cret")).thenReturn(page(2L, "u1", "u2"));
+        when(authServiceClient.exportUsers(2L, 2, "s3cret"))
+                .thenThrow(FeignException.ServiceUnavailable.class)
+                .thenReturn(page(4L, "u3", "u4"));
+        when(authServiceClient.exportUsers(4L, 2, "s3cret")).thenReturn(page(null, "u5"));
+
+        // AuthService tombe sur la deuxième page : curseur conservé
+        directory.bootstrap();
+        SyncCheckpoint checkpoint = checkpoints.get(TenantDirectory.BOOTSTRAP_CHECKPOINT);
+        assertEquals(2L, checkpoint.getCursor());
+        assertFalse(checkpoint.isCompleted());
+
+        // Reprise : la première page n'est pas relue
+        directory.bootstrap();
+        verify(authServiceClient, times(1)).exportUsers(eq(0L), anyInt(), anyString());
+        assertTrue(checkpoints.get(TenantDirectory.BOOTSTRAP_CHECKPOINT).isCompleted());
+
+        // Import terminé : plus aucun appel
+        directory.bootstrap();
+        verify(authServiceClient, times(4)).exportUsers(anyLong(), anyInt(), anyString());
+    }
+
+    @Test
+    void importIsNotAttemptedWithoutAnInternalToken() {
+        ReflectionTestUtils.setField(directory, "internalToken", "");
+
+        directory.bootstrap();
+
+        verify(authServiceClient, never()).exportUsers(anyLong(), anyInt(), anyString());
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    void rowsStillFailingAfterTheFallbackRejectTheBatch() {
+        failRowsOf("bad-1", "bad-2");
+
+        TenantBatchException error = assertThrows(TenantBatchException.class, () -> directory.upsertAll(List.of(
+                tenant("u1"), tenant("bad-1"), tenant("u2"), tenant("bad-2")), true));
+
+        assertEquals(List.of("bad-1", "bad-2"), error.getFailedUserIds());
+        // Les lignes valides sont écrites malgré tout (relues depuis la table)
+        assertEquals(Set.of("u1", "u2"), tenants.keySet());
+        assertEquals(Set.of("u1", "u2"), directory.findAll(List.of("u1", "u2", "bad-1")).keySet());
+    }
+
+    @Test
+    void bootstrapPageWithFailedRowsIsRetriedFromTheSameCursor() {
+        failRowsOf("bad");
+        when(authServiceClient.exportUsers(0L, 2, "s3cret")).thenReturn(page(2L, "u1", "bad"));
+
+        directory.bootstrap();
+
+        // Curseur jamais avancé : la page sera relue à la prochaine tentative
+        assertFalse(checkpoints.containsKey(TenantDirectory.BOOTSTRAP_CHECKPOINT));
+        assertTrue(tenants.containsKey("u1"));
+    }
+
+    /**
+     * Le batch échoue dès qu'il contient l'un de ces userIds ; le repli ligne par ligne n'échoue que sur eux
+     */
+    private void failRowsOf(String... userIds) {
+        Set<String> failing = Set.of(userIds);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            if (rows.stream().anyMatch(row -> failing.contains((String) row[0]))) {
+                throw new DataIntegrityViolationException("batch failed");
+            }
+            rows.forEach(this::store);
+            return new int[rows.size()];
+        });
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(inv -> {
+            Object[] row = (Object[]) inv.getRawArguments()[1];
+            if (failing.contains((String) row[0])) {
+                throw new DataIntegrityViolationException("value too long for wallet_address");
+            }
+            store(row);
+            return 1;
+        });
+    }
+
+    private void store(Object[] row) {
+        tenants.put((String) row[0], Tenant.builder().userId((String) row[0]).email((String) row[1]).build());
+    }
+
+    private static Tenant tenant(String userId) {
+        return Tenant.builder().userId(userId).email(userId + "@mail.com").build();
+    }
+
+    private static UserSyncPageDTO page(Long nextCursor, String... userIds) {
+        List<UserSyncDTO> users = Arrays.stream(userIds)
+                .map(id -> UserSyncDTO.builder().userId(id).email(id + "@mail.com").build())
+                .toList();
+        return new UserSyncPageDTO(users, nextCursor);
+    }
+}
@@ -0,0 +1,99 @@
+package ma.fstt.bookingservice.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Stand-in RabbitMQ en mémoire pour les tests de consumers (pas de réseau)
+ *
+ * Reproduit le contrat vu par un @RabbitListener à ack manuel asynchrone :
+ * un consumer par queue, livraison FIFO, au plus "prefetch" messages non acquittés,
+ * ack à la complétion du futur retourné, nack (→ dead letter) sur exception.
+ */
+public class InMemoryRabbitBroker {
+
+    private final Map<String, Consumer> consumers = new LinkedHashMap<>();
+    private final AtomicInteger acked = new AtomicInteger();
+    private final AtomicInteger deadLettered = new AtomicInteger();
+    private final List<Thread> threads = new ArrayList<>();
+
+    public void declare(String queue, int prefetch, Function<JsonNode, CompletableFuture<?>> listener) {
+        consumers.put(queue, new Consumer(new LinkedBlockingQueue<>(), new Semaphore(prefetch), listener));
+    }
+
+    public void publish(String queue, JsonNode message) {
+        consumers.get(queue).messages().add(message);
+    }
+
+    public void start() {
+        consumers.forEach((queue, consumer) -> {
+            Thread thread = new Thread(() -> consume(consumer), "consumer-" + queue);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        });
+    }
+
+    /**
+     * Attendre que "expected" messages aient été acquittés ou rejetés
+     */
+    public boolean awaitSettled(int expected, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (acked.get() + deadLettered.get() < expected) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    public void stop() {
+        threads.forEach(Thread::interrupt);
+    }
+
+    public int acked() {
+        return acked.get();
+    }
+
+    public int deadLettered() {
+        return deadLettered.get();
+    }
+
+    private void consume(Consumer consumer) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                JsonNode message = consumer.messages().take();
+                consumer.unacked().acquire();
+                try {
+                    consumer.listener().apply(message).whenComplete((result, error) -> {
+                        (error == null ? acked : deadLettered).incrementAndGet();
+                        consumer.unacked().release();
+                    });
+                } catch (AmqpRejectAndDontRequeueException e) {
+                    deadLettered.incrementAndGet();
+                    consumer.unacked().release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Consumer(BlockingQueue<JsonNode> messages,
+                            Semaphore unacked,
+                            Function<JsonNode, CompletableFuture<?>> listener) {
+    }
+}
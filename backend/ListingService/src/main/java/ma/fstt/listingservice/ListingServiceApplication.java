@@ -2,8 +2,10 @@ package ma.fstt.listingservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ListingServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,77 @@
+package ma.fstt.listingservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * ✅ Pools de threads du pipeline d'images (upload S3, génération des dérivées)
+ * Bornés pour ne jamais saturer S3 ni la mémoire quand plusieurs hosts uploadent en même temps
+ */
+@Configuration
+public class ImagePipelineConfig {
+
+    @Value("${aws.s3.upload.max-concurrency:8}")
+    private int uploadConcurrency;
+
+    @Value("${aws.s3.upload.queue-capacity:100}")
+    private int uploadQueueCapacity;
+
+    @Value("${images.derivatives.workers:2}")
+    private int derivativeWorkers;
+
+    @Value("${images.derivatives.queue-capacity:500}")
+    private int derivativeQueueCapacity;
+
+    /**
+     * Executor des uploads S3
+     * Quand la file est pleine, le thread appelant fait l'upload lui-même (backpressure naturelle)
+     */
+    @Bean(name = "imageUploadExecutor")
+    public ThreadPoolTaskExecutor imageUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadConcurrency);
+        executor.setMaxPoolSize(uploadConcurrency);
+        executor.setQueueCapacity(uploadQueueCapacity);
+        executor.setThreadNamePrefix("s3-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Executor des dérivées (redimensionnement + encodage, CPU-bound)
+     * File bornée : au-delà, la tâche est rejetée et loggée, l'image reste servie en original
+     */
+    @Bean(name = "imageDerivativeExecutor")
+    public ThreadPoolTaskExecutor imageDerivativeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(derivativeWorkers);
+        executor.setMaxPoolSize(derivativeWorkers);
+        executor.setQueueCapacity(derivativeQueueCapacity);
+        executor.setThreadNamePrefix("img-derivative-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Executor du garbage collector S3 (un thread, sans file)
+     * La passe dort entre deux pages : elle ne doit pas occuper le thread @Scheduled partagé.
+     * Déclenchement pendant une passe en cours → TaskRejectedException, le tour est sauté.
+     * À l'arrêt, la passe est interrompue : elle s'arrête à la page suivante et rend son bail.
+     */
+    @Bean(name = "imageGcExecutor")
+    public ThreadPoolTaskExecutor imageGcExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("image-gc-");
+        return executor;
+    }
+}
@@ -34,12 +34,24 @@ public class RabbitMQConfig {
     public static final String WALLET_UPDATED_ROUTING_KEY = "user.wallet.updated";
     public static final String WALLET_DISCONNECTED_ROUTING_KEY = "user.wallet.disconnected";
 
+    // ========== PROPERTY EVENTS (read models des autres services) ==========
+    public static final String PROPERTY_EXCHANGE = "property.exchange";
+
     // Exchange Bean
     @Bean
     public TopicExchange userExchange() {
         return new TopicExchange(USER_EXCHANGE);
     }
 
+    /**
+     * Exchange des événements property.* (created / updated / price.changed / status.changed / deleted)
+     * Les queues sont déclarées par les consommateurs
+     */
+    @Bean
+    public TopicExchange propertyExchange() {
+        return new TopicExchange(PROPERTY_EXCHANGE);
+    }
+
     // ========== QUEUES EXISTANTES ==========
     @Bean
     public Queue userCreatedQueue() {
@@ -30,6 +30,8 @@ public class SecurityConfig {
                         .requestMatchers("/properties/nearby").permitAll()             // Nearby properties
                         .requestMatchers("/properties/owner/{ownerId}/active-count").permitAll() // Active count
                         .requestMatchers("/properties/owner/{ownerId}/property-ids").permitAll() // Property IDs for host dashboard
+                        .requestMatchers(HttpMethod.GET, "/properties/internal/snapshots").permitAll() // Export : X-Internal-Token vérifié par le contrôleur
+                        .requestMatchers(HttpMethod.POST, "/properties/batch").permitAll()       // Batch fetch : ACTIVE seulement sans X-Internal-Token
 
                         // ✅ NEW: Wallet address endpoint (for Payment Service)
                         .requestMatchers(HttpMethod.GET, "/properties/*/wallet-address").permitAll() // Get wallet for payment
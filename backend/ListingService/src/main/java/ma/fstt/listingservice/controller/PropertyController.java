@@ -1,6 +1,7 @@
 package ma.fstt.listingservice.controller;
 
 import ma.fstt.listingservice.dto.PropertyDto;
+import ma.fstt.listingservice.dto.PropertySummaryDto;
 import ma.fstt.listingservice.requests.PropertyRequest;
 import ma.fstt.listingservice.requests.PropertyStatusRequest;
 import ma.fstt.listingservice.responses.PropertyResponse;
@@ -10,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,6 +33,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +54,10 @@ public class PropertyController {
 
     private static final Logger log = LoggerFactory.getLogger(PropertyController.class);
 
+    // Secret partagé des appels service-to-service (vide = aucun appelant interne)
+    @Value("${internal.api.token:}")
+    private String internalApiToken;
+
 
     @PostMapping
     public ResponseEntity<Map<String, Object>> createProperty(
@@ -89,6 +97,46 @@ public class PropertyController {
         }
     }
 
+    /**
+     * ✅ NOUVEAU: Récupérer plusieurs properties en un seul appel (service-to-service)
+     * Body: { "propertyIds": ["..."], "pricingOnly": false }
+     *
+     * ⚠️ Route publique : sans X-Internal-Token valide, seules les properties ACTIVE sont renvoyées
+     * (brouillons, properties en attente, cachées ou supprimées traitées comme inconnues)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getPropertiesBatch(
+            @RequestBody PropertyBatchRequest request,
+            @RequestHeader(value = "X-Internal-Token", required = false) String internalToken) {
+        try {
+            List<PropertySummaryDto> properties = propertyService.getPropertiesBatch(
+                    request.getPropertyIds(), request.isPricingOnly(), !isInternalCaller(internalToken));
+            return ResponseEntity.ok(properties);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * ✅ NOUVEAU: Export des properties pour l'amorçage des read models (BookingService)
+     * GET /properties/internal/snapshots?afterId=0&size=500
+     * Pagination par curseur : passer nextCursor comme afterId jusqu'à nextCursor = null
+     */
+    @GetMapping("/internal/snapshots")
+    public ResponseEntity<?> exportSnapshots(
+            @RequestHeader(value = "X-Internal-Token", required = false) String internalToken,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int size) {
+        if (!isInternalCaller(internalToken)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Access denied");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        return ResponseEntity.ok(propertyService.exportSnapshots(afterId, size));
+    }
+
     @GetMapping("/owner/{ownerId}")
     public ResponseEntity<List<PropertyResponse>> getPropertiesByOwner(@PathVariable String ownerId) {
         List<PropertyDto> properties = propertyService.getPropertiesByUserId(ownerId);
@@ -276,6 +324,15 @@ public class PropertyController {
         return response;
     }
 
+    /**
+     * Comparaison en temps constant : la durée ne révèle pas la longueur du préfixe correct
+     */
+    private boolean isInternalCaller(String token) {
+        return !internalApiToken.isBlank() && token != null
+                && MessageDigest.isEqual(internalApiToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * ✅ NOUVEAU: Compter les propriétés actives d'un propriétaire
      * Utilisé par auth-service pour vérifier si on peut déconnecter le wallet
@@ -0,0 +1,58 @@
+package ma.fstt.listingservice.dto;
+
+import java.io.Serializable;
+
+/**
+ * URLs d'une image et de ses dérivées
+ * Les dérivées sont null tant que le pipeline asynchrone ne les a pas générées :
+ * le frontend doit alors retomber sur l'original.
+ */
+public class ImageVariantsDto implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String original;
+    private String thumb;
+    private String card;
+    private String full;
+
+    public ImageVariantsDto() {
+    }
+
+    public ImageVariantsDto(String original) {
+        this.original = original;
+    }
+
+    // Getters and Setters
+    public String getOriginal() {
+        return original;
+    }
+
+    public void setOriginal(String original) {
+        this.original = original;
+    }
+
+    public String getThumb() {
+        return thumb;
+    }
+
+    public void setThumb(String thumb) {
+        this.thumb = thumb;
+    }
+
+    public String getCard() {
+        return card;
+    }
+
+    public void setCard(String card) {
+        this.card = card;
+    }
+
+    public String getFull() {
+        return full;
+    }
+
+    public void setFull(String full) {
+        this.full = full;
+    }
+}
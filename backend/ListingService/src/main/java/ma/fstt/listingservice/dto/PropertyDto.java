@@ -40,6 +40,9 @@ public class PropertyDto implements Serializable {
     // Images
     private List<String> imageFolderPath = new ArrayList<>();
 
+    // Dérivées (thumb/card/full) de chaque image, null tant que non générées
+    private List<ImageVariantsDto> imageVariants = new ArrayList<>();
+
     // ✅ NOUVEAU: Status ENUM (UNIQUEMENT)
     private PropertyStatus status;
 
@@ -233,6 +236,14 @@ public class PropertyDto implements Serializable {
         this.imageFolderPath = imageFolderPath;
     }
 
+    public List<ImageVariantsDto> getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(List<ImageVariantsDto> imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
     public PropertyStatus getStatus() {
         return status;
     }
@@ -0,0 +1,141 @@
+package ma.fstt.listingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Vue compacte d'une property pour les autres services (POST /properties/batch)
+ * Les champs null ne sont pas sérialisés : en mode pricingOnly, seuls
+ * propertyId / ownerId / pricePerNight / status / version sont renvoyés.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PropertySummaryDto implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String propertyId;
+    private String ownerId;
+    private BigDecimal pricePerNight;
+    private String status;
+    private Long version;
+
+    private String title;
+    private String type;
+    private String city;
+    private String country;
+    private Integer nbOfGuests;
+    private Integer nbOfBedrooms;
+    private List<String> characteristics;
+    private List<ImageVariantsDto> images;
+
+    public PropertySummaryDto() {
+    }
+
+    // Getters and Setters
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public BigDecimal getPricePerNight() {
+        return pricePerNight;
+    }
+
+    public void setPricePerNight(BigDecimal pricePerNight) {
+        this.pricePerNight = pricePerNight;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public Integer getNbOfGuests() {
+        return nbOfGuests;
+    }
+
+    public void setNbOfGuests(Integer nbOfGuests) {
+        this.nbOfGuests = nbOfGuests;
+    }
+
+    public Integer getNbOfBedrooms() {
+        return nbOfBedrooms;
+    }
+
+    public void setNbOfBedrooms(Integer nbOfBedrooms) {
+        this.nbOfBedrooms = nbOfBedrooms;
+    }
+
+    public List<String> getCharacteristics() {
+        return characteristics;
+    }
+
+    public void setCharacteristics(List<String> characteristics) {
+        this.characteristics = characteristics;
+    }
+
+    public List<ImageVariantsDto> getImages() {
+        return images;
+    }
+
+    public void setImages(List<ImageVariantsDto> images) {
+        this.images = images;
+    }
+}
@@ -0,0 +1,129 @@
+package ma.fstt.listingservice.entities;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Image dérivée (thumb/card/full) d'une image originale
+ *
+ * Stockage adressé par contenu : la clé S3 est dérivée du SHA-256 de l'original
+ * (derivatives/{hash}/{variant}.jpg), deux uploads identiques partagent donc les mêmes objets.
+ */
+@Entity
+@Table(name = "image_derivatives",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"original_url", "variant"}),
+        indexes = {
+                @Index(name = "idx_image_derivatives_original_url", columnList = "original_url"),
+                @Index(name = "idx_image_derivatives_hash_variant", columnList = "content_hash, variant")
+        })
+public class ImageDerivative implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "property_id", nullable = false, length = 50)
+    private String propertyId;
+
+    @Column(name = "original_url", nullable = false, length = 500)
+    private String originalUrl;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ImageVariant variant;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // ========== GETTERS AND SETTERS ==========
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public void setOriginalUrl(String originalUrl) {
+        this.originalUrl = originalUrl;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public ImageVariant getVariant() {
+        return variant;
+    }
+
+    public void setVariant(ImageVariant variant) {
+        this.variant = variant;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
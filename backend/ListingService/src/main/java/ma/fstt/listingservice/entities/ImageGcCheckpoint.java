@@ -0,0 +1,94 @@
+package ma.fstt.listingservice.entities;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Point de reprise du garbage collector d'images S3
+ * La dernière clé traitée est persistée après chaque page : un redémarrage reprend
+ * le parcours du bucket là où il s'était arrêté au lieu de tout relister.
+ */
+@Entity
+@Table(name = "image_gc_checkpoints")
+public class ImageGcCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    // Dernière clé S3 examinée (null = début du bucket)
+    @Column(length = 500)
+    private String lastKey;
+
+    @Column(nullable = false)
+    private Long scannedTotal = 0L;
+
+    @Column(nullable = false)
+    private Long deletedTotal = 0L;
+
+    // Nombre de passes complètes sur le bucket
+    @Column(nullable = false)
+    private Long completedSweeps = 0L;
+
+    private LocalDateTime lastRunAt;
+
+    public ImageGcCheckpoint() {
+    }
+
+    public ImageGcCheckpoint(String name) {
+        this.name = name;
+    }
+
+    // ========== GETTERS AND SETTERS ==========
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public void setLastKey(String lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    public Long getScannedTotal() {
+        return scannedTotal;
+    }
+
+    public void setScannedTotal(Long scannedTotal) {
+        this.scannedTotal = scannedTotal;
+    }
+
+    public Long getDeletedTotal() {
+        return deletedTotal;
+    }
+
+    public void setDeletedTotal(Long deletedTotal) {
+        this.deletedTotal = deletedTotal;
+    }
+
+    public Long getCompletedSweeps() {
+        return completedSweeps;
+    }
+
+    public void setCompletedSweeps(Long completedSweeps) {
+        this.completedSweeps = completedSweeps;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public void setLastRunAt(LocalDateTime lastRunAt) {
+        this.lastRunAt = lastRunAt;
+    }
+}
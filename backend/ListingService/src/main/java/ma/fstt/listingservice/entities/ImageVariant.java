@@ -0,0 +1,27 @@
+package ma.fstt.listingservice.entities;
+
+/**
+ * Tailles dérivées générées pour chaque image uploadée
+ * La largeur est une borne max : le ratio est conservé et on n'agrandit jamais l'original.
+ */
+public enum ImageVariant {
+    THUMB(320, 0.75f),   // Vignettes (listes, carte)
+    CARD(800, 0.80f),    // Cartes de résultats de recherche
+    FULL(1920, 0.85f);   // Page détail / galerie
+
+    private final int maxWidth;
+    private final float quality;
+
+    ImageVariant(int maxWidth, float quality) {
+        this.maxWidth = maxWidth;
+        this.quality = quality;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+}
@@ -0,0 +1,59 @@
+package ma.fstt.listingservice.entities;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Bail d'un traitement périodique qui ne doit tourner que sur une instance à la fois
+ * Une instance détient le bail tant que leaseUntil est dans le futur et le renouvelle pendant le traitement ;
+ * le bail d'une instance arrêtée expire et est repris par une autre.
+ */
+@Entity
+@Table(name = "job_leases")
+public class JobLease implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(length = 100)
+    private String owner;
+
+    private LocalDateTime leaseUntil;
+
+    public JobLease() {
+    }
+
+    public JobLease(String name) {
+        this.name = name;
+    }
+
+    // ========== GETTERS AND SETTERS ==========
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+}
@@ -95,6 +95,13 @@ public class PropertyEntity implements Serializable {
     @Column(nullable = false)
     private LocalDateTime lastUpdateAt;
 
+    // Version métier publiée avec les événements property.* (ordre des snapshots côté consommateurs)
+    // @Version : incrémentée par Hibernate (UPDATE ... WHERE revision = ?), une mise à jour concurrente
+    // échoue au lieu de publier la même version deux fois ; null tant que l'entité n'est pas persistée
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long revision;
+
     @ManyToMany
     @JoinTable(
             name = "property_characteristic",
@@ -339,6 +346,14 @@ public class PropertyEntity implements Serializable {
         this.lastUpdateAt = lastUpdateAt;
     }
 
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
     public List<Characteristic> getCharacteristics() {
         return characteristics;
     }
@@ -0,0 +1,25 @@
+package ma.fstt.listingservice.events;
+
+/**
+ * Nature d'un changement de property publié sur property.exchange
+ * Chaque type a sa routing key (les consommateurs peuvent se lier à "property.#")
+ */
+public enum PropertyChangeType {
+    CREATED("property.created"),
+    UPDATED("property.updated"),
+    PRICE_CHANGED("property.price.changed"),
+    STATUS_CHANGED("property.status.changed"),
+    DELETED("property.deleted"),
+    // Export complet (GET /properties/internal/snapshots) : jamais publié sur l'exchange
+    SNAPSHOT("property.snapshot");
+
+    private final String routingKey;
+
+    PropertyChangeType(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+}
@@ -0,0 +1,179 @@
+package ma.fstt.listingservice.events;
+
+import ma.fstt.listingservice.entities.PropertyEntity;
+import ma.fstt.listingservice.entities.PropertyStatus;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Événement de changement de property (change-data event)
+ *
+ * Porte un snapshot COMPLET des champs utiles aux autres services, pas un diff :
+ * un consommateur peut reconstruire son read model à partir du dernier événement seul.
+ * {@code version} = PropertyEntity.revision (@Version JPA), strictement croissant par property :
+ * les consommateurs ignorent tout événement dont la version n'est pas supérieure à la leur
+ * (messages dupliqués ou reçus dans le désordre).
+ *
+ * Publié après commit uniquement (RabbitMQProducer.onPropertyChanged).
+ */
+public class PropertyChangedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private PropertyChangeType changeType;
+    private String propertyId;
+    private String ownerId;
+    private Long version;
+
+    private String title;
+    private String type;
+    private String city;
+    private String country;
+    private BigDecimal pricePerNight;
+    private Integer nbOfGuests;
+    private String status;
+    private String previousStatus;
+
+    private Long timestamp;
+
+    public PropertyChangedEvent() {
+    }
+
+    /**
+     * Construire le snapshot depuis l'entité (après flush, pour avoir la revision à jour)
+     */
+    public static PropertyChangedEvent of(PropertyChangeType changeType, PropertyEntity property,
+                                          PropertyStatus previousStatus) {
+        PropertyChangedEvent event = new PropertyChangedEvent();
+        event.setChangeType(changeType);
+        event.setPropertyId(property.getPropertyId());
+        event.setOwnerId(property.getOwnerId());
+        event.setVersion(property.getRevision());
+        event.setTitle(property.getTitle());
+        event.setType(property.getType());
+        event.setCity(property.getCity());
+        event.setCountry(property.getCountry());
+        event.setPricePerNight(property.getPricePerNight());
+        event.setNbOfGuests(property.getNbOfGuests());
+        event.setStatus(property.getStatus().name());
+        event.setPreviousStatus(previousStatus != null ? previousStatus.name() : null);
+        event.setTimestamp(System.currentTimeMillis());
+        return event;
+    }
+
+    public PropertyChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(PropertyChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public BigDecimal getPricePerNight() {
+        return pricePerNight;
+    }
+
+    public void setPricePerNight(BigDecimal pricePerNight) {
+        this.pricePerNight = pricePerNight;
+    }
+
+    public Integer getNbOfGuests() {
+        return nbOfGuests;
+    }
+
+    public void setNbOfGuests(Integer nbOfGuests) {
+        this.nbOfGuests = nbOfGuests;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(String previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyChangedEvent{" +
+                "changeType=" + changeType +
+                ", propertyId='" + propertyId + '\'' +
+                ", version=" + version +
+                ", status='" + status + '\'' +
+                ", pricePerNight=" + pricePerNight +
+                '}';
+    }
+}
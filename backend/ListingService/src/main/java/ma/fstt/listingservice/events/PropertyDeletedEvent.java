@@ -0,0 +1,23 @@
+package ma.fstt.listingservice.events;
+
+/**
+ * Événement interne publié lors du soft delete d'une property
+ * Traité après commit pour libérer les images S3 de la property
+ */
+public class PropertyDeletedEvent {
+
+    private final String propertyId;
+
+    public PropertyDeletedEvent(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyDeletedEvent{propertyId='" + propertyId + "'}";
+    }
+}
@@ -0,0 +1,34 @@
+package ma.fstt.listingservice.events;
+
+import java.util.List;
+
+/**
+ * Événement interne publié une fois les images uploadées ET enregistrées sur la property
+ * Déclenche la génération asynchrone des dérivées (thumb/card/full)
+ */
+public class PropertyImagesUploadedEvent {
+
+    private final String propertyId;
+    private final List<String> imageUrls;
+
+    public PropertyImagesUploadedEvent(String propertyId, List<String> imageUrls) {
+        this.propertyId = propertyId;
+        this.imageUrls = List.copyOf(imageUrls);
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public List<String> getImageUrls() {
+        return imageUrls;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyImagesUploadedEvent{" +
+                "propertyId='" + propertyId + '\'' +
+                ", images=" + imageUrls.size() +
+                '}';
+    }
+}
@@ -54,4 +54,11 @@ public class BusinessException extends RuntimeException {
                     "ACTIVE_BOOKINGS");
         }
     }
-}
\ No newline at end of file
+
+    public static class ConcurrentModification extends BusinessException {
+        public ConcurrentModification(String propertyId) {
+            super(String.format("Property %s was modified concurrently, reload and retry", propertyId),
+                    "CONCURRENT_MODIFICATION");
+        }
+    }
+}
@@ -35,6 +35,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    /**
+     * Gestion des modifications concurrentes (version de la property périmée)
+     */
+    @ExceptionHandler(BusinessException.ConcurrentModification.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrentModification(BusinessException.ConcurrentModification ex) {
+        log.warn("⚠️ Concurrent modification: {}", ex.getMessage());
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now());
+        error.put("status", HttpStatus.CONFLICT.value());
+        error.put("error", "Conflict");
+        error.put("message", ex.getMessage());
+        error.put("errorCode", ex.getErrorCode());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     /**
      * Gestion des transitions invalides
      */
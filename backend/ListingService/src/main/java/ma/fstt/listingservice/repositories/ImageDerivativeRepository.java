@@ -0,0 +1,38 @@
+package ma.fstt.listingservice.repositories;
+
+import ma.fstt.listingservice.entities.ImageDerivative;
+import ma.fstt.listingservice.entities.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, Long> {
+
+    /**
+     * Dérivées de plusieurs images en une seule requête
+     */
+    List<ImageDerivative> findByOriginalUrlIn(Collection<String> originalUrls);
+
+    boolean existsByOriginalUrlAndVariant(String originalUrl, ImageVariant variant);
+
+    /**
+     * Dédoublonnage : une dérivée déjà générée pour le même contenu
+     */
+    Optional<ImageDerivative> findFirstByContentHashAndVariant(String contentHash, ImageVariant variant);
+
+    void deleteByOriginalUrl(String originalUrl);
+
+    void deleteByPropertyId(String propertyId);
+
+    /**
+     * Parmi les URLs données, celles encore utilisées par au moins une dérivée
+     */
+    @Query("SELECT DISTINCT d.url FROM ImageDerivative d WHERE d.url IN :urls")
+    List<String> findReferencedUrls(@Param("urls") Collection<String> urls);
+}
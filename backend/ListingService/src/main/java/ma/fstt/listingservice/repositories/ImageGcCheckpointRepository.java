@@ -0,0 +1,9 @@
+package ma.fstt.listingservice.repositories;
+
+import ma.fstt.listingservice.entities.ImageGcCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageGcCheckpointRepository extends JpaRepository<ImageGcCheckpoint, String> {
+}
@@ -0,0 +1,43 @@
+package ma.fstt.listingservice.repositories;
+
+import ma.fstt.listingservice.entities.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Créer la ligne du bail si elle n'existe pas (plusieurs instances au démarrage)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO job_leases (name, owner, lease_until) VALUES (:name, NULL, NULL) " +
+            "ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    /**
+     * Prendre ou renouveler le bail : atomique, réussit s'il est libre, expiré ou déjà à nous
+     *
+     * @return 1 si le bail est acquis, 0 sinon
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.leaseUntil = :until " +
+            "WHERE l.name = :name AND (l.owner = :owner OR l.owner IS NULL OR l.leaseUntil < :now)")
+    int claim(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.owner = NULL, l.leaseUntil = NULL WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,21 @@
+package ma.fstt.listingservice.repositories;
+
+import ma.fstt.listingservice.entities.PropertyStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection prix d'une property (batch pricingOnly) : pas d'entité chargée
+ */
+public interface PropertyPricingView {
+
+    String getPropertyId();
+
+    String getOwnerId();
+
+    BigDecimal getPricePerNight();
+
+    PropertyStatus getStatus();
+
+    Long getRevision();
+}
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -108,5 +109,50 @@ public interface PropertyRepository extends JpaRepository<PropertyEntity, Long>
             Pageable pageable
     );
 
+    // ========== BATCH (POST /properties/batch) ==========
 
-}
\ No newline at end of file
+    /**
+     * Export par curseur (amorçage des read models des autres services), tous statuts confondus
+     */
+    List<PropertyEntity> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Plusieurs properties en une seule requête
+     */
+    List<PropertyEntity> findByPropertyIdIn(Collection<String> propertyIds);
+
+    /**
+     * Prix uniquement (projection, une seule requête)
+     */
+    List<PropertyPricingView> findPricingByPropertyIdIn(Collection<String> propertyIds);
+
+    /**
+     * Images de plusieurs properties : [property.id, image_path]
+     */
+    @Query("SELECT p.id, i FROM PropertyEntity p JOIN p.imageFolderPath i WHERE p.id IN :ids")
+    List<Object[]> findImagePathsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Noms des characteristics de plusieurs properties : [property.id, characteristic.name]
+     */
+    @Query("SELECT p.id, c.name FROM PropertyEntity p JOIN p.characteristics c WHERE p.id IN :ids")
+    List<Object[]> findCharacteristicNamesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * ✅ NOUVEAU: Characteristics (avec leur type) de plusieurs properties : [property.id, characteristic]
+     */
+    @Query("SELECT p.id, c FROM PropertyEntity p JOIN p.characteristics c JOIN FETCH c.typeCaracteristique " +
+            "WHERE p.id IN :ids")
+    List<Object[]> findCharacteristicsByIds(@Param("ids") Collection<Long> ids);
+
+    // ========== GARBAGE COLLECTOR IMAGES ==========
+
+    /**
+     * Parmi les chemins donnés, ceux encore référencés par une property non supprimée
+     */
+    @Query(value = "SELECT pi.image_path FROM property_images pi " +
+            "JOIN properties p ON p.id = pi.property_id " +
+            "WHERE p.status <> 'DELETED' AND pi.image_path IN (:paths)",
+            nativeQuery = true)
+    List<String> findReferencedImagePaths(@Param("paths") Collection<String> paths);
+}
@@ -0,0 +1,41 @@
+package ma.fstt.listingservice.requests;
+
+import java.util.List;
+
+/**
+ * Requête POST /properties/batch
+ * pricingOnly = true : uniquement les champs de prix (une seule requête SQL, pas d'images ni de characteristics)
+ */
+public class PropertyBatchRequest {
+
+    private List<String> propertyIds;
+
+    private Boolean pricingOnly = false;
+
+    public PropertyBatchRequest() {}
+
+    public PropertyBatchRequest(List<String> propertyIds, Boolean pricingOnly) {
+        this.propertyIds = propertyIds;
+        this.pricingOnly = pricingOnly;
+    }
+
+    public List<String> getPropertyIds() {
+        return propertyIds;
+    }
+
+    public void setPropertyIds(List<String> propertyIds) {
+        this.propertyIds = propertyIds;
+    }
+
+    public Boolean getPricingOnly() {
+        return pricingOnly;
+    }
+
+    public void setPricingOnly(Boolean pricingOnly) {
+        this.pricingOnly = pricingOnly;
+    }
+
+    public boolean isPricingOnly() {
+        return Boolean.TRUE.equals(pricingOnly);
+    }
+}
@@ -1,6 +1,7 @@
 package ma.fstt.listingservice.responses;
 
 import ma.fstt.listingservice.dto.CharacteristicDto;
+import ma.fstt.listingservice.dto.ImageVariantsDto;
 import ma.fstt.listingservice.entities.PropertyStatus;
 
 import java.math.BigDecimal;
@@ -37,6 +38,9 @@ public class PropertyResponse {
     // Images
     private List<String> imageFolderPath = new ArrayList<>();
 
+    // Dérivées (thumb/card/full) de chaque image, null tant que non générées
+    private List<ImageVariantsDto> imageVariants = new ArrayList<>();
+
     // ✅ NOUVEAU: Status ENUM
     private PropertyStatus status;
 
@@ -193,6 +197,14 @@ public class PropertyResponse {
         this.imageFolderPath = imageFolderPath;
     }
 
+    public List<ImageVariantsDto> getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(List<ImageVariantsDto> imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
     // ✅ NOUVEAU: Getter/Setter status
     public PropertyStatus getStatus() {
         return status;
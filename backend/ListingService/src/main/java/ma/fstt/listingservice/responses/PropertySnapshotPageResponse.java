@@ -0,0 +1,39 @@
+package ma.fstt.listingservice.responses;
+
+import ma.fstt.listingservice.events.PropertyChangedEvent;
+
+import java.util.List;
+
+/**
+ * Page de l'export GET /properties/internal/snapshots
+ * Même format que les événements property.* : le consommateur les applique comme tels.
+ * nextCursor = null sur la dernière page.
+ */
+public class PropertySnapshotPageResponse {
+
+    private List<PropertyChangedEvent> snapshots;
+    private Long nextCursor;
+
+    public PropertySnapshotPageResponse() {}
+
+    public PropertySnapshotPageResponse(List<PropertyChangedEvent> snapshots, Long nextCursor) {
+        this.snapshots = snapshots;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PropertyChangedEvent> getSnapshots() {
+        return snapshots;
+    }
+
+    public void setSnapshots(List<PropertyChangedEvent> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
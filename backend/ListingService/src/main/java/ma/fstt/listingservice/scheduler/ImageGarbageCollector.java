@@ -0,0 +1,220 @@
+package ma.fstt.listingservice.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.listingservice.entities.ImageGcCheckpoint;
+import ma.fstt.listingservice.events.PropertyDeletedEvent;
+import ma.fstt.listingservice.repositories.ImageDerivativeRepository;
+import ma.fstt.listingservice.repositories.ImageGcCheckpointRepository;
+import ma.fstt.listingservice.repositories.JobLeaseRepository;
+import ma.fstt.listingservice.repositories.PropertyRepository;
+import ma.fstt.listingservice.services.impl.ImageStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Garbage collector des images S3
+ *
+ * 1. Property supprimée (soft delete) → ses images sont supprimées après commit, par lots.
+ * 2. Réconciliation périodique : parcourt le bucket page par page (1000 clés), compare avec
+ *    property_images (properties non DELETED) et image_derivatives, et supprime les orphelins.
+ *
+ * Throttling : nombre de pages max par passe et pause entre deux pages.
+ * Reprise : la dernière clé traitée est persistée après chaque page (image_gc_checkpoints).
+ * Plusieurs instances : une seule passe à la fois, sous bail (job_leases) renouvelé à chaque page ;
+ * les autres instances sautent leur tour, une instance arrêtée laisse son bail expirer.
+ * Les objets plus récents que le délai de grâce sont ignorés (upload en cours, pas encore en base).
+ * La passe tourne sur imageGcExecutor : ses pauses ne bloquent pas le thread @Scheduled partagé.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageGarbageCollector {
+
+    private static final String CHECKPOINT_NAME = "s3-orphan-images";
+    private static final String LEASE_NAME = "s3-orphan-images";
+    private static final String FALLBACK_OWNER = "listing-" + UUID.randomUUID();
+
+    private final ImageStorageService imageStorageService;
+    private final PropertyRepository propertyRepository;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    private final ImageGcCheckpointRepository checkpointRepository;
+    private final JobLeaseRepository leaseRepository;
+
+    // Pool I/O S3 (partagé avec les uploads)
+    private final Executor imageUploadExecutor;
+
+    // Thread dédié aux passes de réconciliation (une seule à la fois)
+    private final Executor imageGcExecutor;
+
+    @Value("${images.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${images.gc.dry-run:false}")
+    private boolean dryRun;
+
+    @Value("${images.gc.max-pages-per-run:10}")
+    private int maxPagesPerRun;
+
+    @Value("${images.gc.pause-between-pages-ms:500}")
+    private long pauseBetweenPagesMs;
+
+    @Value("${images.gc.grace-period-minutes:60}")
+    private long gracePeriodMinutes;
+
+    // Doit couvrir une page (listing + suppressions + pause) : le bail est renouvelé entre deux pages
+    @Value("${images.gc.lease-seconds:600}")
+    private long leaseSeconds;
+
+    @Value("${images.gc.worker-id:${HOSTNAME:}}")
+    private String workerId;
+
+    /**
+     * Soft delete d'une property : suppression groupée de son dossier S3, hors transaction
+     */
+    @TransactionalEventListener
+    public void onPropertyDeleted(PropertyDeletedEvent event) {
+        imageUploadExecutor.execute(() -> imageStorageService.deleteAllPropertyImages(event.getPropertyId()));
+    }
+
+    /**
+     * Réconciliation périodique bucket ↔ base (par défaut toutes les heures)
+     */
+    @Scheduled(fixedDelayString = "${images.gc.interval-ms:3600000}",
+            initialDelayString = "${images.gc.initial-delay-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            imageGcExecutor.execute(this::runPass);
+        } catch (TaskRejectedException e) {
+            log.debug("🧹 Image GC skipped: previous pass still running");
+        }
+    }
+
+    private void runPass() {
+        leaseRepository.insertIfAbsent(LEASE_NAME);
+        if (!renewLease()) {
+            log.debug("🧹 Image GC skipped: lease held by another instance");
+            return;
+        }
+        try {
+            sweep();
+        } finally {
+            leaseRepository.release(LEASE_NAME, owner());
+        }
+    }
+
+    /**
+     * Une passe limitée à maxPagesPerRun pages, sous bail
+     */
+    private void sweep() {
+        ImageGcCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> new ImageGcCheckpoint(CHECKPOINT_NAME));
+
+        log.info("🧹 Image GC started (resume after key={}, dryRun={})", checkpoint.getLastKey(), dryRun);
+
+        int scanned = 0;
+        int deleted = 0;
+
+        try {
+            for (int page = 0; page < maxPagesPerRun; page++) {
+                ListObjectsV2Response listRes = imageStorageService.listObjects(
+                        null, checkpoint.getLastKey(), null, ImageStorageService.MAX_KEYS_PER_REQUEST);
+                List<S3Object> objects = listRes.contents();
+
+                List<String> orphans = findOrphans(objects);
+                int pageDeleted = dryRun ? 0 : imageStorageService.deleteKeys(orphans);
+                if (dryRun && !orphans.isEmpty()) {
+                    log.info("🧹 [DRY RUN] {} orphan images would be deleted, e.g. {}", orphans.size(), orphans.get(0));
+                }
+
+                scanned += objects.size();
+                deleted += pageDeleted;
+
+                // Checkpoint après chaque page : un crash ne fait perdre qu'une page de travail
+                boolean endOfBucket = objects.isEmpty() || !Boolean.TRUE.equals(listRes.isTruncated());
+                checkpoint.setLastKey(endOfBucket ? null : objects.get(objects.size() - 1).key());
+                checkpoint.setScannedTotal(checkpoint.getScannedTotal() + objects.size());
+                checkpoint.setDeletedTotal(checkpoint.getDeletedTotal() + pageDeleted);
+                checkpoint.setLastRunAt(LocalDateTime.now());
+                if (endOfBucket) {
+                    checkpoint.setCompletedSweeps(checkpoint.getCompletedSweeps() + 1);
+                }
+                checkpoint = checkpointRepository.save(checkpoint);
+
+                if (endOfBucket) {
+                    break;
+                }
+                if (!renewLease()) {
+                    log.warn("⚠️ Image GC lease lost, stopping after key={}", checkpoint.getLastKey());
+                    break;
+                }
+                Thread.sleep(pauseBetweenPagesMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("❌ Image GC failed, will resume from key={}", checkpoint.getLastKey(), e);
+        }
+
+        log.info("🧹 Image GC done: scanned={}, deleted={}, next key={}", scanned, deleted, checkpoint.getLastKey());
+    }
+
+    private boolean renewLease() {
+        LocalDateTime now = LocalDateTime.now();
+        return leaseRepository.claim(LEASE_NAME, owner(), now, now.plusSeconds(leaseSeconds)) == 1;
+    }
+
+    private String owner() {
+        return StringUtils.hasText(workerId) ? workerId : FALLBACK_OWNER;
+    }
+
+    /**
+     * Objets d'une page qui ne sont plus référencés nulle part
+     * Deux requêtes IN par page, quel que soit le nombre d'objets
+     */
+    List<String> findOrphans(List<S3Object> objects) {
+        Instant graceLimit = Instant.now().minus(gracePeriodMinutes, ChronoUnit.MINUTES);
+
+        List<S3Object> candidates = objects.stream()
+                .filter(o -> o.lastModified() == null || o.lastModified().isBefore(graceLimit))
+                .toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        // property_images contient des URLs complètes (anciennes données : parfois des clés)
+        List<String> lookup = new ArrayList<>(candidates.size() * 2);
+        for (S3Object object : candidates) {
+            lookup.add(object.key());
+            lookup.add(imageStorageService.buildPublicUrl(object.key()));
+        }
+
+        Set<String> referenced = new HashSet<>(propertyRepository.findReferencedImagePaths(lookup));
+        referenced.addAll(imageDerivativeRepository.findReferencedUrls(lookup));
+
+        return candidates.stream()
+                .map(S3Object::key)
+                .filter(key -> !referenced.contains(key) && !referenced.contains(imageStorageService.buildPublicUrl(key)))
+                .toList();
+    }
+}
@@ -1,7 +1,9 @@
 package ma.fstt.listingservice.services;
 
 import ma.fstt.listingservice.dto.PropertyDto;
+import ma.fstt.listingservice.dto.PropertySummaryDto;
 import ma.fstt.listingservice.entities.PropertyStatus;
+import ma.fstt.listingservice.responses.PropertySnapshotPageResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,6 +21,10 @@ public interface PropertyService {
 
     List<PropertyDto> getPropertiesByUserId(String userId);
 
+    List<PropertySummaryDto> getPropertiesBatch(List<String> propertyIds, boolean pricingOnly, boolean publicOnly);
+
+    PropertySnapshotPageResponse exportSnapshots(long afterId, int size);
+
     Page<PropertyDto> getAllValidatedProperties(Pageable pageable);
 
     // ✅ NOUVEAU: Récupérer properties par status
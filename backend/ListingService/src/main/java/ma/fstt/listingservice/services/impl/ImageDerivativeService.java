@@ -0,0 +1,202 @@
+package ma.fstt.listingservice.services.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.listingservice.dto.ImageVariantsDto;
+import ma.fstt.listingservice.entities.ImageDerivative;
+import ma.fstt.listingservice.entities.ImageVariant;
+import ma.fstt.listingservice.events.PropertyImagesUploadedEvent;
+import ma.fstt.listingservice.repositories.ImageDerivativeRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Génération asynchrone des dérivées d'images (thumb / card / full)
+ *
+ * Alimenté par {@link PropertyImagesUploadedEvent} : la requête d'upload ne fait que publier
+ * l'événement, le travail se fait sur le pool borné "imageDerivativeExecutor".
+ * Les dérivées sont stockées par contenu (derivatives/{sha256}/{variant}.jpg) : un même
+ * fichier uploadé plusieurs fois n'est redimensionné et stocké qu'une seule fois.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageDerivativeService {
+
+    private static final String DERIVATIVE_PREFIX = "derivatives/";
+    private static final String CONTENT_TYPE = "image/jpeg";
+
+    private final ImageStorageService imageStorageService;
+
+    private final ImageDerivativeRepository imageDerivativeRepository;
+
+    private final Executor imageDerivativeExecutor;
+
+    @EventListener
+    public void onImagesUploaded(PropertyImagesUploadedEvent event) {
+        log.info("🖼️ Scheduling derivatives for {}", event);
+        for (String imageUrl : event.getImageUrls()) {
+            try {
+                imageDerivativeExecutor.execute(() -> generateDerivatives(event.getPropertyId(), imageUrl));
+            } catch (TaskRejectedException e) {
+                // Pas bloquant : l'image reste servie en original
+                log.warn("⚠️ Derivative queue full, skipping {}", imageUrl);
+            }
+        }
+    }
+
+    /**
+     * Générer (ou réutiliser) les dérivées d'une image originale
+     */
+    public void generateDerivatives(String propertyId, String imageUrl) {
+        try {
+            byte[] original = imageStorageService.readObject(imageStorageService.extractKeyFromUrl(imageUrl));
+            String contentHash = sha256(original);
+            BufferedImage source = null;
+
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (imageDerivativeRepository.existsByOriginalUrlAndVariant(imageUrl, variant)) {
+                    continue;
+                }
+
+                ImageDerivative derivative = new ImageDerivative();
+                derivative.setPropertyId(propertyId);
+                derivative.setOriginalUrl(imageUrl);
+                derivative.setContentHash(contentHash);
+                derivative.setVariant(variant);
+
+                // Dédoublonnage : même contenu déjà traité → on pointe vers les mêmes objets S3
+                ImageDerivative existing = imageDerivativeRepository
+                        .findFirstByContentHashAndVariant(contentHash, variant)
+                        .orElse(null);
+
+                if (existing != null) {
+                    derivative.setUrl(existing.getUrl());
+                    derivative.setWidth(existing.getWidth());
+                    derivative.setHeight(existing.getHeight());
+                } else {
+                    if (source == null) {
+                        source = ImageIO.read(new ByteArrayInputStream(original));
+                        if (source == null) {
+                            log.warn("⚠️ Unsupported image format, no derivatives for {}", imageUrl);
+                            return;
+                        }
+                    }
+                    BufferedImage resized = resize(source, variant.getMaxWidth());
+                    String key = DERIVATIVE_PREFIX + contentHash + "/" + variant.name().toLowerCase() + ".jpg";
+                    imageStorageService.putImmutableObject(key, CONTENT_TYPE, encodeJpeg(resized, variant.getQuality()));
+
+                    derivative.setUrl(imageStorageService.buildPublicUrl(key));
+                    derivative.setWidth(resized.getWidth());
+                    derivative.setHeight(resized.getHeight());
+                }
+
+                try {
+                    imageDerivativeRepository.save(derivative);
+                } catch (DataIntegrityViolationException e) {
+                    // Un autre worker a traité la même image entre-temps
+                    log.debug("Derivative {} already recorded for {}", variant, imageUrl);
+                }
+            }
+
+            log.info("✅ Derivatives ready for {} (hash={})", imageUrl, contentHash.substring(0, 12));
+
+        } catch (Exception e) {
+            log.error("❌ Failed to generate derivatives for {}", imageUrl, e);
+        }
+    }
+
+    /**
+     * Charger les dérivées d'une liste d'images (une seule requête)
+     * L'ordre de la liste d'entrée est conservé.
+     */
+    public List<ImageVariantsDto> getVariants(Collection<String> imageUrls) {
+        Map<String, ImageVariantsDto> variants = new LinkedHashMap<>();
+        for (String imageUrl : imageUrls) {
+            variants.put(imageUrl, new ImageVariantsDto(imageUrl));
+        }
+        if (variants.isEmpty()) {
+            return List.of();
+        }
+
+        for (ImageDerivative derivative : imageDerivativeRepository.findByOriginalUrlIn(variants.keySet())) {
+            ImageVariantsDto dto = variants.get(derivative.getOriginalUrl());
+            switch (derivative.getVariant()) {
+                case THUMB -> dto.setThumb(derivative.getUrl());
+                case CARD -> dto.setCard(derivative.getUrl());
+                case FULL -> dto.setFull(derivative.getUrl());
+            }
+        }
+        return List.copyOf(variants.values());
+    }
+
+    // --- Utilitaires ---
+
+    static BufferedImage resize(BufferedImage source, int maxWidth) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round(source.getHeight() * (width / (double) source.getWidth())));
+
+        // JPEG n'a pas de canal alpha : on dessine toujours dans une image RGB
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode derivative", e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
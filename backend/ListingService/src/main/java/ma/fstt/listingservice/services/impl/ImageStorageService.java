@@ -7,16 +7,35 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
 import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +44,11 @@ public class ImageStorageService {
 
     private final S3Client s3Client;
 
+    private final Executor imageUploadExecutor;
+
+    // Limite S3 : 1000 cles par ListObjectsV2 / DeleteObjects
+    public static final int MAX_KEYS_PER_REQUEST = 1000;
+
     // ✅ CRITICAL FIX: Changed from "aws.s3.bucket" to "aws.s3.bucket-name"
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
@@ -32,12 +56,25 @@ public class ImageStorageService {
     @Value("${aws.s3.region}")
     private String region;
 
+    // Au-dela de ce seuil, l'upload passe en multipart (S3 impose au moins 5 MB par partie)
+    @Value("${aws.s3.upload.multipart-threshold-bytes:16777216}")
+    private long multipartThreshold;
+
+    @Value("${aws.s3.upload.part-size-bytes:8388608}")
+    private int partSize;
+
     /**
      * Upload des images sur S3
      * Retourne l'URL complete (ex: https://mon-bucket.s3.amazonaws.com/prop-123/image.jpg)
+     *
+     * Les images sont uploadees en parallele sur l'executor borne "imageUploadExecutor",
+     * en streaming depuis la requete (multipart S3 au-dela du seuil). L'ordre des URLs
+     * retournees suit l'ordre des fichiers recus. Si un upload echoue, les objets deja
+     * envoyes sont supprimes et aucune URL n'est retournee.
      */
     public List<String> storeImages(String propertyId, List<MultipartFile> images) {
-        List<String> imageUrls = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
 
         for (MultipartFile image : images) {
             if (image.isEmpty()) continue;
@@ -45,9 +82,45 @@ public class ImageStorageService {
             // 1. Generer un nom unique : propertyId/uuid.jpg
             String filename = UUID.randomUUID().toString() + getExtension(image.getOriginalFilename());
             String key = propertyId + "/" + filename;
+            keys.add(key);
+
+            // 2. Upload vers S3 (en parallele)
+            uploads.add(CompletableFuture.supplyAsync(() -> uploadObject(key, image), imageUploadExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            log.error("❌ Failed to upload images to S3 for property {}", propertyId, e.getCause());
+            // Compensation : allOf attend la fin de tous les uploads, on ne laisse pas d'orphelins sur S3
+            deleteKeys(keys);
+            throw new RuntimeException("Failed to upload image to S3", e.getCause());
+        }
+
+        // 3. Construire les URLs publiques
+        List<String> imageUrls = new ArrayList<>(keys.size());
+        for (CompletableFuture<String> upload : uploads) {
+            String fileUrl = buildPublicUrl(upload.join());
+            imageUrls.add(fileUrl);
+            log.info("✅ Image uploaded to S3: {}", fileUrl);
+        }
+        return imageUrls;
+    }
+
+    /**
+     * Construire l'URL publique d'une cle S3
+     * Format: https://{bucket}.s3.{region}.amazonaws.com/{key}
+     */
+    public String buildPublicUrl(String key) {
+        return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, key);
+    }
 
-            try {
-                // 2. Upload vers S3
+    /**
+     * Upload d'un fichier : PutObject simple sous le seuil, upload multipart au-dela
+     */
+    private String uploadObject(String key, MultipartFile image) {
+        try (InputStream in = image.getInputStream()) {
+            if (image.getSize() <= multipartThreshold) {
                 PutObjectRequest putOb = PutObjectRequest.builder()
                         .bucket(bucketName)
                         .key(key)
@@ -55,21 +128,89 @@ public class ImageStorageService {
                         // .acl(ObjectCannedACL.PUBLIC_READ) // Decommenter si le bucket n'est pas public par defaut
                         .build();
 
-                s3Client.putObject(putOb, RequestBody.fromInputStream(image.getInputStream(), image.getSize()));
+                s3Client.putObject(putOb, RequestBody.fromInputStream(in, image.getSize()));
+            } else {
+                multipartUpload(key, image.getContentType(), in);
+            }
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image " + image.getOriginalFilename(), e);
+        }
+    }
+
+    /**
+     * Upload multipart : le flux est lu partie par partie dans un buffer unique de partSize
+     * octets, la memoire par upload reste donc bornee quelle que soit la taille du fichier
+     */
+    private void multipartUpload(String key, String contentType, InputStream in) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
 
-                // 3. Construire l'URL publique
-                // Format: https://{bucket}.s3.{region}.amazonaws.com/{key}
-                String fileUrl = String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, key);
-                imageUrls.add(fileUrl);
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] buffer = new byte[partSize];
+            int partNumber = 1;
+            int read;
 
-                log.info("✅ Image uploaded to S3: {}", fileUrl);
+            while ((read = in.readNBytes(buffer, 0, partSize)) > 0) {
+                final int length = read;
+                UploadPartResponse partResponse = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        RequestBody.fromContentProvider(
+                                () -> new ByteArrayInputStream(buffer, 0, length), length, contentType));
 
-            } catch (IOException e) {
-                log.error("❌ Failed to upload image to S3", e);
-                throw new RuntimeException("Failed to upload image to S3", e);
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(partResponse.eTag()).build());
+                partNumber++;
             }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+
+            log.debug("📦 Multipart upload completed: key={}, parts={}", key, parts.size());
+
+        } catch (IOException | RuntimeException e) {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
         }
-        return imageUrls;
+    }
+
+    /**
+     * Lire un objet S3 complet (utilise par le pipeline de derivees, images de quelques MB)
+     */
+    public byte[] readObject(String key) {
+        return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build()).asByteArray();
+    }
+
+    /**
+     * Ecrire un objet immuable (cle adressee par contenu : cache navigateur/CDN illimite)
+     */
+    public void putImmutableObject(String key, String contentType, byte[] content) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .cacheControl("public, max-age=31536000, immutable")
+                        .build(),
+                RequestBody.fromBytes(content));
     }
 
     /**
@@ -91,29 +232,64 @@ public class ImageStorageService {
 
     /**
      * Supprime toutes les images d'une propriete (Dossier S3)
+     * Listing pagine (1000 cles par page) + suppression groupee DeleteObjects
      */
-    public void deleteAllPropertyImages(String propertyId) {
+    public int deleteAllPropertyImages(String propertyId) {
         // S3 n'a pas de vrais "dossiers", on liste tous les objets qui commencent par "propertyId/"
+        int deleted = 0;
         try {
-            ListObjectsV2Request listReq = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .prefix(propertyId + "/")
-                    .build();
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response listRes = listObjects(propertyId + "/", null, continuationToken, MAX_KEYS_PER_REQUEST);
+                deleted += deleteKeys(listRes.contents().stream().map(S3Object::key).toList());
+                continuationToken = Boolean.TRUE.equals(listRes.isTruncated()) ? listRes.nextContinuationToken() : null;
+            } while (continuationToken != null);
 
-            ListObjectsV2Response listRes = s3Client.listObjectsV2(listReq);
-
-            for (S3Object s3Object : listRes.contents()) {
-                DeleteObjectRequest deleteReq = DeleteObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(s3Object.key())
-                        .build();
-                s3Client.deleteObject(deleteReq);
-            }
-            log.info("🗑️ Deleted all images for property: {}", propertyId);
+            log.info("🗑️ Deleted {} images for property: {}", deleted, propertyId);
 
         } catch (Exception e) {
             log.error("❌ Error cleaning property folder on S3: {}", propertyId, e);
         }
+        return deleted;
+    }
+
+    /**
+     * Une page de listing S3 (prefix et startAfter optionnels)
+     */
+    public ListObjectsV2Response listObjects(String prefix, String startAfter, String continuationToken, int maxKeys) {
+        return s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .startAfter(continuationToken == null ? startAfter : null)
+                .continuationToken(continuationToken)
+                .maxKeys(maxKeys)
+                .build());
+    }
+
+    /**
+     * Suppression groupee : un appel DeleteObjects par tranche de 1000 cles (limite S3)
+     * Retourne le nombre d'objets effectivement supprimes
+     */
+    public int deleteKeys(List<String> keys) {
+        int deleted = 0;
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_REQUEST) {
+            List<ObjectIdentifier> batch = keys.subList(from, Math.min(from + MAX_KEYS_PER_REQUEST, keys.size()))
+                    .stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(batch).quiet(true).build())
+                    .build());
+
+            // En mode quiet, S3 ne renvoie que les erreurs
+            for (S3Error error : response.errors()) {
+                log.warn("⚠️ Could not delete {} from S3: {} {}", error.key(), error.code(), error.message());
+            }
+            deleted += batch.size() - response.errors().size();
+        }
+        return deleted;
     }
 
     // --- Utilitaires ---
@@ -124,7 +300,7 @@ public class ImageStorageService {
                 .toLowerCase() : ".jpg";
     }
 
-    private String extractKeyFromUrl(String url) {
+    public String extractKeyFromUrl(String url) {
         // Si l'URL est complete, on extrait juste la cle (partie apres le domaine)
         // Ex: https://bucket...com/prop-1/img.jpg -> prop-1/img.jpg
         if (url.contains(".amazonaws.com/")) {
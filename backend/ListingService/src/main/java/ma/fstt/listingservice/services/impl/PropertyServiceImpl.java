@@ -1,23 +1,39 @@
 package ma.fstt.listingservice.services.impl;
 
 import ma.fstt.listingservice.dto.CharacteristicDto;
+import ma.fstt.listingservice.dto.ImageVariantsDto;
 import ma.fstt.listingservice.dto.PropertyDto;
+import ma.fstt.listingservice.dto.PropertySummaryDto;
 import ma.fstt.listingservice.entities.Characteristic;
 import ma.fstt.listingservice.entities.Owner;
 import ma.fstt.listingservice.entities.PropertyEntity;
 import ma.fstt.listingservice.entities.PropertyStatus;
+import ma.fstt.listingservice.events.PropertyChangeType;
+import ma.fstt.listingservice.events.PropertyChangedEvent;
+import ma.fstt.listingservice.events.PropertyDeletedEvent;
+import ma.fstt.listingservice.events.PropertyImagesUploadedEvent;
+import ma.fstt.listingservice.exceptions.BusinessException;
 import ma.fstt.listingservice.producer.RabbitMQProducer;
 import ma.fstt.listingservice.repositories.CharacteristicRepository;
+import ma.fstt.listingservice.repositories.ImageDerivativeRepository;
 import ma.fstt.listingservice.repositories.OwnerRepository;
+import ma.fstt.listingservice.repositories.PropertyPricingView;
 import ma.fstt.listingservice.repositories.PropertyRepository;
+import ma.fstt.listingservice.responses.PropertySnapshotPageResponse;
 import ma.fstt.listingservice.services.PropertyService;
 import ma.fstt.listingservice.shared.PropertyIdGenerator;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +43,12 @@ import java.util.ArrayList;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -53,6 +74,24 @@ public class PropertyServiceImpl implements PropertyService {
     @Autowired
     private RabbitMQProducer rabbitMQProducer;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Autowired
+    private ImageDerivativeRepository imageDerivativeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${properties.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${properties.snapshots.max-page-size:1000}")
+    private int snapshotsMaxPageSize;
+
     // ========== CREATE ==========
 
     @Override
@@ -93,7 +132,7 @@ public class PropertyServiceImpl implements PropertyService {
                                 "Characteristic not found with ID: " + charDto.getId()));
                 savedProperty.addCharacteristic(characteristic);
             }
-            savedProperty = propertyRepository.save(savedProperty);
+            savedProperty = saveVersioned(savedProperty);
         }
 
         // Vérifier si c'est la PREMIÈRE property → Upgrade vers HOST
@@ -103,6 +142,8 @@ public class PropertyServiceImpl implements PropertyService {
             rabbitMQProducer.publishUserTypeUpgraded(userId, "HOST");
         }
 
+        publishChange(PropertyChangeType.CREATED, savedProperty, null);
+
         return convertToDto(savedProperty);
     }
 
@@ -122,9 +163,94 @@ public class PropertyServiceImpl implements PropertyService {
         // Récupérer toutes les properties SAUF DELETED
         List<PropertyEntity> properties = propertyRepository.findByOwnerIdAndStatusNot(
                 userId, PropertyStatus.DELETED);
-        return properties.stream()
-                .map(this::convertToDto)
+        return convertToDtos(properties);
+    }
+
+    /**
+     * ✅ NOUVEAU: Plusieurs properties en un appel (POST /properties/batch)
+     *
+     * Nombre de requêtes constant quel que soit le nombre d'ids :
+     * - pricingOnly : 1 requête (projection)
+     * - complet : properties + images + characteristics + dérivées = 4 requêtes
+     * Ordre de la requête conservé, ids inconnus ignorés, doublons dédoublonnés.
+     *
+     * @param publicOnly appelant non interne : seules les properties visibles publiquement (ACTIVE)
+     *                   sont renvoyées, les autres sont traitées comme inconnues
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<PropertySummaryDto> getPropertiesBatch(List<String> propertyIds, boolean pricingOnly, boolean publicOnly) {
+        if (propertyIds == null || propertyIds.isEmpty()) {
+            throw new IllegalArgumentException("propertyIds is required");
+        }
+
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(propertyIds));
+        if (ids.size() > batchMaxSize) {
+            throw new IllegalArgumentException(
+                    "Too many propertyIds: " + ids.size() + " (max " + batchMaxSize + ")");
+        }
+
+        if (pricingOnly) {
+            Map<String, PropertyPricingView> pricing = propertyRepository.findPricingByPropertyIdIn(ids).stream()
+                    .filter(p -> !publicOnly || p.getStatus().isPubliclyVisible())
+                    .collect(Collectors.toMap(PropertyPricingView::getPropertyId, Function.identity()));
+            return ids.stream()
+                    .map(pricing::get)
+                    .filter(Objects::nonNull)
+                    .map(this::convertPricingToSummary)
+                    .collect(Collectors.toList());
+        }
+
+        Map<String, PropertyEntity> properties = propertyRepository.findByPropertyIdIn(ids).stream()
+                .filter(p -> !publicOnly || p.getStatus().isPubliclyVisible())
+                .collect(Collectors.toMap(PropertyEntity::getPropertyId, Function.identity()));
+        if (properties.isEmpty()) {
+            return List.of();
+        }
+
+        // Collections chargées en bloc (pas de lazy loading property par property)
+        List<Long> pks = properties.values().stream().map(PropertyEntity::getId).collect(Collectors.toList());
+        Map<Long, List<String>> imagesById = groupById(propertyRepository.findImagePathsByIds(pks));
+        Map<Long, List<String>> characteristicsById = groupById(propertyRepository.findCharacteristicNamesByIds(pks));
+
+        List<String> allImages = imagesById.values().stream().flatMap(List::stream).collect(Collectors.toList());
+        Map<String, ImageVariantsDto> variants = imageDerivativeService.getVariants(allImages).stream()
+                .collect(Collectors.toMap(ImageVariantsDto::getOriginal, Function.identity(), (a, b) -> a));
+
+        List<PropertySummaryDto> result = new ArrayList<>(properties.size());
+        for (String id : ids) {
+            PropertyEntity entity = properties.get(id);
+            if (entity == null) {
+                continue;
+            }
+            PropertySummaryDto dto = convertToSummary(entity);
+            dto.setCharacteristics(characteristicsById.getOrDefault(entity.getId(), List.of()));
+            dto.setImages(imagesById.getOrDefault(entity.getId(), List.of()).stream()
+                    .map(variants::get)
+                    .collect(Collectors.toList()));
+            result.add(dto);
+        }
+
+        log.info("📦 Batch fetch: {} requested, {} found", ids.size(), result.size());
+        return result;
+    }
+
+    /**
+     * ✅ NOUVEAU: Export de toutes les properties (tous statuts) au format des événements property.*
+     * Amorçage des read models des autres services ; pagination par curseur sur l'id
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PropertySnapshotPageResponse exportSnapshots(long afterId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), snapshotsMaxPageSize);
+        List<PropertyEntity> properties = propertyRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, pageSize));
+
+        List<PropertyChangedEvent> snapshots = properties.stream()
+                .map(p -> PropertyChangedEvent.of(PropertyChangeType.SNAPSHOT, p, null))
                 .collect(Collectors.toList());
+        Long nextCursor = properties.size() == pageSize ? properties.get(properties.size() - 1).getId() : null;
+        return new PropertySnapshotPageResponse(snapshots, nextCursor);
     }
 
     @Override
@@ -132,14 +258,14 @@ public class PropertyServiceImpl implements PropertyService {
         // Uniquement properties ACTIVE (visibles publiquement)
         Page<PropertyEntity> properties = propertyRepository.findByStatus(
                 PropertyStatus.ACTIVE, pageable);
-        return properties.map(this::convertToDto);
+        return convertToDtoPage(properties);
     }
 
     @Override
     public Page<PropertyDto> getAllByStatus(PropertyStatus status, Pageable pageable) {
         // Récupérer properties par status spécifique
         Page<PropertyEntity> properties = propertyRepository.findByStatus(status, pageable);
-        return properties.map(this::convertToDto);
+        return convertToDtoPage(properties);
     }
 
     // ========== SEARCH ==========
@@ -150,7 +276,7 @@ public class PropertyServiceImpl implements PropertyService {
         // Recherche uniquement dans properties ACTIVE
         Page<PropertyEntity> properties = propertyRepository.searchProperties(
                 city, type, minPrice, maxPrice, nbOfGuests, PropertyStatus.ACTIVE, pageable);
-        return properties.map(this::convertToDto);
+        return convertToDtoPage(properties);
     }
 
     @Override
@@ -159,7 +285,7 @@ public class PropertyServiceImpl implements PropertyService {
         // Recherche géographique uniquement ACTIVE
         Page<PropertyEntity> properties = propertyRepository.findPropertiesNearby(
                 latitude, longitude, radius, PropertyStatus.ACTIVE.name(), pageable);
-        return properties.map(this::convertToDto);
+        return convertToDtoPage(properties);
     }
 
     // ========== UPDATE ==========
@@ -184,6 +310,8 @@ public class PropertyServiceImpl implements PropertyService {
                             "Only DRAFT and PENDING properties can be modified.");
         }
 
+        BigDecimal previousPrice = propertyEntity.getPricePerNight();
+
         // Mettre à jour les champs
         if (propertyDto.getTitle() != null) propertyEntity.setTitle(propertyDto.getTitle());
         if (propertyDto.getType() != null) propertyEntity.setType(propertyDto.getType());
@@ -210,7 +338,14 @@ public class PropertyServiceImpl implements PropertyService {
             }
         }
 
-        PropertyEntity updatedProperty = propertyRepository.save(propertyEntity);
+        // Flush : la revision (@Version) doit être à jour dans l'événement
+        PropertyEntity updatedProperty = saveVersioned(propertyEntity);
+
+        boolean priceChanged = previousPrice == null
+                || previousPrice.compareTo(updatedProperty.getPricePerNight()) != 0;
+        publishChange(priceChanged ? PropertyChangeType.PRICE_CHANGED : PropertyChangeType.UPDATED,
+                updatedProperty, null);
+
         return convertToDto(updatedProperty);
     }
 
@@ -235,10 +370,12 @@ public class PropertyServiceImpl implements PropertyService {
         PropertyStatus newStatus = mapBooleansToStatus(isHidden, isDraft, isValidated);
 
         // Valider transition
-        validateStatusTransition(propertyEntity.getStatus(), newStatus, userId);
+        PropertyStatus previousStatus = propertyEntity.getStatus();
+        validateStatusTransition(previousStatus, newStatus, userId);
 
         propertyEntity.setStatus(newStatus);
-        PropertyEntity updatedProperty = propertyRepository.save(propertyEntity);
+        PropertyEntity updatedProperty = saveVersioned(propertyEntity);
+        publishChange(PropertyChangeType.STATUS_CHANGED, updatedProperty, previousStatus);
         return convertToDto(updatedProperty);
     }
 
@@ -259,13 +396,15 @@ public class PropertyServiceImpl implements PropertyService {
         }
 
         // Valider transition
-        validateStatusTransition(propertyEntity.getStatus(), newStatus, userId);
+        PropertyStatus previousStatus = propertyEntity.getStatus();
+        validateStatusTransition(previousStatus, newStatus, userId);
 
         propertyEntity.setStatus(newStatus);
-        PropertyEntity updatedProperty = propertyRepository.save(propertyEntity);
+        PropertyEntity updatedProperty = saveVersioned(propertyEntity);
+        publishChange(PropertyChangeType.STATUS_CHANGED, updatedProperty, previousStatus);
 
         log.info("✅ Property {} status changed: {} → {}", propertyId,
-                propertyEntity.getStatus(), newStatus);
+                previousStatus, newStatus);
 
         return convertToDto(updatedProperty);
     }
@@ -286,16 +425,27 @@ public class PropertyServiceImpl implements PropertyService {
         }
 
         // ✅ Soft delete: Changer status vers DELETED
+        PropertyStatus previousStatus = propertyEntity.getStatus();
         propertyEntity.setStatus(PropertyStatus.DELETED);
-        propertyRepository.save(propertyEntity);
+        // Les images S3 sont supprimées après commit (ImageGarbageCollector)
+        propertyEntity.getImageFolderPath().clear();
+        imageDerivativeRepository.deleteByPropertyId(propertyId);
+        saveVersioned(propertyEntity);
+
+        eventPublisher.publishEvent(new PropertyDeletedEvent(propertyId));
+        publishChange(PropertyChangeType.DELETED, propertyEntity, previousStatus);
 
         log.info("🗑️ Property {} marked as DELETED by user {}", propertyId, userId);
     }
 
     // ========== IMAGES ==========
 
+    /**
+     * Pas de @Transactional ici : l'upload S3 se fait hors transaction pour ne pas
+     * garder une connexion DB pendant les transferts. La liste d'images n'est mise à jour
+     * qu'une fois tous les uploads terminés, dans une transaction courte.
+     */
     @Override
-    @Transactional
     public List<String> uploadPropertyImages(String propertyId, List<MultipartFile> images, String userId) {
         PropertyEntity propertyEntity = propertyRepository.findByPropertyId(propertyId);
 
@@ -308,8 +458,22 @@ public class PropertyServiceImpl implements PropertyService {
         }
 
         List<String> uploadedPaths = imageStorageService.storeImages(propertyId, images);
-        propertyEntity.getImageFolderPath().addAll(uploadedPaths);
-        propertyRepository.save(propertyEntity);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                PropertyEntity property = propertyRepository.findByPropertyId(propertyId);
+                property.getImageFolderPath().addAll(uploadedPaths);
+                saveVersioned(property);
+            });
+        } catch (RuntimeException e) {
+            // Compensation : les images uploadées ne sont référencées nulle part
+            log.error("❌ Failed to save uploaded images for property {}, cleaning S3", propertyId, e);
+            uploadedPaths.forEach(imageStorageService::deleteImage);
+            throw e;
+        }
+
+        // Dérivées (thumb/card/full) générées en arrière-plan
+        eventPublisher.publishEvent(new PropertyImagesUploadedEvent(propertyId, uploadedPaths));
 
         return uploadedPaths;
     }
@@ -328,8 +492,10 @@ public class PropertyServiceImpl implements PropertyService {
         }
 
         imageStorageService.deleteImage(imagePath);
+        // Les objets dérivés sont partagés par contenu : seules les références sont supprimées ici
+        imageDerivativeRepository.deleteByOriginalUrl(imagePath);
         propertyEntity.getImageFolderPath().remove(imagePath);
-        propertyRepository.save(propertyEntity);
+        saveVersioned(propertyEntity);
     }
 
     // ========== COUNT ==========
@@ -372,7 +538,8 @@ public class PropertyServiceImpl implements PropertyService {
 
         // Transition DRAFT → PENDING
         property.setStatus(PropertyStatus.PENDING);
-        PropertyEntity updated = propertyRepository.save(property);
+        PropertyEntity updated = saveVersioned(property);
+        publishChange(PropertyChangeType.STATUS_CHANGED, updated, PropertyStatus.DRAFT);
 
         log.info("📤 Property {} submitted for validation (DRAFT → PENDING)", propertyId);
 
@@ -395,7 +562,8 @@ public class PropertyServiceImpl implements PropertyService {
 
         // Transition PENDING → ACTIVE
         property.setStatus(PropertyStatus.ACTIVE);
-        PropertyEntity updated = propertyRepository.save(property);
+        PropertyEntity updated = saveVersioned(property);
+        publishChange(PropertyChangeType.STATUS_CHANGED, updated, PropertyStatus.PENDING);
 
         log.info("✅ Property {} validated by admin (PENDING → ACTIVE)", propertyId);
 
@@ -437,6 +605,26 @@ public class PropertyServiceImpl implements PropertyService {
         // }
     }
 
+    /**
+     * Sauvegarder avec flush : la revision (@Version) est à jour avant de publier l'événement,
+     * et une version périmée (mise à jour concurrente) est rejetée au lieu de republier la même version
+     */
+    private PropertyEntity saveVersioned(PropertyEntity property) {
+        try {
+            return propertyRepository.saveAndFlush(property);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.warn("⚠️ Concurrent update on property {}: {}", property.getPropertyId(), e.getMessage());
+            throw new BusinessException.ConcurrentModification(property.getPropertyId());
+        }
+    }
+
+    /**
+     * Publier le snapshot de la property (envoyé sur RabbitMQ après commit)
+     */
+    private void publishChange(PropertyChangeType changeType, PropertyEntity property, PropertyStatus previousStatus) {
+        eventPublisher.publishEvent(PropertyChangedEvent.of(changeType, property, previousStatus));
+    }
+
     /**
      * Mapper anciens booléens vers ENUM (pour migration/compatibilité)
      */
@@ -468,6 +656,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         if (entity.getImageFolderPath() != null) {
             dto.setImageFolderPath(entity.getImageFolderPath());
+            dto.setImageVariants(imageDerivativeService.getVariants(entity.getImageFolderPath()));
         }
 
         if (entity.getCharacteristics() != null && !entity.getCharacteristics().isEmpty()) {
@@ -480,6 +669,85 @@ public class PropertyServiceImpl implements PropertyService {
         return dto;
     }
 
+    /**
+     * ✅ NOUVEAU: Convertir plusieurs Entity → DTO en nombre de requêtes constant
+     * Images, characteristics et dérivées chargées en bloc (3 requêtes) au lieu des collections lazy
+     * et d'une requête de dérivées par property.
+     */
+    private List<PropertyDto> convertToDtos(List<PropertyEntity> entities) {
+        if (entities.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> pks = entities.stream().map(PropertyEntity::getId).collect(Collectors.toList());
+        Map<Long, List<String>> imagesById = groupById(propertyRepository.findImagePathsByIds(pks));
+        Map<Long, List<Characteristic>> characteristicsById = new HashMap<>();
+        for (Object[] row : propertyRepository.findCharacteristicsByIds(pks)) {
+            characteristicsById.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Characteristic) row[1]);
+        }
+
+        List<String> allImages = imagesById.values().stream().flatMap(List::stream).collect(Collectors.toList());
+        Map<String, ImageVariantsDto> variants = imageDerivativeService.getVariants(allImages).stream()
+                .collect(Collectors.toMap(ImageVariantsDto::getOriginal, Function.identity(), (a, b) -> a));
+
+        List<PropertyDto> result = new ArrayList<>(entities.size());
+        for (PropertyEntity entity : entities) {
+            PropertyDto dto = new PropertyDto();
+            BeanUtils.copyProperties(entity, dto, "characteristics", "imageFolderPath");
+            dto.setUserId(entity.getOwnerId());
+
+            List<String> images = imagesById.getOrDefault(entity.getId(), List.of());
+            dto.setImageFolderPath(new ArrayList<>(images));
+            dto.setImageVariants(images.stream().map(variants::get).collect(Collectors.toList()));
+            dto.setCharacteristics(characteristicsById.getOrDefault(entity.getId(), List.of()).stream()
+                    .map(this::convertCharacteristicToDto)
+                    .collect(Collectors.toList()));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private Page<PropertyDto> convertToDtoPage(Page<PropertyEntity> page) {
+        return new PageImpl<>(convertToDtos(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    private PropertySummaryDto convertToSummary(PropertyEntity entity) {
+        PropertySummaryDto dto = new PropertySummaryDto();
+        dto.setPropertyId(entity.getPropertyId());
+        dto.setOwnerId(entity.getOwnerId());
+        dto.setPricePerNight(entity.getPricePerNight());
+        dto.setStatus(entity.getStatus().name());
+        dto.setVersion(entity.getRevision());
+        dto.setTitle(entity.getTitle());
+        dto.setType(entity.getType());
+        dto.setCity(entity.getCity());
+        dto.setCountry(entity.getCountry());
+        dto.setNbOfGuests(entity.getNbOfGuests());
+        dto.setNbOfBedrooms(entity.getNbOfBedrooms());
+        return dto;
+    }
+
+    private PropertySummaryDto convertPricingToSummary(PropertyPricingView view) {
+        PropertySummaryDto dto = new PropertySummaryDto();
+        dto.setPropertyId(view.getPropertyId());
+        dto.setOwnerId(view.getOwnerId());
+        dto.setPricePerNight(view.getPricePerNight());
+        dto.setStatus(view.getStatus().name());
+        dto.setVersion(view.getRevision());
+        return dto;
+    }
+
+    /**
+     * Lignes [property.id, valeur] → valeurs groupées par property
+     */
+    private static Map<Long, List<String>> groupById(List<Object[]> rows) {
+        Map<Long, List<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+        return grouped;
+    }
+
     private CharacteristicDto convertCharacteristicToDto(Characteristic characteristic) {
         CharacteristicDto dto = new CharacteristicDto();
         dto.setId(characteristic.getId());
@@ -496,6 +764,7 @@ public class PropertyServiceImpl implements PropertyService {
     }
 
     @Override
+    @Transactional
     public PropertyDto addImagesToProperty(String propertyId, List<String> newImagePaths, String userId) {
         log.info("🖼️ Adding {} images to property {}", newImagePaths.size(), propertyId);
 
@@ -526,12 +795,15 @@ public class PropertyServiceImpl implements PropertyService {
         propertyEntity.setImageFolderPath(currentImages);
 
         // 5. Sauvegarder
-        PropertyEntity updatedProperty = propertyRepository.save(propertyEntity);
+        PropertyEntity updatedProperty = saveVersioned(propertyEntity);
 
         log.info("✅ Successfully added {} new images. Total: {}",
                 newImagePaths.size(), updatedProperty.getImageFolderPath().size());
 
-        // 6. Convertir et retourner
+        // 6. Dérivées (thumb/card/full) générées en arrière-plan
+        eventPublisher.publishEvent(new PropertyImagesUploadedEvent(propertyId, newImagePaths));
+
+        // 7. Convertir et retourner
         return convertToDto(updatedProperty);
     }
 
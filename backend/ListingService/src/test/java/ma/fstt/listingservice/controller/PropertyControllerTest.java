@@ -0,0 +1,104 @@
+package ma.fstt.listingservice.controller;
+
+import ma.fstt.listingservice.dto.PropertySummaryDto;
+import ma.fstt.listingservice.requests.PropertyBatchRequest;
+import ma.fstt.listingservice.responses.PropertySnapshotPageResponse;
+import ma.fstt.listingservice.services.PropertyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PropertyControllerTest {
+
+    private static final List<String> IDS = List.of("prop-1", "prop-draft", "unknown");
+
+    private PropertyService propertyService;
+    private PropertyController controller;
+
+    @BeforeEach
+    void setUp() {
+        propertyService = mock(PropertyService.class);
+        controller = new PropertyController();
+        ReflectionTestUtils.setField(controller, "propertyService", propertyService);
+        ReflectionTestUtils.setField(controller, "internalApiToken", "s3cret");
+    }
+
+    @Test
+    void anonymousBatchIsLimitedToPublicProperties() {
+        List<PropertySummaryDto> active = List.of(summary("prop-1"));
+        when(propertyService.getPropertiesBatch(IDS, false, true)).thenReturn(active);
+
+        ResponseEntity<?> response = controller.getPropertiesBatch(new PropertyBatchRequest(IDS, false), null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(active, response.getBody());
+        verify(propertyService).getPropertiesBatch(IDS, false, true);
+    }
+
+    @Test
+    void wrongTokenIsTreatedAsAnonymous() {
+        controller.getPropertiesBatch(new PropertyBatchRequest(IDS, true), "guess");
+
+        verify(propertyService).getPropertiesBatch(IDS, true, true);
+    }
+
+    @Test
+    void internalCallerSeesEveryStatus() {
+        controller.getPropertiesBatch(new PropertyBatchRequest(IDS, true), "s3cret");
+
+        verify(propertyService).getPropertiesBatch(IDS, true, false);
+    }
+
+    @Test
+    void blankConfiguredTokenNeverGrantsInternalAccess() {
+        ReflectionTestUtils.setField(controller, "internalApiToken", "");
+
+        controller.getPropertiesBatch(new PropertyBatchRequest(IDS, false), "");
+
+        verify(propertyService).getPropertiesBatch(IDS, false, true);
+    }
+
+    @Test
+    void missingIdsAreABadRequest() {
+        when(propertyService.getPropertiesBatch(eq(null), anyBoolean(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("propertyIds is required"));
+
+        ResponseEntity<?> response = controller.getPropertiesBatch(new PropertyBatchRequest(null, false), null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void snapshotExportRequiresTheInternalToken() {
+        assertEquals(HttpStatus.FORBIDDEN, controller.exportSnapshots(null, 0, 500).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.exportSnapshots("guess", 0, 500).getStatusCode());
+        verify(propertyService, never()).exportSnapshots(anyLong(), anyInt());
+
+        PropertySnapshotPageResponse page = new PropertySnapshotPageResponse(List.of(), null);
+        when(propertyService.exportSnapshots(0, 500)).thenReturn(page);
+
+        ResponseEntity<?> response = controller.exportSnapshots("s3cret", 0, 500);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+    }
+
+    private static PropertySummaryDto summary(String propertyId) {
+        PropertySummaryDto dto = new PropertySummaryDto();
+        dto.setPropertyId(propertyId);
+        return dto;
+    }
+}
@@ -0,0 +1,184 @@
+package ma.fstt.listingservice.scheduler;
+
+import ma.fstt.listingservice.config.ImagePipelineConfig;
+import ma.fstt.listingservice.entities.ImageGcCheckpoint;
+import ma.fstt.listingservice.repositories.ImageDerivativeRepository;
+import ma.fstt.listingservice.repositories.ImageGcCheckpointRepository;
+import ma.fstt.listingservice.repositories.JobLeaseRepository;
+import ma.fstt.listingservice.repositories.PropertyRepository;
+import ma.fstt.listingservice.services.impl.ImageStorageService;
+import ma.fstt.listingservice.support.InMemoryS3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageGarbageCollectorTest {
+
+    private InMemoryS3 s3;
+    private ImageStorageService storage;
+    private PropertyRepository propertyRepository;
+    private ImageDerivativeRepository derivativeRepository;
+    private ImageGcCheckpointRepository checkpointRepository;
+    private ImageGarbageCollector gc;
+    private final AtomicReference<ImageGcCheckpoint> savedCheckpoint = new AtomicReference<>();
+
+    // Ligne job_leases en mémoire : détenteur et échéance
+    private String leaseOwner;
+    private LocalDateTime leaseUntil;
+    private JobLeaseRepository leaseRepository;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new InMemoryS3();
+        storage = new ImageStorageService(s3.client(), Runnable::run);
+        ReflectionTestUtils.setField(storage, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(storage, "region", "eu-west-3");
+
+        propertyRepository = mock(PropertyRepository.class);
+        derivativeRepository = mock(ImageDerivativeRepository.class);
+        when(derivativeRepository.findReferencedUrls(anyCollection())).thenReturn(List.of());
+
+        checkpointRepository = mock(ImageGcCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(savedCheckpoint.get()));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            savedCheckpoint.set(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+
+        leaseRepository = mock(JobLeaseRepository.class);
+        when(leaseRepository.claim(anyString(), anyString(), any(), any())).thenAnswer(inv -> {
+            String owner = inv.getArgument(1);
+            LocalDateTime now = inv.getArgument(2);
+            if (leaseOwner != null && !leaseOwner.equals(owner) && !leaseUntil.isBefore(now)) {
+                return 0;
+            }
+            leaseOwner = owner;
+            leaseUntil = inv.getArgument(3);
+            return 1;
+        });
+        when(leaseRepository.release(anyString(), anyString())).thenAnswer(inv -> {
+            if (!inv.getArgument(1).equals(leaseOwner)) {
+                return 0;
+            }
+            leaseOwner = null;
+            leaseUntil = null;
+            return 1;
+        });
+
+        gc = collector(Runnable::run);
+    }
+
+    @Test
+    void reconcileDeletesOnlyOldUnreferencedObjectsAndResumes() {
+        Instant old = Instant.now().minus(2, ChronoUnit.DAYS);
+        for (int i = 0; i < 1500; i++) {
+            s3.put(String.format("prop-1/%05d.jpg", i), new byte[1], old);
+        }
+        s3.put("prop-2/uploading.jpg", new byte[1], Instant.now());
+
+        String keptUrl = storage.buildPublicUrl("prop-1/00042.jpg");
+        when(propertyRepository.findReferencedImagePaths(anyCollection()))
+                .thenAnswer(inv -> inv.<Collection<String>>getArgument(0).contains(keptUrl)
+                        ? List.of(keptUrl) : List.of());
+
+        // 1ère passe limitée à une page : 1000 clés examinées, reprise enregistrée
+        gc.reconcile();
+        assertEquals("prop-1/00999.jpg", savedCheckpoint.get().getLastKey());
+        assertEquals(999L, savedCheckpoint.get().getDeletedTotal());
+
+        // 2ème passe : reprend après la dernière clé et termine le parcours
+        gc.reconcile();
+        assertNull(savedCheckpoint.get().getLastKey());
+        assertEquals(1L, savedCheckpoint.get().getCompletedSweeps());
+        assertEquals(Set.of("prop-1/00042.jpg", "prop-2/uploading.jpg"), s3.keys());
+    }
+
+    @Test
+    void reconcileIsSkippedWhileAnotherInstanceHoldsTheLease() {
+        s3.put("prop-1/orphan.jpg", new byte[1], Instant.now().minus(2, ChronoUnit.DAYS));
+        when(propertyRepository.findReferencedImagePaths(anyCollection())).thenReturn(List.of());
+        leaseOwner = "listing-2";
+        leaseUntil = LocalDateTime.now().plusMinutes(5);
+
+        gc.reconcile();
+        assertEquals(Set.of("prop-1/orphan.jpg"), s3.keys());
+        assertNull(savedCheckpoint.get());
+
+        // Bail expiré (instance arrêtée) : repris, passe effectuée puis bail rendu
+        leaseUntil = LocalDateTime.now().minusSeconds(1);
+        gc.reconcile();
+        assertEquals(Set.of(), s3.keys());
+        assertNull(leaseOwner);
+        verify(leaseRepository).release("s3-orphan-images", "listing-1");
+    }
+
+    @Test
+    void reconcileReturnsAtOnceAndSkipsTicksWhileAPassIsRunning() throws Exception {
+        s3.put("prop-1/orphan.jpg", new byte[1], Instant.now().minus(2, ChronoUnit.DAYS));
+        CountDownLatch passStarted = new CountDownLatch(1);
+        CountDownLatch finishPass = new CountDownLatch(1);
+        when(propertyRepository.findReferencedImagePaths(anyCollection())).thenAnswer(inv -> {
+            passStarted.countDown();
+            assertTrue(finishPass.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        ThreadPoolTaskExecutor gcExecutor = new ImagePipelineConfig().imageGcExecutor();
+        gcExecutor.initialize();
+        try {
+            ImageGarbageCollector scheduled = collector(gcExecutor);
+
+            // Le thread @Scheduled n'attend pas la passe
+            scheduled.reconcile();
+            assertTrue(passStarted.await(5, TimeUnit.SECONDS));
+
+            // Tour suivant pendant la passe : sauté, sans toucher au bail
+            scheduled.reconcile();
+            verify(leaseRepository, times(1)).insertIfAbsent("s3-orphan-images");
+
+            finishPass.countDown();
+            gcExecutor.getThreadPoolExecutor().shutdown();
+            assertTrue(gcExecutor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(Set.of(), s3.keys());
+            assertNull(leaseOwner);
+        } finally {
+            gcExecutor.shutdown();
+        }
+    }
+
+    private ImageGarbageCollector collector(Executor gcExecutor) {
+        ImageGarbageCollector collector = new ImageGarbageCollector(storage, propertyRepository, derivativeRepository,
+                checkpointRepository, leaseRepository, Runnable::run, gcExecutor);
+        ReflectionTestUtils.setField(collector, "enabled", true);
+        ReflectionTestUtils.setField(collector, "maxPagesPerRun", 1);
+        ReflectionTestUtils.setField(collector, "pauseBetweenPagesMs", 0L);
+        ReflectionTestUtils.setField(collector, "gracePeriodMinutes", 60L);
+        ReflectionTestUtils.setField(collector, "leaseSeconds", 600L);
+        ReflectionTestUtils.setField(collector, "workerId", "listing-1");
+        return collector;
+    }
+}
@@ -0,0 +1,175 @@
+package ma.fstt.listingservice.services.impl;
+
+import ma.fstt.listingservice.entities.ImageDerivative;
+import ma.fstt.listingservice.entities.ImageVariant;
+import ma.fstt.listingservice.repositories.ImageDerivativeRepository;
+import ma.fstt.listingservice.support.InMemoryS3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageDerivativeServiceTest {
+
+    private static final String BASE_URL = "https://test-bucket.s3.eu-west-3.amazonaws.com/";
+
+    // Table image_derivatives en mémoire, unique (originalUrl, variant)
+    private final List<ImageDerivative> rows = new CopyOnWriteArrayList<>();
+
+    private InMemoryS3 s3;
+    private ImageDerivativeRepository repository;
+    private ImageDerivativeService service;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new InMemoryS3();
+        ImageStorageService storage = new ImageStorageService(s3.client(), Runnable::run);
+        ReflectionTestUtils.setField(storage, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(storage, "region", "eu-west-3");
+
+        repository = mock(ImageDerivativeRepository.class);
+        when(repository.existsByOriginalUrlAndVariant(any(), any())).thenAnswer(inv -> rows.stream()
+                .anyMatch(d -> d.getOriginalUrl().equals(inv.getArgument(0)) && d.getVariant() == inv.getArgument(1)));
+        when(repository.findFirstByContentHashAndVariant(any(), any())).thenAnswer(inv -> rows.stream()
+                .filter(d -> d.getContentHash().equals(inv.getArgument(0)) && d.getVariant() == inv.getArgument(1))
+                .findFirst());
+        when(repository.save(any())).thenAnswer(inv -> store(inv.getArgument(0)));
+
+        service = new ImageDerivativeService(storage, repository, Runnable::run);
+    }
+
+    @Test
+    void resizeKeepsTheAspectRatioAndNeverUpscales() throws IOException {
+        upload("prop-1/wide.png", png(4000, 1000));
+        upload("prop-1/small.png", png(200, 100));
+
+        service.generateDerivatives("prop-1", BASE_URL + "prop-1/wide.png");
+        service.generateDerivatives("prop-1", BASE_URL + "prop-1/small.png");
+
+        Map<ImageVariant, ImageDerivative> wide = derivativesOf("prop-1/wide.png");
+        assertSize(wide.get(ImageVariant.THUMB), 320, 80);
+        assertSize(wide.get(ImageVariant.CARD), 800, 200);
+        assertSize(wide.get(ImageVariant.FULL), 1920, 480);
+
+        // Plus petite que toutes les variantes : taille d'origine partout
+        Map<ImageVariant, ImageDerivative> small = derivativesOf("prop-1/small.png");
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertSize(small.get(variant), 200, 100);
+        }
+    }
+
+    @Test
+    void identicalContentReusesTheSameDerivativeObjects() throws IOException {
+        byte[] photo = png(1200, 900);
+        upload("prop-1/photo.png", photo);
+        upload("prop-2/copy.png", photo);
+
+        service.generateDerivatives("prop-1", BASE_URL + "prop-1/photo.png");
+        Set<String> keysAfterFirst = Set.copyOf(s3.keys());
+        service.generateDerivatives("prop-2", BASE_URL + "prop-2/copy.png");
+
+        // Aucun nouvel objet : les lignes de la copie pointent vers derivatives/{hash}/
+        assertEquals(keysAfterFirst, Set.copyOf(s3.keys()));
+        String prefix = "derivatives/" + ImageDerivativeService.sha256(photo) + "/";
+        assertEquals(3, s3.keys().stream().filter(key -> key.startsWith(prefix)).count());
+
+        Map<ImageVariant, ImageDerivative> original = derivativesOf("prop-1/photo.png");
+        Map<ImageVariant, ImageDerivative> copy = derivativesOf("prop-2/copy.png");
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertEquals(original.get(variant).getUrl(), copy.get(variant).getUrl());
+            assertTrue(copy.get(variant).getUrl().startsWith(BASE_URL + prefix));
+            assertEquals("prop-2", copy.get(variant).getPropertyId());
+        }
+    }
+
+    @Test
+    void unsupportedFormatProducesNoRows() {
+        upload("prop-1/notes.png", "not an image".getBytes(StandardCharsets.UTF_8));
+
+        service.generateDerivatives("prop-1", BASE_URL + "prop-1/notes.png");
+
+        assertTrue(rows.isEmpty());
+        assertTrue(s3.keys().stream().noneMatch(key -> key.startsWith("derivatives/")));
+    }
+
+    @Test
+    void rowRecordedByAConcurrentWorkerIsTolerated() throws IOException {
+        upload("prop-1/photo.png", png(1000, 500));
+        // Un autre worker enregistre THUMB entre le contrôle d'existence et notre save
+        doAnswer(inv -> {
+            ImageDerivative derivative = inv.getArgument(0);
+            if (derivative.getVariant() == ImageVariant.THUMB) {
+                throw new DataIntegrityViolationException("duplicate key (original_url, variant)");
+            }
+            return store(derivative);
+        }).when(repository).save(any());
+
+        service.generateDerivatives("prop-1", BASE_URL + "prop-1/photo.png");
+
+        // Les variantes suivantes sont tout de même enregistrées
+        assertEquals(Set.of(ImageVariant.CARD, ImageVariant.FULL), derivativesOf("prop-1/photo.png").keySet());
+    }
+
+    // --- Utilitaires ---
+
+    private ImageDerivative store(ImageDerivative derivative) {
+        boolean duplicate = rows.stream().anyMatch(d -> d.getOriginalUrl().equals(derivative.getOriginalUrl())
+                && d.getVariant() == derivative.getVariant());
+        if (duplicate) {
+            throw new DataIntegrityViolationException("duplicate key (original_url, variant)");
+        }
+        rows.add(derivative);
+        return derivative;
+    }
+
+    private Map<ImageVariant, ImageDerivative> derivativesOf(String key) {
+        return rows.stream()
+                .filter(d -> d.getOriginalUrl().equals(BASE_URL + key))
+                .collect(Collectors.toMap(ImageDerivative::getVariant, Function.identity()));
+    }
+
+    /**
+     * Dimensions enregistrées et dimensions réelles du JPEG stocké
+     */
+    private void assertSize(ImageDerivative derivative, int width, int height) throws IOException {
+        assertEquals(width, derivative.getWidth());
+        assertEquals(height, derivative.getHeight());
+        BufferedImage stored = ImageIO.read(new ByteArrayInputStream(
+                s3.get(derivative.getUrl().substring(BASE_URL.length()))));
+        assertEquals(width, stored.getWidth());
+        assertEquals(height, stored.getHeight());
+    }
+
+    private void upload(String key, byte[] content) {
+        s3.put(key, content, Instant.now());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(width / 2, height / 2, 0xFF0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
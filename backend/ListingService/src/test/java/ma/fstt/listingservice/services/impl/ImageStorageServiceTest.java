@@ -0,0 +1,112 @@
+package ma.fstt.listingservice.services.impl;
+
+import ma.fstt.listingservice.support.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+class ImageStorageServiceTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private InMemoryS3 s3;
+    private ExecutorService executor;
+    private ImageStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new InMemoryS3();
+        executor = Executors.newFixedThreadPool(4);
+        service = new ImageStorageService(s3.client(), executor);
+        ReflectionTestUtils.setField(service, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(service, "region", "eu-west-3");
+        ReflectionTestUtils.setField(service, "multipartThreshold", (long) PART_SIZE);
+        ReflectionTestUtils.setField(service, "partSize", PART_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void storeImagesUploadsAllFilesInOrder() {
+        List<MultipartFile> images = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            images.add(image("photo" + i + ".png", 1024 + i));
+        }
+
+        List<String> urls = service.storeImages("prop-1", images);
+
+        assertEquals(10, urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            String key = urls.get(i).substring(urls.get(i).indexOf(".amazonaws.com/") + 15);
+            assertTrue(key.startsWith("prop-1/") && key.endsWith(".png"));
+            assertEquals(1024 + i, s3.get(key).length);
+        }
+    }
+
+    @Test
+    void largeFilesUseMultipartUpload() throws Exception {
+        MockMultipartFile big = image("big.jpg", PART_SIZE * 2 + 123);
+
+        String url = service.storeImages("prop-2", List.of(big)).get(0);
+
+        String key = url.substring(url.indexOf(".amazonaws.com/") + 15);
+        assertArrayEquals(big.getBytes(), s3.get(key));
+        assertEquals(0, s3.pendingMultipartUploads());
+    }
+
+    @Test
+    void failedUploadRemovesAlreadyUploadedImages() {
+        doThrow(new RuntimeException("S3 down"))
+                .when(s3.client())
+                .putObject(argThat((PutObjectRequest r) -> r.key().endsWith(".gif")), any(RequestBody.class));
+
+        List<MultipartFile> images = List.of(image("a.png", 10), image("b.gif", 10), image("c.png", 10));
+
+        assertThrows(RuntimeException.class, () -> service.storeImages("prop-3", images));
+        assertTrue(s3.keys().isEmpty());
+    }
+
+    @Test
+    void deleteAllPropertyImagesPagesAndDeletesInBatches() {
+        for (int i = 0; i < 2500; i++) {
+            s3.put(String.format("prop-4/%05d.jpg", i), new byte[1], Instant.now());
+        }
+        s3.put("prop-5/keep.jpg", new byte[1], Instant.now());
+
+        int deleted = service.deleteAllPropertyImages("prop-4");
+
+        assertEquals(2500, deleted);
+        assertEquals(3, s3.deleteBatchCount());
+        assertEquals(Set.of("prop-5/keep.jpg"), s3.keys());
+    }
+
+    private static MockMultipartFile image(String name, int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return new MockMultipartFile("images", name, "image/png", content);
+    }
+}
@@ -0,0 +1,272 @@
+package ma.fstt.listingservice.services.impl;
+
+import ma.fstt.listingservice.dto.PropertyDto;
+import ma.fstt.listingservice.dto.PropertySummaryDto;
+import ma.fstt.listingservice.entities.Characteristic;
+import ma.fstt.listingservice.entities.ImageDerivative;
+import ma.fstt.listingservice.entities.ImageVariant;
+import ma.fstt.listingservice.entities.PropertyEntity;
+import ma.fstt.listingservice.entities.PropertyStatus;
+import ma.fstt.listingservice.entities.TypeCharacteristique;
+import ma.fstt.listingservice.events.PropertyChangedEvent;
+import ma.fstt.listingservice.exceptions.BusinessException;
+import ma.fstt.listingservice.repositories.ImageDerivativeRepository;
+import ma.fstt.listingservice.repositories.PropertyPricingView;
+import ma.fstt.listingservice.repositories.PropertyRepository;
+import ma.fstt.listingservice.responses.PropertySnapshotPageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PropertyServiceImplTest {
+
+    private final List<PropertyEntity> properties = new ArrayList<>();
+    private final List<ImageDerivative> derivatives = new ArrayList<>();
+
+    private PropertyRepository propertyRepository;
+    private ImageDerivativeRepository imageDerivativeRepository;
+    private PropertyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        propertyRepository = mock(PropertyRepository.class);
+        when(propertyRepository.findByStatus(eq(PropertyStatus.ACTIVE), any(Pageable.class)))
+                .thenAnswer(inv -> new PageImpl<>(List.copyOf(properties), inv.getArgument(1), 40));
+        when(propertyRepository.findImagePathsByIds(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            List<Object[]> rows = new ArrayList<>();
+            properties.stream().filter(p -> ids.contains(p.getId()))
+                    .forEach(p -> p.getImageFolderPath().forEach(path -> rows.add(new Object[]{p.getId(), path})));
+            return rows;
+        });
+        when(propertyRepository.findByPropertyIdIn(anyCollection())).thenAnswer(inv -> properties.stream()
+                .filter(p -> inv.<Collection<String>>getArgument(0).contains(p.getPropertyId()))
+                .toList());
+        when(propertyRepository.findPricingByPropertyIdIn(anyCollection())).thenAnswer(inv -> properties.stream()
+                .filter(p -> inv.<Collection<String>>getArgument(0).contains(p.getPropertyId()))
+                .map(PropertyServiceImplTest::pricing)
+                .toList());
+        when(propertyRepository.findCharacteristicNamesByIds(anyCollection())).thenReturn(List.of());
+        when(propertyRepository.findCharacteristicsByIds(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            List<Object[]> rows = new ArrayList<>();
+            properties.stream().filter(p -> ids.contains(p.getId()))
+                    .forEach(p -> p.getCharacteristics().forEach(c -> rows.add(new Object[]{p.getId(), c})));
+            return rows;
+        });
+
+        imageDerivativeRepository = mock(ImageDerivativeRepository.class);
+        when(imageDerivativeRepository.findByOriginalUrlIn(anyCollection())).thenAnswer(inv -> derivatives.stream()
+                .filter(d -> inv.<Collection<String>>getArgument(0).contains(d.getOriginalUrl()))
+                .toList());
+
+        ImageDerivativeService imageDerivativeService = new ImageDerivativeService(
+                mock(ImageStorageService.class), imageDerivativeRepository, mock(Executor.class));
+
+        service = new PropertyServiceImpl();
+        ReflectionTestUtils.setField(service, "propertyRepository", propertyRepository);
+        ReflectionTestUtils.setField(service, "imageDerivativeService", imageDerivativeService);
+        ReflectionTestUtils.setField(service, "batchMaxSize", 100);
+        ReflectionTestUtils.setField(service, "snapshotsMaxPageSize", 1000);
+    }
+
+    @Test
+    void pageOfPropertiesLoadsImagesVariantsAndCharacteristicsOnce() {
+        Characteristic wifi = characteristic(1L, "Wifi");
+        for (long id = 1; id <= 20; id++) {
+            PropertyEntity property = property(id);
+            property.getImageFolderPath().add("https://s3/p" + id + "/a.jpg");
+            property.getImageFolderPath().add("https://s3/p" + id + "/b.jpg");
+            property.getCharacteristics().add(wifi);
+            properties.add(property);
+            derivative("https://s3/p" + id + "/a.jpg", ImageVariant.THUMB, "https://s3/d" + id + "/thumb.jpg");
+        }
+
+        List<PropertyDto> page = service.getAllValidatedProperties(PageRequest.of(0, 20)).getContent();
+
+        assertEquals(20, page.size());
+        verify(propertyRepository, times(1)).findImagePathsByIds(anyCollection());
+        verify(propertyRepository, times(1)).findCharacteristicsByIds(anyCollection());
+        verify(imageDerivativeRepository, times(1)).findByOriginalUrlIn(anyCollection());
+
+        PropertyDto third = page.get(2);
+        assertEquals("prop-3", third.getPropertyId());
+        assertEquals(List.of("https://s3/p3/a.jpg", "https://s3/p3/b.jpg"), third.getImageFolderPath());
+        assertEquals("https://s3/d3/thumb.jpg", third.getImageVariants().get(0).getThumb());
+        assertNull(third.getImageVariants().get(1).getThumb());
+        assertEquals("Wifi", third.getCharacteristics().get(0).getName());
+        assertEquals("Equipement", third.getCharacteristics().get(0).getTypeCaracteristiqueName());
+    }
+
+    @Test
+    void propertiesWithoutImagesOrCharacteristicsGetEmptyLists() {
+        properties.add(property(1L));
+
+        PropertyDto dto = service.getAllValidatedProperties(PageRequest.of(0, 20)).getContent().get(0);
+
+        assertTrue(dto.getImageFolderPath().isEmpty());
+        assertTrue(dto.getImageVariants().isEmpty());
+        assertTrue(dto.getCharacteristics().isEmpty());
+    }
+
+    @Test
+    void publicBatchSkipsMissingAndNonActiveProperties() {
+        properties.add(property(1L));
+        properties.add(property(2L, PropertyStatus.DRAFT));
+        properties.add(property(3L, PropertyStatus.HIDDEN));
+        properties.add(property(4L));
+
+        List<String> ids = List.of("prop-4", "prop-2", "unknown", "prop-1", "prop-3");
+
+        assertEquals(List.of("prop-4", "prop-1"), propertyIds(service.getPropertiesBatch(ids, false, true)));
+        assertEquals(List.of("prop-4", "prop-1"), propertyIds(service.getPropertiesBatch(ids, true, true)));
+    }
+
+    @Test
+    void internalBatchReturnsEveryStatusButStillSkipsMissingIds() {
+        properties.add(property(1L));
+        properties.add(property(2L, PropertyStatus.DELETED));
+
+        List<PropertySummaryDto> batch = service.getPropertiesBatch(List.of("prop-2", "unknown", "prop-1"), true, false);
+
+        assertEquals(List.of("prop-2", "prop-1"), propertyIds(batch));
+        assertEquals("DELETED", batch.get(0).getStatus());
+    }
+
+    @Test
+    void batchOfOnlyMissingIdsIsEmpty() {
+        assertTrue(service.getPropertiesBatch(List.of("unknown-1", "unknown-2"), false, true).isEmpty());
+        assertTrue(service.getPropertiesBatch(List.of("unknown-1", "unknown-2"), true, false).isEmpty());
+    }
+
+    @Test
+    void snapshotExportPagesThroughEveryStatusByCursor() {
+        properties.add(property(1L));
+        properties.add(property(2L, PropertyStatus.DELETED));
+        properties.add(property(3L, PropertyStatus.DRAFT));
+        when(propertyRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(inv -> properties.stream()
+                .filter(p -> p.getId() > inv.<Long>getArgument(0))
+                .limit(inv.<Pageable>getArgument(1).getPageSize())
+                .toList());
+
+        PropertySnapshotPageResponse first = service.exportSnapshots(0, 2);
+        assertEquals(List.of("prop-1", "prop-2"), first.getSnapshots().stream().map(PropertyChangedEvent::getPropertyId).toList());
+        assertEquals("DELETED", first.getSnapshots().get(1).getStatus());
+        assertEquals(2L, first.getNextCursor());
+
+        PropertySnapshotPageResponse last = service.exportSnapshots(first.getNextCursor(), 2);
+        assertEquals("prop-3", last.getSnapshots().get(0).getPropertyId());
+        assertNull(last.getNextCursor());
+    }
+
+    private static List<String> propertyIds(List<PropertySummaryDto> batch) {
+        return batch.stream().map(PropertySummaryDto::getPropertyId).toList();
+    }
+
+    private static PropertyPricingView pricing(PropertyEntity property) {
+        return new PropertyPricingView() {
+            public String getPropertyId() { return property.getPropertyId(); }
+            public String getOwnerId() { return property.getOwnerId(); }
+            public BigDecimal getPricePerNight() { return property.getPricePerNight(); }
+            public PropertyStatus getStatus() { return property.getStatus(); }
+            public Long getRevision() { return property.getRevision(); }
+        };
+    }
+
+    @Test
+    void staleRevisionIsRejectedWithoutPublishingAnEvent() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        PropertyEntity property = property(1L, PropertyStatus.ACTIVE);
+        when(propertyRepository.findByPropertyId("prop-1")).thenReturn(property);
+        when(propertyRepository.saveAndFlush(property))
+                .thenThrow(new ObjectOptimisticLockingFailureException(PropertyEntity.class, 1L));
+
+        BusinessException error = assertThrows(BusinessException.ConcurrentModification.class,
+                () -> service.updatePropertyStatusEnum("prop-1", PropertyStatus.HIDDEN, "owner-1"));
+
+        assertEquals("CONCURRENT_MODIFICATION", error.getErrorCode());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void publishedVersionIsTheFlushedRevision() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        PropertyEntity property = property(1L, PropertyStatus.ACTIVE);
+        property.setRevision(4L);
+        when(propertyRepository.findByPropertyId("prop-1")).thenReturn(property);
+        // Hibernate incrémente la @Version au flush
+        when(propertyRepository.saveAndFlush(property)).thenAnswer(inv -> {
+            property.setRevision(property.getRevision() + 1);
+            return property;
+        });
+
+        service.updatePropertyStatusEnum("prop-1", PropertyStatus.HIDDEN, "owner-1");
+
+        ArgumentCaptor<PropertyChangedEvent> event = ArgumentCaptor.forClass(PropertyChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(5L, event.getValue().getVersion());
+        assertEquals("ACTIVE", event.getValue().getPreviousStatus());
+    }
+
+    private static PropertyEntity property(long id, PropertyStatus status) {
+        PropertyEntity property = property(id);
+        property.setStatus(status);
+        return property;
+    }
+
+    private static PropertyEntity property(long id) {
+        PropertyEntity property = new PropertyEntity();
+        property.setId(id);
+        property.setPropertyId("prop-" + id);
+        property.setOwnerId("owner-1");
+        property.setStatus(PropertyStatus.ACTIVE);
+        return property;
+    }
+
+    private static Characteristic characteristic(long id, String name) {
+        TypeCharacteristique type = new TypeCharacteristique();
+        type.setId(1L);
+        type.setName("Equipement");
+        Characteristic characteristic = new Characteristic();
+        characteristic.setId(id);
+        characteristic.setName(name);
+        characteristic.setTypeCaracteristique(type);
+        return characteristic;
+    }
+
+    private void derivative(String originalUrl, ImageVariant variant, String url) {
+        ImageDerivative derivative = new ImageDerivative();
+        derivative.setOriginalUrl(originalUrl);
+        derivative.setVariant(variant);
+        derivative.setUrl(url);
+        derivatives.add(derivative);
+    }
+}
@@ -0,0 +1,203 @@
+package ma.fstt.listingservice.support;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stand-in S3 en mémoire pour les tests (bucket unique, pas de réseau)
+ * Couvre PutObject, GetObject, upload multipart, DeleteObject(s) et ListObjectsV2 paginé.
+ */
+public class InMemoryS3 {
+
+    private final ConcurrentSkipListMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, SortedMap<Integer, byte[]>> pendingUploads = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastModified = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger deleteBatchCount = new AtomicInteger();
+    private final S3Client client = mock(S3Client.class);
+
+    public InMemoryS3() {
+        when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(inv -> {
+            PutObjectRequest request = inv.getArgument(0);
+            put(request.key(), read(inv.getArgument(1)), Instant.now());
+            requestCount.incrementAndGet();
+            return PutObjectResponse.builder().eTag(UUID.randomUUID().toString()).build();
+        });
+
+        when(client.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            GetObjectRequest request = inv.getArgument(0);
+            requestCount.incrementAndGet();
+            byte[] content = objects.get(request.key());
+            if (content == null) {
+                throw NoSuchKeyException.builder().message("No such key: " + request.key()).build();
+            }
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().contentLength((long) content.length).build(), content);
+        });
+
+        when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenAnswer(inv -> {
+            String uploadId = UUID.randomUUID().toString();
+            pendingUploads.put(uploadId, new ConcurrentSkipListMap<>());
+            requestCount.incrementAndGet();
+            return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+        });
+
+        when(client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(inv -> {
+            UploadPartRequest request = inv.getArgument(0);
+            pendingUploads.get(request.uploadId()).put(request.partNumber(), read(inv.getArgument(1)));
+            requestCount.incrementAndGet();
+            return UploadPartResponse.builder().eTag("part-" + request.partNumber()).build();
+        });
+
+        when(client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(inv -> {
+            CompleteMultipartUploadRequest request = inv.getArgument(0);
+            SortedMap<Integer, byte[]> parts = pendingUploads.remove(request.uploadId());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (CompletedPart part : request.multipartUpload().parts()) {
+                out.writeBytes(parts.get(part.partNumber()));
+            }
+            put(request.key(), out.toByteArray(), Instant.now());
+            requestCount.incrementAndGet();
+            return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+        });
+
+        when(client.abortMultipartUpload(any(AbortMultipartUploadRequest.class))).thenAnswer(inv -> {
+            AbortMultipartUploadRequest request = inv.getArgument(0);
+            pendingUploads.remove(request.uploadId());
+            requestCount.incrementAndGet();
+            return AbortMultipartUploadResponse.builder().build();
+        });
+
+        when(client.deleteObject(any(DeleteObjectRequest.class))).thenAnswer(inv -> {
+            DeleteObjectRequest request = inv.getArgument(0);
+            objects.remove(request.key());
+            lastModified.remove(request.key());
+            requestCount.incrementAndGet();
+            return DeleteObjectResponse.builder().build();
+        });
+
+        when(client.deleteObjects(any(DeleteObjectsRequest.class))).thenAnswer(inv -> {
+            DeleteObjectsRequest request = inv.getArgument(0);
+            List<ObjectIdentifier> identifiers = request.delete().objects();
+            if (identifiers.size() > 1000) {
+                throw new IllegalArgumentException("DeleteObjects accepts at most 1000 keys");
+            }
+            identifiers.forEach(id -> {
+                objects.remove(id.key());
+                lastModified.remove(id.key());
+            });
+            requestCount.incrementAndGet();
+            deleteBatchCount.incrementAndGet();
+            return DeleteObjectsResponse.builder().build();
+        });
+
+        // Pagination façon S3 : ordre lexicographique, startAfter / continuationToken / maxKeys
+        when(client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(inv -> {
+            ListObjectsV2Request request = inv.getArgument(0);
+            requestCount.incrementAndGet();
+            String after = request.continuationToken() != null ? request.continuationToken() : request.startAfter();
+            int maxKeys = request.maxKeys() != null ? request.maxKeys() : 1000;
+
+            NavigableMap<String, byte[]> view = after == null ? objects : objects.tailMap(after, false);
+            List<S3Object> page = view.keySet().stream()
+                    .filter(key -> request.prefix() == null || key.startsWith(request.prefix()))
+                    .limit(maxKeys + 1L)
+                    .map(key -> S3Object.builder()
+                            .key(key)
+                            .size((long) objects.getOrDefault(key, new byte[0]).length)
+                            .lastModified(lastModified.get(key))
+                            .build())
+                    .toList();
+
+            boolean truncated = page.size() > maxKeys;
+            List<S3Object> contents = truncated ? page.subList(0, maxKeys) : page;
+            return ListObjectsV2Response.builder()
+                    .contents(contents)
+                    .keyCount(contents.size())
+                    .isTruncated(truncated)
+                    .nextContinuationToken(truncated ? contents.get(contents.size() - 1).key() : null)
+                    .build();
+        });
+    }
+
+    /**
+     * Déposer un objet directement (données de test), avec sa date de dernière modification
+     */
+    public void put(String key, byte[] content, Instant modifiedAt) {
+        objects.put(key, content);
+        lastModified.put(key, modifiedAt);
+    }
+
+    public S3Client client() {
+        return client;
+    }
+
+    public byte[] get(String key) {
+        return objects.get(key);
+    }
+
+    public Set<String> keys() {
+        return objects.keySet();
+    }
+
+    public int pendingMultipartUploads() {
+        return pendingUploads.size();
+    }
+
+    public int deleteBatchCount() {
+        return deleteBatchCount.get();
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -6,17 +6,23 @@ import com.example.authmicro_service1.repositories.UserRepository;
 import com.example.authmicro_service1.requests.UserRequest;
 import com.example.authmicro_service1.requests.VerifyOTPRequest;
 import com.example.authmicro_service1.responses.UserResponse;
+import com.example.authmicro_service1.responses.UserSyncPageResponse;
+import com.example.authmicro_service1.responses.UserSyncResponse;
 import com.example.authmicro_service1.services.impl.userServiceImpl;
 import com.example.authmicro_service1.requests.ForgotPasswordRequest;
 import com.example.authmicro_service1.requests.*;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import com.example.authmicro_service1.entities.UserRole;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -37,6 +43,12 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    // ✅ Secret partagé des appels service-to-service (vide = export désactivé)
+    @Value("${internal.api.token:}")
+    private String internalApiToken;
+
+    private static final int MAX_SYNC_PAGE_SIZE = 1000;
+
     /**
      * Récupérer un utilisateur par son ID
      */
@@ -349,5 +361,40 @@ public class UserController {
         }
     }
 
+    /**
+     * ✅ NOUVEAU: Export des utilisateurs pour l'amorçage des projections (BookingService)
+     * GET /users/internal/tenants?afterId=0&size=500
+     * Pagination par curseur : passer nextCursor comme afterId jusqu'à nextCursor = null
+     */
+    @GetMapping("/internal/tenants")
+    public ResponseEntity<?> exportUsers(
+            @RequestHeader(value = "X-Internal-Token", required = false) String token,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int size) {
+
+        // Comparaison en temps constant : la durée ne révèle pas la longueur du préfixe correct
+        if (internalApiToken.isBlank() || token == null
+                || !MessageDigest.isEqual(internalApiToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Accès refusé.");
+            errorResponse.put("status", "error");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+        }
+
+        int pageSize = Math.min(Math.max(size, 1), MAX_SYNC_PAGE_SIZE);
+        List<UserEntity> users = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize));
 
-}
\ No newline at end of file
+        List<UserSyncResponse> items = users.stream()
+                .map(user -> new UserSyncResponse(
+                        user.getUserId(),
+                        user.getEmail(),
+                        user.getFirstname(),
+                        user.getLastname(),
+                        user.getWalletAddress()))
+                .collect(Collectors.toList());
+
+        Long nextCursor = users.size() == pageSize ? users.get(users.size() - 1).getId() : null;
+        return ResponseEntity.ok(new UserSyncPageResponse(items, nextCursor));
+    }
+}
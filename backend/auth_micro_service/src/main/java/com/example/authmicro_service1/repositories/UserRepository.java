@@ -2,6 +2,7 @@ package com.example.authmicro_service1.repositories;
 
 import com.example.authmicro_service1.entities.UserEntity;
 import com.example.authmicro_service1.entities.UserRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -22,4 +23,7 @@ public interface UserRepository extends CrudRepository<UserEntity, Long> {
     // ✅ NOUVELLE MÉTHODE : Trouver un utilisateur par son wallet address
     // Permet de vérifier l'unicité du wallet
     UserEntity findByWalletAddress(String walletAddress);
+
+    // ✅ NOUVELLE MÉTHODE : Export paginé par curseur (amorçage des projections des autres services)
+    List<UserEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
\ No newline at end of file
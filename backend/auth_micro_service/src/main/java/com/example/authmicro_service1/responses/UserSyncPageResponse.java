@@ -0,0 +1,36 @@
+package com.example.authmicro_service1.responses;
+
+import java.util.List;
+
+/**
+ * Page d'export des utilisateurs, paginée par curseur (id interne croissant)
+ * nextCursor = null → dernière page
+ */
+public class UserSyncPageResponse {
+
+    private List<UserSyncResponse> users;
+    private Long nextCursor;
+
+    public UserSyncPageResponse() {}
+
+    public UserSyncPageResponse(List<UserSyncResponse> users, Long nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserSyncResponse> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserSyncResponse> users) {
+        this.users = users;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
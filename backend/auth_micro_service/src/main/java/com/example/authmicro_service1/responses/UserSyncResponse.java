@@ -0,0 +1,63 @@
+package com.example.authmicro_service1.responses;
+
+/**
+ * Utilisateur exporté pour l'amorçage des projections des autres services (ex: tenants de BookingService)
+ */
+public class UserSyncResponse {
+
+    private String userId;
+    private String email;
+    private String firstname;
+    private String lastname;
+    private String walletAddress;
+
+    public UserSyncResponse() {}
+
+    public UserSyncResponse(String userId, String email, String firstname, String lastname, String walletAddress) {
+        this.userId = userId;
+        this.email = email;
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.walletAddress = walletAddress;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public void setFirstname(String firstname) {
+        this.firstname = firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public void setLastname(String lastname) {
+        this.lastname = lastname;
+    }
+
+    public String getWalletAddress() {
+        return walletAddress;
+    }
+
+    public void setWalletAddress(String walletAddress) {
+        this.walletAddress = walletAddress;
+    }
+}
@@ -54,6 +54,9 @@ public class WebSecurity {
                         // En production, à sécuriser avec un API key ou JWT service-to-service
                         .requestMatchers(HttpMethod.GET, "/users/*/wallet/status").permitAll()
 
+                        // ✅ Export interne (service-to-service) - protégé par X-Internal-Token dans le controller
+                        .requestMatchers(HttpMethod.GET, "/users/internal/**").permitAll()
+
                         // Tous les autres endpoints nécessitent une authentification
                         .anyRequest().authenticated()
                 )
@@ -428,6 +428,25 @@ public class GatewayConfig {
                                 .filter(jwtAuthenticationFilter))
                         .uri(bookingServiceUrl))
 
+                // ---------- Failed Events / DLQ (ADMIN Only) ----------
+                .route("booking_admin_failed_events_read", r -> r
+                        .path("/api/bookings/admin/failed-events", "/api/bookings/admin/failed-events/{id}")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter)
+                                .filter(new RoleBasedAuthorizationFilter(jwtUtil, "ADMIN")))
+                        .uri(bookingServiceUrl))
+
+                .route("booking_admin_failed_events_actions", r -> r
+                        .path("/api/bookings/admin/failed-events/replay", "/api/bookings/admin/failed-events/{id}/discard")
+                        .and().method("POST")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter)
+                                .filter(new RoleBasedAuthorizationFilter(jwtUtil, "ADMIN")))
+                        .uri(bookingServiceUrl))
+
                 .route("booking_cancel", r -> r
                         .path("/api/bookings/{bookingId}/cancel")
                         .and().method("PATCH")
@@ -452,6 +471,13 @@ public class GatewayConfig {
                                 .filter(jwtAuthenticationFilter))
                         .uri(bookingServiceUrl))
 
+                // ✅ NEW: Calendrier de disponibilité (public)
+                .route("booking_property_availability", r -> r
+                        .path("/api/bookings/properties/{propertyId}/availability")
+                        .and().method("GET")
+                        .filters(f -> f.stripPrefix(1))
+                        .uri(bookingServiceUrl))
+
                 // ---------- Booking Counts ----------
                 .route("booking_future_host_count", r -> r
                         .path("/api/bookings/host/{userId}/future-count")
@@ -478,6 +504,14 @@ public class GatewayConfig {
                                 .filter(jwtAuthenticationFilter))
                         .uri(bookingServiceUrl))
 
+                .route("booking_host_dashboard_search", r -> r
+                        .path("/api/bookings/host/search")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter))
+                        .uri(bookingServiceUrl))
+
                 .route("booking_host_dashboard_by_id", r -> r
                         .path("/api/bookings/host/{hostId}")
                         .and().method("GET")
@@ -497,6 +531,14 @@ public class GatewayConfig {
                                 .filter(jwtAuthenticationFilter))
                         .uri(paymentServiceUrl))
 
+                .route("payment_validate_async", r -> r
+                        .path("/api/payments/validate/async")
+                        .and().method("POST")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter))
+                        .uri(paymentServiceUrl))
+
                 // ---------- Payment History ----------
                 .route("payment_history_by_booking", r -> r
                         .path("/api/payments/booking/{bookingId}")
@@ -506,6 +548,25 @@ public class GatewayConfig {
                                 .filter(jwtAuthenticationFilter))
                         .uri(paymentServiceUrl))
 
+                // ---------- Payment Search / Export (ADMIN, réconciliation) ----------
+                .route("payment_search", r -> r
+                        .path("/api/payments/search")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter)
+                                .filter(new RoleBasedAuthorizationFilter(jwtUtil, "ADMIN")))
+                        .uri(paymentServiceUrl))
+
+                .route("payment_export", r -> r
+                        .path("/api/payments/export")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter)
+                                .filter(new RoleBasedAuthorizationFilter(jwtUtil, "ADMIN")))
+                        .uri(paymentServiceUrl))
+
                 // ---------- Health Check ----------
                 .route("payment_health", r -> r
                         .path("/api/payments/health")
@@ -513,6 +574,15 @@ public class GatewayConfig {
                         .filters(f -> f.stripPrefix(1))
                         .uri(paymentServiceUrl))
 
+                // ---------- Payment Status (validation asynchrone) ----------
+                .route("payment_by_id", r -> r
+                        .path("/api/payments/{paymentId}")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthenticationFilter))
+                        .uri(paymentServiceUrl))
+
                 .build();
     }
 }
\ No newline at end of file
@@ -3,10 +3,12 @@ package ma.fstt.paymentservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
 public class PaymentserviceApplication {
 
 	public static void main(String[] args) {
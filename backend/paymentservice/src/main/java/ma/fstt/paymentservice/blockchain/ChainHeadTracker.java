@@ -0,0 +1,52 @@
+package ma.fstt.paymentservice.blockchain;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suivi de la tête de chaîne : UN seul eth_blockNumber par intervalle pour tout le service
+ *
+ * Publie {@link NewHeadEvent} à chaque changement de tête ; l'indexeur et le suivi de finalité
+ * s'appuient dessus au lieu d'interroger le nœud chacun de leur côté.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChainHeadTracker {
+
+    private final Web3j web3j;
+    private final JsonRpcBatcher rpcBatcher;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong latestBlock = new AtomicLong(-1);
+
+    @Scheduled(fixedDelayString = "${web3.head.poll-interval-ms:4000}")
+    public void poll() {
+        try {
+            long head = JsonRpcBatcher.await(rpcBatcher.submit(web3j.ethBlockNumber()))
+                    .getBlockNumber().longValue();
+            long previous = latestBlock.getAndSet(head);
+            if (head != previous) {
+                if (head < previous) {
+                    log.warn("⚠️ Chain head went back from {} to {}", previous, head);
+                }
+                eventPublisher.publishEvent(new NewHeadEvent(head));
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to poll chain head: {}", JsonRpcBatcher.unwrap(e).getMessage());
+        }
+    }
+
+    /**
+     * Dernière tête connue, -1 si aucune encore
+     */
+    public long latestBlock() {
+        return latestBlock.get();
+    }
+}
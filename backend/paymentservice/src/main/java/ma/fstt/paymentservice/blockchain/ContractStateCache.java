@@ -0,0 +1,161 @@
+package ma.fstt.paymentservice.blockchain;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.indexer.ChainEventsIndexedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Cache de l'état des contrats / réservations, étiqueté par numéro de block
+ *
+ * Clé (adresse du contrat, bookingId on-chain) ; bookingId null pour un contrat par réservation (state()).
+ * Chaque valeur est lue à un block précis (eth_call à la tête connue) et garde ce numéro :
+ * - valide tant que la tête n'a pas avancé de plus de max-age-blocks (états Completed / Cancelled : définitifs)
+ * - invalidée par un événement indexé plus récent que la lecture
+ * - read-your-writes : l'appelant passe minBlock (ex: block de sa transaction) → toute valeur lue avant est ignorée
+ * Les lectures concurrentes d'une même clé partagent un seul eth_call.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContractStateCache {
+
+    private final ChainHeadTracker chainHeadTracker;
+
+    @Value("${web3.state-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${web3.state-cache.max-age-blocks:0}")
+    private long maxAgeBlocks;
+
+    @Value("${web3.state-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public record Key(String contractAddress, Long bookingId) {
+
+        public static Key of(String contractAddress, Long bookingId) {
+            return new Key(contractAddress.toLowerCase(), bookingId);
+        }
+    }
+
+    private record Entry(ContractState state, long blockNumber) {
+    }
+
+    private record InFlight(long readBlock, CompletableFuture<ContractState> future) {
+    }
+
+    /**
+     * État en cache, ou lu via loader au block indiqué (-1 : LATEST, non mis en cache)
+     *
+     * @param minBlock Block minimum de la lecture acceptée (0 : indifférent)
+     */
+    public CompletableFuture<ContractState> get(Key key, long minBlock, LongFunction<CompletableFuture<ContractState>> loader) {
+        long head = chainHeadTracker.latestBlock();
+        if (!enabled) {
+            return loader.apply(-1);
+        }
+
+        Entry entry = entries.get(key);
+        if (entry != null && isFresh(entry, head, minBlock)) {
+            return CompletableFuture.completedFuture(entry.state());
+        }
+
+        long readBlock = Math.max(head, minBlock > 0 ? minBlock : -1);
+
+        CompletableFuture<ContractState> future = new CompletableFuture<>();
+        InFlight created = new InFlight(readBlock, future);
+        // Atomique : un seul appelant lance l'eth_call, les autres partagent sa lecture si elle est assez récente
+        InFlight shared = inFlight.compute(key, (k, pending) ->
+                pending != null && pending.readBlock() >= 0 && pending.readBlock() >= minBlock ? pending : created);
+        if (shared != created) {
+            return shared.future();
+        }
+
+        CompletableFuture<ContractState> load;
+        try {
+            load = loader.apply(readBlock);
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            future.completeExceptionally(e);
+            return future;
+        }
+        load.whenComplete((state, error) -> {
+            inFlight.remove(key, created);
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            if (readBlock >= 0) {
+                put(key, new Entry(state, readBlock));
+            }
+            future.complete(state);
+        });
+        return future;
+    }
+
+    /**
+     * Oublier une clé (écriture connue côté appelant)
+     */
+    public void invalidate(Key key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Événements indexés → valeurs lues AVANT leur block invalidées
+     * (clé de la réservation et clé "contrat entier")
+     */
+    @EventListener
+    public void onChainEventsIndexed(ChainEventsIndexedEvent indexed) {
+        for (ChainEvent event : indexed.getEvents()) {
+            invalidateBefore(Key.of(event.getContractAddress(), event.getBookingId()), event.getBlockNumber());
+            invalidateBefore(Key.of(event.getContractAddress(), null), event.getBlockNumber());
+        }
+    }
+
+    /**
+     * Nouveau block : purge des valeurs périmées (les états définitifs restent)
+     */
+    @EventListener
+    public void onNewHead(NewHeadEvent head) {
+        entries.values().removeIf(entry -> !isFinal(entry.state())
+                && head.getBlockNumber() - entry.blockNumber() > maxAgeBlocks);
+        if (entries.size() > maxEntries) {
+            log.debug("Contract state cache over {} entries, clearing", maxEntries);
+            entries.clear();
+        }
+    }
+
+    private void invalidateBefore(Key key, long blockNumber) {
+        entries.computeIfPresent(key, (k, entry) -> entry.blockNumber() < blockNumber ? null : entry);
+    }
+
+    private void put(Key key, Entry entry) {
+        // Ne jamais remplacer une lecture plus récente
+        entries.merge(key, entry, (current, candidate) ->
+                candidate.blockNumber() >= current.blockNumber() ? candidate : current);
+    }
+
+    private boolean isFresh(Entry entry, long head, long minBlock) {
+        if (entry.blockNumber() < minBlock) {
+            return false;
+        }
+        if (isFinal(entry.state())) {
+            return true;
+        }
+        return head >= 0 && head - entry.blockNumber() <= maxAgeBlocks;
+    }
+
+    private static boolean isFinal(ContractState state) {
+        return state == ContractState.Completed || state == ContractState.Cancelled;
+    }
+}
@@ -0,0 +1,182 @@
+package ma.fstt.paymentservice.blockchain;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.datatypes.Event;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Décodage des logs sur tableaux d'octets, sans allocation intermédiaire
+ *
+ * Remplace le découpage de chaînes (substring, new BigInteger(hex, 16), comparaison de topics
+ * en String) et FunctionReturnDecoder sur le chemin chaud de l'indexeur et du validateur :
+ * - topic[0] comparé octet par octet à la signature de l'événement (hex lu en place) ;
+ * - data décodée une seule fois dans un tampon réutilisé par thread, mots de 32 octets lus par offset ;
+ * - seuls les résultats (adresse, montant) sont alloués.
+ *
+ * Limité aux types statiques (uint256, address) : les types dynamiques passent par FunctionReturnDecoder.
+ */
+public final class EscrowLogDecoder {
+
+    public static final int WORD_BYTES = 32;
+    private static final int TOPIC_HEX_LENGTH = 2 + 2 * WORD_BYTES;
+    private static final int ADDRESS_OFFSET = WORD_BYTES - 20;
+
+    private static final ThreadLocal<byte[]> DATA_BUFFER = ThreadLocal.withInitial(() -> new byte[WORD_BYTES * 8]);
+
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private EscrowLogDecoder() {
+    }
+
+    /**
+     * topic[0] d'un événement (keccak256 de sa signature), en octets
+     */
+    public static byte[] topic(Event event) {
+        byte[] topic = new byte[WORD_BYTES];
+        decodeHex(EventEncoder.encode(event), 2, topic, 0, WORD_BYTES);
+        return topic;
+    }
+
+    /**
+     * Le topic hex ("0x" + 64 caractères, casse indifférente) correspond-il au topic attendu ?
+     */
+    public static boolean topicEquals(String hexTopic, byte[] expected) {
+        if (hexTopic == null || hexTopic.length() != TOPIC_HEX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < WORD_BYTES; i++) {
+            if (hexByte(hexTopic, 2 + 2 * i) != (expected[i] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * uint256 indexé (ex. bookingId) en long
+     *
+     * @throws ArithmeticException si la valeur dépasse Long.MAX_VALUE
+     */
+    public static long topicAsLong(String hexTopic) {
+        return wordAsLong(hexTopic, 2);
+    }
+
+    /**
+     * address indexée : "0x" + 40 caractères en minuscules
+     */
+    public static String topicAsAddress(String hexTopic) {
+        char[] address = new char[42];
+        address[0] = '0';
+        address[1] = 'x';
+        int from = 2 + 2 * ADDRESS_OFFSET;
+        for (int i = 0; i < 40; i++) {
+            address[2 + i] = HEX_DIGITS[hexValue(hexTopic.charAt(from + i))];
+        }
+        return new String(address);
+    }
+
+    /**
+     * Décoder la data d'un log dans le tampon du thread courant
+     * Le tableau retourné est réutilisé : valide jusqu'au prochain appel sur le même thread.
+     */
+    public static byte[] data(String hexData) {
+        int offset = hexData.startsWith("0x") ? 2 : 0;
+        int length = (hexData.length() - offset) / 2;
+
+        byte[] buffer = DATA_BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            DATA_BUFFER.set(buffer);
+        }
+        decodeHex(hexData, offset, buffer, 0, length);
+        return buffer;
+    }
+
+    /**
+     * Nombre de mots de 32 octets dans la data hex
+     */
+    public static int wordCount(String hexData) {
+        int offset = hexData.startsWith("0x") ? 2 : 0;
+        return (hexData.length() - offset) / (2 * WORD_BYTES);
+    }
+
+    /**
+     * Mot n° {@code word} de la data en uint256
+     */
+    public static BigInteger uint256(byte[] data, int word) {
+        return new BigInteger(1, data, word * WORD_BYTES, WORD_BYTES);
+    }
+
+    /**
+     * Mot n° {@code word} de la data en long (compteurs, timestamps)
+     *
+     * @throws ArithmeticException si la valeur dépasse Long.MAX_VALUE
+     */
+    public static long uint256AsLong(byte[] data, int word) {
+        int offset = word * WORD_BYTES;
+        for (int i = offset; i < offset + WORD_BYTES - 8; i++) {
+            if (data[i] != 0) {
+                throw new ArithmeticException("uint256 out of long range");
+            }
+        }
+        long value = 0;
+        for (int i = offset + WORD_BYTES - 8; i < offset + WORD_BYTES; i++) {
+            value = (value << 8) | (data[i] & 0xff);
+        }
+        if (value < 0) {
+            throw new ArithmeticException("uint256 out of long range");
+        }
+        return value;
+    }
+
+    // --- Utilitaires ---
+
+    private static long wordAsLong(String hex, int from) {
+        int lowFrom = from + 2 * (WORD_BYTES - 8);
+        for (int i = from; i < lowFrom; i++) {
+            if (hex.charAt(i) != '0') {
+                throw new ArithmeticException("uint256 out of long range");
+            }
+        }
+        long value = 0;
+        for (int i = lowFrom; i < from + 2 * WORD_BYTES; i++) {
+            value = (value << 4) | hexValue(hex.charAt(i));
+        }
+        if (value < 0) {
+            throw new ArithmeticException("uint256 out of long range");
+        }
+        return value;
+    }
+
+    private static void decodeHex(String hex, int from, byte[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = (byte) hexByte(hex, from + 2 * i);
+        }
+    }
+
+    private static int hexByte(String hex, int index) {
+        return (hexValue(hex.charAt(index)) << 4) | hexValue(hex.charAt(index + 1));
+    }
+
+    private static int hexValue(char c) {
+        int value = c < 128 ? HEX_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid hex character: " + c);
+        }
+        return value;
+    }
+}
@@ -10,7 +10,8 @@ import java.math.BigInteger;
 /**
  * Données extraites de l'événement Funded du Smart Contract
  *
- * event Funded(address indexed tenant, uint256 amount);
+ * RentalEscrow.sol : event Funded(uint256 indexed bookingId, address indexed tenant, uint256 totalAmount, ...);
+ * Contrat par réservation (legacy) : event Funded(address indexed tenant, uint256 amount);
  */
 @Data
 @NoArgsConstructor
@@ -33,4 +34,14 @@ public class FundedEventData {
      * Numéro du block où la transaction a été minée
      */
     private BigInteger blockNumber;
+
+    /**
+     * Hash du block (suivi de la finalité : un hash différent au même numéro = réorganisation)
+     */
+    private String blockHash;
+
+    /**
+     * ID de la réservation dans le contrat multi-réservations (null : contrat par réservation)
+     */
+    private Long bookingId;
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package ma.fstt.paymentservice.blockchain;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Regroupement des appels JSON-RPC en requêtes batch
+ *
+ * Les appels soumis pendant une courte fenêtre (web3.rpc.batch.window-ms) par des validations
+ * concurrentes partent dans UNE seule requête HTTP (tableau JSON-RPC), dans la limite de
+ * web3.rpc.batch.max-size appels. Les providers hébergés limitent au nombre de requêtes HTTP :
+ * le débit de validation n'est plus borné par un aller-retour par appel.
+ *
+ * Les réponses sont rattachées aux appels par leur id JSON-RPC (l'ordre n'est pas garanti par la spec).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JsonRpcBatcher {
+
+    private final Web3j web3j;
+
+    @Value("${web3.rpc.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${web3.rpc.batch.window-ms:5}")
+    private long windowMs;
+
+    @Value("${web3.rpc.batch.max-size:50}")
+    private int maxBatchSize;
+
+    @Value("${web3.rpc.batch.timeout-ms:15000}")
+    private long timeoutMs;
+
+    private final ConcurrentLinkedQueue<PendingCall<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rpc-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdownNow();
+        PendingCall<?> call;
+        while ((call = queue.poll()) != null) {
+            call.future.completeExceptionally(new IOException("JSON-RPC batcher stopped"));
+        }
+    }
+
+    /**
+     * Soumettre un appel : il partira dans le prochain batch
+     * Le futur échoue au plus tard après web3.rpc.batch.timeout-ms.
+     */
+    public <T extends Response<?>> CompletableFuture<T> submit(Request<?, T> request) {
+        if (!enabled) {
+            return request.sendAsync().orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        PendingCall<T> call = new PendingCall<>(request, new CompletableFuture<>());
+        queue.add(call);
+
+        if (queued.incrementAndGet() >= maxBatchSize) {
+            // Batch plein : inutile d'attendre la fin de la fenêtre
+            flusher.execute(this::flush);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+        }
+
+        return call.future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Attendre le résultat d'un appel soumis (appelants synchrones)
+     */
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Cause réelle d'un échec de futur (CompletionException / ExecutionException)
+     */
+    public static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception e ? e : new RuntimeException(cause);
+    }
+
+    /**
+     * Vider la file par batchs de max-size appels (thread rpc-batcher uniquement)
+     */
+    private void flush() {
+        flushScheduled.set(false);
+
+        while (true) {
+            List<PendingCall<?>> calls = new ArrayList<>();
+            PendingCall<?> call;
+            while (calls.size() < maxBatchSize && (call = queue.poll()) != null) {
+                calls.add(call);
+            }
+            if (calls.isEmpty()) {
+                return;
+            }
+            queued.addAndGet(-calls.size());
+            send(calls);
+        }
+    }
+
+    private void send(List<PendingCall<?>> calls) {
+        if (calls.size() == 1) {
+            // Pas de surcoût de batch pour un appel isolé
+            PendingCall<?> single = calls.get(0);
+            single.request.sendAsync().whenComplete((response, error) -> {
+                if (error != null) {
+                    single.future.completeExceptionally(unwrap(error));
+                } else {
+                    single.complete(response);
+                }
+            });
+            return;
+        }
+
+        BatchRequest batch = web3j.newBatch();
+        calls.forEach(c -> batch.add(c.request));
+
+        log.debug("📦 Sending JSON-RPC batch of {} calls", calls.size());
+
+        batch.sendAsync().whenComplete((batchResponse, error) -> {
+            if (error != null) {
+                Exception cause = unwrap(error);
+                log.warn("⚠️ JSON-RPC batch of {} calls failed: {}", calls.size(), cause.getMessage());
+                calls.forEach(c -> c.future.completeExceptionally(cause));
+                return;
+            }
+            dispatch(calls, batchResponse);
+        });
+    }
+
+    private void dispatch(List<PendingCall<?>> calls, BatchResponse batchResponse) {
+        Map<Long, Response<?>> responsesById = new HashMap<>();
+        for (Response<?> response : batchResponse.getResponses()) {
+            responsesById.put(response.getId(), response);
+        }
+
+        for (PendingCall<?> call : calls) {
+            Response<?> response = responsesById.get(call.request.getId());
+            if (response == null) {
+                call.future.completeExceptionally(new IOException(
+                        "No response for JSON-RPC call " + call.request.getMethod() + " (id " + call.request.getId() + ")"));
+            } else {
+                call.complete(response);
+            }
+        }
+    }
+
+    private record PendingCall<T extends Response<?>>(Request<?, T> request, CompletableFuture<T> future) {
+
+        void complete(Response<?> response) {
+            try {
+                future.complete(request.getResponseType().cast(response));
+            } catch (ClassCastException e) {
+                future.completeExceptionally(new IOException(
+                        "Unexpected response type for " + request.getMethod(), e));
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ma.fstt.paymentservice.blockchain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement Spring : nouveau block de tête observé par le ChainHeadTracker
+ */
+@Getter
+@RequiredArgsConstructor
+public class NewHeadEvent {
+
+    private final long blockNumber;
+}
@@ -2,15 +2,20 @@ package ma.fstt.paymentservice.blockchain;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.generated.RentalEscrowMulti;
 import ma.fstt.paymentservice.exception.*;
 import org.springframework.stereotype.Component;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Event;
 import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.abi.datatypes.generated.Uint8;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.*;
@@ -20,6 +25,9 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
 @RequiredArgsConstructor
@@ -27,10 +35,17 @@ import java.util.List;
 public class RentalEscrowContract {
 
     private final Web3j web3j;
+    private final JsonRpcBatcher rpcBatcher;
+    private final ContractStateCache stateCache;
 
-    // Topic hash de l'événement Funded(address indexed tenant, uint256 amount)
-    private static final String FUNDED_EVENT_TOPIC =
-            "0x2da466a7b24304f47e87fa2e1e5a81b9831ce54fec19055ce277ca2f39ba42c4";
+    // Funded du contrat multi-réservations (bindings générés depuis RentalEscrow.sol)
+    private static final byte[] FUNDED_TOPIC = EscrowLogDecoder.topic(RentalEscrowMulti.FUNDED_EVENT);
+
+    // Contrats par réservation déjà déployés (source hors repo) : Deposited(address indexed payee, uint256 amount)
+    // C'est la signature du hash 0x2da466a7… jusqu'ici codé en dur
+    private static final Event LEGACY_FUNDED_EVENT = new Event("Deposited", List.of(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>() {}));
+    private static final byte[] LEGACY_FUNDED_TOPIC = EscrowLogDecoder.topic(LEGACY_FUNDED_EVENT);
 
     public FundedEventData validateFundTransaction(
             String contractAddress,
@@ -39,17 +54,40 @@ public class RentalEscrowContract {
 
         log.info("🔍 Fetching transaction receipt from blockchain...");
 
-        EthGetTransactionReceipt receiptResponse = web3j
-                .ethGetTransactionReceipt(transactionHash)
-                .send();
+        TransactionReceipt receipt = findTransactionReceipt(transactionHash)
+                .orElseThrow(() -> new TransactionNotFoundException(
+                        "Transaction not found or not yet mined. Please wait 30 seconds and retry."
+                ));
 
-        if (receiptResponse.getTransactionReceipt().isEmpty()) {
-            throw new TransactionNotFoundException(
-                    "Transaction not found or not yet mined. Please wait 30 seconds and retry."
-            );
-        }
+        return parseFundTransaction(contractAddress, receipt);
+    }
+
+    /**
+     * ✅ NOUVEAU : Receipt d'une transaction, vide tant qu'elle n'est pas minée
+     * Utilisé par la validation asynchrone (polling)
+     */
+    public Optional<TransactionReceipt> findTransactionReceipt(String transactionHash) throws Exception {
+        return JsonRpcBatcher.await(findTransactionReceiptAsync(transactionHash));
+    }
+
+    /**
+     * Version non bloquante : l'appel part dans le prochain batch JSON-RPC
+     */
+    public CompletableFuture<Optional<TransactionReceipt>> findTransactionReceiptAsync(String transactionHash) {
+        return rpcBatcher.submit(web3j.ethGetTransactionReceipt(transactionHash))
+                .thenApply(receiptResponse -> {
+                    if (receiptResponse.hasError()) {
+                        throw new CompletionException(new RuntimeException(
+                                "Failed to fetch receipt: " + receiptResponse.getError().getMessage()));
+                    }
+                    return receiptResponse.getTransactionReceipt();
+                });
+    }
 
-        TransactionReceipt receipt = receiptResponse.getTransactionReceipt().get();
+    /**
+     * ✅ NOUVEAU : Vérifier un receipt déjà récupéré et extraire l'événement Funded
+     */
+    public FundedEventData parseFundTransaction(String contractAddress, TransactionReceipt receipt) {
 
         if (!"0x1".equals(receipt.getStatus())) {
             throw new TransactionFailedException(
@@ -64,56 +102,118 @@ public class RentalEscrowContract {
             );
         }
 
-        // Parser l'événement Funded
-        List<Log> logs = receipt.getLogs();
-        Log fundedLog = logs.stream()
-                .filter(log -> !log.getTopics().isEmpty()
-                        && log.getTopics().get(0).equals(FUNDED_EVENT_TOPIC))
-                .findFirst()
-                .orElseThrow(() -> new EventNotFoundException(
-                        "Funded event not found."
-                ));
+        // Parser l'événement Funded (émis par le contrat attendu)
+        for (Log eventLog : receipt.getLogs()) {
+            List<String> topics = eventLog.getTopics();
+            if (topics == null || topics.isEmpty() || !contractAddress.equalsIgnoreCase(eventLog.getAddress())) {
+                continue;
+            }
+
+            if (topics.size() == 3 && EscrowLogDecoder.topicEquals(topics.get(0), FUNDED_TOPIC)) {
+                // Funded(uint256 indexed bookingId, address indexed tenant, uint256 totalAmount, ...)
+                return fundedEventData(receipt, EscrowLogDecoder.topicAsAddress(topics.get(2)),
+                        EscrowLogDecoder.uint256(EscrowLogDecoder.data(eventLog.getData()), 0),
+                        EscrowLogDecoder.topicAsLong(topics.get(1)));
+            }
+            if (topics.size() == 2 && EscrowLogDecoder.topicEquals(topics.get(0), LEGACY_FUNDED_TOPIC)) {
+                return fundedEventData(receipt, EscrowLogDecoder.topicAsAddress(topics.get(1)),
+                        EscrowLogDecoder.uint256(EscrowLogDecoder.data(eventLog.getData()), 0),
+                        null);
+            }
+        }
 
-        String tenantAddressRaw = fundedLog.getTopics().get(1);
-        String tenantAddress = "0x" + tenantAddressRaw.substring(26);
+        throw new EventNotFoundException(
+                "Funded event not found."
+        );
+    }
 
-        String dataHex = fundedLog.getData().substring(2);
-        BigInteger amountWei = new BigInteger(dataHex, 16);
-        BigDecimal amountEth = Convert.fromWei(amountWei.toString(), Convert.Unit.ETHER);
+    private FundedEventData fundedEventData(TransactionReceipt receipt, String tenantAddress,
+                                            BigInteger amountWei, Long bookingId) {
+        BigDecimal amountEth = Convert.fromWei(new BigDecimal(amountWei), Convert.Unit.ETHER);
 
         log.info("💯 Funded event detected: {} MATIC from {}", amountEth, tenantAddress);
 
         return new FundedEventData(
                 tenantAddress,
                 amountEth,
-                receipt.getBlockNumber()
+                receipt.getBlockNumber(),
+                receipt.getBlockHash(),
+                bookingId
         );
     }
 
     public ContractState getContractState(String contractAddress) throws Exception {
+        return getContractState(contractAddress, 0);
+    }
+
+    /**
+     * État du contrat vu au moins au block minBlock (read-your-writes : block de la transaction validée)
+     */
+    public ContractState getContractState(String contractAddress, long minBlock) throws Exception {
+        return JsonRpcBatcher.await(getContractStateAsync(contractAddress, minBlock));
+    }
+
+    /**
+     * Version non bloquante de {@link #getContractState(String, long)} (cache par block, eth_call regroupé en batch)
+     */
+    public CompletableFuture<ContractState> getContractStateAsync(String contractAddress, long minBlock) {
         Function function = new Function(
                 "state",
                 Collections.emptyList(),
                 Collections.singletonList(new TypeReference<Uint8>() {})
         );
 
-        String encodedFunction = FunctionEncoder.encode(function);
-
-        EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(null, contractAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-        ).send();
+        return stateCache.get(ContractStateCache.Key.of(contractAddress, null), minBlock,
+                block -> callState(contractAddress, function, block));
+    }
 
-        if (response.hasError()) {
-            throw new RuntimeException("Failed to query contract state: " + response.getError().getMessage());
-        }
+    /**
+     * État d'une réservation du contrat multi-réservations, vu au moins au block minBlock
+     */
+    public ContractState getBookingState(String contractAddress, long bookingId, long minBlock) throws Exception {
+        return JsonRpcBatcher.await(getBookingStateAsync(contractAddress, bookingId, minBlock));
+    }
 
-        List<Type> results = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
+    /**
+     * ✅ NOUVEAU : État d'une réservation dans le contrat multi-réservations (getBookingState(uint256))
+     */
+    public CompletableFuture<ContractState> getBookingStateAsync(String contractAddress, long bookingId, long minBlock) {
+        Function function = new Function(
+                RentalEscrowMulti.FUNC_GETBOOKINGSTATE,
+                Collections.singletonList(new Uint256(bookingId)),
+                Collections.singletonList(new TypeReference<Uint8>() {})
         );
 
-        int stateValue = ((Uint8) results.get(0)).getValue().intValue();
-        return ContractState.fromIndex(stateValue);
+        return stateCache.get(ContractStateCache.Key.of(contractAddress, bookingId), minBlock,
+                block -> callState(contractAddress, function, block));
+    }
+
+    /**
+     * eth_call d'une vue retournant l'enum State, à un block donné (-1 : LATEST)
+     */
+    private CompletableFuture<ContractState> callState(String contractAddress, Function function, long blockNumber) {
+        String encodedFunction = FunctionEncoder.encode(function);
+
+        DefaultBlockParameter block = blockNumber >= 0
+                ? DefaultBlockParameter.valueOf(BigInteger.valueOf(blockNumber))
+                : DefaultBlockParameterName.LATEST;
+
+        return rpcBatcher.submit(web3j.ethCall(
+                Transaction.createEthCallTransaction(null, contractAddress, encodedFunction),
+                block
+        )).thenApply(response -> {
+            if (response.hasError()) {
+                throw new CompletionException(new RuntimeException(
+                        "Failed to query contract state: " + response.getError().getMessage()));
+            }
+
+            List<Type> results = FunctionReturnDecoder.decode(
+                    response.getValue(),
+                    function.getOutputParameters()
+            );
+
+            int stateValue = ((Uint8) results.get(0)).getValue().intValue();
+            return ContractState.fromIndex(stateValue);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package ma.fstt.paymentservice.blockchain.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import org.web3j.protocol.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Transport Web3j multi-fournisseurs
+ *
+ * Chaque requête HTTP (appel simple ou batch JSON-RPC) part vers l'endpoint disponible le plus
+ * rapide ayant encore du budget. En cas d'erreur réseau, HTTP 5xx ou 429, la même requête est
+ * rejouée sur l'endpoint suivant : un fournisseur lent ou limité ne bloque plus les validations.
+ * Les erreurs JSON-RPC (réponse 200 avec "error") ne déclenchent pas de bascule.
+ *
+ * Les appels web3j sont synchrones (execute) : les limites du Dispatcher OkHttp ne s'appliquent pas.
+ * Le nombre de requêtes en cours est donc borné ici (sémaphore global) et par endpoint.
+ * Aucun endpoint disponible (hors service, en retard, en pause) → IOException, jamais d'envoi à l'aveugle.
+ */
+@Slf4j
+public class FailoverHttpService extends Service {
+
+    private static final Comparator<RpcEndpoint> BY_LATENCY = Comparator.comparingDouble(RpcEndpoint::selectionLatency);
+
+    private final List<RpcEndpoint> endpoints;
+    private final OkHttpClient httpClient;
+    private final int maxAttempts;
+    private final Semaphore inFlight;
+
+    public FailoverHttpService(List<RpcEndpoint> endpoints, OkHttpClient httpClient, int maxAttempts,
+                               int maxConcurrentRequests) {
+        super(false);
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one RPC endpoint is required");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.httpClient = httpClient;
+        this.maxAttempts = Math.max(1, Math.min(maxAttempts, endpoints.size()));
+        this.inFlight = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an RPC slot");
+        }
+        try {
+            return performWithFailover(payload);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private InputStream performWithFailover(String payload) throws IOException {
+        Set<RpcEndpoint> tried = new HashSet<>();
+        IOException lastError = null;
+
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            RpcEndpoint endpoint = select(tried);
+            if (endpoint == null) {
+                break;
+            }
+            tried.add(endpoint);
+
+            long start = System.nanoTime();
+            try {
+                byte[] body = endpoint.post(payload);
+                endpoint.recordSuccess(System.nanoTime() - start);
+                return new ByteArrayInputStream(body);
+            } catch (RpcRateLimitedException e) {
+                endpoint.recordThrottled(e.getRetryAfterMs());
+                lastError = e;
+            } catch (IOException e) {
+                endpoint.recordFailure();
+                lastError = e;
+            } finally {
+                endpoint.releaseSlot();
+            }
+            log.warn("⚠️ RPC endpoint {} failed ({}), failing over", endpoint, lastError.getMessage());
+        }
+
+        throw lastError != null ? lastError : new IOException("No RPC endpoint available");
+    }
+
+    /**
+     * Endpoint le plus rapide parmi ceux disponibles, non saturés et ayant du budget (place réservée au retour)
+     * Tous hors budget ou saturés → attente d'une place sur le plus rapide disponible ; aucun disponible → null
+     */
+    private RpcEndpoint select(Set<RpcEndpoint> tried) throws InterruptedIOException {
+        List<RpcEndpoint> candidates = endpoints.stream()
+                .filter(e -> !tried.contains(e))
+                .filter(RpcEndpoint::isAvailable)
+                .sorted(BY_LATENCY)
+                .toList();
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        for (RpcEndpoint candidate : candidates) {
+            if (!candidate.tryAcquireSlot()) {
+                continue;
+            }
+            if (candidate.tryAcquire()) {
+                return candidate;
+            }
+            candidate.releaseSlot();
+        }
+
+        RpcEndpoint fastest = candidates.get(0);
+        fastest.acquireSlot();
+        return fastest;
+    }
+
+    public List<RpcEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+}
@@ -0,0 +1,245 @@
+package ma.fstt.paymentservice.blockchain.transport;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Un fournisseur RPC : URL, budget de requêtes, latence observée et santé
+ *
+ * - Budget : token bucket (requêtes HTTP / seconde + rafale), 0 = illimité
+ * - Concurrence : nombre maximal de requêtes en cours (sémaphore, les appels web3j sont synchrones)
+ * - Latence : moyenne mobile exponentielle des appels réussis (et des health checks)
+ * - Santé : mis hors service après N échecs consécutifs ou sur décision du health check,
+ *   pause forcée après un HTTP 429 (Retry-After si fourni)
+ * - Retard : écarté par le health check tant qu'il est en retard sur le meilleur nœud ;
+ *   indépendant de la santé, un appel réussi ne le remet pas en service
+ */
+public class RpcEndpoint {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final double LATENCY_ALPHA = 0.2;
+
+    private final String name;
+    private final String url;
+    private final OkHttpClient httpClient;
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final int maxConsecutiveFailures;
+    private final long failureCooldownMs;
+    private final Semaphore slots;
+
+    // Token bucket
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    private volatile double latencyMs = -1;
+    private volatile boolean healthy = true;
+    private volatile boolean lagging;
+    private volatile long unavailableUntil;
+    private volatile long lastBlock = -1;
+    private int consecutiveFailures;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    public RpcEndpoint(String name, String url, OkHttpClient httpClient, double ratePerSecond, double burst,
+                       int maxConcurrentRequests, int maxConsecutiveFailures, long failureCooldownMs) {
+        this.name = name;
+        this.url = url;
+        this.httpClient = httpClient;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+        this.failureCooldownMs = failureCooldownMs;
+        this.tokens = this.burst;
+        this.slots = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+    }
+
+    /**
+     * POST d'un payload JSON-RPC (appel simple ou batch), corps de la réponse
+     *
+     * @throws RpcRateLimitedException HTTP 429
+     * @throws IOException erreur réseau ou HTTP non 2xx
+     */
+    byte[] post(String payload) throws IOException {
+        requests.incrementAndGet();
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(payload, JSON))
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (response.code() == 429) {
+                throw new RpcRateLimitedException(name, retryAfterMs(response.header("Retry-After")));
+            }
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("RPC endpoint " + name + " returned HTTP " + response.code());
+            }
+            return body.bytes();
+        }
+    }
+
+    /**
+     * Prendre une place parmi les requêtes en cours sans attendre (false : endpoint saturé)
+     */
+    boolean tryAcquireSlot() {
+        return slots.tryAcquire();
+    }
+
+    /**
+     * Attendre une place (chaque requête en cours est bornée par le call timeout)
+     */
+    void acquireSlot() throws InterruptedIOException {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for RPC endpoint " + name);
+        }
+    }
+
+    void releaseSlot() {
+        slots.release();
+    }
+
+    /**
+     * Prendre un jeton du budget (false : budget épuisé pour l'instant)
+     */
+    synchronized boolean tryAcquire() {
+        if (ratePerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * ratePerSecond / 1_000_000_000d);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appel réussi : remet à zéro les échecs (santé), sans effet sur le retard
+     */
+    synchronized void recordSuccess(long elapsedNanos) {
+        consecutiveFailures = 0;
+        healthy = true;
+        recordLatency(elapsedNanos);
+    }
+
+    synchronized void recordFailure() {
+        failures.incrementAndGet();
+        if (++consecutiveFailures >= maxConsecutiveFailures) {
+            healthy = false;
+            unavailableUntil = System.currentTimeMillis() + failureCooldownMs;
+        }
+    }
+
+    void recordThrottled(long retryAfterMs) {
+        throttled.incrementAndGet();
+        unavailableUntil = System.currentTimeMillis() + (retryAfterMs > 0 ? retryAfterMs : failureCooldownMs);
+    }
+
+    /**
+     * Résultat d'un health check (eth_blockNumber) ; le retard est réévalué ensuite ({@link #markLagging()})
+     */
+    synchronized void recordHealthCheck(boolean ok, long blockNumber, long elapsedNanos) {
+        lagging = false;
+        if (ok) {
+            lastBlock = blockNumber;
+            recordLatency(elapsedNanos);
+        }
+        healthy = ok;
+        if (ok) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * Nœud en retard sur les autres : exclu de la sélection jusqu'au prochain check
+     */
+    void markLagging() {
+        lagging = true;
+    }
+
+    private void recordLatency(long elapsedNanos) {
+        double sample = elapsedNanos / 1_000_000d;
+        latencyMs = latencyMs < 0 ? sample : LATENCY_ALPHA * sample + (1 - LATENCY_ALPHA) * latencyMs;
+    }
+
+    /**
+     * Sélectionnable : sain, à jour et pas en pause (429 / échecs répétés)
+     */
+    boolean isAvailable() {
+        return healthy && !lagging && System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    /**
+     * Latence pour le tri ; un endpoint jamais mesuré passe après les endpoints mesurés
+     */
+    double selectionLatency() {
+        return latencyMs < 0 ? Double.MAX_VALUE / 2 : latencyMs;
+    }
+
+    private static long retryAfterMs(String retryAfter) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLatencyMs() {
+        return latencyMs;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public boolean isLagging() {
+        return lagging;
+    }
+
+    public long getLastBlock() {
+        return lastBlock;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,59 @@
+package ma.fstt.paymentservice.blockchain.transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.web3j.utils.Numeric;
+
+/**
+ * Health check périodique des endpoints RPC
+ *
+ * eth_blockNumber envoyé directement à chaque endpoint (hors sélection) :
+ * mesure la latence, remet en service un endpoint rétabli et écarte un nœud
+ * en retard de plus de max-block-lag blocks sur le meilleur.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RpcEndpointHealthChecker {
+
+    private static final String BLOCK_NUMBER_PAYLOAD =
+            "{\"jsonrpc\":\"2.0\",\"method\":\"eth_blockNumber\",\"params\":[],\"id\":1}";
+
+    private final FailoverHttpService failoverHttpService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${web3.rpc.max-block-lag:5}")
+    private long maxBlockLag;
+
+    @Scheduled(fixedDelayString = "${web3.rpc.health-check-interval-ms:15000}")
+    public void check() {
+        long bestBlock = -1;
+        for (RpcEndpoint endpoint : failoverHttpService.getEndpoints()) {
+            long start = System.nanoTime();
+            try {
+                JsonNode response = objectMapper.readTree(endpoint.post(BLOCK_NUMBER_PAYLOAD));
+                long block = Numeric.decodeQuantity(response.path("result").asText()).longValue();
+                endpoint.recordHealthCheck(true, block, System.nanoTime() - start);
+                bestBlock = Math.max(bestBlock, block);
+            } catch (Exception e) {
+                endpoint.recordHealthCheck(false, -1, 0);
+                log.warn("⚠️ RPC endpoint {} unhealthy: {}", endpoint, e.getMessage());
+            }
+        }
+
+        for (RpcEndpoint endpoint : failoverHttpService.getEndpoints()) {
+            if (endpoint.isHealthy() && bestBlock - endpoint.getLastBlock() > maxBlockLag) {
+                endpoint.markLagging();
+                log.warn("⚠️ RPC endpoint {} lagging: block {} vs {}", endpoint, endpoint.getLastBlock(), bestBlock);
+            }
+            log.debug("RPC endpoint {}: healthy={}, lagging={}, latency={}ms, requests={}, failures={}, throttled={}",
+                    endpoint, endpoint.isHealthy(), endpoint.isLagging(), Math.round(endpoint.getLatencyMs()),
+                    endpoint.getRequests(), endpoint.getFailures(), endpoint.getThrottled());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ma.fstt.paymentservice.blockchain.transport;
+
+import java.io.IOException;
+
+/**
+ * Le fournisseur RPC a répondu HTTP 429 (budget dépassé côté provider)
+ */
+public class RpcRateLimitedException extends IOException {
+
+    private final long retryAfterMs;
+
+    public RpcRateLimitedException(String endpoint, long retryAfterMs) {
+        super("RPC endpoint " + endpoint + " is rate limiting requests");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -4,10 +4,12 @@ package ma.fstt.paymentservice.clients;
 
 
 import ma.fstt.paymentservice.dto.BookingDTO;
+import ma.fstt.paymentservice.dto.BookingReconciliationPageDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @FeignClient(name = "booking-service", url = "${booking.service.url:http://booking-service:8083}")
 public interface BookingServiceClient {
@@ -17,4 +19,15 @@ public interface BookingServiceClient {
             @PathVariable Long bookingId,
             @RequestHeader("X-User-Id") String userId
     );
+
+    /**
+     * Lot de bookings d'id > afterId, triés par id (parcours de réconciliation)
+     * Appel interne : secret partagé X-Internal-Token exigé par BookingService
+     */
+    @GetMapping("/bookings/internal/reconciliation")
+    BookingReconciliationPageDTO getReconciliationBatch(
+            @RequestHeader("X-Internal-Token") String internalToken,
+            @RequestParam("afterId") long afterId,
+            @RequestParam("limit") int limit
+    );
 }
\ No newline at end of file
@@ -14,14 +14,15 @@ import org.springframework.context.annotation.Configuration;
  *
  * Architecture:
  * - 1 Exchange (Topic): payment.exchange
- * - 3 Queues:
+ * - 4 Queues:
  *   1. payment.booking-created.queue (écoute BookingService)
  *   2. payment.confirmed.queue (envoie vers BookingService)
  *   3. payment.failed.queue (envoie vers BookingService)
+ *   4. payment.reorged.queue (envoie vers BookingService)
  *
  * Flow:
  * BookingService → booking.created → PaymentService (écoute)
- * PaymentService → payment.confirmed/failed → BookingService (écoute)
+ * PaymentService → payment.confirmed/failed/reorged → BookingService (écoute)
  */
 @Configuration
 public class RabbitMQConfig {
@@ -35,6 +36,9 @@ public class RabbitMQConfig {
     @Value("${rabbitmq.routing-key.failed}")
     private String failedRoutingKey;
 
+    @Value("${rabbitmq.routing-key.reorged:payment.reorged}")
+    private String reorgedRoutingKey;
+
     /**
      * Exchange principal pour les événements
      * Type: Topic (permet le pattern matching sur routing keys)
@@ -102,6 +106,18 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    /**
+     * ✅ NOUVEAU: Queue des paiements confirmés puis sortis de la chaîne par une réorganisation
+     */
+    @Bean
+    public Queue paymentReorgedQueue() {
+        return QueueBuilder.durable("payment.reorged.queue")
+                .withArgument("x-message-ttl", 86400000) // 24h TTL
+                .withArgument("x-dead-letter-exchange", "rental.dlx")
+                .withArgument("x-dead-letter-routing-key", "payment.reorged.dead")
+                .build();
+    }
+
     /**
      * Binding: payment.confirmed.queue ← payment.confirmed
      */
@@ -130,6 +146,20 @@ public class RabbitMQConfig {
                 .with(failedRoutingKey);
     }
 
+    /**
+     * Binding: payment.reorged.queue ← payment.reorged
+     */
+    @Bean
+    public Binding paymentReorgedBinding(
+            Queue paymentReorgedQueue,
+            TopicExchange paymentExchange
+    ) {
+        return BindingBuilder
+                .bind(paymentReorgedQueue)
+                .to(paymentExchange)
+                .with(reorgedRoutingKey);
+    }
+
     /**
      * Converter JSON pour sérialiser/désérialiser les messages
      * Utilise Jackson pour convertir Map<String, Object> ↔ JSON
@@ -1,12 +1,21 @@
 package ma.fstt.paymentservice.config;
 
 import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.transport.FailoverHttpService;
+import ma.fstt.paymentservice.blockchain.transport.RpcEndpoint;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.methods.response.Web3ClientVersion;
-import org.web3j.protocol.http.HttpService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration Web3j pour la connexion au nœud Ethereum/Polygon
@@ -14,25 +23,107 @@ import org.web3j.protocol.http.HttpService;
  * Provider recommandé: Alchemy
  * - Polygon Amoy (testnet): https://polygon-amoy.g.alchemy.com/v2/YOUR_KEY
  * - Polygon Mainnet: https://polygon-mainnet.g.alchemy.com/v2/YOUR_KEY
+ *
+ * ✅ NOUVEAU : plusieurs providers possibles (web3.rpc.urls, séparés par des virgules)
+ * Sélection par latence, budget de requêtes par provider, bascule automatique en cas d'erreur.
  */
 @Configuration
 @Slf4j
 public class Web3Config {
 
-    @Value("${web3.rpc.url}")
-    private String rpcUrl;
+    @Value("${web3.rpc.urls}")
+    private String rpcUrls;
+
+    // Pool de connexions HTTP partagé par tous les providers
+    @Value("${web3.rpc.pool.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    @Value("${web3.rpc.pool.keep-alive-ms:300000}")
+    private long keepAliveMs;
+
+    // Requêtes en cours (total / par provider), bornées par sémaphores dans le transport
+    @Value("${web3.rpc.pool.max-requests:64}")
+    private int maxRequests;
+
+    @Value("${web3.rpc.pool.max-requests-per-host:32}")
+    private int maxRequestsPerHost;
+
+    @Value("${web3.rpc.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${web3.rpc.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    @Value("${web3.rpc.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    @Value("${web3.rpc.call-timeout-ms:20000}")
+    private long callTimeoutMs;
+
+    // Budget par provider (un batch JSON-RPC compte pour une requête)
+    @Value("${web3.rpc.rate-limit-per-second:25}")
+    private double rateLimitPerSecond;
+
+    @Value("${web3.rpc.burst:50}")
+    private double burst;
+
+    @Value("${web3.rpc.max-consecutive-failures:3}")
+    private int maxConsecutiveFailures;
+
+    @Value("${web3.rpc.failure-cooldown-ms:30000}")
+    private long failureCooldownMs;
+
+    @Value("${web3.rpc.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Client HTTP partagé : pool de connexions keep-alive et timeouts explicites
+     */
+    @Bean
+    public OkHttpClient web3HttpClient() {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .writeTimeout(Duration.ofMillis(writeTimeoutMs))
+                .callTimeout(Duration.ofMillis(callTimeoutMs))
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
+    /**
+     * Transport multi-providers avec bascule
+     */
+    @Bean(destroyMethod = "close")
+    public FailoverHttpService web3Service(OkHttpClient web3HttpClient) {
+        List<String> urls = Arrays.stream(rpcUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .toList();
+
+        List<RpcEndpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "rpc-" + i + " (" + maskUrl(urls.get(i)) + ")";
+            endpoints.add(new RpcEndpoint(name, urls.get(i), web3HttpClient, rateLimitPerSecond, burst,
+                    maxRequestsPerHost, maxConsecutiveFailures, failureCooldownMs));
+            log.info("🔗 RPC endpoint registered: {}", name);
+        }
+
+        return new FailoverHttpService(endpoints, web3HttpClient, maxAttempts, maxRequests);
+    }
 
     /**
      * Créer le client Web3j pour interagir avec la blockchain
      *
-     * @return Instance Web3j connectée au RPC provider
+     * @return Instance Web3j connectée aux RPC providers
      */
     @Bean
-    public Web3j web3j() {
+    public Web3j web3j(FailoverHttpService web3Service) {
 
-        log.info("🔗 Connecting to Ethereum node: {}", maskUrl(rpcUrl));
+        log.info("🔗 Connecting to Ethereum node via {} endpoint(s)", web3Service.getEndpoints().size());
 
-        Web3j web3j = Web3j.build(new HttpService(rpcUrl));
+        Web3j web3j = Web3j.build(web3Service);
 
         try {
             // Vérifier la connexion au nœud
@@ -47,7 +138,7 @@ public class Web3Config {
 
         } catch (Exception e) {
             log.error("❌ Failed to connect to Ethereum node: {}", e.getMessage(), e);
-            log.error("   RPC URL: {}", maskUrl(rpcUrl));
+            log.error("   RPC endpoints: {}", web3Service.getEndpoints());
             log.error("   Please check:");
             log.error("   1. RPC URL is correct");
             log.error("   2. API key is valid");
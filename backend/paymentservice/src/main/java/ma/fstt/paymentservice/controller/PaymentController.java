@@ -3,15 +3,25 @@ package ma.fstt.paymentservice.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.dto.PaymentExportFormat;
 import ma.fstt.paymentservice.dto.PaymentResponseDTO;
 import ma.fstt.paymentservice.dto.PaymentValidationRequestDTO;
+import ma.fstt.paymentservice.repository.PaymentSummaryView;
+import ma.fstt.paymentservice.service.PaymentHistoryService;
 import ma.fstt.paymentservice.service.PaymentService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +41,7 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentHistoryService paymentHistoryService;
     private final RestTemplate restTemplate;  // ✅ CRITIQUE
 
     @Value("${booking.service.url:http://localhost:8083}")
@@ -51,47 +62,85 @@ public class PaymentController {
         log.info("   Contract: {}", request.getContractAddress());
 
         // ✅ VALIDATION SÉCURITÉ
-        try {
-            String url = bookingServiceUrl + "/bookings/" + request.getBookingId();
+        HttpStatus rejection = checkBookingAwaitingPayment(request.getBookingId(), userId);
+        if (rejection != null) {
+            return ResponseEntity.status(rejection).build();
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("X-User-Id", userId);
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
+        // ✅ VALIDATION BLOCKCHAIN
+        PaymentResponseDTO response = paymentService.validatePayment(request);
 
-            ResponseEntity<Map> bookingResponse = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    Map.class
-            );
+        log.info("✅ Payment validation completed with status: {}", response.getStatus());
 
-            Map<String, Object> booking = bookingResponse.getBody();
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(response);
+    }
 
-            if (booking == null || !userId.equals(booking.get("tenantId"))) {
-                log.error("❌ User {} is not the tenant of booking {}", userId, request.getBookingId());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
+    /**
+     * ✅ NOUVEAU : Validation asynchrone d'un paiement blockchain
+     *
+     * Retourne 202 + l'ID du paiement sans attendre le minage de la transaction.
+     * Le suivi se fait via GET /payments/{paymentId} (ou l'événement payment.confirmed/failed).
+     */
+    @PostMapping("/validate/async")
+    public ResponseEntity<PaymentResponseDTO> submitPayment(
+            @Valid @RequestBody PaymentValidationRequestDTO request,
+            @RequestHeader(value = "X-User-Id", required = true) String userId
+    ) {
+        log.info("📥 Received async payment validation request: booking {} tx {} (user: {})",
+                request.getBookingId(), request.getTransactionHash(), userId);
 
-            if (!"AWAITING_PAYMENT".equals(booking.get("status"))) {
-                log.error("❌ Booking {} status is {}", request.getBookingId(), booking.get("status"));
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-            }
+        HttpStatus rejection = checkBookingAwaitingPayment(request.getBookingId(), userId);
+        if (rejection != null) {
+            return ResponseEntity.status(rejection).build();
+        }
 
-            log.info("✅ User authorization verified");
+        PaymentResponseDTO response = paymentService.submitPayment(request);
+
+        // Requête rejouée sur un paiement déjà finalisé → résultat direct
+        HttpStatus status = response.getStatus() == PaymentStatus.PENDING
+                ? HttpStatus.ACCEPTED
+                : HttpStatus.OK;
 
+        return ResponseEntity
+                .status(status)
+                .location(URI.create("/payments/" + response.getPaymentId()))
+                .body(response);
+    }
+
+    /**
+     * Récupérer un paiement (suivi de la validation asynchrone)
+     *
+     * ✅ Réservé au tenant du booking payé (vérifié auprès de BookingService) ;
+     * pour tout autre utilisateur le paiement n'existe pas (404, pas de 403 qui confirmerait l'ID).
+     */
+    @GetMapping("/{paymentId:\\d+}")
+    public ResponseEntity<PaymentResponseDTO> getPayment(
+            @PathVariable Long paymentId,
+            @RequestHeader(value = "X-User-Id", required = true) String userId
+    ) {
+        log.debug("📥 Fetching payment {} (user: {})", paymentId, userId);
+        PaymentResponseDTO payment = paymentService.getPaymentById(paymentId);
+
+        try {
+            Map<String, Object> booking = fetchBooking(payment.getBookingId(), userId);
+            if (booking == null || !userId.equals(booking.get("tenantId"))) {
+                log.warn("⚠️ User {} is not the tenant of payment {} (booking {})",
+                        userId, paymentId, payment.getBookingId());
+                return ResponseEntity.notFound().build();
+            }
+        } catch (HttpClientErrorException e) {
+            // Booking introuvable ou refusé à cet utilisateur par BookingService
+            log.warn("⚠️ Booking {} of payment {} not readable by user {}: {}",
+                    payment.getBookingId(), paymentId, userId, e.getStatusCode());
+            return ResponseEntity.notFound().build();
         } catch (RestClientException e) {
             log.error("❌ Failed to verify booking: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
 
-        // ✅ VALIDATION BLOCKCHAIN
-        PaymentResponseDTO response = paymentService.validatePayment(request);
-
-        log.info("✅ Payment validation completed with status: {}", response.getStatus());
-
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(response);
+        return ResponseEntity.ok(payment);
     }
 
     /**
@@ -111,6 +160,102 @@ public class PaymentController {
         return ResponseEntity.ok(payments);
     }
 
+    /**
+     * ✅ NOUVEAU : Historique paginé des paiements (réconciliation)
+     * Filtres optionnels : wallet du payeur, statut, période de création
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Page<PaymentSummaryView>> searchPayments(
+            @RequestParam(required = false) String fromAddress,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = true) String userId
+    ) {
+        log.debug("📥 Payment search by {}: wallet={}, status={}, {} → {}", userId, fromAddress, status, from, to);
+        return ResponseEntity.ok(paymentHistoryService.search(fromAddress, status, from, to, page, size));
+    }
+
+    /**
+     * ✅ NOUVEAU : Export CSV / NDJSON de l'historique (flux, pas de chargement en mémoire)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String fromAddress,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = "X-User-Id", required = true) String userId
+    ) {
+        PaymentExportFormat exportFormat = PaymentExportFormat.fromParameter(format).orElse(null);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        log.info("📤 Payment export ({}) requested by {}", exportFormat, userId);
+
+        StreamingResponseBody body = out ->
+                paymentHistoryService.export(fromAddress, status, from, to, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("payments." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Vérifier auprès de BookingService que l'utilisateur est le tenant et que le booking attend un paiement
+     *
+     * @return null si autorisé, sinon le statut HTTP à retourner
+     */
+    private HttpStatus checkBookingAwaitingPayment(Long bookingId, String userId) {
+        try {
+            Map<String, Object> booking = fetchBooking(bookingId, userId);
+
+            if (booking == null || !userId.equals(booking.get("tenantId"))) {
+                log.error("❌ User {} is not the tenant of booking {}", userId, bookingId);
+                return HttpStatus.FORBIDDEN;
+            }
+
+            if (!"AWAITING_PAYMENT".equals(booking.get("status"))) {
+                log.error("❌ Booking {} status is {}", bookingId, booking.get("status"));
+                return HttpStatus.BAD_REQUEST;
+            }
+
+            log.info("✅ User authorization verified");
+            return null;
+
+        } catch (RestClientException e) {
+            log.error("❌ Failed to verify booking: {}", e.getMessage());
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Lire un booking auprès de BookingService au nom de l'utilisateur (X-User-Id propagé)
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fetchBooking(Long bookingId, String userId) {
+        String url = bookingServiceUrl + "/bookings/" + bookingId;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-User-Id", userId);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        ResponseEntity<Map> bookingResponse = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                entity,
+                Map.class
+        );
+
+        return bookingResponse.getBody();
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,85 @@
+package ma.fstt.paymentservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Événement du contrat RentalEscrow indexé depuis la blockchain (eth_getLogs)
+ * Alimenté par le ChainEventIndexer, uniquement pour des blocks ayant atteint la profondeur de confirmation.
+ */
+@Entity
+@Table(name = "chain_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chain_event_tx_log",
+                columnNames = {"transactionHash", "logIndex"}),
+        indexes = {
+                @Index(name = "idx_chain_event_tx", columnList = "transactionHash, eventName"),
+                @Index(name = "idx_chain_event_booking", columnList = "contractAddress, bookingId, blockNumber"),
+                @Index(name = "idx_chain_event_block", columnList = "blockNumber")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChainEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Adresse du contrat émetteur (minuscules)
+     */
+    @Column(nullable = false, length = 42)
+    private String contractAddress;
+
+    /**
+     * Nom de l'événement Solidity (Funded, Cancelled, Refunded, Completed, Dispute...)
+     */
+    @Column(nullable = false, length = 32)
+    private String eventName;
+
+    /**
+     * ID de la réservation côté contrat (topic[1])
+     */
+    @Column(nullable = false)
+    private Long bookingId;
+
+    /**
+     * Adresse indexée de l'événement (tenant, owner, initiateur...), topic[2]
+     */
+    @Column(length = 42)
+    private String account;
+
+    /**
+     * Montant principal de l'événement en Wei (Funded: totalAmount, Refunded: amount...)
+     */
+    @Column(precision = 38, scale = 0)
+    private BigDecimal amountWei;
+
+    /**
+     * Donnée texte éventuelle (raison d'un Dispute)
+     */
+    @Column(length = 500)
+    private String detail;
+
+    @Column(nullable = false)
+    private Long blockNumber;
+
+    @Column(nullable = false, length = 66)
+    private String blockHash;
+
+    @Column(nullable = false, length = 66)
+    private String transactionHash;
+
+    @Column(nullable = false)
+    private Integer logIndex;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime indexedAt;
+}
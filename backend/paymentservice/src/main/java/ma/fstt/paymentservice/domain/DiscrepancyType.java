@@ -0,0 +1,47 @@
+package ma.fstt.paymentservice.domain;
+
+/**
+ * Écarts détectés par la réconciliation bookings (BookingService) ↔ paiements ↔ escrow on-chain
+ */
+public enum DiscrepancyType {
+
+    /**
+     * Booking CONFIRMED sans aucun paiement CONFIRMED
+     */
+    BOOKING_CONFIRMED_WITHOUT_PAYMENT,
+
+    /**
+     * Booking CONFIRMED dont le paiement a été annulé par une réorganisation (revalidation en cours ou échouée)
+     */
+    BOOKING_CONFIRMED_PAYMENT_REORGED,
+
+    /**
+     * Paiement CONFIRMED mais booking encore PENDING / AWAITING_PAYMENT (événement payment.confirmed perdu)
+     * Réparable : l'événement est republié, BookingService le traite de façon idempotente.
+     */
+    PAYMENT_NOT_APPLIED,
+
+    /**
+     * Paiement CONFIRMED pour un booking EXPIRED ou CANCELLED (remboursement à traiter)
+     */
+    PAID_BOOKING_CLOSED,
+
+    /**
+     * Fonds encore bloqués dans l'escrow (Funded / Active) pour un booking EXPIRED ou CANCELLED
+     */
+    ESCROW_FUNDED_BOOKING_CLOSED,
+
+    /**
+     * Paiement CONFIRMED alors que l'escrow n'est pas (ou plus) financé (Created / Cancelled)
+     */
+    ESCROW_NOT_FUNDED,
+
+    /**
+     * Paiement CONFIRMED pour un booking inconnu de BookingService
+     */
+    PAYMENT_WITHOUT_BOOKING;
+
+    public boolean isRepairable() {
+        return this == PAYMENT_NOT_APPLIED;
+    }
+}
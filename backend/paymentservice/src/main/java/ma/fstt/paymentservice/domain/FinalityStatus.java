@@ -0,0 +1,25 @@
+package ma.fstt.paymentservice.domain;
+
+/**
+ * Finalité on-chain d'un paiement CONFIRMED
+ *
+ * PENDING_FINALITY → FINAL (N confirmations, hash du block inchangé)
+ * PENDING_FINALITY → REORGED (transaction sortie de la chaîne canonique, paiement revalidé)
+ */
+public enum FinalityStatus {
+
+    /**
+     * Transaction minée, pas encore assez de confirmations
+     */
+    PENDING_FINALITY,
+
+    /**
+     * Profondeur de confirmation atteinte sur la chaîne canonique
+     */
+    FINAL,
+
+    /**
+     * Block de la transaction remplacé par une réorganisation
+     */
+    REORGED
+}
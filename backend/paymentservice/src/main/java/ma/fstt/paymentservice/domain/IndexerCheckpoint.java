@@ -0,0 +1,34 @@
+package ma.fstt.paymentservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point de reprise de l'indexeur d'événements on-chain
+ * Dernier block entièrement indexé et son hash (détection des réorganisations profondes)
+ */
+@Entity
+@Table(name = "chain_indexer_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IndexerCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Long blockNumber;
+
+    @Column(length = 66)
+    private String blockHash;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,33 @@
+package ma.fstt.paymentservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bail d'un traitement planifié exécuté par une seule instance à la fois
+ * (indexeur on-chain, réconciliation...)
+ *
+ * Une ligne par traitement. Une instance le possède tant que leaseUntil est dans le futur ;
+ * elle le renouvelle à chaque passe. Un bail expiré (instance arrêtée) est repris par une autre.
+ */
+@Entity
+@Table(name = "job_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 100)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
@@ -15,7 +15,15 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "payments", indexes = {
         @Index(name = "idx_transaction_hash", columnList = "transactionHash", unique = true),
-        @Index(name = "idx_booking_id", columnList = "bookingId")
+        @Index(name = "idx_booking_id", columnList = "bookingId"),
+        // ✅ NOUVEAU : sélection des paiements PENDING à re-vérifier (validation asynchrone)
+        @Index(name = "idx_status_next_check", columnList = "status, nextCheckAt"),
+        // ✅ NOUVEAU : paiements en attente de finalité, par profondeur
+        @Index(name = "idx_finality_block", columnList = "finality, blockNumber"),
+        // ✅ NOUVEAU : historique / export (par wallet, par statut, par période)
+        @Index(name = "idx_from_address_created", columnList = "fromAddress, createdAt"),
+        @Index(name = "idx_status_created", columnList = "status, createdAt"),
+        @Index(name = "idx_created_at", columnList = "createdAt")
 })
 @Getter
 @Setter
@@ -79,6 +87,25 @@ public class Payment {
     @Column
     private Long blockNumber;
 
+    /**
+     * Hash du block de la transaction (détection des réorganisations)
+     */
+    @Column(length = 66)
+    private String blockHash;
+
+    /**
+     * Finalité on-chain (null pour les paiements non confirmés)
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private FinalityStatus finality;
+
+    /**
+     * Date de passage en FINAL
+     */
+    @Column
+    private LocalDateTime finalizedAt;
+
     /**
      * Date de validation du paiement
      */
@@ -91,6 +118,40 @@ public class Payment {
     @Column(length = 500)
     private String errorMessage;
 
+    /**
+     * ✅ NOUVEAU : Cause typée de l'échec (ou de l'attente de minage) ; errorMessage reste informatif
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private PaymentFailureReason failureReason;
+
+    // ========== VALIDATION ASYNCHRONE ==========
+
+    /**
+     * Nombre de vérifications du receipt déjà effectuées (status PENDING)
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private int validationAttempts = 0;
+
+    /**
+     * Prochaine vérification du receipt (backoff exponentiel)
+     */
+    @Column
+    private LocalDateTime nextCheckAt;
+
+    /**
+     * Au-delà, une transaction toujours pas minée passe en FAILED
+     */
+    @Column
+    private LocalDateTime validationDeadline;
+
+    /**
+     * Verrou optimiste : un paiement n'est finalisé qu'une fois, même avec plusieurs instances
+     */
+    @Version
+    private Long version;
+
     /**
      * Date de création de l'enregistrement
      */
@@ -0,0 +1,47 @@
+package ma.fstt.paymentservice.domain;
+
+/**
+ * Cause typée d'un échec (ou d'une attente prolongée) de validation
+ *
+ * Les décisions (relance, publication de payment.failed) se font sur ce type,
+ * jamais sur le texte de errorMessage.
+ */
+public enum PaymentFailureReason {
+
+    /**
+     * Transaction toujours pas minée à l'échéance de validation
+     * Non définitif : le paiement reste PENDING (sans nouvelle vérification) et aucun payment.failed
+     * n'est publié. Il est relancé si son événement Funded est indexé plus tard.
+     */
+    NOT_MINED,
+
+    /**
+     * Transaction minée mais revert (status 0x0)
+     */
+    TRANSACTION_FAILED,
+
+    /**
+     * Transaction envoyée à un autre contrat que celui attendu
+     */
+    WRONG_CONTRACT,
+
+    /**
+     * Aucun événement Funded dans la transaction
+     */
+    EVENT_NOT_FOUND,
+
+    /**
+     * Montant financé inférieur au montant attendu
+     */
+    AMOUNT_MISMATCH,
+
+    /**
+     * Réservation on-chain pas (ou plus) dans l'état Funded
+     */
+    INVALID_CONTRACT_STATE,
+
+    /**
+     * Erreur technique inattendue
+     */
+    INTERNAL_ERROR
+}
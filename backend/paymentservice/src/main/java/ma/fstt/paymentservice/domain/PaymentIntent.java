@@ -0,0 +1,55 @@
+package ma.fstt.paymentservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Paiement attendu pour un booking (événement booking.created)
+ *
+ * Les bookingIds du contrat ne sont pas ceux de la plateforme : un Funded indexé dont aucun client
+ * n'a envoyé la transaction (callback perdu, onglet fermé) est rattaché à son booking par
+ * (wallet du locataire, montant) parmi les intentions encore ouvertes.
+ */
+@Entity
+@Table(name = "payment_intents", indexes = {
+        @Index(name = "idx_intent_wallet_payment", columnList = "tenantWallet, paymentId")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentIntent {
+
+    /**
+     * ID du booking (une intention par booking)
+     */
+    @Id
+    private Long bookingId;
+
+    /**
+     * Wallet du locataire (minuscules)
+     */
+    @Column(nullable = false, length = 42)
+    private String tenantWallet;
+
+    /**
+     * Montant attendu (Ether)
+     */
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal expectedAmount;
+
+    /**
+     * Paiement créé depuis un Funded indexé (null : intention ouverte)
+     */
+    @Column
+    private Long paymentId;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -17,6 +17,9 @@ public enum PaymentStatus {
     /**
      * En attente de validation
      * Transaction soumise mais pas encore validée
+     * (validation asynchrone : le receipt est vérifié en tâche de fond jusqu'au minage ou timeout)
+     * Au timeout sans minage, le paiement reste PENDING avec failureReason = NOT_MINED, sans nouvelle
+     * vérification : l'indexation de son Funded le relance (pas de payment.failed, le booking n'est pas annulé).
      */
     PENDING,
 
@@ -0,0 +1,56 @@
+package ma.fstt.paymentservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point de reprise de la réconciliation bookings ↔ paiements ↔ escrow
+ * Dernier bookingId entièrement réconcilié : une passe interrompue reprend après lui.
+ */
+@Entity
+@Table(name = "reconciliation_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * Dernier bookingId traité (0 = début de passe)
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long lastBookingId = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long scannedTotal = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long discrepanciesTotal = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long repairsTotal = 0L;
+
+    /**
+     * Nombre de passes complètes
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long completedSweeps = 0L;
+
+    private LocalDateTime lastRunAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,79 @@
+package ma.fstt.paymentservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Écart détecté par la réconciliation, une ligne par (booking, type d'écart)
+ *
+ * Revu à chaque passe : lastSeenAt mis à jour tant que l'écart persiste,
+ * resolvedAt renseigné dès qu'une passe ne le retrouve plus (ligne rouverte s'il réapparaît).
+ */
+@Entity
+@Table(name = "reconciliation_discrepancies",
+        uniqueConstraints = @UniqueConstraint(name = "uk_discrepancy_booking_type",
+                columnNames = {"bookingId", "type"}),
+        indexes = @Index(name = "idx_discrepancy_open", columnList = "resolvedAt, type"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationDiscrepancy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID du booking (référence vers BookingService)
+     */
+    @Column(nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 48)
+    private DiscrepancyType type;
+
+    /**
+     * Paiement concerné (null si le booking n'a aucun paiement)
+     */
+    private Long paymentId;
+
+    /**
+     * États observés lors de la dernière détection
+     */
+    @Column(length = 32)
+    private String bookingStatus;
+
+    @Column(length = 32)
+    private String paymentStatus;
+
+    @Column(length = 16)
+    private String escrowState;
+
+    @Column(length = 500)
+    private String detail;
+
+    /**
+     * Réparations automatiques tentées (republication de payment.confirmed)
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private int repairAttempts = 0;
+
+    private LocalDateTime lastRepairAt;
+
+    @Column(nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lastSeenAt;
+
+    /**
+     * Date à laquelle l'écart n'a plus été observé (null = ouvert)
+     */
+    private LocalDateTime resolvedAt;
+}
@@ -0,0 +1,25 @@
+package ma.fstt.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne du parcours de réconciliation renvoyée par BookingService (GET /bookings/internal/reconciliation)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingReconciliationDTO {
+    private Long id;
+    private String status;
+    private String tenantWalletAddress;
+    private BigDecimal totalPrice;
+    private String currency;
+    private LocalDateTime updatedAt;
+}
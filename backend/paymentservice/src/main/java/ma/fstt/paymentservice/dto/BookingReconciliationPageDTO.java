@@ -0,0 +1,21 @@
+package ma.fstt.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lot du parcours de réconciliation renvoyé par BookingService
+ * hasMore est explicite : BookingService plafonne la taille des lots, un lot court n'est pas la fin du parcours.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingReconciliationPageDTO {
+    private List<BookingReconciliationDTO> items;
+    private boolean hasMore;
+}
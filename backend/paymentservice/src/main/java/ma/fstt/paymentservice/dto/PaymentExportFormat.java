@@ -0,0 +1,38 @@
+package ma.fstt.paymentservice.dto;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Formats d'export de l'historique des paiements
+ */
+public enum PaymentExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    PaymentExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Format à partir du paramètre de requête (casse indifférente)
+     */
+    public static Optional<PaymentExportFormat> fromParameter(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.name().equalsIgnoreCase(value))
+                .findFirst();
+    }
+}
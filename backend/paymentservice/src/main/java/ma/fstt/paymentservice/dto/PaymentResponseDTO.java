@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.PaymentFailureReason;
 import ma.fstt.paymentservice.domain.PaymentStatus;
 
 import java.math.BigDecimal;
@@ -66,6 +68,16 @@ public class PaymentResponseDTO {
      */
     private Long blockNumber;
 
+    /**
+     * Finalité on-chain (PENDING_FINALITY, FINAL, REORGED)
+     */
+    private FinalityStatus finality;
+
+    /**
+     * Date de passage en FINAL
+     */
+    private LocalDateTime finalizedAt;
+
     /**
      * Date de validation du paiement
      */
@@ -81,4 +93,9 @@ public class PaymentResponseDTO {
      * Non inclus dans la réponse si null
      */
     private String errorMessage;
+
+    /**
+     * Cause typée de l'échec (ou NOT_MINED : échéance passée, en attente de l'indexation du Funded)
+     */
+    private PaymentFailureReason failureReason;
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+package ma.fstt.paymentservice.indexer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.ChainHeadTracker;
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.domain.IndexerCheckpoint;
+import ma.fstt.paymentservice.repository.ChainEventRepository;
+import ma.fstt.paymentservice.repository.IndexerCheckpointRepository;
+import ma.fstt.paymentservice.scheduler.JobLeaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Indexeur des événements du contrat RentalEscrow
+ *
+ * - Parcourt la chaîne par plages de blocks (eth_getLogs filtré par adresse + topics)
+ * - N'indexe que les blocks à au moins N confirmations : une réorganisation normale ne touche
+ *   jamais les données indexées
+ * - Checkpoint (block + hash) persisté dans la même transaction que les événements
+ * - Réorganisation plus profonde que N (hash du checkpoint changé) → rembobinage et réindexation
+ * - Plage adaptative : divisée par deux si le provider refuse (trop de résultats), puis réaugmentée
+ * - Une seule instance indexe à la fois (bail en base, {@link JobLeaseManager}), renouvelé avant
+ *   chaque plage : les replicas ne rescannent pas les mêmes blocks et ne se disputent pas le checkpoint
+ *
+ * La validation des paiements lit ensuite chain_events au lieu d'interroger le nœud.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChainEventIndexer {
+
+    static final String CHECKPOINT_NAME = "rental-escrow-events";
+
+    private final Web3j web3j;
+    private final JsonRpcBatcher rpcBatcher;
+    private final ChainHeadTracker chainHeadTracker;
+    private final ChainEventRepository chainEventRepository;
+    private final IndexerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLeaseManager leaseManager;
+
+    @Value("${chain.indexer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chain.indexer.contract-addresses:}")
+    private List<String> contractAddresses;
+
+    @Value("${chain.indexer.start-block:0}")
+    private long startBlock;
+
+    @Value("${chain.indexer.confirmations:12}")
+    private int confirmations;
+
+    @Value("${chain.indexer.max-block-range:2000}")
+    private int maxBlockRange;
+
+    @Value("${chain.indexer.max-ranges-per-run:20}")
+    private int maxRangesPerRun;
+
+    @Value("${chain.indexer.reorg-rewind-blocks:64}")
+    private int reorgRewindBlocks;
+
+    // Plage courante (adaptative), partagée entre deux passes
+    private volatile int blockRange = -1;
+
+    @Scheduled(fixedDelayString = "${chain.indexer.poll-interval-ms:5000}",
+            initialDelayString = "${chain.indexer.initial-delay-ms:10000}")
+    public void poll() {
+        List<String> addresses = contractAddresses.stream()
+                .filter(a -> a != null && !a.isBlank())
+                .toList();
+        if (!enabled || addresses.isEmpty()) {
+            return;
+        }
+        if (!leaseManager.tryAcquire(CHECKPOINT_NAME)) {
+            // Une autre instance indexe
+            return;
+        }
+        if (blockRange <= 0) {
+            blockRange = maxBlockRange;
+        }
+
+        try {
+            // Tête partagée (ChainHeadTracker) : pas d'eth_blockNumber propre à l'indexeur
+            long head = chainHeadTracker.latestBlock();
+            if (head < 0) {
+                return;
+            }
+            long safeHead = head - confirmations;
+
+            IndexerCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_NAME)
+                    .orElseGet(() -> IndexerCheckpoint.builder()
+                            .name(CHECKPOINT_NAME)
+                            .blockNumber(startBlock - 1)
+                            .build());
+            checkpoint = rewindIfReorged(checkpoint);
+
+            int ranges = 0;
+            while (checkpoint.getBlockNumber() < safeHead && ranges < maxRangesPerRun) {
+                long from = checkpoint.getBlockNumber() + 1;
+                long to = Math.min(safeHead, from + blockRange - 1);
+
+                List<Log> logs;
+                String toBlockHash;
+                try {
+                    // Logs + hash du dernier block de la plage : un seul batch JSON-RPC
+                    CompletableFuture<EthLog> logsFuture = rpcBatcher.submit(web3j.ethGetLogs(filter(addresses, from, to)));
+                    CompletableFuture<EthBlock> blockFuture = rpcBatcher.submit(
+                            web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(to)), false));
+                    logs = extractLogs(JsonRpcBatcher.await(logsFuture));
+                    toBlockHash = JsonRpcBatcher.await(blockFuture).getBlock().getHash();
+                } catch (Exception e) {
+                    if (blockRange > 1) {
+                        blockRange = Math.max(1, blockRange / 2);
+                        log.warn("⚠️ eth_getLogs failed for [{}, {}] ({}), retrying with range {}",
+                                from, to, e.getMessage(), blockRange);
+                        continue;
+                    }
+                    throw e;
+                }
+
+                // Bail perdu pendant la passe (pause GC, base lente...) : l'autre instance reprend du checkpoint
+                if (!leaseManager.tryAcquire(CHECKPOINT_NAME)) {
+                    break;
+                }
+                checkpoint = store(checkpoint, from, to, toBlockHash, logs);
+                ranges++;
+
+                // Réaugmenter progressivement après un rétrécissement
+                if (blockRange < maxBlockRange) {
+                    blockRange = Math.min(maxBlockRange, blockRange * 2);
+                }
+            }
+
+            if (ranges > 0) {
+                log.info("⛓️ Chain indexer at block {} (head {}, {} confirmations)",
+                        checkpoint.getBlockNumber(), head, confirmations);
+            }
+
+        } catch (Exception e) {
+            log.error("❌ Chain indexer run failed: {}", JsonRpcBatcher.unwrap(e).getMessage());
+        }
+    }
+
+    /**
+     * Persister les événements d'une plage et avancer le checkpoint (une transaction)
+     * Rejouer une plage est idempotent : ses événements sont d'abord supprimés.
+     */
+    private IndexerCheckpoint store(IndexerCheckpoint checkpoint, long from, long to, String toBlockHash, List<Log> logs) {
+        List<ChainEvent> events = new ArrayList<>();
+        for (Log entry : logs) {
+            RentalEscrowEvents.decode(entry).ifPresent(events::add);
+        }
+
+        IndexerCheckpoint saved = transactionTemplate.execute(status -> {
+            chainEventRepository.deleteByBlockRange(from, to);
+            chainEventRepository.saveAll(events);
+            checkpoint.setBlockNumber(to);
+            checkpoint.setBlockHash(toBlockHash);
+            return checkpointRepository.save(checkpoint);
+        });
+
+        if (!events.isEmpty()) {
+            log.info("📥 Indexed {} event(s) in blocks [{}, {}]", events.size(), from, to);
+            eventPublisher.publishEvent(new ChainEventsIndexedEvent(events));
+        }
+        return saved;
+    }
+
+    /**
+     * Le block du checkpoint a-t-il changé de hash ? (réorganisation plus profonde que la profondeur de confirmation)
+     * Si oui : suppression des événements récents et reprise reorg-rewind-blocks plus tôt.
+     */
+    private IndexerCheckpoint rewindIfReorged(IndexerCheckpoint checkpoint) throws Exception {
+        if (checkpoint.getBlockHash() == null || checkpoint.getBlockNumber() < 0) {
+            return checkpoint;
+        }
+
+        EthBlock.Block block = JsonRpcBatcher.await(rpcBatcher.submit(web3j.ethGetBlockByNumber(
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(checkpoint.getBlockNumber())), false))).getBlock();
+
+        if (block != null && checkpoint.getBlockHash().equalsIgnoreCase(block.getHash())) {
+            return checkpoint;
+        }
+
+        long rewindTo = Math.max(startBlock - 1, checkpoint.getBlockNumber() - reorgRewindBlocks);
+        log.warn("⚠️ Reorg detected at block {} (expected hash {}), rewinding to block {}",
+                checkpoint.getBlockNumber(), checkpoint.getBlockHash(), rewindTo);
+
+        return transactionTemplate.execute(status -> {
+            chainEventRepository.deleteAfterBlock(rewindTo);
+            checkpoint.setBlockNumber(rewindTo);
+            checkpoint.setBlockHash(null);
+            return checkpointRepository.save(checkpoint);
+        });
+    }
+
+    private static EthFilter filter(List<String> addresses, long from, long to) {
+        EthFilter filter = new EthFilter(
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(from)),
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(to)),
+                addresses);
+        // topic[0] ∈ événements suivis (OR)
+        filter.addOptionalTopics(RentalEscrowEvents.topics().toArray(String[]::new));
+        return filter;
+    }
+
+    private static List<Log> extractLogs(EthLog response) {
+        if (response.hasError()) {
+            throw new IllegalStateException("eth_getLogs error: " + response.getError().getMessage());
+        }
+        List<Log> logs = new ArrayList<>(response.getLogs().size());
+        for (EthLog.LogResult<?> result : response.getLogs()) {
+            if (result.get() instanceof Log entry) {
+                logs.add(entry);
+            }
+        }
+        return logs;
+    }
+}
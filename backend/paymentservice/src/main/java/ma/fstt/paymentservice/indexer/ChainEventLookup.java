@@ -0,0 +1,220 @@
+package ma.fstt.paymentservice.indexer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.blockchain.FundedEventData;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.PaymentFailureReason;
+import ma.fstt.paymentservice.domain.PaymentIntent;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.exception.InvalidContractException;
+import ma.fstt.paymentservice.repository.ChainEventRepository;
+import ma.fstt.paymentservice.repository.PaymentIntentRepository;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.web3j.utils.Convert;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Lecture des événements indexés pour la validation des paiements
+ *
+ * Un paiement dont l'événement Funded est déjà indexé est validé sans aucun appel RPC
+ * (ni receipt, ni eth_call sur l'état : l'état courant est le dernier événement de cycle de vie).
+ * À l'indexation d'un Funded, les paiements en attente sur la même transaction sont relancés, et un
+ * Funded sans paiement est rattaché à son booking : un callback client perdu ne bloque plus la réservation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChainEventLookup {
+
+    private final ChainEventRepository chainEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentIntentRepository paymentIntentRepository;
+
+    /**
+     * Même tolérance que la validation (0.01%)
+     */
+    private static final BigDecimal AMOUNT_TOLERANCE_PERCENTAGE = new BigDecimal("0.0001");
+
+    private static final List<PaymentStatus> OPEN_OR_CONFIRMED = List.of(PaymentStatus.PENDING,
+            PaymentStatus.VALIDATING, PaymentStatus.CONFIRMED);
+
+    @Value("${payments.async.timeout-seconds:1800}")
+    private long validationTimeoutSeconds;
+
+    /**
+     * Financement indexé d'une transaction : données de l'événement Funded + état courant de la réservation
+     */
+    public record IndexedFunding(FundedEventData eventData, ContractState state) {
+    }
+
+    /**
+     * Financement indexé pour une transaction, vide si pas (encore) indexé
+     *
+     * @throws InvalidContractException si l'événement vient d'un autre contrat que celui attendu
+     */
+    public Optional<IndexedFunding> findFunding(String contractAddress, String transactionHash) {
+        return chainEventRepository
+                .findFirstByTransactionHashAndEventNameOrderByLogIndexAsc(transactionHash, RentalEscrowEvents.FUNDED)
+                .map(event -> toFunding(contractAddress, event));
+    }
+
+    /**
+     * Financements indexés d'un lot de paiements (une requête), par hash de transaction
+     * Les paiements dont l'événement vient d'un autre contrat sont ignorés (validation RPC classique).
+     */
+    public Map<String, IndexedFunding> findFundings(Collection<Payment> payments) {
+        Map<String, String> contractByTx = new HashMap<>();
+        payments.forEach(p -> contractByTx.put(p.getTransactionHash(), p.getContractAddress()));
+        if (contractByTx.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, IndexedFunding> fundings = new HashMap<>();
+        for (ChainEvent event : chainEventRepository.findByTransactionHashInAndEventName(
+                contractByTx.keySet(), RentalEscrowEvents.FUNDED)) {
+            String expectedContract = contractByTx.get(event.getTransactionHash());
+            if (expectedContract != null && expectedContract.equalsIgnoreCase(event.getContractAddress())) {
+                fundings.putIfAbsent(event.getTransactionHash(), toFunding(expectedContract, event));
+            }
+        }
+        return fundings;
+    }
+
+    /**
+     * Nouveaux Funded indexés
+     * - paiement PENDING sur la transaction → vérifié tout de suite, sans attendre son backoff
+     *   (s'il était en attente faute de minage : nouvelle échéance)
+     * - aucun paiement sur la transaction (callback client perdu) → rattachement au booking par son
+     *   intention de paiement, création du paiement PENDING confirmé ensuite depuis l'index
+     * Les paiements FAILED sont définitifs (payment.failed déjà publié) : jamais relancés.
+     */
+    @EventListener
+    public void onEventsIndexed(ChainEventsIndexedEvent indexed) {
+        Map<String, ChainEvent> fundedByTx = new HashMap<>();
+        for (ChainEvent event : indexed.getEvents()) {
+            if (RentalEscrowEvents.FUNDED.equals(event.getEventName())) {
+                fundedByTx.putIfAbsent(event.getTransactionHash(), event);
+            }
+        }
+        if (fundedByTx.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> knownTxs = new HashSet<>();
+        for (Payment payment : paymentRepository.findByTransactionHashIn(fundedByTx.keySet())) {
+            knownTxs.add(payment.getTransactionHash().toLowerCase());
+            if (payment.getStatus() != PaymentStatus.PENDING) {
+                continue;
+            }
+            if (payment.getFailureReason() == PaymentFailureReason.NOT_MINED) {
+                log.info("🔁 Payment {} funded on-chain after its validation deadline, revalidating", payment.getId());
+                payment.setFailureReason(null);
+                payment.setErrorMessage(null);
+                payment.setValidationDeadline(now.plusSeconds(validationTimeoutSeconds));
+            }
+            payment.setNextCheckAt(now);
+            paymentRepository.save(payment);
+        }
+
+        for (ChainEvent funded : fundedByTx.values()) {
+            if (!knownTxs.contains(funded.getTransactionHash().toLowerCase())) {
+                createFromIntent(funded, now);
+            }
+        }
+    }
+
+    /**
+     * Funded sans paiement : retrouver le booking par (wallet du locataire, montant) et créer le paiement
+     * Ambigu (plusieurs bookings ouverts du même montant) ou inconnu → laissé à la réconciliation.
+     */
+    private void createFromIntent(ChainEvent funded, LocalDateTime now) {
+        if (funded.getAccount() == null || funded.getAmountWei() == null) {
+            return;
+        }
+        BigDecimal fundedAmount = Convert.fromWei(funded.getAmountWei(), Convert.Unit.ETHER);
+
+        List<PaymentIntent> candidates = new ArrayList<>();
+        for (PaymentIntent intent : paymentIntentRepository
+                .findByTenantWalletAndPaymentIdIsNullOrderByCreatedAtAsc(funded.getAccount().toLowerCase())) {
+            BigDecimal minAcceptable = intent.getExpectedAmount()
+                    .subtract(intent.getExpectedAmount().multiply(AMOUNT_TOLERANCE_PERCENTAGE));
+            if (fundedAmount.compareTo(minAcceptable) >= 0
+                    && !paymentRepository.existsByBookingIdAndStatusIn(intent.getBookingId(), OPEN_OR_CONFIRMED)) {
+                candidates.add(intent);
+            }
+        }
+
+        if (candidates.size() != 1) {
+            log.warn("⚠️ Funded tx {} has no payment and {} matching booking(s) for wallet {}, left to reconciliation",
+                    funded.getTransactionHash(), candidates.size(), funded.getAccount());
+            return;
+        }
+
+        PaymentIntent intent = candidates.get(0);
+        Payment payment = Payment.builder()
+                .bookingId(intent.getBookingId())
+                .transactionHash(funded.getTransactionHash())
+                .contractAddress(funded.getContractAddress())
+                .status(PaymentStatus.PENDING)
+                .currency("ETH")
+                .amount(intent.getExpectedAmount()) // Montant attendu jusqu'à confirmation
+                .nextCheckAt(now)
+                .validationDeadline(now.plusSeconds(validationTimeoutSeconds))
+                .build();
+
+        try {
+            payment = paymentRepository.saveAndFlush(payment);
+        } catch (DataIntegrityViolationException e) {
+            // Le callback client est arrivé entre-temps : son paiement sera confirmé normalement
+            log.debug("Payment for tx {} created concurrently", funded.getTransactionHash());
+            return;
+        }
+
+        intent.setPaymentId(payment.getId());
+        paymentIntentRepository.save(intent);
+        log.info("📇 Funded tx {} without client callback attached to booking {} (payment {})",
+                funded.getTransactionHash(), intent.getBookingId(), payment.getId());
+    }
+
+    private IndexedFunding toFunding(String contractAddress, ChainEvent funded) {
+        if (!funded.getContractAddress().equalsIgnoreCase(contractAddress)) {
+            throw new InvalidContractException("Payment sent to wrong contract address.");
+        }
+
+        FundedEventData eventData = new FundedEventData(
+                funded.getAccount(),
+                Convert.fromWei(funded.getAmountWei(), Convert.Unit.ETHER),
+                BigInteger.valueOf(funded.getBlockNumber()),
+                funded.getBlockHash(),
+                funded.getBookingId()
+        );
+
+        ContractState state = chainEventRepository
+                .findFirstByContractAddressAndBookingIdAndEventNameInOrderByBlockNumberDescLogIndexDesc(
+                        funded.getContractAddress(), funded.getBookingId(),
+                        RentalEscrowEvents.stateTransitions().keySet())
+                .map(event -> RentalEscrowEvents.stateTransitions().get(event.getEventName()))
+                .orElse(ContractState.Funded);
+
+        return new IndexedFunding(eventData, state);
+    }
+}
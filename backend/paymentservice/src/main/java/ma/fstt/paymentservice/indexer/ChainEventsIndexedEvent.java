@@ -0,0 +1,17 @@
+package ma.fstt.paymentservice.indexer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ma.fstt.paymentservice.domain.ChainEvent;
+
+import java.util.List;
+
+/**
+ * Événement Spring publié après l'indexation d'une plage de blocks (hors transaction)
+ */
+@Getter
+@RequiredArgsConstructor
+public class ChainEventsIndexedEvent {
+
+    private final List<ChainEvent> events;
+}
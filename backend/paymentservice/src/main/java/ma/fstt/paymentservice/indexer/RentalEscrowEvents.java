@@ -0,0 +1,135 @@
+package ma.fstt.paymentservice.indexer;
+
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.blockchain.EscrowLogDecoder;
+import ma.fstt.paymentservice.blockchain.generated.RentalEscrowMulti;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Événements du contrat RentalEscrow (blockchain/contracts/RentalEscrow.sol) suivis par l'indexeur
+ *
+ * Tous ont bookingId en topic[1] ; topic[2] (si présent) est l'adresse concernée.
+ * Les définitions viennent des bindings générés depuis l'ABI du contrat (RentalEscrowMulti) :
+ * une évolution du contrat est prise en compte au build, sans hash codé en dur.
+ */
+public final class RentalEscrowEvents {
+
+    public static final String BOOKING_CREATED = "BookingCreated";
+    public static final String FUNDED = "Funded";
+    public static final String LEASE_STARTED = "LeaseStarted";
+    public static final String COMPLETED = "Completed";
+    public static final String CANCELLED = "Cancelled";
+    public static final String REFUNDED = "Refunded";
+    public static final String DISPUTE = "Dispute";
+
+    /**
+     * Événement suivi + position de son montant principal (mot de la data) et de son détail texte (-1 : aucun)
+     */
+    private record Definition(Event event, String topic, byte[] topicBytes, int amountIndex, int detailIndex) {
+
+        Definition(Event event, int amountIndex, int detailIndex) {
+            this(event, EventEncoder.encode(event), EscrowLogDecoder.topic(event), amountIndex, detailIndex);
+        }
+    }
+
+    private static final List<Definition> DEFINITIONS = List.of(
+            // BookingCreated(uint256 indexed bookingId, address indexed owner, address indexed tenant, uint256 rentAmount, uint256 leaseStart, uint256 leaseEnd)
+            new Definition(RentalEscrowMulti.BOOKINGCREATED_EVENT, 0, -1),
+            // Funded(uint256 indexed bookingId, address indexed tenant, uint256 totalAmount, uint256 platformFee, uint256 ownerAmount)
+            new Definition(RentalEscrowMulti.FUNDED_EVENT, 0, -1),
+            // LeaseStarted(uint256 indexed bookingId, uint256 startDate)
+            new Definition(RentalEscrowMulti.LEASESTARTED_EVENT, -1, -1),
+            // Completed(uint256 indexed bookingId, address indexed owner, uint256 ownerAmount, uint256 platformAmount)
+            new Definition(RentalEscrowMulti.COMPLETED_EVENT, 0, -1),
+            // Cancelled(uint256 indexed bookingId, address indexed by)
+            new Definition(RentalEscrowMulti.CANCELLED_EVENT, -1, -1),
+            // Refunded(uint256 indexed bookingId, address indexed tenant, uint256 amount)
+            new Definition(RentalEscrowMulti.REFUNDED_EVENT, 0, -1),
+            // Dispute(uint256 indexed bookingId, address indexed initiator, string reason)
+            new Definition(RentalEscrowMulti.DISPUTE_EVENT, -1, 0)
+    );
+
+    /**
+     * Événements qui font changer l'état de la réservation, et l'état résultant
+     */
+    private static final Map<String, ContractState> STATE_TRANSITIONS = Map.of(
+            BOOKING_CREATED, ContractState.Created,
+            FUNDED, ContractState.Funded,
+            LEASE_STARTED, ContractState.Active,
+            COMPLETED, ContractState.Completed,
+            CANCELLED, ContractState.Cancelled
+    );
+
+    private RentalEscrowEvents() {
+    }
+
+    /**
+     * Topics (topic[0]) de tous les événements suivis, pour le filtre eth_getLogs
+     */
+    public static List<String> topics() {
+        return DEFINITIONS.stream().map(Definition::topic).toList();
+    }
+
+    public static Map<String, ContractState> stateTransitions() {
+        return STATE_TRANSITIONS;
+    }
+
+    /**
+     * Décoder un log en ChainEvent (vide si l'événement n'est pas suivi)
+     */
+    public static Optional<ChainEvent> decode(Log log) {
+        List<String> topics = log.getTopics();
+        if (topics == null || topics.size() < 2 || log.isRemoved()) {
+            return Optional.empty();
+        }
+        Definition definition = find(topics.get(0));
+        if (definition == null) {
+            return Optional.empty();
+        }
+
+        BigDecimal amountWei = null;
+        if (definition.amountIndex() >= 0 && EscrowLogDecoder.wordCount(log.getData()) > definition.amountIndex()) {
+            amountWei = new BigDecimal(EscrowLogDecoder.uint256(EscrowLogDecoder.data(log.getData()), definition.amountIndex()));
+        }
+        // Seul type dynamique (Dispute.reason) : décodage ABI générique, événement rare
+        String detail = definition.detailIndex() >= 0
+                ? truncate((String) FunctionReturnDecoder.decode(log.getData(), definition.event().getNonIndexedParameters())
+                        .get(definition.detailIndex()).getValue(), 500)
+                : null;
+
+        return Optional.of(ChainEvent.builder()
+                .contractAddress(log.getAddress().toLowerCase())
+                .eventName(definition.event().getName())
+                .bookingId(EscrowLogDecoder.topicAsLong(topics.get(1)))
+                .account(topics.size() > 2 ? EscrowLogDecoder.topicAsAddress(topics.get(2)) : null)
+                .amountWei(amountWei)
+                .detail(detail)
+                .blockNumber(log.getBlockNumber().longValue())
+                .blockHash(log.getBlockHash())
+                .transactionHash(log.getTransactionHash())
+                .logIndex(log.getLogIndex().intValue())
+                .build());
+    }
+
+    private static Definition find(String topic) {
+        for (Definition definition : DEFINITIONS) {
+            if (EscrowLogDecoder.topicEquals(topic, definition.topicBytes())) {
+                return definition;
+            }
+        }
+        return null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -3,31 +3,49 @@ package ma.fstt.paymentservice.listener;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.domain.PaymentIntent;
+import ma.fstt.paymentservice.repository.PaymentIntentRepository;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class BookingEventListener {
 
+    private final PaymentIntentRepository paymentIntentRepository;
+
     /**
      * ✅ NOUVEAU : Écoute les bookings créées
-     * Envoie une notification ou prépare le payment intent
+     * Enregistre le paiement attendu (wallet du locataire, montant) : un Funded indexé sans callback
+     * client est rattaché au booking par cette intention (voir ChainEventLookup)
      */
     @RabbitListener(queues = "payment.booking-created.queue")
     public void handleBookingCreated(JsonNode bookingEvent) {
         try {
             Long bookingId = bookingEvent.get("id").asLong();
             String totalPrice = bookingEvent.get("totalPrice").asText();
+            String wallet = bookingEvent.path("tenantWalletAddress").asText(null);
 
             log.info("📬 New booking received: {} - Amount: {}",
                     bookingId, totalPrice);
 
-            // TODO: Créer payment intent, envoyer notification, etc.
+            if (wallet == null || wallet.isBlank()) {
+                log.warn("⚠️ Booking {} has no tenant wallet, no payment intent recorded", bookingId);
+                return;
+            }
+
+            // Redélivrance du même événement : même ligne (clé = bookingId), paiement déjà rattaché conservé
+            PaymentIntent intent = paymentIntentRepository.findById(bookingId)
+                    .orElseGet(() -> PaymentIntent.builder().bookingId(bookingId).build());
+            intent.setTenantWallet(wallet.toLowerCase());
+            intent.setExpectedAmount(new BigDecimal(totalPrice));
+            paymentIntentRepository.save(intent);
 
         } catch (Exception e) {
             log.error("❌ Error processing booking created event", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,11 +3,13 @@ package ma.fstt.paymentservice.messaging;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.ReconciliationDiscrepancy;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -32,6 +34,12 @@ public class RabbitMQProducer {
     @Value("${rabbitmq.routing-key.failed}")
     private String failedRoutingKey;
 
+    @Value("${rabbitmq.routing-key.reorged:payment.reorged}")
+    private String reorgedRoutingKey;
+
+    @Value("${rabbitmq.routing-key.reconciliation-discrepancy:reconciliation.discrepancy}")
+    private String discrepancyRoutingKey;
+
     /**
      * Publie un événement payment.confirmed
      *
@@ -98,4 +106,60 @@ public class RabbitMQProducer {
                     payment.getBookingId(), e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * ✅ NOUVEAU : Publie un événement payment.reorged
+     * Paiement déjà confirmé dont la transaction a disparu de la chaîne canonique :
+     * BookingService repasse le booking CONFIRMED en AWAITING_PAYMENT.
+     *
+     * @param payment Payment revenu en PENDING (finality REORGED)
+     * @param reason Raison (block abandonné)
+     */
+    public void publishPaymentReorged(Payment payment, String reason) {
+
+        Map<String, Object> payload = Map.of(
+                "bookingId", payment.getBookingId(),
+                "transactionId", payment.getTransactionHash(),
+                "status", "REORGED",
+                "reason", reason,
+                "timestamp", LocalDateTime.now().toString()
+        );
+
+        try {
+            rabbitTemplate.convertAndSend(exchange, reorgedRoutingKey, payload);
+            log.info("📨 Published payment.reorged event for booking {} (tx {})",
+                    payment.getBookingId(), payment.getTransactionHash());
+        } catch (Exception e) {
+            log.error("❌ Failed to publish payment.reorged event for booking {}: {}",
+                    payment.getBookingId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * ✅ NOUVEAU : Publie un événement reconciliation.discrepancy (nouvel écart détecté)
+     * Consommable par l'administration / le support ; aucune action automatique côté BookingService.
+     *
+     * @param discrepancy Écart détecté par la réconciliation
+     */
+    public void publishReconciliationDiscrepancy(ReconciliationDiscrepancy discrepancy) {
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("bookingId", discrepancy.getBookingId());
+        payload.put("type", discrepancy.getType().name());
+        payload.put("paymentId", discrepancy.getPaymentId());
+        payload.put("bookingStatus", discrepancy.getBookingStatus());
+        payload.put("paymentStatus", discrepancy.getPaymentStatus());
+        payload.put("escrowState", discrepancy.getEscrowState());
+        payload.put("detail", discrepancy.getDetail());
+        payload.put("timestamp", LocalDateTime.now().toString());
+
+        try {
+            rabbitTemplate.convertAndSend(exchange, discrepancyRoutingKey, payload);
+            log.info("📨 Published reconciliation.discrepancy {} for booking {}",
+                    discrepancy.getType(), discrepancy.getBookingId());
+        } catch (Exception e) {
+            log.error("❌ Failed to publish reconciliation.discrepancy for booking {}: {}",
+                    discrepancy.getBookingId(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ma.fstt.paymentservice.reconciliation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
+import ma.fstt.paymentservice.blockchain.RentalEscrowContract;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.indexer.RentalEscrowEvents;
+import ma.fstt.paymentservice.repository.ChainEventRepository;
+import ma.fstt.paymentservice.repository.PaymentReconciliationView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * État escrow on-chain d'un lot de paiements, pour la réconciliation
+ *
+ * Les bookingIds du contrat ne sont pas ceux de la plateforme : l'escrow ne peut pas être lu
+ * comme une troisième source triée par bookingId. Il est résolu lot par lot depuis les événements
+ * indexés (chain_events) : Funded par hash de transaction, puis dernier événement de cycle de vie
+ * par (contrat, réservation) — deux requêtes par contrat et par lot, aucun appel RPC.
+ * Contrats historiques (un contrat par booking, non indexés) : eth_call state() en batch, optionnel.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EscrowStateResolver {
+
+    private final ChainEventRepository chainEventRepository;
+    private final RentalEscrowContract escrowContract;
+
+    @Value("${reconciliation.escrow.rpc-fallback:false}")
+    private boolean rpcFallback;
+
+    /**
+     * @return État escrow par id de paiement (absent si inconnu)
+     */
+    public Map<Long, ContractState> resolve(Collection<PaymentReconciliationView> payments) {
+        Map<String, PaymentReconciliationView> paymentByTx = new HashMap<>();
+        for (PaymentReconciliationView payment : payments) {
+            if (payment.getTransactionHash() != null) {
+                paymentByTx.put(payment.getTransactionHash(), payment);
+            }
+        }
+        if (paymentByTx.isEmpty()) {
+            return Map.of();
+        }
+
+        // 1. Funded indexés des transactions du lot (une requête)
+        Map<Long, ChainEvent> fundedByPayment = new HashMap<>();
+        Map<String, Set<Long>> chainBookingIdsByContract = new HashMap<>();
+        for (ChainEvent event : chainEventRepository.findByTransactionHashInAndEventName(
+                paymentByTx.keySet(), RentalEscrowEvents.FUNDED)) {
+            PaymentReconciliationView payment = paymentByTx.get(event.getTransactionHash());
+            if (payment != null && event.getContractAddress().equalsIgnoreCase(payment.getContractAddress())
+                    && fundedByPayment.putIfAbsent(payment.getId(), event) == null) {
+                chainBookingIdsByContract.computeIfAbsent(event.getContractAddress(), c -> new HashSet<>())
+                        .add(event.getBookingId());
+            }
+        }
+
+        // 2. État courant = dernier événement de cycle de vie (une requête par contrat)
+        Map<String, ContractState> latestStates = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : chainBookingIdsByContract.entrySet()) {
+            for (ChainEvent event : chainEventRepository.findLifecycleEvents(
+                    entry.getKey(), entry.getValue(), RentalEscrowEvents.stateTransitions().keySet())) {
+                latestStates.put(stateKey(event.getContractAddress(), event.getBookingId()),
+                        RentalEscrowEvents.stateTransitions().get(event.getEventName()));
+            }
+        }
+
+        Map<Long, ContractState> states = new HashMap<>();
+        fundedByPayment.forEach((paymentId, funded) -> states.put(paymentId, latestStates.getOrDefault(
+                stateKey(funded.getContractAddress(), funded.getBookingId()), ContractState.Funded)));
+
+        if (rpcFallback) {
+            resolveLegacy(payments, states);
+        }
+        return states;
+    }
+
+    /**
+     * Paiements confirmés sans Funded indexé : état du contrat par booking, eth_call regroupés
+     */
+    private void resolveLegacy(Collection<PaymentReconciliationView> payments, Map<Long, ContractState> states) {
+        Map<Long, CompletableFuture<ContractState>> lookups = new HashMap<>();
+        for (PaymentReconciliationView payment : payments) {
+            if (payment.getStatus() == PaymentStatus.CONFIRMED && !states.containsKey(payment.getId())) {
+                lookups.put(payment.getId(), escrowContract.getContractStateAsync(payment.getContractAddress(), 0));
+            }
+        }
+        for (Map.Entry<Long, CompletableFuture<ContractState>> entry : lookups.entrySet()) {
+            try {
+                states.put(entry.getKey(), JsonRpcBatcher.await(entry.getValue()));
+            } catch (Exception e) {
+                // Contrat multi-réservations non indexé, ou RPC indisponible : état laissé inconnu
+                log.debug("Escrow state unavailable for payment {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private static String stateKey(String contractAddress, Long bookingId) {
+        return contractAddress.toLowerCase() + "#" + bookingId;
+    }
+}
@@ -0,0 +1,89 @@
+package ma.fstt.paymentservice.reconciliation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Curseur trié sur une source lue par lots (pagination par clé, jamais d'OFFSET)
+ * Un seul lot en mémoire à la fois : le lot suivant est chargé après le dernier élément consommé.
+ */
+final class KeysetCursor<T> {
+
+    /**
+     * Lot suivant après le dernier élément lu (null : depuis le point de reprise)
+     */
+    @FunctionalInterface
+    interface BatchLoader<T> {
+        Batch<T> load(T last, int limit);
+    }
+
+    /**
+     * Lot lu et indication explicite d'une suite (une source peut renvoyer moins que la limite demandée)
+     */
+    record Batch<T>(List<T> items, boolean hasMore) {
+
+        /**
+         * Source qui respecte toujours la limite : un lot plein peut avoir une suite
+         */
+        static <T> Batch<T> ofLimit(List<T> items, int limit) {
+            return new Batch<>(items, items.size() >= limit);
+        }
+    }
+
+    private final BatchLoader<T> loader;
+    private final ToLongFunction<T> keyFunction;
+    private final int batchSize;
+    private final ArrayDeque<T> buffer = new ArrayDeque<>();
+
+    private T last;
+    private boolean exhausted;
+
+    KeysetCursor(BatchLoader<T> loader, ToLongFunction<T> keyFunction, int batchSize) {
+        this.loader = loader;
+        this.keyFunction = keyFunction;
+        this.batchSize = batchSize;
+    }
+
+    boolean hasNext() {
+        fill();
+        return !buffer.isEmpty();
+    }
+
+    /**
+     * Clé du prochain élément, Long.MAX_VALUE si la source est épuisée
+     */
+    long peekKey() {
+        return hasNext() ? keyFunction.applyAsLong(buffer.peekFirst()) : Long.MAX_VALUE;
+    }
+
+    T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = buffer.pollFirst();
+        return last;
+    }
+
+    /**
+     * Tous les éléments consécutifs d'une clé (éventuellement répartis sur deux lots)
+     */
+    List<T> nextGroup(long key) {
+        List<T> group = new ArrayList<>(1);
+        while (hasNext() && keyFunction.applyAsLong(buffer.peekFirst()) == key) {
+            group.add(next());
+        }
+        return group;
+    }
+
+    private void fill() {
+        if (!buffer.isEmpty() || exhausted) {
+            return;
+        }
+        Batch<T> batch = loader.load(last, batchSize);
+        buffer.addAll(batch.items());
+        exhausted = !batch.hasMore() || batch.items().isEmpty();
+    }
+}
@@ -0,0 +1,292 @@
+package ma.fstt.paymentservice.reconciliation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.clients.BookingServiceClient;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.domain.ReconciliationCheckpoint;
+import ma.fstt.paymentservice.domain.ReconciliationDiscrepancy;
+import ma.fstt.paymentservice.dto.BookingReconciliationDTO;
+import ma.fstt.paymentservice.dto.BookingReconciliationPageDTO;
+import ma.fstt.paymentservice.messaging.RabbitMQProducer;
+import ma.fstt.paymentservice.repository.PaymentReconciliationView;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import ma.fstt.paymentservice.repository.ReconciliationCheckpointRepository;
+import ma.fstt.paymentservice.repository.ReconciliationDiscrepancyRepository;
+import ma.fstt.paymentservice.scheduler.JobLeaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réconciliation bookings (BookingService, Postgres) ↔ paiements (MySQL) ↔ escrow on-chain
+ *
+ * Merge-join par bookingId de deux flux triés lus par lots (pagination par clé, jamais d'OFFSET) :
+ * - bookings : GET /bookings/internal/reconciliation?afterId=...
+ * - paiements : keyset (bookingId, id) sur idx_booking_id
+ * L'état escrow est résolu par fenêtre depuis chain_events (voir {@link EscrowStateResolver}).
+ *
+ * Mémoire bornée : une fenêtre de N bookingIds à la fois, quel que soit le volume total.
+ * Reprise : le dernier bookingId réconcilié est persisté après chaque fenêtre (reconciliation_checkpoints).
+ * Écarts : une ligne par (booking, type) dans reconciliation_discrepancies, événement
+ * reconciliation.discrepancy à la première détection, résolus automatiquement quand ils disparaissent.
+ * Réparation automatique : paiement confirmé non appliqué → payment.confirmed republié (idempotent côté booking).
+ * Plusieurs instances : une seule passe à la fois (bail en base {@link JobLeaseManager}, renouvelé à chaque fenêtre),
+ * sinon deux passes avanceraient le même checkpoint et publieraient deux fois les mêmes écarts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationJob {
+
+    static final String CHECKPOINT_NAME = "bookings-payments-escrow";
+
+    private final BookingServiceClient bookingServiceClient;
+    private final PaymentRepository paymentRepository;
+    private final EscrowStateResolver escrowStateResolver;
+    private final ReconciliationDiscrepancyRepository discrepancyRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final RabbitMQProducer rabbitMQProducer;
+    private final JobLeaseManager leaseManager;
+
+    @Value("${internal.api.token:}")
+    private String internalApiToken;
+
+    @Value("${reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${reconciliation.max-keys-per-run:100000}")
+    private int maxKeysPerRun;
+
+    @Value("${reconciliation.pause-between-batches-ms:100}")
+    private long pauseBetweenBatchesMs;
+
+    @Value("${reconciliation.auto-repair.enabled:true}")
+    private boolean autoRepair;
+
+    @Value("${reconciliation.auto-repair.max-attempts:3}")
+    private int maxRepairAttempts;
+
+    /**
+     * Bookings et paiements d'un même bookingId (booking null : inconnu de BookingService)
+     */
+    private record KeyGroup(long bookingId, BookingReconciliationDTO booking, List<PaymentReconciliationView> payments) {
+    }
+
+    private record Detected(KeyGroup group, ReconciliationRules.Finding finding) {
+    }
+
+    /**
+     * Passe de réconciliation (par défaut toutes les 15 minutes), reprise au dernier point de reprise
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.interval-ms:900000}",
+            initialDelayString = "${reconciliation.initial-delay-ms:120000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        if (!leaseManager.tryAcquire(CHECKPOINT_NAME)) {
+            log.debug("Reconciliation lease held by another instance, skipping");
+            return;
+        }
+
+        ReconciliationCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> ReconciliationCheckpoint.builder().name(CHECKPOINT_NAME).build());
+        long start = checkpoint.getLastBookingId();
+
+        KeysetCursor<BookingReconciliationDTO> bookings = new KeysetCursor<>(
+                (last, limit) -> {
+                    // BookingService plafonne la taille des lots : la suite est indiquée par hasMore
+                    BookingReconciliationPageDTO page = bookingServiceClient.getReconciliationBatch(
+                            internalApiToken, last != null ? last.getId() : start, limit);
+                    return new KeysetCursor.Batch<>(page.getItems(), page.isHasMore());
+                },
+                BookingReconciliationDTO::getId, batchSize);
+        KeysetCursor<PaymentReconciliationView> payments = new KeysetCursor<>(
+                (last, limit) -> KeysetCursor.Batch.ofLimit(last != null
+                        ? paymentRepository.findReconciliationBatch(
+                                last.getBookingId(), last.getId(), PageRequest.of(0, limit))
+                        : paymentRepository.findReconciliationBatch(
+                                start, Long.MAX_VALUE, PageRequest.of(0, limit)), limit),
+                PaymentReconciliationView::getBookingId, batchSize);
+
+        log.info("🔎 Reconciliation started (resume after booking {})", start);
+
+        int scanned = 0;
+        int found = 0;
+        int repaired = 0;
+
+        try {
+            while (scanned < maxKeysPerRun) {
+                List<KeyGroup> window = nextWindow(bookings, payments);
+                boolean endOfSweep = window.size() < batchSize;
+                long after = checkpoint.getLastBookingId();
+                long last = endOfSweep ? Long.MAX_VALUE : window.get(window.size() - 1).bookingId();
+
+                // Bail perdu (pause GC, base lente...) : l'autre instance reprend du dernier checkpoint
+                if (!leaseManager.tryAcquire(CHECKPOINT_NAME)) {
+                    break;
+                }
+                int[] result = reconcileWindow(window, after, last);
+                scanned += window.size();
+                found += result[0];
+                repaired += result[1];
+
+                // Checkpoint après chaque fenêtre : un crash ne fait perdre qu'une fenêtre de travail
+                checkpoint.setLastBookingId(endOfSweep ? 0L : last);
+                checkpoint.setScannedTotal(checkpoint.getScannedTotal() + window.size());
+                checkpoint.setDiscrepanciesTotal(checkpoint.getDiscrepanciesTotal() + result[0]);
+                checkpoint.setRepairsTotal(checkpoint.getRepairsTotal() + result[1]);
+                checkpoint.setLastRunAt(LocalDateTime.now());
+                if (endOfSweep) {
+                    checkpoint.setCompletedSweeps(checkpoint.getCompletedSweeps() + 1);
+                }
+                checkpoint = checkpointRepository.save(checkpoint);
+
+                if (endOfSweep) {
+                    break;
+                }
+                Thread.sleep(pauseBetweenBatchesMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("❌ Reconciliation failed, will resume after booking {}", checkpoint.getLastBookingId(), e);
+        } finally {
+            leaseManager.release(CHECKPOINT_NAME);
+        }
+
+        log.info("🔎 Reconciliation done: scanned={}, new discrepancies={}, repairs={}, next after booking {}",
+                scanned, found, repaired, checkpoint.getLastBookingId());
+    }
+
+    /**
+     * Fenêtre suivante du merge-join : jusqu'à batchSize bookingIds distincts, dans l'ordre
+     */
+    private List<KeyGroup> nextWindow(KeysetCursor<BookingReconciliationDTO> bookings,
+                                      KeysetCursor<PaymentReconciliationView> payments) {
+        List<KeyGroup> window = new ArrayList<>(batchSize);
+        while (window.size() < batchSize) {
+            long key = Math.min(bookings.peekKey(), payments.peekKey());
+            if (key == Long.MAX_VALUE) {
+                break;
+            }
+            BookingReconciliationDTO booking = bookings.peekKey() == key ? bookings.next() : null;
+            window.add(new KeyGroup(key, booking, payments.nextGroup(key)));
+        }
+        return window;
+    }
+
+    /**
+     * Appliquer les règles à une fenêtre et mettre à jour les écarts de la plage ]after, last]
+     *
+     * @return {nouveaux écarts, réparations}
+     */
+    private int[] reconcileWindow(List<KeyGroup> window, long after, long last) {
+        List<PaymentReconciliationView> windowPayments = new ArrayList<>();
+        window.forEach(group -> windowPayments.addAll(group.payments()));
+        Map<Long, ContractState> escrowStates = escrowStateResolver.resolve(windowPayments);
+
+        Map<String, Detected> findings = new LinkedHashMap<>();
+        for (KeyGroup group : window) {
+            for (ReconciliationRules.Finding finding
+                    : ReconciliationRules.evaluate(group.booking(), group.payments(), escrowStates)) {
+                findings.put(key(group.bookingId(), finding.type().name()), new Detected(group, finding));
+            }
+        }
+
+        // Écarts déjà connus de la plage (une requête) : mis à jour, rouverts ou résolus
+        Map<String, ReconciliationDiscrepancy> known = new HashMap<>();
+        for (ReconciliationDiscrepancy discrepancy
+                : discrepancyRepository.findByBookingIdGreaterThanAndBookingIdLessThanEqual(after, last)) {
+            known.put(key(discrepancy.getBookingId(), discrepancy.getType().name()), discrepancy);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ReconciliationDiscrepancy> toSave = new ArrayList<>();
+        List<ReconciliationDiscrepancy> opened = new ArrayList<>();
+        int repaired = 0;
+
+        for (Map.Entry<String, Detected> entry : findings.entrySet()) {
+            KeyGroup group = entry.getValue().group();
+            ReconciliationRules.Finding finding = entry.getValue().finding();
+            ReconciliationDiscrepancy discrepancy = known.remove(entry.getKey());
+
+            if (discrepancy == null || discrepancy.getResolvedAt() != null) {
+                if (discrepancy == null) {
+                    discrepancy = ReconciliationDiscrepancy.builder()
+                            .bookingId(group.bookingId())
+                            .type(finding.type())
+                            .build();
+                }
+                discrepancy.setDetectedAt(now);
+                discrepancy.setResolvedAt(null);
+                discrepancy.setRepairAttempts(0);
+                opened.add(discrepancy);
+            }
+
+            discrepancy.setPaymentId(finding.payment() != null ? finding.payment().getId() : null);
+            discrepancy.setBookingStatus(group.booking() != null ? group.booking().getStatus() : null);
+            discrepancy.setPaymentStatus(finding.payment() != null ? finding.payment().getStatus().name() : null);
+            discrepancy.setEscrowState(finding.escrowState() != null ? finding.escrowState().name() : null);
+            discrepancy.setDetail(finding.detail());
+            discrepancy.setLastSeenAt(now);
+
+            if (autoRepair && finding.type().isRepairable() && finding.payment() != null
+                    && discrepancy.getRepairAttempts() < maxRepairAttempts && repair(finding.payment())) {
+                discrepancy.setRepairAttempts(discrepancy.getRepairAttempts() + 1);
+                discrepancy.setLastRepairAt(now);
+                repaired++;
+            }
+            toSave.add(discrepancy);
+        }
+
+        // Écarts connus non retrouvés dans cette passe : résolus
+        for (ReconciliationDiscrepancy discrepancy : known.values()) {
+            if (discrepancy.getResolvedAt() == null) {
+                discrepancy.setResolvedAt(now);
+                toSave.add(discrepancy);
+            }
+        }
+
+        if (!toSave.isEmpty()) {
+            discrepancyRepository.saveAll(toSave);
+        }
+        opened.forEach(rabbitMQProducer::publishReconciliationDiscrepancy);
+        if (!opened.isEmpty()) {
+            log.warn("⚠️ {} new reconciliation discrepancies in bookings ]{}, {}]", opened.size(), after, last);
+        }
+        return new int[]{opened.size(), repaired};
+    }
+
+    /**
+     * Republier payment.confirmed pour un paiement confirmé que BookingService n'a pas appliqué
+     */
+    private boolean repair(PaymentReconciliationView view) {
+        return paymentRepository.findById(view.getId())
+                .filter(payment -> payment.getStatus() == PaymentStatus.CONFIRMED)
+                .map(payment -> {
+                    log.info("🔁 Republishing payment.confirmed for booking {} (payment {})",
+                            payment.getBookingId(), payment.getId());
+                    rabbitMQProducer.publishPaymentConfirmed(payment);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private static String key(long bookingId, String type) {
+        return bookingId + ":" + type;
+    }
+}
@@ -0,0 +1,97 @@
+package ma.fstt.paymentservice.reconciliation;
+
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.domain.DiscrepancyType;
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.dto.BookingReconciliationDTO;
+import ma.fstt.paymentservice.repository.PaymentReconciliationView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Règles de réconciliation d'un booking : état BookingService, paiements, état escrow
+ * Fonction pure (aucun accès base / réseau), appliquée à chaque clé du merge-join.
+ */
+final class ReconciliationRules {
+
+    private static final Set<String> AWAITING = Set.of("PENDING", "AWAITING_PAYMENT");
+    private static final Set<String> CLOSED = Set.of("EXPIRED", "CANCELLED");
+    private static final Set<ContractState> HOLDING_FUNDS = Set.of(ContractState.Funded, ContractState.Active);
+    private static final Set<ContractState> NOT_FUNDED = Set.of(ContractState.Created, ContractState.Cancelled);
+
+    /**
+     * Écart constaté ; payment peut être null (booking sans paiement)
+     */
+    record Finding(DiscrepancyType type, PaymentReconciliationView payment, ContractState escrowState, String detail) {
+    }
+
+    private ReconciliationRules() {
+    }
+
+    /**
+     * @param booking Booking (null : inconnu de BookingService)
+     * @param payments Paiements du booking, par id croissant
+     * @param escrowStates État escrow par id de paiement (absent si inconnu)
+     */
+    static List<Finding> evaluate(BookingReconciliationDTO booking, List<PaymentReconciliationView> payments,
+                                  Map<Long, ContractState> escrowStates) {
+        PaymentReconciliationView confirmed = null;
+        PaymentReconciliationView reorged = null;
+        for (PaymentReconciliationView payment : payments) {
+            if (payment.getStatus() == PaymentStatus.CONFIRMED) {
+                confirmed = payment;
+            } else if (payment.getFinality() == FinalityStatus.REORGED && reorged == null) {
+                reorged = payment;
+            }
+        }
+
+        // État escrow : celui du paiement confirmé, sinon de n'importe quel paiement financé on-chain
+        PaymentReconciliationView funded = confirmed;
+        ContractState escrow = confirmed != null ? escrowStates.get(confirmed.getId()) : null;
+        for (int i = payments.size() - 1; escrow == null && i >= 0; i--) {
+            funded = payments.get(i);
+            escrow = escrowStates.get(funded.getId());
+        }
+
+        List<Finding> findings = new ArrayList<>(1);
+        if (booking == null) {
+            if (confirmed != null) {
+                findings.add(new Finding(DiscrepancyType.PAYMENT_WITHOUT_BOOKING, confirmed, escrow,
+                        "Confirmed payment for a booking unknown to BookingService"));
+            }
+            return findings;
+        }
+
+        String status = booking.getStatus() != null ? booking.getStatus() : "";
+        if ("CONFIRMED".equals(status) && confirmed == null) {
+            findings.add(reorged != null
+                    ? new Finding(DiscrepancyType.BOOKING_CONFIRMED_PAYMENT_REORGED, reorged, escrow,
+                            "Booking confirmed on a payment dropped by a chain reorganization")
+                    : new Finding(DiscrepancyType.BOOKING_CONFIRMED_WITHOUT_PAYMENT, null, escrow,
+                            "Booking confirmed without any confirmed payment"));
+        } else if (AWAITING.contains(status) && confirmed != null) {
+            findings.add(new Finding(DiscrepancyType.PAYMENT_NOT_APPLIED, confirmed, escrow,
+                    "Payment confirmed but booking still " + status));
+        } else if (CLOSED.contains(status)) {
+            if (escrow != null && HOLDING_FUNDS.contains(escrow)) {
+                findings.add(new Finding(DiscrepancyType.ESCROW_FUNDED_BOOKING_CLOSED, funded, escrow,
+                        "Escrow still " + escrow + " for a booking " + status));
+            } else if (confirmed != null && escrow != ContractState.Cancelled && escrow != ContractState.Completed) {
+                findings.add(new Finding(DiscrepancyType.PAID_BOOKING_CLOSED, confirmed, escrow,
+                        "Payment confirmed for a booking " + status));
+            }
+        }
+
+        // Escrow du paiement confirmé lui-même non financé (ou annulé) alors que le booking est actif
+        if (confirmed != null && funded == confirmed && escrow != null
+                && NOT_FUNDED.contains(escrow) && !CLOSED.contains(status)) {
+            findings.add(new Finding(DiscrepancyType.ESCROW_NOT_FUNDED, confirmed, escrow,
+                    "Payment confirmed but escrow is " + escrow));
+        }
+        return findings;
+    }
+}
@@ -0,0 +1,74 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.ChainEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository des événements on-chain indexés
+ */
+@Repository
+public interface ChainEventRepository extends JpaRepository<ChainEvent, Long> {
+
+    /**
+     * Événement d'une transaction (ex: Funded pour valider un paiement sans RPC)
+     *
+     * @param transactionHash Hash de la transaction
+     * @param eventName Nom de l'événement
+     * @return Premier événement correspondant
+     */
+    Optional<ChainEvent> findFirstByTransactionHashAndEventNameOrderByLogIndexAsc(
+            String transactionHash, String eventName);
+
+    /**
+     * Événements d'un type pour un lot de transactions (validation asynchrone par lots)
+     */
+    List<ChainEvent> findByTransactionHashInAndEventName(Collection<String> transactionHashes, String eventName);
+
+    /**
+     * Dernier événement de cycle de vie d'une réservation (état courant du contrat)
+     *
+     * @param contractAddress Adresse du contrat (minuscules)
+     * @param bookingId ID de la réservation côté contrat
+     * @param eventNames Événements qui changent l'état
+     * @return Événement le plus récent
+     */
+    Optional<ChainEvent> findFirstByContractAddressAndBookingIdAndEventNameInOrderByBlockNumberDescLogIndexDesc(
+            String contractAddress, Long bookingId, Collection<String> eventNames);
+
+    /**
+     * Événements de cycle de vie d'un lot de réservations d'un contrat (réconciliation, une requête par lot)
+     * Index idx_chain_event_booking ; l'état courant de chaque réservation est son dernier événement.
+     *
+     * @param contractAddress Adresse du contrat (minuscules)
+     * @param bookingIds IDs des réservations côté contrat
+     * @param eventNames Événements qui changent l'état
+     * @return Événements triés par réservation puis ordre chronologique
+     */
+    @Query("SELECT e FROM ChainEvent e WHERE e.contractAddress = :contractAddress AND e.bookingId IN :bookingIds "
+            + "AND e.eventName IN :eventNames ORDER BY e.bookingId ASC, e.blockNumber ASC, e.logIndex ASC")
+    List<ChainEvent> findLifecycleEvents(@Param("contractAddress") String contractAddress,
+                                         @Param("bookingIds") Collection<Long> bookingIds,
+                                         @Param("eventNames") Collection<String> eventNames);
+
+    /**
+     * Supprimer les événements d'une plage de blocks (réindexation, réorganisation)
+     */
+    @Modifying
+    @Query("DELETE FROM ChainEvent e WHERE e.blockNumber >= :fromBlock AND e.blockNumber <= :toBlock")
+    int deleteByBlockRange(@Param("fromBlock") long fromBlock, @Param("toBlock") long toBlock);
+
+    /**
+     * Supprimer les événements au-delà d'un block (rembobinage après réorganisation)
+     */
+    @Modifying
+    @Query("DELETE FROM ChainEvent e WHERE e.blockNumber > :blockNumber")
+    int deleteAfterBlock(@Param("blockNumber") long blockNumber);
+}
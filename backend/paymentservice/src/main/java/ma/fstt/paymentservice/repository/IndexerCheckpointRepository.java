@@ -0,0 +1,12 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.IndexerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository des points de reprise de l'indexeur on-chain
+ */
+@Repository
+public interface IndexerCheckpointRepository extends JpaRepository<IndexerCheckpoint, String> {
+}
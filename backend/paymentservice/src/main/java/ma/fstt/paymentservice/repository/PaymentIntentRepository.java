@@ -0,0 +1,23 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.PaymentIntent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository des paiements attendus (rattachement des Funded sans callback client)
+ */
+@Repository
+public interface PaymentIntentRepository extends JpaRepository<PaymentIntent, Long> {
+
+    /**
+     * Intentions encore ouvertes d'un wallet
+     * Index idx_intent_wallet_payment
+     *
+     * @param tenantWallet Wallet du locataire (minuscules)
+     * @return Intentions sans paiement rattaché, les plus anciennes d'abord
+     */
+    List<PaymentIntent> findByTenantWalletAndPaymentIdIsNullOrderByCreatedAtAsc(String tenantWallet);
+}
@@ -0,0 +1,22 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+
+/**
+ * Projection minimale du parcours de réconciliation (trié par bookingId puis id)
+ */
+public interface PaymentReconciliationView {
+
+    Long getId();
+
+    Long getBookingId();
+
+    String getTransactionHash();
+
+    String getContractAddress();
+
+    PaymentStatus getStatus();
+
+    FinalityStatus getFinality();
+}
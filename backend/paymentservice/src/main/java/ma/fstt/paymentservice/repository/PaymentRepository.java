@@ -1,12 +1,26 @@
 package ma.fstt.paymentservice.repository;
 
+import ma.fstt.paymentservice.domain.FinalityStatus;
 import ma.fstt.paymentservice.domain.Payment;
 import ma.fstt.paymentservice.domain.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Repository pour l'accès aux données Payment
@@ -59,4 +73,122 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      * @return Nombre de tentatives
      */
     long countByBookingId(Long bookingId);
-}
\ No newline at end of file
+
+    /**
+     * ✅ NOUVEAU : Paiements en attente dont la vérification est due (validation asynchrone)
+     * Index idx_status_next_check, taille du lot fixée par le Pageable
+     *
+     * @param status PENDING
+     * @param now Date courante
+     * @param pageable Taille du lot
+     * @return Paiements à re-vérifier, les plus en retard d'abord
+     */
+    List<Payment> findByStatusAndNextCheckAtLessThanEqualOrderByNextCheckAtAsc(
+            PaymentStatus status, LocalDateTime now, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU : Paiements de plusieurs transactions (tous statuts)
+     * Utilisé à l'indexation d'événements Funded : relancer la validation, repérer les Funded sans paiement
+     *
+     * @param transactionHashes Hashes de transaction
+     * @return Paiements correspondants
+     */
+    List<Payment> findByTransactionHashIn(Collection<String> transactionHashes);
+
+    /**
+     * Un booking a-t-il déjà un paiement dans l'un de ces statuts ? (rattachement d'un Funded sans callback)
+     * Index idx_booking_id
+     */
+    boolean existsByBookingIdAndStatusIn(Long bookingId, Collection<PaymentStatus> statuses);
+
+    /**
+     * ✅ NOUVEAU : Paiements en attente de finalité ayant atteint une profondeur donnée
+     * Index idx_finality_block, taille du lot fixée par le Pageable
+     *
+     * @param finality PENDING_FINALITY
+     * @param maxBlockNumber Dernier block ayant N confirmations
+     * @param pageable Taille du lot
+     * @return Paiements à finaliser, les plus anciens d'abord
+     */
+    List<Payment> findByFinalityAndBlockNumberLessThanEqualOrderByBlockNumberAsc(
+            FinalityStatus finality, Long maxBlockNumber, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU : Parcours par clé (bookingId, id) pour la réconciliation, sans OFFSET
+     * Index idx_booking_id (InnoDB y ajoute la clé primaire : l'ordre (bookingId, id) est celui de l'index)
+     *
+     * @param bookingId bookingId du dernier paiement lu (point de reprise au départ)
+     * @param id id du dernier paiement lu (Long.MAX_VALUE au départ : bookingId strictement supérieur)
+     * @param pageable Taille du lot
+     * @return Paiements suivants, triés par bookingId puis id
+     */
+    @Query("SELECT p.id AS id, p.bookingId AS bookingId, p.transactionHash AS transactionHash, "
+            + "p.contractAddress AS contractAddress, p.status AS status, p.finality AS finality "
+            + "FROM Payment p WHERE p.bookingId >= :bookingId AND (p.bookingId > :bookingId OR p.id > :id) "
+            + "ORDER BY p.bookingId ASC, p.id ASC")
+    List<PaymentReconciliationView> findReconciliationBatch(@Param("bookingId") Long bookingId,
+                                                            @Param("id") Long id,
+                                                            Pageable pageable);
+
+    // ========== HISTORIQUE (projections, pagination) ==========
+    // Une méthode par combinaison de filtres : chacune suit son index (pas de "(:x IS NULL OR ...)")
+
+    /**
+     * ✅ NOUVEAU : Paiements d'un wallet sur une période
+     * Index idx_from_address_created
+     *
+     * @param fromAddress Adresse du payeur (minuscules)
+     * @param from Début de période (inclus)
+     * @param to Fin de période (incluse)
+     * @param pageable Page et tri
+     * @return Page de projections
+     */
+    Page<PaymentSummaryView> findByFromAddressAndCreatedAtBetween(
+            String fromAddress, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU : Paiements d'un wallet dans un statut, sur une période
+     * Index idx_from_address_created (le statut est filtré sur les lignes du wallet)
+     */
+    Page<PaymentSummaryView> findByFromAddressAndStatusAndCreatedAtBetween(
+            String fromAddress, PaymentStatus status, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU : Paiements dans un statut sur une période
+     * Index idx_status_created
+     */
+    Page<PaymentSummaryView> findByStatusAndCreatedAtBetween(
+            PaymentStatus status, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    /**
+     * ✅ NOUVEAU : Tous les paiements d'une période
+     * Index idx_created_at
+     */
+    Page<PaymentSummaryView> findByCreatedAtBetween(LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    // ========== EXPORT (streaming) ==========
+    // Fetch size Integer.MIN_VALUE : MySQL Connector/J renvoie les lignes au fil de l'eau au lieu
+    // de charger tout le résultat en mémoire. À consommer dans une transaction, Stream fermé après usage.
+
+    /**
+     * ✅ NOUVEAU : Export des paiements d'un wallet (flux, mêmes index que l'historique)
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<PaymentSummaryView> streamByFromAddressAndCreatedAtBetween(
+            String fromAddress, LocalDateTime from, LocalDateTime to, Sort sort);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<PaymentSummaryView> streamByFromAddressAndStatusAndCreatedAtBetween(
+            String fromAddress, PaymentStatus status, LocalDateTime from, LocalDateTime to, Sort sort);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<PaymentSummaryView> streamByStatusAndCreatedAtBetween(
+            PaymentStatus status, LocalDateTime from, LocalDateTime to, Sort sort);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<PaymentSummaryView> streamByCreatedAtBetween(LocalDateTime from, LocalDateTime to, Sort sort);
+}
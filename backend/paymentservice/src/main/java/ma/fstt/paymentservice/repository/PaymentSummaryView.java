@@ -0,0 +1,39 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection en lecture seule de l'historique des paiements (colonnes utiles seulement, pas d'entité managée)
+ */
+public interface PaymentSummaryView {
+
+    Long getId();
+
+    Long getBookingId();
+
+    String getTransactionHash();
+
+    String getContractAddress();
+
+    String getFromAddress();
+
+    BigDecimal getAmount();
+
+    String getCurrency();
+
+    PaymentStatus getStatus();
+
+    FinalityStatus getFinality();
+
+    Long getBlockNumber();
+
+    String getErrorMessage();
+
+    LocalDateTime getValidatedAt();
+
+    LocalDateTime getCreatedAt();
+}
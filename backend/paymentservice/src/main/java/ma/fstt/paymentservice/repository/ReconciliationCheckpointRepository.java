@@ -0,0 +1,12 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository des points de reprise de la réconciliation
+ */
+@Repository
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, String> {
+}
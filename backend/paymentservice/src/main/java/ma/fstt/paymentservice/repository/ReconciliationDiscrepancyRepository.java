@@ -0,0 +1,25 @@
+package ma.fstt.paymentservice.repository;
+
+import ma.fstt.paymentservice.domain.ReconciliationDiscrepancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository des écarts de réconciliation
+ */
+@Repository
+public interface ReconciliationDiscrepancyRepository extends JpaRepository<ReconciliationDiscrepancy, Long> {
+
+    /**
+     * Écarts (ouverts ou résolus) d'une plage de bookings déjà parcourue
+     * Index uk_discrepancy_booking_type (préfixe bookingId)
+     *
+     * @param afterBookingId Borne basse exclue (point de reprise précédent)
+     * @param lastBookingId Borne haute incluse (dernier booking de la fenêtre)
+     * @return Écarts de la plage
+     */
+    List<ReconciliationDiscrepancy> findByBookingIdGreaterThanAndBookingIdLessThanEqual(
+            Long afterBookingId, Long lastBookingId);
+}
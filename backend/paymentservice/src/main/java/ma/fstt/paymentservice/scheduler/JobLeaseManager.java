@@ -0,0 +1,87 @@
+package ma.fstt.paymentservice.scheduler;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exclusion mutuelle des traitements planifiés entre instances (baux en base)
+ *
+ * Chaque passe commence par {@link #tryAcquire(String)} : UPDATE conditionnel, une seule instance
+ * obtient le bail. Les traitements longs le renouvellent entre deux lots et s'arrêtent s'il est perdu,
+ * pour que deux instances n'avancent jamais le même checkpoint en même temps
+ * (à la dérive d'horloge près, couverte par la durée du bail).
+ */
+@Component
+@Slf4j
+public class JobLeaseManager {
+
+    private final JobLeaseRepository leaseRepository;
+    private final String ownerId;
+    private final long leaseSeconds;
+
+    private final Set<String> initialized = ConcurrentHashMap.newKeySet();
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    public JobLeaseManager(JobLeaseRepository leaseRepository,
+                           @Value("${jobs.lease.owner-id:${HOSTNAME:}}") String ownerId,
+                           @Value("${jobs.lease.seconds:120}") long leaseSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.ownerId = StringUtils.hasText(ownerId) ? ownerId : "payment-" + UUID.randomUUID();
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Prendre ou renouveler le bail d'un traitement
+     *
+     * @return true si cette instance possède le bail pour les leaseSeconds à venir
+     */
+    public boolean tryAcquire(String job) {
+        if (initialized.add(job)) {
+            leaseRepository.insertIfAbsent(job);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean acquired = leaseRepository.claim(job, ownerId, now, now.plusSeconds(leaseSeconds)) == 1;
+        if (acquired && held.add(job)) {
+            log.info("🔒 Lease on job {} acquired by {}", job, ownerId);
+        } else if (!acquired && held.remove(job)) {
+            log.warn("⚠️ Lost lease on job {}", job);
+        }
+        return acquired;
+    }
+
+    /**
+     * Rendre le bail (fin de passe) : une autre instance peut prendre la suivante sans attendre l'expiration
+     */
+    public void release(String job) {
+        if (held.remove(job)) {
+            leaseRepository.release(job, ownerId);
+        }
+    }
+
+    /**
+     * Arrêt propre : rendre les baux tout de suite plutôt qu'attendre leur expiration
+     */
+    @PreDestroy
+    public void releaseAll() {
+        try {
+            held.forEach(job -> leaseRepository.release(job, ownerId));
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release job leases on shutdown: {}", e.getMessage());
+        }
+        held.clear();
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+}
@@ -0,0 +1,45 @@
+package ma.fstt.paymentservice.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.service.PaymentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validation asynchrone des paiements
+ *
+ * Vérifie périodiquement les receipts des paiements PENDING, par lots,
+ * jusqu'au minage de la transaction ou au timeout (payments.async.*).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PendingPaymentValidator {
+
+    private final PaymentService paymentService;
+
+    @Value("${payments.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payments.async.batch-size:50}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${payments.async.poll-interval-ms:2000}")
+    public void pollPendingPayments() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            // Lot complet → il reste probablement du travail, on enchaîne sans attendre
+            int checked;
+            do {
+                checked = paymentService.validatePendingPayments();
+            } while (checked >= batchSize);
+        } catch (Exception e) {
+            log.error("❌ Pending payment validation failed", e);
+        }
+    }
+}
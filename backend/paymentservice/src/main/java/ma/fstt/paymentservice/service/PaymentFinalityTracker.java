@@ -0,0 +1,182 @@
+package ma.fstt.paymentservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
+import ma.fstt.paymentservice.blockchain.NewHeadEvent;
+import ma.fstt.paymentservice.blockchain.RentalEscrowContract;
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.messaging.RabbitMQProducer;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Suivi de la finalité des paiements confirmés : PENDING_FINALITY → FINAL
+ *
+ * Piloté par {@link NewHeadEvent} (une seule tête suivie pour tout le service) :
+ * - seuls les paiements ayant atteint N confirmations sont examinés (index finality + blockNumber)
+ * - un hash canonique par NUMÉRO de block, pas par paiement : des milliers de paiements
+ *   répartis sur quelques blocks coûtent quelques eth_getBlockByNumber, regroupés en batch
+ * - hash identique → FINAL sans autre appel ; hash différent → receipt relu :
+ *   transaction re-minée ailleurs → nouveau block suivi ; disparue → REORGED, paiement revalidé (PENDING)
+ *   et payment.reorged publié (le booking confirmé repasse en attente de paiement)
+ * - block pas (encore) servi par le nœud (hash canonique inconnu) : paiement laissé tel quel, revu au block suivant
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentFinalityTracker {
+
+    private final PaymentRepository paymentRepository;
+    private final RentalEscrowContract escrowContract;
+    private final Web3j web3j;
+    private final JsonRpcBatcher rpcBatcher;
+    private final RabbitMQProducer rabbitMQProducer;
+
+    @Value("${payments.finality.confirmations:12}")
+    private int confirmations;
+
+    @Value("${payments.finality.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payments.finality.max-batches-per-head:10}")
+    private int maxBatchesPerHead;
+
+    @Value("${payments.async.timeout-seconds:1800}")
+    private long validationTimeoutSeconds;
+
+    @EventListener
+    public void onNewHead(NewHeadEvent head) {
+        long finalBlock = head.getBlockNumber() - confirmations;
+        if (finalBlock < 0) {
+            return;
+        }
+
+        int finalized = 0;
+        int reorged = 0;
+        for (int batch = 0; batch < maxBatchesPerHead; batch++) {
+            List<Payment> payments = paymentRepository.findByFinalityAndBlockNumberLessThanEqualOrderByBlockNumberAsc(
+                    FinalityStatus.PENDING_FINALITY, finalBlock, PageRequest.of(0, batchSize));
+            if (payments.isEmpty()) {
+                break;
+            }
+
+            int[] result;
+            try {
+                result = process(payments);
+            } catch (Exception e) {
+                log.warn("⚠️ Finality check failed at head {}: {}", head.getBlockNumber(),
+                        JsonRpcBatcher.unwrap(e).getMessage());
+                break;
+            }
+            finalized += result[0];
+            reorged += result[1];
+
+            if (payments.size() < batchSize || result[0] + result[1] == 0) {
+                // Lot incomplet, ou rien n'a changé d'état (transactions re-minées) : la suite au prochain block
+                break;
+            }
+        }
+
+        if (finalized + reorged > 0) {
+            log.info("🏁 Head {}: {} payment(s) final, {} reorged", head.getBlockNumber(), finalized, reorged);
+        }
+    }
+
+    /**
+     * @return {finalisés, réorganisés}
+     */
+    private int[] process(List<Payment> payments) throws Exception {
+        // Un hash canonique par numéro de block distinct, tous demandés dans le même batch
+        Map<Long, CompletableFuture<EthBlock>> blockLookups = new HashMap<>();
+        for (Payment payment : payments) {
+            blockLookups.computeIfAbsent(payment.getBlockNumber(), number -> rpcBatcher.submit(
+                    web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(number)), false)));
+        }
+        Map<Long, String> canonicalHashes = new HashMap<>();
+        for (Map.Entry<Long, CompletableFuture<EthBlock>> entry : blockLookups.entrySet()) {
+            EthBlock.Block block = JsonRpcBatcher.await(entry.getValue()).getBlock();
+            canonicalHashes.put(entry.getKey(), block != null ? block.getHash() : null);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int finalized = 0;
+        int reorged = 0;
+
+        for (Payment payment : payments) {
+            String canonical = canonicalHashes.get(payment.getBlockNumber());
+            if (canonical == null) {
+                // Nœud en retard ou block introuvable : rien à comparer, revu au prochain block
+                log.debug("No canonical hash for block {} yet, payment {} retried later",
+                        payment.getBlockNumber(), payment.getId());
+                continue;
+            }
+            try {
+                if (canonical.equalsIgnoreCase(payment.getBlockHash())) {
+                    payment.setFinality(FinalityStatus.FINAL);
+                    payment.setFinalizedAt(now);
+                    paymentRepository.save(payment);
+                    finalized++;
+                } else if (payment.getBlockHash() == null) {
+                    // Confirmé avant le suivi des hashes : on adopte le hash canonique actuel
+                    payment.setBlockHash(canonical);
+                    paymentRepository.save(payment);
+                } else if (reverify(payment, now)) {
+                    reorged++;
+                }
+            } catch (ObjectOptimisticLockingFailureException e) {
+                log.debug("Payment {} updated concurrently, skipping", payment.getId());
+            }
+        }
+        return new int[]{finalized, reorged};
+    }
+
+    /**
+     * Le block du paiement n'est plus canonique : relire le receipt
+     *
+     * @return true si la transaction a disparu de la chaîne (paiement REORGED)
+     */
+    private boolean reverify(Payment payment, LocalDateTime now) throws Exception {
+        Optional<TransactionReceipt> receipt = escrowContract.findTransactionReceipt(payment.getTransactionHash());
+
+        if (receipt.isPresent() && "0x1".equals(receipt.get().getStatus())) {
+            log.warn("⚠️ Payment {} re-mined in block {} after reorg (was {})",
+                    payment.getId(), receipt.get().getBlockNumber(), payment.getBlockNumber());
+            payment.setBlockNumber(receipt.get().getBlockNumber().longValue());
+            payment.setBlockHash(receipt.get().getBlockHash());
+            paymentRepository.save(payment);
+            return false;
+        }
+
+        // Transaction absente (ou échouée) sur la nouvelle chaîne : revalidation asynchrone complète
+        log.error("❌ Payment {} (tx {}) dropped by a chain reorganization, revalidating",
+                payment.getId(), payment.getTransactionHash());
+        payment.setFinality(FinalityStatus.REORGED);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setValidationAttempts(0);
+        payment.setNextCheckAt(now);
+        payment.setValidationDeadline(now.plusSeconds(validationTimeoutSeconds));
+        paymentRepository.save(payment);
+        rabbitMQProducer.publishPaymentReorged(payment,
+                "Block " + payment.getBlockNumber() + " (" + payment.getBlockHash() + ") is no longer canonical");
+        return true;
+    }
+}
@@ -0,0 +1,190 @@
+package ma.fstt.paymentservice.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.dto.PaymentExportFormat;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import ma.fstt.paymentservice.repository.PaymentSummaryView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Historique des paiements (réconciliation, finance)
+ *
+ * - Recherche paginée par wallet, statut et période : projections, une requête par index.
+ * - Export CSV / NDJSON en flux : les lignes sont lues (curseur MySQL) et écrites au fil de l'eau,
+ *   la mémoire utilisée ne dépend pas du nombre de paiements exportés.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentHistoryService {
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private static final String CSV_HEADER = "id,bookingId,transactionHash,contractAddress,fromAddress,amount,currency,"
+            + "status,finality,blockNumber,validatedAt,createdAt,errorMessage";
+
+    private final PaymentRepository paymentRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${payments.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Recherche paginée (plus récents d'abord)
+     *
+     * @param fromAddress Wallet du payeur (optionnel)
+     * @param status Statut (optionnel)
+     * @param from Début de période (optionnel, inclus)
+     * @param to Fin de période (optionnel, incluse, maintenant par défaut)
+     */
+    @Transactional(readOnly = true)
+    public Page<PaymentSummaryView> search(String fromAddress, PaymentStatus status, LocalDateTime from,
+                                           LocalDateTime to, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize), DEFAULT_SORT);
+        String wallet = normalizeAddress(fromAddress);
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+
+        if (wallet != null) {
+            return status != null
+                    ? paymentRepository.findByFromAddressAndStatusAndCreatedAtBetween(wallet, status, start, end, pageRequest)
+                    : paymentRepository.findByFromAddressAndCreatedAtBetween(wallet, start, end, pageRequest);
+        }
+        return status != null
+                ? paymentRepository.findByStatusAndCreatedAtBetween(status, start, end, pageRequest)
+                : paymentRepository.findByCreatedAtBetween(start, end, pageRequest);
+    }
+
+    /**
+     * Export en flux vers la réponse HTTP, mêmes filtres que la recherche
+     *
+     * @return Nombre de paiements exportés
+     */
+    @Transactional(readOnly = true)
+    public long export(String fromAddress, PaymentStatus status, LocalDateTime from, LocalDateTime to,
+                       PaymentExportFormat format, OutputStream out) throws IOException {
+        String wallet = normalizeAddress(fromAddress);
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+
+        long rows = 0;
+        try (Stream<PaymentSummaryView> payments = stream(wallet, status, start, end)) {
+            rows = format == PaymentExportFormat.CSV
+                    ? writeCsv(payments, out)
+                    : writeNdjson(payments, out);
+        }
+
+        log.info("📤 Exported {} payment(s) as {} (wallet={}, status={}, {} → {})",
+                rows, format, wallet, status, start, end);
+        return rows;
+    }
+
+    private Stream<PaymentSummaryView> stream(String wallet, PaymentStatus status, LocalDateTime start, LocalDateTime end) {
+        if (wallet != null) {
+            return status != null
+                    ? paymentRepository.streamByFromAddressAndStatusAndCreatedAtBetween(wallet, status, start, end, DEFAULT_SORT)
+                    : paymentRepository.streamByFromAddressAndCreatedAtBetween(wallet, start, end, DEFAULT_SORT);
+        }
+        return status != null
+                ? paymentRepository.streamByStatusAndCreatedAtBetween(status, start, end, DEFAULT_SORT)
+                : paymentRepository.streamByCreatedAtBetween(start, end, DEFAULT_SORT);
+    }
+
+    private long writeCsv(Stream<PaymentSummaryView> payments, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long rows = 0;
+        for (PaymentSummaryView p : (Iterable<PaymentSummaryView>) payments::iterator) {
+            writer.write(String.join(",",
+                    csv(p.getId()), csv(p.getBookingId()), csv(p.getTransactionHash()), csv(p.getContractAddress()),
+                    csv(p.getFromAddress()), csv(p.getAmount() != null ? p.getAmount().toPlainString() : null),
+                    csv(p.getCurrency()), csv(p.getStatus()), csv(p.getFinality()), csv(p.getBlockNumber()),
+                    csv(p.getValidatedAt()), csv(p.getCreatedAt()), csv(p.getErrorMessage())));
+            writer.write('\n');
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private long writeNdjson(Stream<PaymentSummaryView> payments, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.setRootValueSeparator(null);
+
+        long rows = 0;
+        for (PaymentSummaryView p : (Iterable<PaymentSummaryView>) payments::iterator) {
+            json.writeStartObject();
+            json.writeNumberField("id", p.getId());
+            json.writeNumberField("bookingId", p.getBookingId());
+            json.writeStringField("transactionHash", p.getTransactionHash());
+            json.writeStringField("contractAddress", p.getContractAddress());
+            json.writeStringField("fromAddress", p.getFromAddress());
+            json.writeNumberField("amount", p.getAmount());
+            json.writeStringField("currency", p.getCurrency());
+            json.writeStringField("status", p.getStatus() != null ? p.getStatus().name() : null);
+            json.writeStringField("finality", p.getFinality() != null ? p.getFinality().name() : null);
+            if (p.getBlockNumber() != null) {
+                json.writeNumberField("blockNumber", p.getBlockNumber());
+            } else {
+                json.writeNullField("blockNumber");
+            }
+            json.writeStringField("validatedAt", p.getValidatedAt() != null ? p.getValidatedAt().toString() : null);
+            json.writeStringField("createdAt", p.getCreatedAt() != null ? p.getCreatedAt().toString() : null);
+            json.writeStringField("errorMessage", p.getErrorMessage());
+            json.writeEndObject();
+            json.writeRaw('\n');
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                json.flush();
+            }
+        }
+        json.flush();
+        return rows;
+    }
+
+    /**
+     * Champ CSV (RFC 4180) : guillemets si virgule, guillemet ou saut de ligne
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Adresses stockées en minuscules (topics des logs)
+     */
+    private static String normalizeAddress(String address) {
+        return address == null || address.isBlank() ? null : address.trim().toLowerCase(Locale.ROOT);
+    }
+}
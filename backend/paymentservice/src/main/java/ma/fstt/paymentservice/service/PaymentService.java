@@ -27,6 +27,32 @@ public interface PaymentService {
      */
     PaymentResponseDTO validatePayment(PaymentValidationRequestDTO request);
 
+    /**
+     * Enregistre un paiement pour validation asynchrone (status PENDING) et retourne immédiatement
+     * Idempotent sur le txHash. Le résultat est publié via RabbitMQ une fois la transaction minée.
+     *
+     * @param request Données de validation (bookingId, txHash, contractAddress, expectedAmount)
+     * @return PaymentResponseDTO avec l'ID du paiement à suivre
+     */
+    PaymentResponseDTO submitPayment(PaymentValidationRequestDTO request);
+
+    /**
+     * Vérifie un lot de paiements PENDING (receipt, montant, état du contrat)
+     * Appelé périodiquement par le PendingPaymentValidator.
+     *
+     * @return Nombre de paiements vérifiés
+     */
+    int validatePendingPayments();
+
+    /**
+     * Récupère un paiement par son ID
+     *
+     * @param paymentId ID du paiement
+     * @return PaymentResponseDTO
+     * @throws ma.fstt.paymentservice.exception.PaymentNotFoundException si aucun paiement trouvé
+     */
+    PaymentResponseDTO getPaymentById(Long paymentId);
+
     /**
      * Récupère le dernier paiement d'un booking
      *
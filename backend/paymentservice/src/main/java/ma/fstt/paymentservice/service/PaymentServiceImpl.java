@@ -4,21 +4,35 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ma.fstt.paymentservice.blockchain.ContractState;
 import ma.fstt.paymentservice.blockchain.FundedEventData;
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
 import ma.fstt.paymentservice.blockchain.RentalEscrowContract;
+import ma.fstt.paymentservice.domain.FinalityStatus;
 import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.PaymentFailureReason;
 import ma.fstt.paymentservice.domain.PaymentStatus;
 import ma.fstt.paymentservice.dto.PaymentResponseDTO;
 import ma.fstt.paymentservice.dto.PaymentValidationRequestDTO;
 import ma.fstt.paymentservice.exception.*;
+import ma.fstt.paymentservice.indexer.ChainEventLookup;
+import ma.fstt.paymentservice.indexer.ChainEventLookup.IndexedFunding;
 import ma.fstt.paymentservice.messaging.RabbitMQProducer;
 import ma.fstt.paymentservice.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +51,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository paymentRepository;
     private final RentalEscrowContract escrowContract;
     private final RabbitMQProducer rabbitMQProducer;
+    private final ChainEventLookup chainEventLookup;
 
     /**
      * Tolérance pour la vérification du montant (0.01%)
@@ -44,6 +59,20 @@ public class PaymentServiceImpl implements PaymentService {
      */
     private static final BigDecimal AMOUNT_TOLERANCE_PERCENTAGE = new BigDecimal("0.0001");
 
+    // ========== VALIDATION ASYNCHRONE ==========
+
+    @Value("${payments.async.timeout-seconds:1800}")
+    private long validationTimeoutSeconds;
+
+    @Value("${payments.async.batch-size:50}")
+    private int pendingBatchSize;
+
+    @Value("${payments.async.initial-delay-ms:2000}")
+    private long pendingInitialDelayMs;
+
+    @Value("${payments.async.max-delay-ms:60000}")
+    private long pendingMaxDelayMs;
+
     /**
      * Valide un paiement blockchain après que le tenant ait appelé fund()
      *
@@ -97,86 +126,47 @@ public class PaymentServiceImpl implements PaymentService {
 
         try {
             // ==================== 3. VALIDER LA TRANSACTION ====================
-            // Lire la blockchain et parser l'événement Funded
-            log.info("🔍 Validating transaction on blockchain...");
-            FundedEventData eventData = escrowContract.validateFundTransaction(
-                    request.getContractAddress(),
-                    request.getTransactionHash()
-            );
-
-            log.info("✅ Transaction found in block {}", eventData.getBlockNumber());
-            log.info("   Tenant: {}", eventData.getTenantAddress());
-            log.info("   Amount: {} ETH", eventData.getAmount());
-
-            // ==================== 4. VÉRIFIER LE MONTANT ====================
-            // Tolérance de 0.01% pour gérer les variations de gas
-            BigDecimal tolerance = request.getExpectedAmount()
-                    .multiply(AMOUNT_TOLERANCE_PERCENTAGE);
-            BigDecimal minAcceptable = request.getExpectedAmount().subtract(tolerance);
-
-            if (eventData.getAmount().compareTo(minAcceptable) < 0) {
-                String errorMsg = String.format(
-                        "Amount mismatch: expected %.4f ETH, got %.4f ETH",
-                        request.getExpectedAmount(), eventData.getAmount()
-                );
-                log.error("❌ {}", errorMsg);
-                throw new AmountMismatchException(errorMsg);
-            }
-
-            log.info("✅ Amount verified: {} ETH (expected: {} ETH)",
-                    eventData.getAmount(), request.getExpectedAmount());
-
-            // ==================== 5. VÉRIFIER L'ÉTAT DU CONTRAT ====================
-            // Le contrat DOIT être en état Funded après l'appel à fund()
-            ContractState state = escrowContract.getContractState(request.getContractAddress());
-
-            if (state != ContractState.Funded) {
-                String errorMsg = String.format(
-                        "Contract must be in Funded state, but is: %s", state
+            // ✅ Événement Funded déjà indexé → lecture locale, sinon lecture de la blockchain
+            Optional<IndexedFunding> indexed = chainEventLookup.findFunding(
+                    request.getContractAddress(), request.getTransactionHash());
+
+            FundedEventData eventData;
+            if (indexed.isPresent()) {
+                log.info("📇 Funded event found in chain index");
+                eventData = indexed.get().eventData();
+            } else {
+                log.info("🔍 Validating transaction on blockchain...");
+                eventData = escrowContract.validateFundTransaction(
+                        request.getContractAddress(),
+                        request.getTransactionHash()
                 );
-                log.error("❌ {}", errorMsg);
-                throw new InvalidContractStateException(errorMsg);
             }
 
-            log.info("✅ Contract state verified: {}", state);
-
-            // ==================== 6. CONFIRMER LE PAIEMENT ====================
-            // Mettre à jour le Payment → CONFIRMED
-            payment.setStatus(PaymentStatus.CONFIRMED);
-            payment.setAmount(eventData.getAmount());
-            payment.setFromAddress(eventData.getTenantAddress());
-            payment.setBlockNumber(eventData.getBlockNumber().longValue());
-            payment.setValidatedAt(LocalDateTime.now());
-
-            Payment confirmedPayment = paymentRepository.save(payment);
+            // ==================== 4-7. MONTANT, ÉTAT, CONFIRMATION ====================
+            Payment confirmedPayment = confirmPayment(payment, eventData, request.getExpectedAmount(),
+                    indexed.map(IndexedFunding::state).orElse(null));
 
-            log.info("✅ Payment validated successfully for booking {}. Payment ID: {}",
-                    request.getBookingId(), confirmedPayment.getId());
+            return mapToDTO(confirmedPayment);
 
-            // ==================== 7. NOTIFIER BOOKINGSERVICE ====================
-            // Publier l'événement RabbitMQ → BookingService écoute et confirme le booking
-            rabbitMQProducer.publishPaymentConfirmed(confirmedPayment);
+        } catch (TransactionNotFoundException e) {
 
-            return mapToDTO(confirmedPayment);
+            // ==================== PAS ENCORE MINÉE ====================
+            // Pas un échec : aucun payment.failed (le booking ne doit pas être annulé), le client réessaie
+            log.warn("⏳ Transaction {} not mined yet: {}", request.getTransactionHash(), e.getMessage());
+            throw new PaymentValidationException("Payment validation failed: " + e.getMessage(), e);
 
-        } catch (TransactionNotFoundException
-                 | TransactionFailedException
+        } catch (TransactionFailedException
                  | InvalidContractException
                  | EventNotFoundException
                  | AmountMismatchException
                  | InvalidContractStateException e) {
 
             // ==================== ERREURS MÉTIER ATTENDUES ====================
-            // Transaction non trouvée, montant incorrect, etc.
+            // Transaction revert, montant incorrect, etc.
             log.error("❌ Payment validation failed: {}", e.getMessage());
 
-            payment.setStatus(PaymentStatus.FAILED);
-            payment.setErrorMessage(e.getMessage());
-            payment.setValidatedAt(LocalDateTime.now());
-            paymentRepository.save(payment);
-
-            // Publier l'échec
-            rabbitMQProducer.publishPaymentFailed(payment, e.getMessage());
+            // Persister et publier l'échec
+            markFailed(payment, failureReasonOf(e), e.getMessage(), e.getMessage());
 
             throw new PaymentValidationException("Payment validation failed: " + e.getMessage(), e);
 
@@ -186,17 +176,130 @@ public class PaymentServiceImpl implements PaymentService {
             // Problème de connexion blockchain, parsing JSON, etc.
             log.error("❌ Unexpected error during payment validation", e);
 
-            payment.setStatus(PaymentStatus.FAILED);
-            payment.setErrorMessage("Internal error: " + e.getMessage());
-            payment.setValidatedAt(LocalDateTime.now());
-            paymentRepository.save(payment);
-
-            rabbitMQProducer.publishPaymentFailed(payment, "Internal error");
+            markFailed(payment, PaymentFailureReason.INTERNAL_ERROR, "Internal error: " + e.getMessage(), "Internal error");
 
             throw new PaymentValidationException("Unexpected error during validation", e);
         }
     }
 
+    /**
+     * ✅ NOUVEAU : Validation asynchrone
+     *
+     * Enregistre le paiement en PENDING et rend la main immédiatement (202 côté API).
+     * Le receipt est vérifié en tâche de fond par {@link #validatePendingPayments()} :
+     * la latence de la requête ne dépend plus de la congestion de la blockchain.
+     *
+     * Pas de @Transactional : une violation d'unicité (double soumission) ne doit pas
+     * rendre la transaction rollback-only avant la relecture du paiement existant.
+     */
+    @Override
+    public PaymentResponseDTO submitPayment(PaymentValidationRequestDTO request) {
+
+        log.info("📥 Accepting payment for async validation: booking {} tx {}",
+                request.getBookingId(), request.getTransactionHash());
+
+        // Idempotence : même txHash → même paiement (quel que soit son état)
+        Optional<Payment> existingPayment = paymentRepository
+                .findByTransactionHash(request.getTransactionHash());
+        if (existingPayment.isPresent()) {
+            log.info("⚡ Payment already submitted (idempotent request). Status: {}",
+                    existingPayment.get().getStatus());
+            return mapToDTO(existingPayment.get());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Payment payment = Payment.builder()
+                .bookingId(request.getBookingId())
+                .transactionHash(request.getTransactionHash())
+                .contractAddress(request.getContractAddress())
+                .status(PaymentStatus.PENDING)
+                .currency("ETH")
+                .amount(request.getExpectedAmount()) // Montant attendu jusqu'à confirmation
+                .nextCheckAt(now)
+                .validationDeadline(now.plusSeconds(validationTimeoutSeconds))
+                .build();
+
+        try {
+            payment = paymentRepository.saveAndFlush(payment);
+        } catch (DataIntegrityViolationException e) {
+            // Double soumission concurrente du même txHash
+            return paymentRepository.findByTransactionHash(request.getTransactionHash())
+                    .map(this::mapToDTO)
+                    .orElseThrow(() -> e);
+        }
+
+        log.info("⏳ Payment {} queued for validation (deadline: {})",
+                payment.getId(), payment.getValidationDeadline());
+
+        return mapToDTO(payment);
+    }
+
+    /**
+     * ✅ NOUVEAU : Vérifier un lot de paiements PENDING dont l'échéance est passée
+     *
+     * - Receipt absent → nouvelle vérification plus tard (backoff exponentiel), FAILED après le timeout
+     * - Receipt présent → mêmes contrôles que la validation synchrone, puis CONFIRMED / FAILED + événement RabbitMQ
+     * - Erreur RPC → nouvelle tentative plus tard, le paiement reste PENDING
+     *
+     * Pas de transaction englobante : chaque paiement est sauvegardé séparément,
+     * les appels RPC ne gardent pas de connexion DB ouverte.
+     *
+     * @return Nombre de paiements vérifiés
+     */
+    @Override
+    public int validatePendingPayments() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> duePayments = paymentRepository.findByStatusAndNextCheckAtLessThanEqualOrderByNextCheckAtAsc(
+                PaymentStatus.PENDING, now, PageRequest.of(0, pendingBatchSize));
+
+        // Financements déjà indexés : une requête pour tout le lot, aucun appel RPC
+        Map<String, IndexedFunding> indexed = chainEventLookup.findFundings(duePayments);
+
+        // Receipts des autres paiements demandés d'un coup → regroupés en batchs JSON-RPC
+        Map<Long, CompletableFuture<Optional<TransactionReceipt>>> receipts = new HashMap<>();
+        for (Payment payment : duePayments) {
+            if (!indexed.containsKey(payment.getTransactionHash())) {
+                receipts.put(payment.getId(), escrowContract.findTransactionReceiptAsync(payment.getTransactionHash()));
+            }
+        }
+
+        for (Payment payment : duePayments) {
+            try {
+                IndexedFunding funding = indexed.get(payment.getTransactionHash());
+                if (funding != null) {
+                    confirmIndexedPayment(payment, funding, now);
+                } else {
+                    checkPendingPayment(payment, receipts.get(payment.getId()), now);
+                }
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Déjà traité par une autre instance
+                log.debug("Payment {} handled concurrently, skipping", payment.getId());
+            }
+        }
+
+        if (!duePayments.isEmpty()) {
+            log.info("🔁 Checked {} pending payment(s)", duePayments.size());
+        }
+        return duePayments.size();
+    }
+
+    /**
+     * Récupère un paiement par son ID (suivi de la validation asynchrone)
+     *
+     * @param paymentId ID du paiement
+     * @return PaymentResponseDTO
+     * @throws PaymentNotFoundException si le paiement n'existe pas
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PaymentResponseDTO getPaymentById(Long paymentId) {
+        return paymentRepository.findById(paymentId)
+                .map(this::mapToDTO)
+                .orElseThrow(() -> new PaymentNotFoundException(
+                        String.format("Payment %d not found", paymentId)
+                ));
+    }
+
     /**
      * Récupère le dernier paiement d'un booking
      *
@@ -242,6 +345,195 @@ public class PaymentServiceImpl implements PaymentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Une vérification d'un paiement PENDING
+     */
+    private void checkPendingPayment(Payment payment,
+                                     CompletableFuture<Optional<TransactionReceipt>> receiptLookup,
+                                     LocalDateTime now) {
+        Optional<TransactionReceipt> receipt;
+        try {
+            receipt = JsonRpcBatcher.await(receiptLookup);
+        } catch (Exception e) {
+            log.warn("⚠️ Receipt lookup failed for payment {}: {}", payment.getId(), e.getMessage());
+            scheduleNextCheck(payment, now);
+            return;
+        }
+
+        if (receipt.isEmpty()) {
+            if (now.isAfter(payment.getValidationDeadline())) {
+                // Non définitif : plus de vérification périodique, l'indexation de son Funded le relancera
+                log.warn("⏳ Payment {} not mined before deadline, waiting for an indexed Funded event", payment.getId());
+                payment.setFailureReason(PaymentFailureReason.NOT_MINED);
+                payment.setErrorMessage("Transaction not mined within " + validationTimeoutSeconds + " seconds");
+                payment.setNextCheckAt(null);
+                paymentRepository.save(payment);
+            } else {
+                scheduleNextCheck(payment, now);
+            }
+            return;
+        }
+
+        try {
+            FundedEventData eventData = escrowContract.parseFundTransaction(
+                    payment.getContractAddress(), receipt.get());
+            // payment.amount contient le montant attendu tant que le paiement est PENDING
+            confirmPayment(payment, eventData, payment.getAmount(), null);
+
+        } catch (TransactionFailedException
+                 | InvalidContractException
+                 | EventNotFoundException
+                 | AmountMismatchException
+                 | InvalidContractStateException e) {
+            log.error("❌ Async payment validation failed for payment {}: {}", payment.getId(), e.getMessage());
+            markFailed(payment, failureReasonOf(e), e.getMessage(), e.getMessage());
+
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw e;
+
+        } catch (Exception e) {
+            // Erreur technique (eth_call, connexion...) : on retente plus tard
+            log.warn("⚠️ Validation of payment {} interrupted: {}", payment.getId(), e.getMessage());
+            scheduleNextCheck(payment, now);
+        }
+    }
+
+    /**
+     * Paiement PENDING dont l'événement Funded est indexé : validation sans RPC
+     */
+    private void confirmIndexedPayment(Payment payment, IndexedFunding funding, LocalDateTime now) {
+        try {
+            confirmPayment(payment, funding.eventData(), payment.getAmount(), funding.state());
+        } catch (AmountMismatchException | InvalidContractStateException e) {
+            log.error("❌ Async payment validation failed for payment {}: {}", payment.getId(), e.getMessage());
+            markFailed(payment, failureReasonOf(e), e.getMessage(), e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("⚠️ Validation of payment {} interrupted: {}", payment.getId(), e.getMessage());
+            scheduleNextCheck(payment, now);
+        }
+    }
+
+    /**
+     * Backoff exponentiel entre deux vérifications : initial × 2^tentatives, plafonné
+     */
+    private void scheduleNextCheck(Payment payment, LocalDateTime now) {
+        int attempts = payment.getValidationAttempts() + 1;
+        long delayMs = Math.min(pendingMaxDelayMs,
+                pendingInitialDelayMs << Math.min(attempts - 1, 20));
+
+        payment.setValidationAttempts(attempts);
+        payment.setNextCheckAt(now.plus(Duration.ofMillis(delayMs)));
+        paymentRepository.save(payment);
+    }
+
+    /**
+     * Vérifier le montant et l'état du contrat, puis confirmer et notifier BookingService
+     * Commun aux validations synchrone et asynchrone.
+     *
+     * @param indexedState État connu via l'index on-chain, null → lecture eth_call
+     */
+    private Payment confirmPayment(Payment payment, FundedEventData eventData, BigDecimal expectedAmount,
+                                   ContractState indexedState) throws Exception {
+
+        log.info("✅ Transaction found in block {}", eventData.getBlockNumber());
+        log.info("   Tenant: {}", eventData.getTenantAddress());
+        log.info("   Amount: {} ETH", eventData.getAmount());
+
+        // ==================== VÉRIFIER LE MONTANT ====================
+        // Tolérance de 0.01% pour gérer les variations de gas
+        BigDecimal tolerance = expectedAmount.multiply(AMOUNT_TOLERANCE_PERCENTAGE);
+        BigDecimal minAcceptable = expectedAmount.subtract(tolerance);
+
+        if (eventData.getAmount().compareTo(minAcceptable) < 0) {
+            String errorMsg = String.format(
+                    "Amount mismatch: expected %.4f ETH, got %.4f ETH",
+                    expectedAmount, eventData.getAmount()
+            );
+            log.error("❌ {}", errorMsg);
+            throw new AmountMismatchException(errorMsg);
+        }
+
+        log.info("✅ Amount verified: {} ETH (expected: {} ETH)", eventData.getAmount(), expectedAmount);
+
+        // ==================== VÉRIFIER L'ÉTAT DU CONTRAT ====================
+        // Le contrat DOIT être en état Funded après l'appel à fund()
+        // Lecture au moins au block de la transaction : une valeur en cache antérieure au fund() est ignorée
+        long fundBlock = eventData.getBlockNumber().longValue();
+        ContractState state;
+        if (indexedState != null) {
+            state = indexedState;
+        } else if (eventData.getBookingId() != null) {
+            // Contrat multi-réservations : état de la réservation financée
+            state = escrowContract.getBookingState(payment.getContractAddress(), eventData.getBookingId(), fundBlock);
+        } else {
+            state = escrowContract.getContractState(payment.getContractAddress(), fundBlock);
+        }
+
+        if (state != ContractState.Funded) {
+            String errorMsg = String.format(
+                    "Contract must be in Funded state, but is: %s", state
+            );
+            log.error("❌ {}", errorMsg);
+            throw new InvalidContractStateException(errorMsg);
+        }
+
+        log.info("✅ Contract state verified: {}", state);
+
+        // ==================== CONFIRMER LE PAIEMENT ====================
+        payment.setStatus(PaymentStatus.CONFIRMED);
+        payment.setFailureReason(null);
+        payment.setErrorMessage(null);
+        payment.setAmount(eventData.getAmount());
+        payment.setFromAddress(eventData.getTenantAddress());
+        payment.setBlockNumber(eventData.getBlockNumber().longValue());
+        payment.setBlockHash(eventData.getBlockHash());
+        payment.setFinality(FinalityStatus.PENDING_FINALITY); // → FINAL par le PaymentFinalityTracker
+        payment.setValidatedAt(LocalDateTime.now());
+        payment.setNextCheckAt(null);
+
+        Payment confirmedPayment = paymentRepository.save(payment);
+
+        log.info("✅ Payment validated successfully for booking {}. Payment ID: {}",
+                confirmedPayment.getBookingId(), confirmedPayment.getId());
+
+        // ==================== NOTIFIER BOOKINGSERVICE ====================
+        // Publier l'événement RabbitMQ → BookingService écoute et confirme le booking
+        rabbitMQProducer.publishPaymentConfirmed(confirmedPayment);
+
+        return confirmedPayment;
+    }
+
+    /**
+     * Passer le paiement en FAILED (définitif) et publier payment.failed
+     */
+    private void markFailed(Payment payment, PaymentFailureReason reason, String errorMessage, String publishedReason) {
+        payment.setStatus(PaymentStatus.FAILED);
+        payment.setFailureReason(reason);
+        payment.setErrorMessage(errorMessage);
+        payment.setValidatedAt(LocalDateTime.now());
+        payment.setNextCheckAt(null);
+        paymentRepository.save(payment);
+
+        rabbitMQProducer.publishPaymentFailed(payment, publishedReason);
+    }
+
+    private static PaymentFailureReason failureReasonOf(Exception e) {
+        if (e instanceof TransactionFailedException) {
+            return PaymentFailureReason.TRANSACTION_FAILED;
+        } else if (e instanceof InvalidContractException) {
+            return PaymentFailureReason.WRONG_CONTRACT;
+        } else if (e instanceof EventNotFoundException) {
+            return PaymentFailureReason.EVENT_NOT_FOUND;
+        } else if (e instanceof AmountMismatchException) {
+            return PaymentFailureReason.AMOUNT_MISMATCH;
+        } else if (e instanceof InvalidContractStateException) {
+            return PaymentFailureReason.INVALID_CONTRACT_STATE;
+        }
+        return PaymentFailureReason.INTERNAL_ERROR;
+    }
+
     /**
      * Mapper Payment entity → PaymentResponseDTO
      */
@@ -256,9 +548,12 @@ public class PaymentServiceImpl implements PaymentService {
                 .currency(payment.getCurrency())
                 .fromAddress(payment.getFromAddress())
                 .blockNumber(payment.getBlockNumber())
+                .finality(payment.getFinality())
+                .finalizedAt(payment.getFinalizedAt())
                 .validatedAt(payment.getValidatedAt())
                 .createdAt(payment.getCreatedAt())
                 .errorMessage(payment.getErrorMessage())
+                .failureReason(payment.getFailureReason())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package ma.fstt.paymentservice.blockchain;
+
+import ma.fstt.paymentservice.blockchain.ContractStateCache.Key;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.indexer.ChainEventsIndexedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContractStateCacheTest {
+
+    private static final String CONTRACT = "0xABCDEF0000000000000000000000000000000001";
+    private static final Key BOOKING_7 = Key.of(CONTRACT, 7L);
+    private static final Key WHOLE_CONTRACT = Key.of(CONTRACT, null);
+
+    // Block demandé à chaque eth_call simulé
+    private final List<Long> reads = Collections.synchronizedList(new ArrayList<>());
+
+    private ChainHeadTracker chainHeadTracker;
+    private ContractStateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        chainHeadTracker = mock(ChainHeadTracker.class);
+        head(100);
+
+        cache = new ContractStateCache(chainHeadTracker);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxAgeBlocks", 2L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+
+    @Test
+    void valueIsServedWhileTheHeadStaysWithinMaxAge() {
+        assertEquals(ContractState.Funded, get(BOOKING_7, 0, ContractState.Funded));
+        head(102);
+        assertEquals(ContractState.Funded, get(BOOKING_7, 0, ContractState.Active));
+
+        head(103);
+        assertEquals(ContractState.Active, get(BOOKING_7, 0, ContractState.Active));
+
+        assertEquals(List.of(100L, 103L), reads);
+    }
+
+    @Test
+    void finalStatesOutliveMaxAge() {
+        get(BOOKING_7, 0, ContractState.Completed);
+        head(500);
+        cache.onNewHead(new NewHeadEvent(500));
+
+        assertEquals(ContractState.Completed, get(BOOKING_7, 0, ContractState.Funded));
+        assertEquals(List.of(100L), reads);
+    }
+
+    @Test
+    void minBlockForcesAReadAtLeastAtThatBlock() {
+        get(BOOKING_7, 0, ContractState.Funded);
+
+        // Transaction de l'appelant minée au block 101, tête pas encore avancée
+        assertEquals(ContractState.Active, get(BOOKING_7, 101, ContractState.Active));
+        // La lecture au block 101 sert ensuite les appels sans exigence
+        assertEquals(ContractState.Active, get(BOOKING_7, 0, ContractState.Cancelled));
+
+        assertEquals(List.of(100L, 101L), reads);
+    }
+
+    @Test
+    void indexedEventsInvalidateOlderReadsOfTheBookingAndTheWholeContract() {
+        get(BOOKING_7, 0, ContractState.Funded);
+        get(WHOLE_CONTRACT, 0, ContractState.Funded);
+
+        // Événement au block de la lecture : déjà pris en compte
+        cache.onChainEventsIndexed(indexed(100));
+        get(BOOKING_7, 0, ContractState.Active);
+        assertEquals(2, reads.size());
+
+        cache.onChainEventsIndexed(indexed(101));
+        head(101);
+        assertEquals(ContractState.Active, get(BOOKING_7, 0, ContractState.Active));
+        assertEquals(ContractState.Active, get(WHOLE_CONTRACT, 0, ContractState.Active));
+        assertEquals(List.of(100L, 100L, 101L, 101L), reads);
+    }
+
+    @Test
+    void concurrentReadsOfOneKeyShareOneCall() throws Exception {
+        CompletableFuture<ContractState> pending = new CompletableFuture<>();
+        LongFunction<CompletableFuture<ContractState>> loader = block -> {
+            reads.add(block);
+            return pending;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompletableFuture<ContractState>>> calls = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            calls.add(pool.submit(() -> {
+                start.await();
+                return cache.get(BOOKING_7, 0, loader);
+            }));
+        }
+        start.countDown();
+        List<CompletableFuture<ContractState>> results = new ArrayList<>();
+        for (Future<CompletableFuture<ContractState>> call : calls) {
+            results.add(call.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        pending.complete(ContractState.Funded);
+        for (CompletableFuture<ContractState> result : results) {
+            assertEquals(ContractState.Funded, result.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(100L), reads);
+    }
+
+    @Test
+    void pendingReadOlderThanMinBlockIsNotShared() {
+        CompletableFuture<ContractState> first = new CompletableFuture<>();
+        CompletableFuture<ContractState> shared = cache.get(BOOKING_7, 0, block -> {
+            reads.add(block);
+            return first;
+        });
+        assertSame(shared, cache.get(BOOKING_7, 100, block -> {
+            throw new AssertionError("read at block 100 should be shared");
+        }));
+
+        CompletableFuture<ContractState> newer = cache.get(BOOKING_7, 105, block -> {
+            reads.add(block);
+            return CompletableFuture.completedFuture(ContractState.Active);
+        });
+
+        assertEquals(ContractState.Active, newer.join());
+        assertEquals(List.of(100L, 105L), reads);
+    }
+
+    @Test
+    void loaderFailingSynchronouslyDoesNotBlockTheNextRead() {
+        CompletableFuture<ContractState> failed = cache.get(BOOKING_7, 0, block -> {
+            throw new IllegalStateException("RPC down");
+        });
+        assertTrue(failed.isCompletedExceptionally());
+        assertThrows(Exception.class, failed::join);
+
+        assertEquals(ContractState.Funded, get(BOOKING_7, 0, ContractState.Funded));
+    }
+
+    private ContractState get(Key key, long minBlock, ContractState onChain) {
+        return cache.get(key, minBlock, block -> {
+            reads.add(block);
+            return CompletableFuture.completedFuture(onChain);
+        }).join();
+    }
+
+    private void head(long blockNumber) {
+        when(chainHeadTracker.latestBlock()).thenReturn(blockNumber);
+    }
+
+    private static ChainEventsIndexedEvent indexed(long blockNumber) {
+        return new ChainEventsIndexedEvent(List.of(ChainEvent.builder()
+                .contractAddress(CONTRACT)
+                .bookingId(7L)
+                .blockNumber(blockNumber)
+                .build()));
+    }
+}
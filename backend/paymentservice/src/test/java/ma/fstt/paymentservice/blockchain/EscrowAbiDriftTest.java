@@ -0,0 +1,39 @@
+package ma.fstt.paymentservice.blockchain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.fstt.paymentservice.support.HardhatDevnet;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Les bindings RentalEscrowMulti sont générés depuis blockchain/abi/RentalEscrowMulti.json :
+ * cette ABI doit rester celle du contrat compilé par Hardhat (même artefact que HardhatDevnet déploie).
+ * Ignoré sans Hardhat installé dans blockchain/.
+ */
+class EscrowAbiDriftTest {
+
+    @Test
+    void committedAbiMatchesTheCompiledContract() throws Exception {
+        assumeTrue(HardhatDevnet.isAvailable(), "Hardhat not installed in " + HardhatDevnet.hardhatDir());
+
+        JsonNode compiled = HardhatDevnet.compileArtifact().path("abi");
+        JsonNode committed = new ObjectMapper().readTree(HardhatDevnet.committedAbi().toFile());
+
+        // Comparaison par entrée : l'ordre des fonctions/événements n'a pas d'effet sur les bindings
+        assertEquals(entries(compiled), entries(committed),
+                "blockchain/abi/RentalEscrowMulti.json is out of date: copy the \"abi\" array of "
+                        + "blockchain/artifacts/contracts/RentalEscrow.sol/RentalEscrowMulti.json");
+    }
+
+    private static Set<JsonNode> entries(JsonNode abi) {
+        Set<JsonNode> entries = new HashSet<>();
+        abi.forEach(entries::add);
+        return entries;
+    }
+}
@@ -0,0 +1,51 @@
+package ma.fstt.paymentservice.blockchain;
+
+import ma.fstt.paymentservice.blockchain.generated.RentalEscrowMulti;
+import org.junit.jupiter.api.Test;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EscrowLogDecoderTest {
+
+    private static final byte[] FUNDED_TOPIC = EscrowLogDecoder.topic(RentalEscrowMulti.FUNDED_EVENT);
+
+    @Test
+    void decodesFundedLikeTheAbiDecoder() {
+        BigInteger total = new BigInteger("123456789012345678901234567890");
+        Log log = LogDecodingBenchmark.fundedLog(7L, "0x90F79bf6EB2c4f870365E785982E1f101E93b906",
+                total, BigInteger.TWO, BigInteger.TEN);
+
+        List<Type> expected = FunctionReturnDecoder.decode(
+                log.getData(), RentalEscrowMulti.FUNDED_EVENT.getNonIndexedParameters());
+        byte[] data = EscrowLogDecoder.data(log.getData());
+
+        assertTrue(EscrowLogDecoder.topicEquals(log.getTopics().get(0), FUNDED_TOPIC));
+        assertEquals(7L, EscrowLogDecoder.topicAsLong(log.getTopics().get(1)));
+        assertEquals("0x90f79bf6eb2c4f870365e785982e1f101e93b906", EscrowLogDecoder.topicAsAddress(log.getTopics().get(2)));
+        assertEquals(3, EscrowLogDecoder.wordCount(log.getData()));
+        for (int word = 0; word < 3; word++) {
+            assertEquals(expected.get(word).getValue(), EscrowLogDecoder.uint256(data, word));
+        }
+        assertEquals(10L, EscrowLogDecoder.uint256AsLong(data, 2));
+        assertThrows(ArithmeticException.class, () -> EscrowLogDecoder.uint256AsLong(data, 0));
+    }
+
+    @Test
+    void topicComparisonIgnoresCaseAndRejectsOtherTopics() {
+        String topic = LogDecodingBenchmark.fundedLog(1L, "0x" + "11".repeat(20), BigInteger.ONE).getTopics().get(0);
+
+        assertTrue(EscrowLogDecoder.topicEquals("0x" + topic.substring(2).toUpperCase(), FUNDED_TOPIC));
+        assertFalse(EscrowLogDecoder.topicEquals(topic.substring(0, 65) + (topic.endsWith("0") ? "1" : "0"), FUNDED_TOPIC));
+        assertFalse(EscrowLogDecoder.topicEquals(topic.substring(0, 64), FUNDED_TOPIC));
+        assertFalse(EscrowLogDecoder.topicEquals(null, FUNDED_TOPIC));
+    }
+}
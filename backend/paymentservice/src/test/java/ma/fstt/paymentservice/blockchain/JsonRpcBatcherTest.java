@@ -0,0 +1,230 @@
+package ma.fstt.paymentservice.blockchain;
+
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.websocket.events.Notification;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonRpcBatcherTest {
+
+    private final FakeNode node = new FakeNode();
+    private final Web3j web3j = Web3j.build(node);
+
+    private JsonRpcBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.stop();
+        }
+    }
+
+    @Test
+    void outOfOrderResponsesAreMatchedById() throws Exception {
+        batcher = batcher(20, 50, 5_000);
+        List<Request<?, EthBlockNumber>> requests = new ArrayList<>();
+        List<CompletableFuture<EthBlockNumber>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Request<?, EthBlockNumber> request = web3j.ethBlockNumber();
+            requests.add(request);
+            results.add(batcher.submit(request));
+        }
+
+        SentBatch batch = node.nextBatch();
+        assertEquals(3, batch.request.getRequests().size());
+
+        // Le node répond dans l'ordre inverse
+        List<Response<?>> responses = new ArrayList<>();
+        for (Request<?, EthBlockNumber> request : requests) {
+            responses.add(blockNumber(request.getId(), request.getId()));
+        }
+        Collections.reverse(responses);
+        batch.reply.complete(new BatchResponse(batch.request.getRequests(), responses));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(BigInteger.valueOf(requests.get(i).getId()),
+                    JsonRpcBatcher.await(results.get(i)).getBlockNumber());
+        }
+    }
+
+    @Test
+    void missingResponseFailsOnlyItsCall() throws Exception {
+        batcher = batcher(20, 50, 5_000);
+        Request<?, EthBlockNumber> answered = web3j.ethBlockNumber();
+        Request<?, EthBlockNumber> dropped = web3j.ethBlockNumber();
+        CompletableFuture<EthBlockNumber> answeredResult = batcher.submit(answered);
+        CompletableFuture<EthBlockNumber> droppedResult = batcher.submit(dropped);
+
+        SentBatch batch = node.nextBatch();
+        batch.reply.complete(new BatchResponse(batch.request.getRequests(),
+                List.of(blockNumber(answered.getId(), 42))));
+
+        assertEquals(BigInteger.valueOf(42), JsonRpcBatcher.await(answeredResult).getBlockNumber());
+        IOException error = assertThrows(IOException.class, () -> JsonRpcBatcher.await(droppedResult));
+        assertTrue(error.getMessage().contains("id " + dropped.getId()));
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+        // Fenêtre d'une minute : seul le remplissage peut déclencher l'envoi
+        batcher = batcher(60_000, 3, 5_000);
+        for (int i = 0; i < 3; i++) {
+            batcher.submit(web3j.ethBlockNumber());
+        }
+
+        SentBatch batch = node.nextBatch();
+        assertEquals(3, batch.request.getRequests().size());
+        assertNull(node.singles.poll());
+    }
+
+    @Test
+    void batchFailureFailsEveryCall() {
+        batcher = batcher(20, 50, 5_000);
+        List<CompletableFuture<EthBlockNumber>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(batcher.submit(web3j.ethBlockNumber()));
+        }
+
+        IOException failure = new IOException("HTTP 429 Too Many Requests");
+        node.nextBatch().reply.completeExceptionally(failure);
+
+        for (CompletableFuture<EthBlockNumber> result : results) {
+            assertSame(failure, assertThrows(IOException.class, () -> JsonRpcBatcher.await(result)));
+        }
+    }
+
+    @Test
+    void singleCallIsSentWithoutABatch() throws Exception {
+        batcher = batcher(20, 50, 5_000);
+        Request<?, EthBlockNumber> request = web3j.ethBlockNumber();
+        CompletableFuture<EthBlockNumber> result = batcher.submit(request);
+
+        SentCall call = node.nextCall();
+        assertSame(request, call.request);
+        call.reply.complete(blockNumber(request.getId(), 7));
+
+        assertEquals(BigInteger.valueOf(7), JsonRpcBatcher.await(result).getBlockNumber());
+        assertNull(node.batches.poll());
+    }
+
+    @Test
+    void unansweredCallTimesOut() {
+        batcher = batcher(5, 50, 100);
+        CompletableFuture<EthBlockNumber> result = batcher.submit(web3j.ethBlockNumber());
+
+        // Le node ne répond jamais
+        assertNotNull(node.nextCall());
+        assertThrows(TimeoutException.class, () -> JsonRpcBatcher.await(result));
+    }
+
+    private JsonRpcBatcher batcher(long windowMs, int maxBatchSize, long timeoutMs) {
+        JsonRpcBatcher batcher = new JsonRpcBatcher(web3j);
+        ReflectionTestUtils.setField(batcher, "enabled", true);
+        ReflectionTestUtils.setField(batcher, "windowMs", windowMs);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", maxBatchSize);
+        ReflectionTestUtils.setField(batcher, "timeoutMs", timeoutMs);
+        batcher.start();
+        return batcher;
+    }
+
+    private static EthBlockNumber blockNumber(long id, long blockNumber) {
+        EthBlockNumber response = new EthBlockNumber();
+        response.setId(id);
+        response.setResult("0x" + Long.toHexString(blockNumber));
+        return response;
+    }
+
+    private record SentBatch(BatchRequest request, CompletableFuture<BatchResponse> reply) {
+    }
+
+    private record SentCall(Request<?, ?> request, CompletableFuture<Response<?>> reply) {
+    }
+
+    /**
+     * Node JSON-RPC simulé : les requêtes envoyées sont mises en file, le test choisit la réponse
+     */
+    private static class FakeNode implements Web3jService {
+
+        final BlockingQueue<SentBatch> batches = new LinkedBlockingQueue<>();
+        final BlockingQueue<SentCall> singles = new LinkedBlockingQueue<>();
+
+        SentBatch nextBatch() {
+            return next(batches);
+        }
+
+        SentCall nextCall() {
+            return next(singles);
+        }
+
+        private static <T> T next(BlockingQueue<T> sent) {
+            try {
+                T request = sent.poll(5, TimeUnit.SECONDS);
+                assertNotNull(request, "nothing sent to the node");
+                return request;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+            CompletableFuture<Response<?>> reply = new CompletableFuture<>();
+            singles.add(new SentCall(request, reply));
+            return (CompletableFuture<T>) (CompletableFuture<?>) reply;
+        }
+
+        @Override
+        public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+            CompletableFuture<BatchResponse> reply = new CompletableFuture<>();
+            batches.add(new SentBatch(batchRequest, reply));
+            return reply;
+        }
+
+        @Override
+        public <T extends Response> T send(Request request, Class<T> responseType) {
+            throw new UnsupportedOperationException("synchronous send");
+        }
+
+        @Override
+        public BatchResponse sendBatch(BatchRequest batchRequest) {
+            throw new UnsupportedOperationException("synchronous send");
+        }
+
+        @Override
+        public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod,
+                                                                 Class<T> responseType) {
+            throw new UnsupportedOperationException("subscriptions");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
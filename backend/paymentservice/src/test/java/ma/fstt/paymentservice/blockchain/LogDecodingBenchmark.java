@@ -0,0 +1,125 @@
+package ma.fstt.paymentservice.blockchain;
+
+import ma.fstt.paymentservice.blockchain.generated.RentalEscrowMulti;
+import ma.fstt.paymentservice.indexer.RentalEscrowEvents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.EventValues;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.tx.Contract;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du décodage d'un log Funded : décodeur ABI générique, découpage de chaînes, décodeur sur octets
+ *
+ * Lancement (temps + allocations par opération) :
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=ma.fstt.paymentservice.blockchain.LogDecodingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogDecodingBenchmark {
+
+    private static final String FUNDED_TOPIC = EventEncoder.encode(RentalEscrowMulti.FUNDED_EVENT);
+    private static final byte[] FUNDED_TOPIC_BYTES = EscrowLogDecoder.topic(RentalEscrowMulti.FUNDED_EVENT);
+
+    private Log log;
+
+    @Setup
+    public void setUp() {
+        log = fundedLog(42L, "0x90f79bf6eb2c4f870365e785982e1f101e93b906",
+                new BigInteger("10000000000000000"), new BigInteger("500000000000000"), new BigInteger("9500000000000000"));
+    }
+
+    /**
+     * Chemin des bindings générés : EventValues + types ABI boxés
+     */
+    @Benchmark
+    public void abiDecoder(Blackhole bh) {
+        EventValues values = Contract.staticExtractEventParameters(RentalEscrowMulti.FUNDED_EVENT, log);
+        List<Type> indexed = values.getIndexedValues();
+        bh.consume(((BigInteger) indexed.get(0).getValue()).longValueExact());
+        bh.consume(indexed.get(1).getValue());
+        bh.consume(values.getNonIndexedValues().get(0).getValue());
+    }
+
+    /**
+     * Ancien décodage à la main (substring, new BigInteger(hex, 16))
+     */
+    @Benchmark
+    public void stringSlicing(Blackhole bh) {
+        List<String> topics = log.getTopics();
+        if (topics.get(0).equals(FUNDED_TOPIC)) {
+            bh.consume(Numeric.toBigInt(topics.get(1)).longValueExact());
+            bh.consume("0x" + topics.get(2).substring(26));
+            bh.consume(new BigInteger(log.getData().substring(2, 66), 16));
+        }
+    }
+
+    @Benchmark
+    public void byteArrayDecoder(Blackhole bh) {
+        List<String> topics = log.getTopics();
+        if (EscrowLogDecoder.topicEquals(topics.get(0), FUNDED_TOPIC_BYTES)) {
+            bh.consume(EscrowLogDecoder.topicAsLong(topics.get(1)));
+            bh.consume(EscrowLogDecoder.topicAsAddress(topics.get(2)));
+            bh.consume(EscrowLogDecoder.uint256(EscrowLogDecoder.data(log.getData()), 0));
+        }
+    }
+
+    /**
+     * Décodage complet de l'indexeur (recherche de l'événement + ChainEvent)
+     */
+    @Benchmark
+    public Object indexerDecode() {
+        return RentalEscrowEvents.decode(log);
+    }
+
+    static Log fundedLog(long bookingId, String tenant, BigInteger... amounts) {
+        StringBuilder data = new StringBuilder("0x");
+        for (BigInteger amount : amounts) {
+            data.append(Numeric.toHexStringNoPrefixZeroPadded(amount, 64));
+        }
+
+        Log log = new Log();
+        log.setAddress("0x5fbdb2315678afecb367f032d93f642f64180aa3");
+        log.setTopics(List.of(
+                FUNDED_TOPIC,
+                Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(bookingId), 64),
+                "0x" + "0".repeat(24) + Numeric.cleanHexPrefix(tenant)));
+        log.setData(data.toString());
+        log.setBlockNumber("0x10");
+        log.setBlockHash("0x" + "ab".repeat(32));
+        log.setTransactionHash("0x" + "cd".repeat(32));
+        log.setLogIndex("0x0");
+        return log;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(LogDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
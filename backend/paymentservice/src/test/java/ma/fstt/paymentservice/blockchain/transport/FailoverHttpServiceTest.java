@@ -0,0 +1,144 @@
+package ma.fstt.paymentservice.blockchain.transport;
+
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FailoverHttpServiceTest {
+
+    private final OkHttpClient httpClient = new OkHttpClient();
+
+    // Requêtes en cours, tous endpoints confondus
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+    private final AtomicInteger maxTotalInFlight = new AtomicInteger();
+
+    @Test
+    void successfulCallDoesNotBringALaggingEndpointBack() throws IOException {
+        StubEndpoint endpoint = new StubEndpoint("rpc-0", 4);
+        endpoint.recordHealthCheck(true, 100, 1_000_000);
+        endpoint.markLagging();
+
+        endpoint.recordSuccess(1_000_000);
+
+        assertTrue(endpoint.isHealthy());
+        assertTrue(endpoint.isLagging());
+        assertFalse(endpoint.isAvailable());
+
+        // Rattrapé au health check suivant
+        endpoint.recordHealthCheck(true, 110, 1_000_000);
+        assertTrue(endpoint.isAvailable());
+    }
+
+    @Test
+    void unavailableEndpointsAreNeverCalled() {
+        StubEndpoint lagging = new StubEndpoint("rpc-0", 4);
+        lagging.markLagging();
+        StubEndpoint down = new StubEndpoint("rpc-1", 4);
+        down.recordHealthCheck(false, -1, 0);
+        FailoverHttpService service = new FailoverHttpService(List.of(lagging, down), httpClient, 3, 8);
+
+        IOException error = assertThrows(IOException.class, () -> service.performIO("{}"));
+
+        assertEquals("No RPC endpoint available", error.getMessage());
+        assertEquals(0, lagging.calls.get());
+        assertEquals(0, down.calls.get());
+    }
+
+    @Test
+    void failsOverToTheNextAvailableEndpoint() throws IOException {
+        StubEndpoint failing = new StubEndpoint("rpc-0", 4);
+        failing.failing = true;
+        failing.recordHealthCheck(true, 100, 1_000_000);
+        StubEndpoint slower = new StubEndpoint("rpc-1", 4);
+        slower.recordHealthCheck(true, 100, 5_000_000);
+        FailoverHttpService service = new FailoverHttpService(List.of(failing, slower), httpClient, 3, 8);
+
+        String body = new String(service.performIO("{}").readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals("rpc-1", body);
+        assertEquals(1, failing.calls.get());
+    }
+
+    @Test
+    void concurrentRequestsAreBoundedPerEndpointAndOverall() throws Exception {
+        StubEndpoint first = new StubEndpoint("rpc-0", 2);
+        StubEndpoint second = new StubEndpoint("rpc-1", 2);
+        first.delayMs = 20;
+        second.delayMs = 20;
+        FailoverHttpService service = new FailoverHttpService(List.of(first, second), httpClient, 2, 3);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            calls.add(pool.submit(() -> {
+                start.await();
+                return service.performIO("{}").readAllBytes();
+            }));
+        }
+        start.countDown();
+        for (Future<?> call : calls) {
+            call.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(first.maxInFlight.get() <= 2);
+        assertTrue(second.maxInFlight.get() <= 2);
+        assertTrue(maxTotalInFlight.get() <= 3);
+        assertEquals(64, first.calls.get() + second.calls.get());
+    }
+
+    /**
+     * Endpoint sans réseau : répond son nom, échoue sur demande, mesure la concurrence observée
+     */
+    private class StubEndpoint extends RpcEndpoint {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile boolean failing;
+        private volatile long delayMs;
+
+        StubEndpoint(String name, int maxConcurrentRequests) {
+            super(name, "http://localhost", httpClient, 0, 1, maxConcurrentRequests, 3, 30_000);
+        }
+
+        @Override
+        byte[] post(String payload) throws IOException {
+            calls.incrementAndGet();
+            int running = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(running, Math::max);
+            maxTotalInFlight.accumulateAndGet(totalInFlight.incrementAndGet(), Math::max);
+            try {
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+                if (failing) {
+                    throw new IOException(getName() + " returned HTTP 503");
+                }
+                return getName().getBytes(StandardCharsets.UTF_8);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                inFlight.decrementAndGet();
+                totalInFlight.decrementAndGet();
+            }
+        }
+    }
+}
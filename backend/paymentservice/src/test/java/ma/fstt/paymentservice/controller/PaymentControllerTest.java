@@ -0,0 +1,87 @@
+package ma.fstt.paymentservice.controller;
+
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.dto.PaymentResponseDTO;
+import ma.fstt.paymentservice.service.PaymentHistoryService;
+import ma.fstt.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentControllerTest {
+
+    private static final String BOOKING_URL = "http://booking/bookings/42";
+
+    private RestTemplate restTemplate;
+    private PaymentController controller;
+    private PaymentResponseDTO payment;
+
+    @BeforeEach
+    void setUp() {
+        payment = PaymentResponseDTO.builder().paymentId(7L).bookingId(42L).status(PaymentStatus.PENDING).build();
+        PaymentService paymentService = mock(PaymentService.class);
+        when(paymentService.getPaymentById(7L)).thenReturn(payment);
+
+        restTemplate = mock(RestTemplate.class);
+        controller = new PaymentController(paymentService, mock(PaymentHistoryService.class), restTemplate);
+        ReflectionTestUtils.setField(controller, "bookingServiceUrl", "http://booking");
+    }
+
+    @Test
+    void tenantOfTheBookingReadsThePayment() {
+        bookingReturns(Map.of("tenantId", "tenant-1", "status", "AWAITING_PAYMENT"));
+
+        ResponseEntity<PaymentResponseDTO> response = controller.getPayment(7L, "tenant-1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(payment, response.getBody());
+    }
+
+    @Test
+    void otherUsersGetNotFound() {
+        bookingReturns(Map.of("tenantId", "tenant-1", "status", "CONFIRMED"));
+
+        ResponseEntity<PaymentResponseDTO> response = controller.getPayment(7L, "someone-else");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void bookingRefusedByBookingServiceIsNotFound() {
+        when(restTemplate.exchange(eq(BOOKING_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", null, null, null));
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.getPayment(7L, "someone-else").getStatusCode());
+    }
+
+    @Test
+    void bookingServiceDownIsUnavailable() {
+        when(restTemplate.exchange(eq(BOOKING_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.getPayment(7L, "tenant-1").getStatusCode());
+    }
+
+    private void bookingReturns(Map<String, Object> booking) {
+        when(restTemplate.exchange(eq(BOOKING_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(booking));
+    }
+}
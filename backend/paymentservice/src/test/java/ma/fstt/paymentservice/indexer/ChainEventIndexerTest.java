@@ -0,0 +1,262 @@
+package ma.fstt.paymentservice.indexer;
+
+import ma.fstt.paymentservice.blockchain.ChainHeadTracker;
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
+import ma.fstt.paymentservice.blockchain.generated.RentalEscrowMulti;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.domain.IndexerCheckpoint;
+import ma.fstt.paymentservice.repository.ChainEventRepository;
+import ma.fstt.paymentservice.repository.IndexerCheckpointRepository;
+import ma.fstt.paymentservice.scheduler.JobLeaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.abi.EventEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChainEventIndexerTest {
+
+    private static final String CONTRACT = "0x5fbdb2315678afecb367f032d93f642f64180aa3";
+    private static final String FUNDED_TOPIC = EventEncoder.encode(RentalEscrowMulti.FUNDED_EVENT);
+
+    // Chaîne simulée : hash par block (modifiable pour simuler une réorganisation) et logs par block
+    private final Map<Long, String> blockHashes = new HashMap<>();
+    private final Map<Long, List<Log>> logsByBlock = new HashMap<>();
+    private final List<long[]> requestedRanges = new ArrayList<>();
+    private final List<ChainEvent> stored = new ArrayList<>();
+    private final AtomicReference<IndexerCheckpoint> checkpoint = new AtomicReference<>();
+
+    private ChainHeadTracker chainHeadTracker;
+    private ChainEventRepository chainEventRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private JobLeaseManager leaseManager;
+    private ChainEventIndexer indexer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Web3j web3j = mock(Web3j.class);
+        when(web3j.ethGetLogs(any(EthFilter.class))).thenAnswer(inv ->
+                new Request<>("eth_getLogs", List.of((Object) inv.getArgument(0)), null, EthLog.class));
+        when(web3j.ethGetBlockByNumber(any(), anyBoolean())).thenAnswer(inv ->
+                new Request<>("eth_getBlockByNumber", List.of((Object) inv.getArgument(0)), null, EthBlock.class));
+
+        JsonRpcBatcher rpcBatcher = mock(JsonRpcBatcher.class);
+        when(rpcBatcher.submit(any())).thenAnswer(inv -> {
+            Request<?, ?> request = inv.getArgument(0);
+            Object param = request.getParams().get(0);
+            if (param instanceof EthFilter filter) {
+                return CompletableFuture.completedFuture(logs(filter));
+            }
+            return CompletableFuture.completedFuture(block(((DefaultBlockParameterNumber) param).getBlockNumber().longValue()));
+        });
+
+        chainHeadTracker = mock(ChainHeadTracker.class);
+
+        chainEventRepository = mock(ChainEventRepository.class);
+        when(chainEventRepository.saveAll(any())).thenAnswer(inv -> {
+            inv.<Iterable<ChainEvent>>getArgument(0).forEach(stored::add);
+            return inv.getArgument(0);
+        });
+        when(chainEventRepository.deleteByBlockRange(anyLong(), anyLong())).thenAnswer(inv -> {
+            long from = inv.getArgument(0);
+            long to = inv.getArgument(1);
+            stored.removeIf(e -> e.getBlockNumber() >= from && e.getBlockNumber() <= to);
+            return 0;
+        });
+        when(chainEventRepository.deleteAfterBlock(anyLong())).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            stored.removeIf(e -> e.getBlockNumber() > after);
+            return 0;
+        });
+
+        IndexerCheckpointRepository checkpointRepository = mock(IndexerCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(checkpoint.get()));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            checkpoint.set(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        leaseManager = mock(JobLeaseManager.class);
+        when(leaseManager.tryAcquire(anyString())).thenReturn(true);
+
+        indexer = new ChainEventIndexer(web3j, rpcBatcher, chainHeadTracker, chainEventRepository,
+                checkpointRepository, transactionTemplate, eventPublisher, leaseManager);
+        ReflectionTestUtils.setField(indexer, "enabled", true);
+        ReflectionTestUtils.setField(indexer, "contractAddresses", List.of(CONTRACT));
+        ReflectionTestUtils.setField(indexer, "startBlock", 50L);
+        ReflectionTestUtils.setField(indexer, "confirmations", 12);
+        ReflectionTestUtils.setField(indexer, "maxBlockRange", 20);
+        ReflectionTestUtils.setField(indexer, "maxRangesPerRun", 20);
+        ReflectionTestUtils.setField(indexer, "reorgRewindBlocks", 16);
+
+        for (long block = 0; block <= 200; block++) {
+            blockHashes.put(block, hash(block, "a"));
+        }
+    }
+
+    @Test
+    void indexesOnlyBlocksWithEnoughConfirmationsAndResumesFromTheCheckpoint() {
+        logsByBlock.put(60L, List.of(fundedLog(7L, 60L)));
+        // Block 95 : seulement 5 confirmations à la tête 100, pas encore indexé
+        logsByBlock.put(95L, List.of(fundedLog(8L, 95L)));
+        when(chainHeadTracker.latestBlock()).thenReturn(100L);
+
+        indexer.poll();
+
+        assertEquals(List.of("50-69", "70-88"), ranges());
+        assertEquals(88L, checkpoint.get().getBlockNumber());
+        assertEquals(hash(88, "a"), checkpoint.get().getBlockHash());
+        assertEquals(List.of(7L), storedBookingIds());
+        verify(eventPublisher, times(1)).publishEvent(any(ChainEventsIndexedEvent.class));
+
+        // Même tête : rien à faire ; la tête avance : reprise après le checkpoint
+        requestedRanges.clear();
+        indexer.poll();
+        assertEquals(List.of(), ranges());
+
+        when(chainHeadTracker.latestBlock()).thenReturn(110L);
+        indexer.poll();
+        assertEquals(List.of("89-98"), ranges());
+        assertEquals(98L, checkpoint.get().getBlockNumber());
+        assertEquals(List.of(7L, 8L), storedBookingIds());
+    }
+
+    @Test
+    void reorgDeeperThanTheConfirmationDepthRewindsAndReindexes() {
+        logsByBlock.put(80L, List.of(fundedLog(7L, 80L)));
+        when(chainHeadTracker.latestBlock()).thenReturn(100L);
+        indexer.poll();
+        assertEquals(88L, checkpoint.get().getBlockNumber());
+
+        // Les blocks 80+ sont remplacés : le Funded du booking 7 est maintenant au block 84
+        for (long block = 80; block <= 200; block++) {
+            blockHashes.put(block, hash(block, "b"));
+        }
+        logsByBlock.remove(80L);
+        logsByBlock.put(84L, List.of(fundedLog(7L, 84L)));
+        requestedRanges.clear();
+
+        indexer.poll();
+
+        verify(chainEventRepository).deleteAfterBlock(72L);
+        assertEquals(List.of("73-88"), ranges());
+        assertEquals(hash(88, "b"), checkpoint.get().getBlockHash());
+        assertEquals(1, stored.size());
+        assertEquals(84L, stored.get(0).getBlockNumber());
+    }
+
+    @Test
+    void onlyTheLeaseHolderIndexes() {
+        when(chainHeadTracker.latestBlock()).thenReturn(100L);
+        when(leaseManager.tryAcquire(ChainEventIndexer.CHECKPOINT_NAME)).thenReturn(false);
+
+        indexer.poll();
+
+        assertEquals(List.of(), ranges());
+        verify(chainEventRepository, never()).saveAll(any());
+        assertEquals(null, checkpoint.get());
+    }
+
+    @Test
+    void stopsBeforeStoringWhenTheLeaseIsLostMidRun() {
+        when(chainHeadTracker.latestBlock()).thenReturn(100L);
+        // Acquis au début de la passe et pour la 1ère plage, perdu ensuite
+        when(leaseManager.tryAcquire(ChainEventIndexer.CHECKPOINT_NAME)).thenReturn(true, true, false);
+
+        indexer.poll();
+
+        assertEquals(69L, checkpoint.get().getBlockNumber());
+        assertEquals(List.of("50-69", "70-88"), ranges());
+    }
+
+    private List<String> ranges() {
+        return requestedRanges.stream().map(r -> r[0] + "-" + r[1]).toList();
+    }
+
+    private List<Long> storedBookingIds() {
+        return stored.stream().map(ChainEvent::getBookingId).toList();
+    }
+
+    private EthLog logs(EthFilter filter) {
+        long from = ((DefaultBlockParameterNumber) filter.getFromBlock()).getBlockNumber().longValue();
+        long to = ((DefaultBlockParameterNumber) filter.getToBlock()).getBlockNumber().longValue();
+        requestedRanges.add(new long[]{from, to});
+
+        List<EthLog.LogResult> results = new ArrayList<>();
+        for (long block = from; block <= to; block++) {
+            for (Log entry : logsByBlock.getOrDefault(block, List.of())) {
+                results.add(new EthLog.LogObject(entry.isRemoved(), entry.getLogIndexRaw(), entry.getTransactionIndexRaw(),
+                        entry.getTransactionHash(), entry.getBlockHash(), entry.getBlockNumberRaw(), entry.getAddress(),
+                        entry.getData(), entry.getType(), entry.getTopics()));
+            }
+        }
+        EthLog response = new EthLog();
+        response.setResult(results);
+        return response;
+    }
+
+    private EthBlock block(long number) {
+        EthBlock.Block block = new EthBlock.Block();
+        block.setNumber(Numeric.toHexStringWithPrefix(BigInteger.valueOf(number)));
+        block.setHash(blockHashes.get(number));
+        EthBlock response = new EthBlock();
+        response.setResult(block);
+        return response;
+    }
+
+    private Log fundedLog(long bookingId, long blockNumber) {
+        Log log = new Log();
+        log.setAddress(CONTRACT);
+        log.setTopics(List.of(
+                FUNDED_TOPIC,
+                Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(bookingId), 64),
+                "0x" + "0".repeat(24) + "90f79bf6eb2c4f870365e785982e1f101e93b906"));
+        log.setData("0x" + Numeric.toHexStringNoPrefixZeroPadded(BigInteger.TEN, 64).repeat(3));
+        log.setBlockNumber(Numeric.toHexStringWithPrefix(BigInteger.valueOf(blockNumber)));
+        log.setBlockHash(blockHashes.get(blockNumber));
+        log.setTransactionHash("0x" + Numeric.toHexStringNoPrefixZeroPadded(BigInteger.valueOf(bookingId), 64));
+        log.setLogIndex("0x0");
+        log.setTransactionIndex("0x0");
+        return log;
+    }
+
+    private static String hash(long block, String fork) {
+        return "0x" + fork.repeat(32) + Numeric.toHexStringNoPrefixZeroPadded(BigInteger.valueOf(block), 32);
+    }
+}
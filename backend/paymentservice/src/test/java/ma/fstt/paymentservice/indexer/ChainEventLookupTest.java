@@ -0,0 +1,194 @@
+package ma.fstt.paymentservice.indexer;
+
+import ma.fstt.paymentservice.blockchain.RentalEscrowContract;
+import ma.fstt.paymentservice.domain.ChainEvent;
+import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.PaymentFailureReason;
+import ma.fstt.paymentservice.domain.PaymentIntent;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.messaging.RabbitMQProducer;
+import ma.fstt.paymentservice.repository.ChainEventRepository;
+import ma.fstt.paymentservice.repository.PaymentIntentRepository;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import ma.fstt.paymentservice.service.PaymentServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChainEventLookupTest {
+
+    private static final String CONTRACT = "0x5fbdb2315678afecb367f032d93f642f64180aa3";
+    private static final String TENANT = "0x90f79bf6eb2c4f870365e785982e1f101e93b906";
+    private static final BigDecimal ONE_ETH_WEI = new BigDecimal("1000000000000000000");
+
+    private final List<Payment> payments = new ArrayList<>();
+    private final List<PaymentIntent> intents = new ArrayList<>();
+    private final List<ChainEvent> chainEvents = new ArrayList<>();
+
+    private RentalEscrowContract escrowContract;
+    private RabbitMQProducer rabbitMQProducer;
+    private ChainEventLookup lookup;
+    private PaymentServiceImpl paymentService;
+
+    @BeforeEach
+    void setUp() {
+        PaymentRepository paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.save(any())).thenAnswer(inv -> store(inv.getArgument(0)));
+        when(paymentRepository.saveAndFlush(any())).thenAnswer(inv -> store(inv.getArgument(0)));
+        when(paymentRepository.findByTransactionHashIn(any())).thenAnswer(inv -> payments.stream()
+                .filter(p -> inv.<Collection<String>>getArgument(0).contains(p.getTransactionHash()))
+                .toList());
+        when(paymentRepository.existsByBookingIdAndStatusIn(anyLong(), any())).thenAnswer(inv -> payments.stream()
+                .anyMatch(p -> p.getBookingId().equals(inv.getArgument(0))
+                        && inv.<Collection<PaymentStatus>>getArgument(1).contains(p.getStatus())));
+        when(paymentRepository.findByStatusAndNextCheckAtLessThanEqualOrderByNextCheckAtAsc(any(), any(), any(Pageable.class)))
+                .thenAnswer(inv -> payments.stream()
+                        .filter(p -> p.getStatus() == inv.getArgument(0) && p.getNextCheckAt() != null
+                                && !p.getNextCheckAt().isAfter(inv.getArgument(1)))
+                        .toList());
+
+        PaymentIntentRepository intentRepository = mock(PaymentIntentRepository.class);
+        when(intentRepository.findByTenantWalletAndPaymentIdIsNullOrderByCreatedAtAsc(anyString()))
+                .thenAnswer(inv -> intents.stream()
+                        .filter(i -> i.getTenantWallet().equals(inv.getArgument(0)) && i.getPaymentId() == null)
+                        .toList());
+
+        ChainEventRepository chainEventRepository = mock(ChainEventRepository.class);
+        when(chainEventRepository.findByTransactionHashInAndEventName(any(), anyString())).thenAnswer(inv -> chainEvents.stream()
+                .filter(e -> inv.<Collection<String>>getArgument(0).contains(e.getTransactionHash()))
+                .toList());
+        when(chainEventRepository.findFirstByContractAddressAndBookingIdAndEventNameInOrderByBlockNumberDescLogIndexDesc(
+                anyString(), anyLong(), any())).thenReturn(Optional.empty());
+
+        escrowContract = mock(RentalEscrowContract.class);
+        when(escrowContract.findTransactionReceiptAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        rabbitMQProducer = mock(RabbitMQProducer.class);
+
+        lookup = new ChainEventLookup(chainEventRepository, paymentRepository, intentRepository);
+        ReflectionTestUtils.setField(lookup, "validationTimeoutSeconds", 1800L);
+
+        paymentService = new PaymentServiceImpl(paymentRepository, escrowContract, rabbitMQProducer, lookup);
+        ReflectionTestUtils.setField(paymentService, "validationTimeoutSeconds", 1800L);
+        ReflectionTestUtils.setField(paymentService, "pendingBatchSize", 50);
+        ReflectionTestUtils.setField(paymentService, "pendingInitialDelayMs", 2000L);
+        ReflectionTestUtils.setField(paymentService, "pendingMaxDelayMs", 60000L);
+    }
+
+    @Test
+    void notMinedTimeoutIsNotTerminalAndIsRevivedByTheIndexedFunded() {
+        LocalDateTime past = LocalDateTime.now().minusSeconds(1);
+        payments.add(Payment.builder().id(1L).bookingId(42L).transactionHash("0xaa").contractAddress(CONTRACT)
+                .status(PaymentStatus.PENDING).currency("ETH").amount(BigDecimal.ONE)
+                .nextCheckAt(past).validationDeadline(past).build());
+
+        // Échéance passée sans receipt : pas de FAILED, pas de payment.failed, plus de vérification
+        paymentService.validatePendingPayments();
+        Payment payment = payments.get(0);
+        assertEquals(PaymentStatus.PENDING, payment.getStatus());
+        assertEquals(PaymentFailureReason.NOT_MINED, payment.getFailureReason());
+        assertNull(payment.getNextCheckAt());
+        verify(rabbitMQProducer, never()).publishPaymentFailed(any(), any());
+
+        // Funded indexé plus tard : relancé puis confirmé depuis l'index
+        ChainEvent funded = funded("0xaa", TENANT, ONE_ETH_WEI);
+        chainEvents.add(funded);
+        lookup.onEventsIndexed(new ChainEventsIndexedEvent(List.of(funded)));
+        assertNull(payment.getFailureReason());
+        assertNotNull(payment.getNextCheckAt());
+        assertEquals(true, payment.getValidationDeadline().isAfter(LocalDateTime.now()));
+
+        paymentService.validatePendingPayments();
+        assertEquals(PaymentStatus.CONFIRMED, payment.getStatus());
+        verify(rabbitMQProducer).publishPaymentConfirmed(payment);
+    }
+
+    @Test
+    void failedPaymentsAreNeverRevived() {
+        payments.add(Payment.builder().id(1L).bookingId(42L).transactionHash("0xaa").contractAddress(CONTRACT)
+                .status(PaymentStatus.FAILED).failureReason(PaymentFailureReason.AMOUNT_MISMATCH)
+                .errorMessage("Transaction not mined").currency("ETH").amount(BigDecimal.ONE).build());
+
+        lookup.onEventsIndexed(new ChainEventsIndexedEvent(List.of(funded("0xaa", TENANT, ONE_ETH_WEI))));
+
+        assertEquals(PaymentStatus.FAILED, payments.get(0).getStatus());
+        assertEquals(1, payments.size());
+    }
+
+    @Test
+    void fundedWithoutClientCallbackCreatesThePaymentFromTheBookingIntent() {
+        intents.add(PaymentIntent.builder().bookingId(7L).tenantWallet(TENANT).expectedAmount(new BigDecimal("2")).build());
+        intents.add(PaymentIntent.builder().bookingId(8L).tenantWallet(TENANT).expectedAmount(BigDecimal.ONE).build());
+
+        ChainEvent funded = funded("0xbb", TENANT, ONE_ETH_WEI);
+        chainEvents.add(funded);
+        lookup.onEventsIndexed(new ChainEventsIndexedEvent(List.of(funded)));
+
+        // Seul le booking 8 (1 ETH) correspond au montant financé
+        assertEquals(1, payments.size());
+        Payment created = payments.get(0);
+        assertEquals(8L, created.getBookingId());
+        assertEquals("0xbb", created.getTransactionHash());
+        assertEquals(PaymentStatus.PENDING, created.getStatus());
+        assertEquals(created.getId(), intents.get(1).getPaymentId());
+        assertNull(intents.get(0).getPaymentId());
+
+        paymentService.validatePendingPayments();
+        assertEquals(PaymentStatus.CONFIRMED, created.getStatus());
+        verify(rabbitMQProducer).publishPaymentConfirmed(created);
+    }
+
+    @Test
+    void ambiguousFundedIsLeftToReconciliation() {
+        intents.add(PaymentIntent.builder().bookingId(7L).tenantWallet(TENANT).expectedAmount(BigDecimal.ONE).build());
+        intents.add(PaymentIntent.builder().bookingId(8L).tenantWallet(TENANT).expectedAmount(BigDecimal.ONE).build());
+
+        lookup.onEventsIndexed(new ChainEventsIndexedEvent(List.of(funded("0xbb", TENANT, ONE_ETH_WEI))));
+
+        assertEquals(0, payments.size());
+    }
+
+    private Payment store(Payment payment) {
+        if (payment.getId() == null) {
+            payment.setId((long) payments.size() + 100);
+        }
+        if (!payments.contains(payment)) {
+            payments.add(payment);
+        }
+        return payment;
+    }
+
+    private static ChainEvent funded(String txHash, String tenant, BigDecimal amountWei) {
+        return ChainEvent.builder()
+                .contractAddress(CONTRACT)
+                .eventName(RentalEscrowEvents.FUNDED)
+                .bookingId(3L)
+                .account(tenant)
+                .amountWei(amountWei)
+                .blockNumber(120L)
+                .blockHash("0x" + "ab".repeat(32))
+                .transactionHash(txHash)
+                .logIndex(0)
+                .build();
+    }
+}
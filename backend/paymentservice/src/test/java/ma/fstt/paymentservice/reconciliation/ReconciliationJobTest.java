@@ -0,0 +1,266 @@
+package ma.fstt.paymentservice.reconciliation;
+
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.clients.BookingServiceClient;
+import ma.fstt.paymentservice.domain.DiscrepancyType;
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.domain.ReconciliationCheckpoint;
+import ma.fstt.paymentservice.domain.ReconciliationDiscrepancy;
+import ma.fstt.paymentservice.dto.BookingReconciliationDTO;
+import ma.fstt.paymentservice.dto.BookingReconciliationPageDTO;
+import ma.fstt.paymentservice.messaging.RabbitMQProducer;
+import ma.fstt.paymentservice.repository.PaymentReconciliationView;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import ma.fstt.paymentservice.repository.ReconciliationCheckpointRepository;
+import ma.fstt.paymentservice.repository.ReconciliationDiscrepancyRepository;
+import ma.fstt.paymentservice.scheduler.JobLeaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReconciliationJobTest {
+
+    private record PaymentRow(Long id, Long bookingId, PaymentStatus status, FinalityStatus finality)
+            implements PaymentReconciliationView {
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getBookingId() {
+            return bookingId;
+        }
+
+        public String getTransactionHash() {
+            return "0x" + id;
+        }
+
+        public String getContractAddress() {
+            return "0xescrow";
+        }
+
+        public PaymentStatus getStatus() {
+            return status;
+        }
+
+        public FinalityStatus getFinality() {
+            return finality;
+        }
+    }
+
+    private final List<BookingReconciliationDTO> bookings = new ArrayList<>();
+    private final List<PaymentRow> payments = new ArrayList<>();
+    private final List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+    private final AtomicReference<ReconciliationCheckpoint> savedCheckpoint = new AtomicReference<>();
+
+    private int serverMaxBatch = 5000;
+
+    private BookingServiceClient bookingServiceClient;
+    private PaymentRepository paymentRepository;
+    private RabbitMQProducer rabbitMQProducer;
+    private JobLeaseManager leaseManager;
+    private ReconciliationJob job;
+
+    @BeforeEach
+    void setUp() {
+        // Comme BookingService : lot plafonné à serverMaxBatch, suite indiquée par hasMore
+        bookingServiceClient = mock(BookingServiceClient.class);
+        when(bookingServiceClient.getReconciliationBatch(anyString(), anyLong(), anyInt())).thenAnswer(inv -> {
+            List<BookingReconciliationDTO> after = bookings.stream()
+                    .filter(b -> b.getId() > inv.<Long>getArgument(1))
+                    .toList();
+            int pageSize = Math.min(inv.<Integer>getArgument(2), serverMaxBatch);
+            return new BookingReconciliationPageDTO(after.subList(0, Math.min(pageSize, after.size())),
+                    after.size() > pageSize);
+        });
+
+        // Parcours par clé (bookingId, id), comme la requête JPQL
+        paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.findReconciliationBatch(anyLong(), anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long bookingId = inv.getArgument(0);
+            long id = inv.getArgument(1);
+            return payments.stream()
+                    .filter(p -> p.bookingId() > bookingId || (p.bookingId() == bookingId && p.id() > id))
+                    .limit(inv.<Pageable>getArgument(2).getPageSize())
+                    .map(PaymentReconciliationView.class::cast)
+                    .toList();
+        });
+        when(paymentRepository.findById(anyLong())).thenAnswer(inv -> payments.stream()
+                .filter(p -> p.id().equals(inv.getArgument(0)))
+                .findFirst()
+                .map(p -> Payment.builder().id(p.id()).bookingId(p.bookingId()).status(p.status())
+                        .transactionHash(p.getTransactionHash()).amount(BigDecimal.ONE).build()));
+
+        EscrowStateResolver escrowStateResolver = mock(EscrowStateResolver.class);
+        when(escrowStateResolver.resolve(any())).thenAnswer(inv -> {
+            Map<Long, ContractState> states = new HashMap<>();
+            for (PaymentReconciliationView payment : inv.<Collection<PaymentReconciliationView>>getArgument(0)) {
+                if (payment.getId() == 10L || payment.getId() == 40L) {
+                    states.put(payment.getId(), ContractState.Funded);
+                }
+            }
+            return states;
+        });
+
+        ReconciliationDiscrepancyRepository discrepancyRepository = mock(ReconciliationDiscrepancyRepository.class);
+        when(discrepancyRepository.findByBookingIdGreaterThanAndBookingIdLessThanEqual(anyLong(), anyLong()))
+                .thenAnswer(inv -> discrepancies.stream()
+                        .filter(d -> d.getBookingId() > inv.<Long>getArgument(0)
+                                && d.getBookingId() <= inv.<Long>getArgument(1))
+                        .toList());
+        when(discrepancyRepository.saveAll(any())).thenAnswer(inv -> {
+            for (ReconciliationDiscrepancy discrepancy : inv.<Iterable<ReconciliationDiscrepancy>>getArgument(0)) {
+                if (!discrepancies.contains(discrepancy)) {
+                    discrepancies.add(discrepancy);
+                }
+            }
+            return inv.getArgument(0);
+        });
+
+        ReconciliationCheckpointRepository checkpointRepository = mock(ReconciliationCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(savedCheckpoint.get()));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            savedCheckpoint.set(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+
+        rabbitMQProducer = mock(RabbitMQProducer.class);
+        leaseManager = mock(JobLeaseManager.class);
+        when(leaseManager.tryAcquire(ReconciliationJob.CHECKPOINT_NAME)).thenReturn(true);
+
+        job = new ReconciliationJob(bookingServiceClient, paymentRepository, escrowStateResolver,
+                discrepancyRepository, checkpointRepository, rabbitMQProducer, leaseManager);
+        ReflectionTestUtils.setField(job, "enabled", true);
+        ReflectionTestUtils.setField(job, "internalApiToken", "secret");
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+        ReflectionTestUtils.setField(job, "maxKeysPerRun", 2);
+        ReflectionTestUtils.setField(job, "pauseBetweenBatchesMs", 0L);
+        ReflectionTestUtils.setField(job, "autoRepair", true);
+        ReflectionTestUtils.setField(job, "maxRepairAttempts", 3);
+    }
+
+    @Test
+    void mergeJoinReportsDiscrepanciesResumesAndResolves() {
+        booking(1, "CONFIRMED");
+        payments.add(new PaymentRow(10L, 1L, PaymentStatus.CONFIRMED, FinalityStatus.FINAL));
+        booking(2, "CONFIRMED");
+        booking(3, "AWAITING_PAYMENT");
+        payments.add(new PaymentRow(29L, 3L, PaymentStatus.FAILED, null));
+        payments.add(new PaymentRow(30L, 3L, PaymentStatus.CONFIRMED, FinalityStatus.PENDING_FINALITY));
+        booking(4, "EXPIRED");
+        payments.add(new PaymentRow(40L, 4L, PaymentStatus.PENDING, null));
+        payments.add(new PaymentRow(50L, 5L, PaymentStatus.CONFIRMED, FinalityStatus.FINAL));
+        booking(6, "CANCELLED");
+
+        // 1ère passe limitée à une fenêtre : bookings 1 et 2, reprise enregistrée
+        job.reconcile();
+        assertEquals(2L, savedCheckpoint.get().getLastBookingId());
+        assertEquals(Map.of(2L, DiscrepancyType.BOOKING_CONFIRMED_WITHOUT_PAYMENT), openDiscrepancies());
+
+        // 2ème passe : reprend après le booking 2 et termine le parcours
+        ReflectionTestUtils.setField(job, "maxKeysPerRun", 100);
+        job.reconcile();
+        assertEquals(0L, savedCheckpoint.get().getLastBookingId());
+        assertEquals(1L, savedCheckpoint.get().getCompletedSweeps());
+        assertEquals(Map.of(
+                2L, DiscrepancyType.BOOKING_CONFIRMED_WITHOUT_PAYMENT,
+                3L, DiscrepancyType.PAYMENT_NOT_APPLIED,
+                4L, DiscrepancyType.ESCROW_FUNDED_BOOKING_CLOSED,
+                5L, DiscrepancyType.PAYMENT_WITHOUT_BOOKING), openDiscrepancies());
+        verify(rabbitMQProducer, times(4)).publishReconciliationDiscrepancy(any());
+        verify(rabbitMQProducer, times(1)).publishPaymentConfirmed(any());
+
+        // Booking 3 confirmé entre-temps : l'écart est résolu à la passe suivante, pas republié
+        bookings.set(2, BookingReconciliationDTO.builder().id(3L).status("CONFIRMED").build());
+        job.reconcile();
+        job.reconcile();
+        assertEquals(Set.of(2L, 4L, 5L), openDiscrepancies().keySet());
+        ReconciliationDiscrepancy resolved = discrepancies.stream()
+                .filter(d -> d.getBookingId() == 3L).findFirst().orElseThrow();
+        assertNotNull(resolved.getResolvedAt());
+        assertEquals(1, resolved.getRepairAttempts());
+        verify(rabbitMQProducer, times(4)).publishReconciliationDiscrepancy(any());
+    }
+
+    @Test
+    void shortBatchesFromACappedServerDoNotEndTheSweep() {
+        for (long id = 1; id <= 5; id++) {
+            booking(id, "CANCELLED");
+        }
+        // BookingService renvoie au plus 2 bookings alors que la fenêtre en demande 4
+        serverMaxBatch = 2;
+        ReflectionTestUtils.setField(job, "batchSize", 4);
+        ReflectionTestUtils.setField(job, "maxKeysPerRun", 100);
+
+        job.reconcile();
+
+        assertEquals(5L, savedCheckpoint.get().getScannedTotal());
+        assertEquals(1L, savedCheckpoint.get().getCompletedSweeps());
+        verify(bookingServiceClient, times(3)).getReconciliationBatch(eq("secret"), anyLong(), eq(4));
+    }
+
+    @Test
+    void runsOnlyOnTheInstanceHoldingTheLease() {
+        booking(1, "CONFIRMED");
+        when(leaseManager.tryAcquire(ReconciliationJob.CHECKPOINT_NAME)).thenReturn(false);
+
+        job.reconcile();
+
+        verify(bookingServiceClient, never()).getReconciliationBatch(anyString(), anyLong(), anyInt());
+        assertNull(savedCheckpoint.get());
+    }
+
+    @Test
+    void stopsWithoutCheckpointingWhenTheLeaseIsLostMidRun() {
+        for (long id = 1; id <= 4; id++) {
+            booking(id, "CANCELLED");
+        }
+        ReflectionTestUtils.setField(job, "maxKeysPerRun", 100);
+        // Bail obtenu pour la première fenêtre, perdu avant la deuxième
+        when(leaseManager.tryAcquire(ReconciliationJob.CHECKPOINT_NAME)).thenReturn(true, true, false);
+
+        job.reconcile();
+
+        assertEquals(2L, savedCheckpoint.get().getLastBookingId());
+        assertEquals(0L, savedCheckpoint.get().getCompletedSweeps());
+        verify(leaseManager).release(ReconciliationJob.CHECKPOINT_NAME);
+    }
+
+    private void booking(long id, String status) {
+        bookings.add(BookingReconciliationDTO.builder().id(id).status(status).build());
+    }
+
+    private Map<Long, DiscrepancyType> openDiscrepancies() {
+        return discrepancies.stream()
+                .filter(d -> d.getResolvedAt() == null)
+                .collect(Collectors.toMap(ReconciliationDiscrepancy::getBookingId, ReconciliationDiscrepancy::getType));
+    }
+}
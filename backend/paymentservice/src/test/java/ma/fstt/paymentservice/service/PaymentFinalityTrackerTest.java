@@ -0,0 +1,152 @@
+package ma.fstt.paymentservice.service;
+
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
+import ma.fstt.paymentservice.blockchain.NewHeadEvent;
+import ma.fstt.paymentservice.blockchain.RentalEscrowContract;
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.Payment;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.messaging.RabbitMQProducer;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentFinalityTrackerTest {
+
+    private static final String HASH_A = "0x" + "aa".repeat(32);
+    private static final String HASH_B = "0x" + "bb".repeat(32);
+
+    private final List<Payment> payments = new ArrayList<>();
+    // Hash canonique par numéro de block (absent = block pas encore servi par le nœud)
+    private final Map<Long, String> canonicalChain = new HashMap<>();
+
+    private PaymentRepository paymentRepository;
+    private RentalEscrowContract escrowContract;
+    private RabbitMQProducer rabbitMQProducer;
+    private PaymentFinalityTracker tracker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.findByFinalityAndBlockNumberLessThanEqualOrderByBlockNumberAsc(any(), any(), any(Pageable.class)))
+                .thenAnswer(inv -> payments.stream()
+                        .filter(p -> p.getFinality() == inv.getArgument(0) && p.getBlockNumber() <= inv.<Long>getArgument(1))
+                        .toList());
+        when(paymentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        Web3j web3j = mock(Web3j.class);
+        when(web3j.ethGetBlockByNumber(any(), anyBoolean())).thenAnswer(inv -> {
+            long number = ((DefaultBlockParameterNumber) inv.getArgument(0)).getBlockNumber().longValue();
+            return new Request<>("eth_getBlockByNumber", List.of(number), null, EthBlock.class);
+        });
+
+        JsonRpcBatcher rpcBatcher = mock(JsonRpcBatcher.class);
+        when(rpcBatcher.submit(any())).thenAnswer(inv -> {
+            long number = (Long) inv.<Request<?, EthBlock>>getArgument(0).getParams().get(0);
+            EthBlock response = new EthBlock();
+            String hash = canonicalChain.get(number);
+            if (hash != null) {
+                EthBlock.Block block = new EthBlock.Block();
+                block.setHash(hash);
+                response.setResult(block);
+            }
+            return CompletableFuture.completedFuture(response);
+        });
+
+        escrowContract = mock(RentalEscrowContract.class);
+        when(escrowContract.findTransactionReceipt(anyString())).thenReturn(Optional.empty());
+        rabbitMQProducer = mock(RabbitMQProducer.class);
+
+        tracker = new PaymentFinalityTracker(paymentRepository, escrowContract, web3j, rpcBatcher, rabbitMQProducer);
+        ReflectionTestUtils.setField(tracker, "confirmations", 12);
+        ReflectionTestUtils.setField(tracker, "batchSize", 500);
+        ReflectionTestUtils.setField(tracker, "maxBatchesPerHead", 10);
+        ReflectionTestUtils.setField(tracker, "validationTimeoutSeconds", 1800L);
+    }
+
+    @Test
+    void matchingCanonicalHashFinalizesThePayment() {
+        Payment payment = confirmed(1L, 100L, HASH_A);
+        canonicalChain.put(100L, HASH_A);
+
+        tracker.onNewHead(new NewHeadEvent(112));
+
+        assertEquals(FinalityStatus.FINAL, payment.getFinality());
+        verify(rabbitMQProducer, never()).publishPaymentReorged(any(), any());
+    }
+
+    @Test
+    void unknownCanonicalHashIsRetriedWithoutReverifying() throws Exception {
+        Payment withHash = confirmed(1L, 100L, HASH_A);
+        Payment withoutHash = confirmed(2L, 100L, null);
+
+        // Block 100 pas encore servi par le nœud : aucun appel receipt, aucun changement
+        tracker.onNewHead(new NewHeadEvent(112));
+        tracker.onNewHead(new NewHeadEvent(113));
+
+        verify(escrowContract, never()).findTransactionReceipt(anyString());
+        verify(paymentRepository, never()).save(any());
+        assertEquals(FinalityStatus.PENDING_FINALITY, withHash.getFinality());
+        assertEquals(null, withoutHash.getBlockHash());
+
+        // Block disponible au head suivant : hash adopté pour l'un, finalisé pour l'autre
+        canonicalChain.put(100L, HASH_A);
+        tracker.onNewHead(new NewHeadEvent(114));
+
+        assertEquals(FinalityStatus.FINAL, withHash.getFinality());
+        assertEquals(HASH_A, withoutHash.getBlockHash());
+        verify(rabbitMQProducer, never()).publishPaymentReorged(any(), any());
+    }
+
+    @Test
+    void droppedTransactionIsReorgedAndPublished() {
+        Payment payment = confirmed(1L, 100L, HASH_A);
+        canonicalChain.put(100L, HASH_B);
+
+        tracker.onNewHead(new NewHeadEvent(112));
+
+        assertEquals(FinalityStatus.REORGED, payment.getFinality());
+        assertEquals(PaymentStatus.PENDING, payment.getStatus());
+        verify(rabbitMQProducer).publishPaymentReorged(any(), anyString());
+    }
+
+    private Payment confirmed(Long id, Long blockNumber, String blockHash) {
+        Payment payment = Payment.builder()
+                .id(id)
+                .bookingId(id + 40)
+                .transactionHash("0x0" + id)
+                .status(PaymentStatus.CONFIRMED)
+                .finality(FinalityStatus.PENDING_FINALITY)
+                .blockNumber(blockNumber)
+                .blockHash(blockHash)
+                .amount(BigDecimal.ONE)
+                .currency("ETH")
+                .build();
+        payments.add(payment);
+        return payment;
+    }
+}
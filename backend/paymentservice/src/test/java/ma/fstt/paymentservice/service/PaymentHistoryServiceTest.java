@@ -0,0 +1,179 @@
+package ma.fstt.paymentservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.fstt.paymentservice.domain.FinalityStatus;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.dto.PaymentExportFormat;
+import ma.fstt.paymentservice.repository.PaymentRepository;
+import ma.fstt.paymentservice.repository.PaymentSummaryView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class PaymentHistoryServiceTest {
+
+    private static final String WALLET = "0xabcdef0000000000000000000000000000000001";
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 2, 1, 0, 0);
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 1, 15, 10, 30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PaymentRepository paymentRepository;
+    private PaymentHistoryService service;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        service = new PaymentHistoryService(paymentRepository, objectMapper);
+        ReflectionTestUtils.setField(service, "maxPageSize", 100);
+    }
+
+    @Test
+    void searchUsesTheQueryMatchingTheFilters() {
+        // Adresse saisie en casse mixte : stockée en minuscules
+        service.search(" 0xABCDEF0000000000000000000000000000000001 ", PaymentStatus.CONFIRMED, FROM, TO, 0, 20);
+        verify(paymentRepository).findByFromAddressAndStatusAndCreatedAtBetween(
+                eq(WALLET), eq(PaymentStatus.CONFIRMED), eq(FROM), eq(TO), any());
+
+        service.search(WALLET, null, FROM, TO, 0, 20);
+        verify(paymentRepository).findByFromAddressAndCreatedAtBetween(eq(WALLET), eq(FROM), eq(TO), any());
+
+        service.search("  ", PaymentStatus.FAILED, FROM, TO, 0, 20);
+        verify(paymentRepository).findByStatusAndCreatedAtBetween(eq(PaymentStatus.FAILED), eq(FROM), eq(TO), any());
+
+        service.search(null, null, FROM, TO, 0, 20);
+        verify(paymentRepository).findByCreatedAtBetween(eq(FROM), eq(TO), any());
+
+        verifyNoMoreInteractions(paymentRepository);
+    }
+
+    @Test
+    void searchCapsThePageSizeAndSortsNewestFirst() {
+        service.search(null, null, null, null, -1, 10_000);
+
+        ArgumentCaptor<LocalDateTime> start = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> end = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(paymentRepository).findByCreatedAtBetween(start.capture(), end.capture(), pageable.capture());
+
+        assertEquals(0, pageable.getValue().getPageNumber());
+        assertEquals(100, pageable.getValue().getPageSize());
+        assertEquals(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")), pageable.getValue().getSort());
+        // Sans période : depuis l'origine jusqu'à maintenant
+        assertTrue(start.getValue().isBefore(FROM));
+        assertFalse(end.getValue().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void exportStreamsTheQueryMatchingTheFilters() throws IOException {
+        export(WALLET, PaymentStatus.CONFIRMED, PaymentExportFormat.CSV);
+        verify(paymentRepository).streamByFromAddressAndStatusAndCreatedAtBetween(
+                eq(WALLET), eq(PaymentStatus.CONFIRMED), eq(FROM), eq(TO), any());
+
+        export(WALLET, null, PaymentExportFormat.NDJSON);
+        verify(paymentRepository).streamByFromAddressAndCreatedAtBetween(eq(WALLET), eq(FROM), eq(TO), any());
+
+        export(null, PaymentStatus.PENDING, PaymentExportFormat.CSV);
+        verify(paymentRepository).streamByStatusAndCreatedAtBetween(eq(PaymentStatus.PENDING), eq(FROM), eq(TO), any());
+
+        export(null, null, PaymentExportFormat.NDJSON);
+        verify(paymentRepository).streamByCreatedAtBetween(eq(FROM), eq(TO), any());
+
+        verifyNoMoreInteractions(paymentRepository);
+    }
+
+    @Test
+    void csvQuotesCommasQuotesAndNewlines() throws IOException {
+        when(paymentRepository.streamByCreatedAtBetween(any(), any(), any())).thenReturn(Stream.of(
+                payment(1L, 100L, null),
+                payment(2L, null, "execution reverted: \"Not funded\", retry\nlater")));
+
+        String csv = export(null, null, PaymentExportFormat.CSV);
+
+        assertEquals(List.of(
+                "id,bookingId,transactionHash,contractAddress,fromAddress,amount,currency,"
+                        + "status,finality,blockNumber,validatedAt,createdAt,errorMessage",
+                "1,42,0x01,0xc0ffee," + WALLET + ",0.05,ETH,CONFIRMED,FINAL,100,,2026-01-15T10:30,",
+                "2,42,0x02,0xc0ffee," + WALLET + ",0.05,ETH,CONFIRMED,FINAL,,,2026-01-15T10:30,"
+                        + "\"execution reverted: \"\"Not funded\"\", retry",
+                "later\""), csv.lines().toList());
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        when(paymentRepository.streamByCreatedAtBetween(any(), any(), any())).thenReturn(Stream.of(
+                payment(1L, 100L, null),
+                payment(2L, null, "line one\nline two")));
+
+        String ndjson = export(null, null, PaymentExportFormat.NDJSON);
+
+        List<String> lines = ndjson.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(ndjson.endsWith("\n"));
+
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals(1, first.get("id").asLong());
+        assertEquals(new BigDecimal("0.05"), first.get("amount").decimalValue());
+        assertEquals("CONFIRMED", first.get("status").asText());
+        assertEquals(100, first.get("blockNumber").asLong());
+        assertEquals("2026-01-15T10:30", first.get("createdAt").asText());
+        assertTrue(first.get("errorMessage").isNull());
+
+        // Saut de ligne échappé dans la chaîne JSON : une ligne par paiement
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertTrue(second.get("blockNumber").isNull());
+        assertEquals("line one\nline two", second.get("errorMessage").asText());
+    }
+
+    // --- Utilitaires ---
+
+    private String export(String wallet, PaymentStatus status, PaymentExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(wallet, status, FROM, TO, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static PaymentSummaryView payment(Long id, Long blockNumber, String errorMessage) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", id);
+        columns.put("bookingId", 42L);
+        columns.put("transactionHash", "0x0" + id);
+        columns.put("contractAddress", "0xc0ffee");
+        columns.put("fromAddress", WALLET);
+        columns.put("amount", new BigDecimal("0.05"));
+        columns.put("currency", "ETH");
+        columns.put("status", PaymentStatus.CONFIRMED);
+        columns.put("finality", FinalityStatus.FINAL);
+        columns.put("blockNumber", blockNumber);
+        columns.put("errorMessage", errorMessage);
+        columns.put("validatedAt", null);
+        columns.put("createdAt", CREATED);
+        return new SpelAwareProxyProjectionFactory().createProjection(PaymentSummaryView.class, columns);
+    }
+}
@@ -0,0 +1,213 @@
+package ma.fstt.paymentservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.fstt.paymentservice.blockchain.ContractState;
+import ma.fstt.paymentservice.blockchain.JsonRpcBatcher;
+import ma.fstt.paymentservice.blockchain.RentalEscrowContract;
+import ma.fstt.paymentservice.domain.PaymentStatus;
+import ma.fstt.paymentservice.dto.PaymentResponseDTO;
+import ma.fstt.paymentservice.dto.PaymentValidationRequestDTO;
+import ma.fstt.paymentservice.indexer.RentalEscrowEvents;
+import ma.fstt.paymentservice.messaging.RabbitMQProducer;
+import ma.fstt.paymentservice.repository.ChainEventRepository;
+import ma.fstt.paymentservice.support.HardhatDevnet;
+import ma.fstt.paymentservice.support.HardhatDevnet.FundedBooking;
+import ma.fstt.paymentservice.support.RpcCallCounter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Convert;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Banc de charge de la validation des paiements sur une devnet Hardhat locale
+ *
+ * Déploie RentalEscrow.sol, crée et finance N réservations, puis mesure validations/s et appels
+ * RPC par validation (requêtes HTTP et appels JSON-RPC, indexeur et suivi de tête compris).
+ *
+ * Lancement (Node.js + "npm install" dans blockchain/) :
+ *   mvn test -Dtest=PaymentValidationLoadTest -Ddevnet=true [-Ddevnet.bookings=500] [-Ddevnet.concurrency=16]
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "devnet", matches = "true")
+@Slf4j
+class PaymentValidationLoadTest {
+
+    private static final int BOOKINGS = Integer.getInteger("devnet.bookings", 500);
+    private static final int CONCURRENCY = Integer.getInteger("devnet.concurrency", 16);
+    private static final BigInteger RENT_WEI = Convert.toWei("0.01", Convert.Unit.ETHER).toBigIntegerExact();
+    private static final Duration INDEXING_TIMEOUT = Duration.ofMinutes(2);
+
+    private static HardhatDevnet devnet;
+    private static String contractAddress;
+    private static List<FundedBooking> bookings;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private RentalEscrowContract escrowContract;
+
+    @Autowired
+    private ChainEventRepository chainEventRepository;
+
+    @Autowired
+    private RpcCallCounter rpcCallCounter;
+
+    @MockBean
+    private RabbitMQProducer rabbitMQProducer;
+
+    @TestConfiguration
+    static class DevnetConfig {
+
+        @Bean
+        static RpcCallCounter rpcCallCounter() {
+            return new RpcCallCounter();
+        }
+    }
+
+    @BeforeAll
+    static void startDevnet() throws Exception {
+        assumeTrue(HardhatDevnet.isAvailable(), "Hardhat not installed in " + HardhatDevnet.hardhatDir());
+
+        devnet = HardhatDevnet.start();
+        contractAddress = devnet.deployRentalEscrow();
+
+        Instant start = Instant.now();
+        bookings = devnet.createFundedBookings(contractAddress, BOOKINGS, RENT_WEI);
+        log.info("⛓️ Devnet ready: contract {}, {} funded bookings in {} ms",
+                contractAddress, bookings.size(), Duration.between(start, Instant.now()).toMillis());
+    }
+
+    @AfterAll
+    static void stopDevnet() {
+        if (devnet != null) {
+            devnet.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void devnetProperties(DynamicPropertyRegistry registry) {
+        registry.add("web3.rpc.url", () -> devnet.rpcUrl());
+        registry.add("web3.contract.address", () -> contractAddress);
+        registry.add("web3.private.key", () -> "0x" + "01".repeat(32));
+
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:devnet;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.H2Dialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("spring.rabbitmq.listener.simple.auto-startup", () -> "false");
+        registry.add("reconciliation.enabled", () -> "false");
+        registry.add("logging.level.ma.fstt.paymentservice.service.PaymentServiceImpl", () -> "WARN");
+        registry.add("logging.level.ma.fstt.paymentservice.blockchain", () -> "WARN");
+        registry.add("logging.level.ma.fstt.paymentservice.indexer", () -> "WARN");
+
+        // Devnet : pas de réorganisation, indexation immédiate, pas de budget RPC
+        registry.add("chain.indexer.confirmations", () -> "0");
+        registry.add("chain.indexer.poll-interval-ms", () -> "200");
+        registry.add("web3.head.poll-interval-ms", () -> "200");
+        registry.add("payments.finality.confirmations", () -> "1");
+        registry.add("web3.rpc.rate-limit-per-second", () -> "100000");
+        registry.add("web3.rpc.burst", () -> "100000");
+    }
+
+    /**
+     * validatePayment de bout en bout : Funded indexés, validations concurrentes
+     */
+    @Test
+    void validatePaymentUnderLoad() throws Exception {
+        awaitIndexed();
+        rpcCallCounter.reset();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        Instant start = Instant.now();
+        try {
+            List<Future<PaymentResponseDTO>> results = new ArrayList<>(bookings.size());
+            for (FundedBooking booking : bookings) {
+                results.add(executor.submit(() -> paymentService.validatePayment(PaymentValidationRequestDTO.builder()
+                        .bookingId(booking.bookingId())
+                        .transactionHash(booking.fundTransactionHash())
+                        .contractAddress(contractAddress)
+                        .expectedAmount(Convert.fromWei(booking.rentWei().toString(), Convert.Unit.ETHER))
+                        .build())));
+            }
+            for (Future<PaymentResponseDTO> result : results) {
+                assertEquals(PaymentStatus.CONFIRMED, result.get().getStatus());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        report("validatePayment", bookings.size(), Duration.between(start, Instant.now()));
+    }
+
+    /**
+     * Chemin RPC brut de RentalEscrowContract (receipt + état au block de la transaction), sans index
+     */
+    @Test
+    void receiptAndStateReadsUnderLoad() throws Exception {
+        rpcCallCounter.reset();
+
+        Instant start = Instant.now();
+        List<CompletableFuture<ContractState>> states = new ArrayList<>(bookings.size());
+        for (FundedBooking booking : bookings) {
+            states.add(escrowContract.findTransactionReceiptAsync(booking.fundTransactionHash())
+                    .thenCompose(receipt -> {
+                        TransactionReceipt mined = receipt.orElseThrow();
+                        return escrowContract.getBookingStateAsync(
+                                contractAddress, booking.bookingId(), mined.getBlockNumber().longValue());
+                    }));
+        }
+        for (CompletableFuture<ContractState> state : states) {
+            assertEquals(ContractState.Funded, JsonRpcBatcher.await(state));
+        }
+
+        report("receipt + getBookingState", bookings.size(), Duration.between(start, Instant.now()));
+    }
+
+    private void awaitIndexed() throws InterruptedException {
+        List<String> txHashes = bookings.stream().map(FundedBooking::fundTransactionHash).toList();
+        Instant deadline = Instant.now().plus(INDEXING_TIMEOUT);
+        while (chainEventRepository.findByTransactionHashInAndEventName(txHashes, RentalEscrowEvents.FUNDED).size()
+                < txHashes.size()) {
+            assertTrue(Instant.now().isBefore(deadline), "Funded events not indexed in time");
+            Thread.sleep(200);
+        }
+    }
+
+    private void report(String scenario, int operations, Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        log.info("📊 {}: {} ops in {} ms → {} ops/s, {} RPC calls/op, {} HTTP requests/op (concurrency {})",
+                scenario, operations, elapsed.toMillis(),
+                String.format("%.1f", operations / seconds),
+                String.format("%.2f", rpcCallCounter.calls() / (double) operations),
+                String.format("%.2f", rpcCallCounter.httpRequests() / (double) operations),
+                CONCURRENCY);
+        log.info("📊 {}: RPC calls by method {}", scenario, rpcCallCounter.callsByMethod());
+    }
+}
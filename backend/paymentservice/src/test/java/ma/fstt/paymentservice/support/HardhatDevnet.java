@@ -0,0 +1,322 @@
+package ma.fstt.paymentservice.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Devnet EVM locale pour les tests d'intégration et de charge (nœud Hardhat lancé depuis blockchain/)
+ *
+ * Compile et déploie RentalEscrow.sol, puis génère des réservations financées en masse :
+ * automine désactivé pendant la génération, les transactions sont minées par blocks pleins.
+ * Les comptes utilisés sont les comptes déverrouillés du nœud (eth_sendTransaction, pas de clé privée).
+ *
+ * Prérequis : Node.js et "npm install" dans blockchain/ (dossier surchargeable par -Ddevnet.hardhat-dir).
+ */
+public class HardhatDevnet implements AutoCloseable {
+
+    private static final String ARTIFACT = "artifacts/contracts/RentalEscrow.sol/RentalEscrowMulti.json";
+    private static final String COMMITTED_ABI = "abi/RentalEscrowMulti.json";
+    private static final BigInteger TX_GAS_LIMIT = BigInteger.valueOf(500_000);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration MINING_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Path hardhatDir;
+    private final int port;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Process node;
+    private Path nodeLog;
+    private HttpService httpService;
+    private Web3j web3j;
+    private List<String> accounts;
+
+    /**
+     * Réservation créée et financée on-chain
+     */
+    public record FundedBooking(long bookingId, String tenant, BigInteger rentWei, String fundTransactionHash) {
+    }
+
+    private HardhatDevnet(Path hardhatDir, int port) {
+        this.hardhatDir = hardhatDir;
+        this.port = port;
+    }
+
+    public static Path hardhatDir() {
+        return Path.of(System.getProperty("devnet.hardhat-dir", "../../blockchain")).toAbsolutePath().normalize();
+    }
+
+    /**
+     * ABI versionnée dont web3j-maven-plugin génère les bindings RentalEscrowMulti
+     */
+    public static Path committedAbi() {
+        return hardhatDir().resolve(COMMITTED_ABI);
+    }
+
+    /**
+     * Hardhat installé localement (node_modules présent)
+     */
+    public static boolean isAvailable() {
+        return Files.isDirectory(hardhatDir().resolve("node_modules/hardhat"));
+    }
+
+    /**
+     * Compiler les contrats puis lancer "hardhat node" sur un port libre
+     */
+    public static HardhatDevnet start() throws Exception {
+        HardhatDevnet devnet = new HardhatDevnet(hardhatDir(), freePort());
+        devnet.run("compile");
+        devnet.nodeLog = Files.createTempFile("hardhat-devnet-", ".log");
+        devnet.node = devnet.process("node", "--hostname", "127.0.0.1", "--port", String.valueOf(devnet.port))
+                .redirectOutput(devnet.nodeLog.toFile())
+                .start();
+        devnet.httpService = new HttpService(devnet.rpcUrl());
+        devnet.web3j = Web3j.build(devnet.httpService);
+        devnet.awaitReady();
+        devnet.accounts = devnet.web3j.ethAccounts().send().getAccounts();
+        return devnet;
+    }
+
+    /**
+     * Compiler les contrats (sans lancer de nœud) et lire l'artefact Hardhat de RentalEscrowMulti
+     */
+    public static JsonNode compileArtifact() throws Exception {
+        HardhatDevnet devnet = new HardhatDevnet(hardhatDir(), 0);
+        devnet.run("compile");
+        return devnet.readArtifact();
+    }
+
+    public String rpcUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    /**
+     * Compte #0 : déploie le contrat et devient platformOwner
+     */
+    public String platformOwner() {
+        return accounts.get(0);
+    }
+
+    public String propertyOwner() {
+        return accounts.get(1);
+    }
+
+    /**
+     * Comptes locataires (#2 et suivants), utilisés à tour de rôle
+     */
+    public List<String> tenants() {
+        return accounts.subList(2, accounts.size());
+    }
+
+    public Web3j web3j() {
+        return web3j;
+    }
+
+    /**
+     * Déployer RentalEscrow.sol (bytecode de l'artefact Hardhat)
+     */
+    public String deployRentalEscrow() throws Exception {
+        String bytecode = readArtifact().path("bytecode").asText();
+
+        String txHash = send(Transaction.createContractTransaction(platformOwner(), null, null, null, BigInteger.ZERO, bytecode));
+        return awaitReceipts(List.of(txHash)).get(0).getContractAddress();
+    }
+
+    /**
+     * Créer puis financer {@code count} réservations (fund() par le locataire, montant exact)
+     */
+    public List<FundedBooking> createFundedBookings(String contractAddress, int count, BigInteger rentWei) throws Exception {
+        long leaseStart = Instant.now().plus(Duration.ofDays(1)).getEpochSecond();
+        long leaseEnd = leaseStart + Duration.ofDays(7).getSeconds();
+        List<String> tenants = tenants();
+
+        setAutomine(false);
+        try {
+            List<String> creations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Function createBooking = new Function("createBooking", List.of(
+                        new Address(propertyOwner()),
+                        new Address(tenants.get(i % tenants.size())),
+                        new Uint256(rentWei),
+                        new Uint256(leaseStart),
+                        new Uint256(leaseEnd)
+                ), Collections.emptyList());
+                creations.add(call(platformOwner(), contractAddress, createBooking, BigInteger.ZERO));
+            }
+
+            // bookingId = topic[1] de l'événement BookingCreated (receipts dans l'ordre d'envoi)
+            List<Long> bookingIds = new ArrayList<>(count);
+            for (TransactionReceipt receipt : mineUntilReceipts(creations)) {
+                bookingIds.add(Numeric.toBigInt(receipt.getLogs().get(0).getTopics().get(1)).longValueExact());
+            }
+
+            List<String> fundings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Function fund = new Function("fund", List.of(new Uint256(bookingIds.get(i))), Collections.emptyList());
+                fundings.add(call(tenants.get(i % tenants.size()), contractAddress, fund, rentWei));
+            }
+            List<TransactionReceipt> funded = mineUntilReceipts(fundings);
+
+            List<FundedBooking> bookings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (!funded.get(i).isStatusOK()) {
+                    throw new IllegalStateException("fund() reverted for booking " + bookingIds.get(i));
+                }
+                bookings.add(new FundedBooking(bookingIds.get(i), tenants.get(i % tenants.size()), rentWei, fundings.get(i)));
+            }
+            return bookings;
+        } finally {
+            setAutomine(true);
+        }
+    }
+
+    /**
+     * Miner {@code blocks} blocks vides (confirmations)
+     */
+    public void mine(int blocks) throws IOException {
+        rpc("hardhat_mine", Numeric.toHexStringWithPrefix(BigInteger.valueOf(blocks)));
+    }
+
+    @Override
+    public void close() {
+        if (web3j != null) {
+            web3j.shutdown();
+        }
+        if (node != null) {
+            node.descendants().forEach(ProcessHandle::destroy);
+            node.destroy();
+        }
+    }
+
+    // --- Utilitaires ---
+
+    private String call(String from, String contractAddress, Function function, BigInteger value) throws IOException {
+        return send(Transaction.createFunctionCallTransaction(
+                from, null, null, TX_GAS_LIMIT, contractAddress, value, FunctionEncoder.encode(function)));
+    }
+
+    private String send(Transaction transaction) throws IOException {
+        EthSendTransaction response = web3j.ethSendTransaction(transaction).send();
+        if (response.hasError()) {
+            throw new IllegalStateException("eth_sendTransaction failed: " + response.getError().getMessage());
+        }
+        return response.getTransactionHash();
+    }
+
+    /**
+     * Miner un block à la fois (jusqu'à la limite de gas) tant que des transactions restent en attente
+     */
+    private List<TransactionReceipt> mineUntilReceipts(List<String> txHashes) throws Exception {
+        Instant deadline = Instant.now().plus(MINING_TIMEOUT);
+        while (pendingCount() > 0) {
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Devnet mining timed out");
+            }
+            rpc("evm_mine");
+        }
+        return awaitReceipts(txHashes);
+    }
+
+    private List<TransactionReceipt> awaitReceipts(List<String> txHashes) throws Exception {
+        List<TransactionReceipt> receipts = new ArrayList<>(txHashes.size());
+        for (String txHash : txHashes) {
+            Optional<TransactionReceipt> receipt = web3j.ethGetTransactionReceipt(txHash).send().getTransactionReceipt();
+            receipts.add(receipt.orElseThrow(() -> new IllegalStateException("Transaction not mined: " + txHash)));
+        }
+        return receipts;
+    }
+
+    private long pendingCount() throws IOException {
+        return web3j.ethGetBlockByNumber(DefaultBlockParameterName.PENDING, false)
+                .send().getBlock().getTransactions().size();
+    }
+
+    private void setAutomine(boolean enabled) throws IOException {
+        rpc("evm_setAutomine", enabled);
+    }
+
+    /**
+     * Méthodes propres à Hardhat (evm_*, hardhat_*), résultat ignoré
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void rpc(String method, Object... params) throws IOException {
+        Response response = new Request<>(method, List.of(params), httpService, Response.class).send();
+        if (response.hasError()) {
+            throw new IllegalStateException(method + " failed: " + response.getError().getMessage());
+        }
+    }
+
+    private void awaitReady() throws Exception {
+        Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (true) {
+            if (!node.isAlive()) {
+                throw new IllegalStateException("Hardhat node exited, see " + nodeLog);
+            }
+            try {
+                web3j.ethChainId().send();
+                return;
+            } catch (IOException e) {
+                if (Instant.now().isAfter(deadline)) {
+                    throw new IllegalStateException("Hardhat node not ready after " + STARTUP_TIMEOUT, e);
+                }
+                Thread.sleep(250);
+            }
+        }
+    }
+
+    private JsonNode readArtifact() throws IOException {
+        return objectMapper.readTree(hardhatDir.resolve(ARTIFACT).toFile());
+    }
+
+    private void run(String... args) throws Exception {
+        Process process = process(args).redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("hardhat " + String.join(" ", args) + " failed");
+        }
+    }
+
+    private ProcessBuilder process(String... args) {
+        List<String> command = new ArrayList<>(List.of("npx", "hardhat"));
+        command.addAll(List.of(args));
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(hardhatDir.toFile())
+                .redirectErrorStream(true);
+
+        // hardhat.config.js valide le réseau sepolia même inutilisé : valeurs factices si absentes
+        Map<String, String> env = builder.environment();
+        env.putIfAbsent("SEPOLIA_RPC_URL", "http://127.0.0.1:0");
+        env.putIfAbsent("PRIVATE_KEY", "0x" + "01".repeat(32));
+        return builder;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
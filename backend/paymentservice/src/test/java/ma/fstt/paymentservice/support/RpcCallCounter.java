@@ -0,0 +1,74 @@
+package ma.fstt.paymentservice.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okio.Buffer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteur des appels JSON-RPC sortants (intercepteur OkHttp posé sur le client web3HttpClient)
+ *
+ * Distingue les requêtes HTTP (un batch = 1) des appels JSON-RPC (un batch = N), par méthode.
+ */
+public class RpcCallCounter implements Interceptor, BeanPostProcessor {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LongAdder httpRequests = new LongAdder();
+    private final Map<String, LongAdder> callsByMethod = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof OkHttpClient client && "web3HttpClient".equals(beanName)) {
+            return client.newBuilder().addInterceptor(this).build();
+        }
+        return bean;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        if (chain.request().body() != null) {
+            Buffer buffer = new Buffer();
+            chain.request().body().writeTo(buffer);
+            JsonNode payload = objectMapper.readTree(buffer.readByteArray());
+            if (payload.isArray()) {
+                payload.forEach(this::count);
+            } else {
+                count(payload);
+            }
+        }
+        httpRequests.increment();
+        return chain.proceed(chain.request());
+    }
+
+    private void count(JsonNode call) {
+        callsByMethod.computeIfAbsent(call.path("method").asText(), m -> new LongAdder()).increment();
+    }
+
+    public long httpRequests() {
+        return httpRequests.sum();
+    }
+
+    public long calls() {
+        return callsByMethod.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public Map<String, Long> callsByMethod() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        callsByMethod.forEach((method, count) -> snapshot.put(method, count.sum()));
+        return snapshot;
+    }
+
+    public void reset() {
+        httpRequests.reset();
+        callsByMethod.clear();
+    }
+}
@@ -3,6 +3,7 @@ import { privateApiClient } from "@/lib/api/privateApiClient";
 import { publicApiClient } from "@/lib/api/publicApiClient";
 import {
     Booking,
+    BookingPage,
     EnrichedBooking,
     CreateBookingInput,
     BookingCreateResponse,
@@ -52,18 +53,35 @@ export const BookingService = {
 
     /**
      * 2. GET MY BOOKINGS
-     * GET /api/bookings/my-bookings
+     * GET /api/bookings/my-bookings?page=&size= (page Spring, plus récents d'abord)
+     * Renvoie la page complète (content + totalPages, totalElements, last...) pour la pagination UI
      */
-    getMyBookings: async (): Promise<Booking[]> => {
+    getMyBookings: async (page = 0, size: number = BOOKING_CONSTANTS.PAGE_SIZE): Promise<BookingPage> => {
         try {
-            const response = await privateApiClient.get('/bookings/my-bookings');
-            return response.data as Booking[];
+            const response = await privateApiClient.get('/bookings/my-bookings', { params: { page, size } });
+            return response.data as BookingPage;
         } catch (error: any) {
             console.error("Failed to fetch bookings:", error);
             throw new Error(error?.response?.data?.message || "Failed to fetch your bookings");
         }
     },
 
+    /**
+     * 2b. GET ALL MY BOOKINGS
+     * Parcourt toutes les pages (taille max acceptée par le backend) jusqu'à la dernière
+     */
+    getAllMyBookings: async (): Promise<Booking[]> => {
+        const bookings: Booking[] = [];
+        let page = 0;
+        let result: BookingPage;
+        do {
+            result = await BookingService.getMyBookings(page, BOOKING_CONSTANTS.MAX_PAGE_SIZE);
+            bookings.push(...result.content);
+            page++;
+        } while (!result.last && result.content.length > 0);
+        return bookings;
+    },
+
     /**
      * 3. GET BOOKING DETAILS
      * GET /api/bookings/{bookingId}
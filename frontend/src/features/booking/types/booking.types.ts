@@ -118,6 +118,17 @@ export interface StatusInfo {
 
 // ==================== ERROR TYPES ====================
 
+// Page Spring renvoyée par GET /bookings/my-bookings
+export interface BookingPage {
+    content: Booking[];
+    totalPages: number;
+    totalElements: number;
+    number: number; // Current page number
+    size: number;   // Page size
+    first: boolean;
+    last: boolean;
+}
+
 export interface BookingError {
     timestamp: string;
     status: number;
@@ -131,6 +142,9 @@ export const BOOKING_CONSTANTS = {
     PAYMENT_TIMEOUT_MINUTES: 15,
     PAYMENT_TIMEOUT_MS: 15 * 60 * 1000, // 15 minutes in milliseconds
 
+    PAGE_SIZE: 20,
+    MAX_PAGE_SIZE: 100, // booking.page.max-size côté BookingService
+
     STATUS: {
         AWAITING_PAYMENT: 'AWAITING_PAYMENT' as BookingStatus,
         CONFIRMED: 'CONFIRMED' as BookingStatus,